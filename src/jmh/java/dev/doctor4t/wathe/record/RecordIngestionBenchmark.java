@@ -0,0 +1,78 @@
+package dev.doctor4t.wathe.record;
+
+import net.minecraft.nbt.NbtCompound;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records one round of events through the old ingestion path (synchronized, payload copied, one event object per
+ * event in an ArrayList) and through {@link RecordEventBuffer}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RecordIngestionBenchmark {
+    private static final String[] TYPES = {
+            GameRecordTypes.ITEM_USE, GameRecordTypes.DEATH, GameRecordTypes.SHOP_PURCHASE, GameRecordTypes.TASK_COMPLETE
+    };
+
+    @Param("10000")
+    public int eventsPerRound;
+
+    private final Object lock = new Object();
+    private UUID matchId;
+    private UUID actor;
+
+    @Setup
+    public void setUp() {
+        this.matchId = UUID.randomUUID();
+        this.actor = UUID.randomUUID();
+    }
+
+    private NbtCompound payload(int i) {
+        NbtCompound data = new NbtCompound();
+        data.putString("item", "wathe:knife");
+        data.putInt("count", i & 7);
+        NbtCompound pos = new NbtCompound();
+        pos.putDouble("x", i);
+        pos.putDouble("y", 64);
+        pos.putDouble("z", -i);
+        data.put("pos", pos);
+        return data;
+    }
+
+    @Benchmark
+    public void legacyList(Blackhole blackhole) {
+        List<GameRecordEvent> events = new ArrayList<>();
+        int seq = 0;
+        for (int i = 0; i < this.eventsPerRound; i++) {
+            NbtCompound data = this.payload(i);
+            // 旧实现：全局锁 + 复制负载 + 每个事件一个对象
+            synchronized (this.lock) {
+                NbtCompound copy = data.copy();
+                copy.putUuid("actor", this.actor);
+                events.add(new GameRecordEvent(this.matchId, seq++, TYPES[i & 3], i, i, copy));
+            }
+        }
+        blackhole.consume(events);
+    }
+
+    @Benchmark
+    public void eventBuffer(Blackhole blackhole) {
+        RecordEventBuffer buffer = new RecordEventBuffer(this.matchId);
+        for (int i = 0; i < this.eventsPerRound; i++) {
+            NbtCompound data = this.payload(i);
+            data.putUuid("actor", this.actor);
+            buffer.append(GameRecordTypes.intern(TYPES[i & 3]), i, i, data);
+        }
+        blackhole.consume(buffer);
+    }
+}
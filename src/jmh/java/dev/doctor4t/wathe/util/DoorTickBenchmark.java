@@ -0,0 +1,141 @@
+package dev.doctor4t.wathe.util;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Simulates one minute of a world with 1,000 doors, each opened once, and measures the server-side auto-close cost.
+ * <p>
+ * {@code perDoorTicker} runs the body of the removed {@code DoorBlockEntity.serverTick} for every door every tick.
+ * {@code doorTimer} schedules each opened door on a real {@link DoorTimer} and ticks it with the world time, the way
+ * {@code END_WORLD_TICK} does. Block entities need a loaded world, so the doors are plain objects holding the same
+ * fields; block state lookups and {@code toggleDoor} are reduced to flipping {@code open}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DoorTickBenchmark {
+    // GameConstants.DOOR_AUTOCLOSE_TIME，这里不加载 GameConstants 以免触发注册表
+    private static final int AUTOCLOSE_TIME = 100;
+    private static final int TICKS = 1200;
+
+    @Param("1000")
+    public int doors;
+
+    private int[][] openedAt;
+
+    @Setup
+    public void setUp() {
+        int[] counts = new int[TICKS];
+        for (int i = 0; i < this.doors; i++) {
+            counts[this.openTick(i)]++;
+        }
+        this.openedAt = new int[TICKS][];
+        for (int tick = 0; tick < TICKS; tick++) {
+            this.openedAt[tick] = new int[counts[tick]];
+        }
+        for (int i = 0; i < this.doors; i++) {
+            int tick = this.openTick(i);
+            this.openedAt[tick][--counts[tick]] = i;
+        }
+    }
+
+    private int openTick(int door) {
+        return (int) ((door * 7919L) % TICKS);
+    }
+
+    @Benchmark
+    public void perDoorTicker(Blackhole blackhole) {
+        LegacyDoor[] doors = new LegacyDoor[this.doors];
+        for (int i = 0; i < doors.length; i++) {
+            doors[i] = new LegacyDoor();
+        }
+        int closed = 0;
+        for (int tick = 0; tick < TICKS; tick++) {
+            // 方块实体在玩家操作之前 tick
+            for (LegacyDoor door : doors) {
+                if (serverTick(door)) closed++;
+            }
+            for (int door : this.openedAt[tick]) {
+                doors[door].open = true;
+                doors[door].closeCountdown = AUTOCLOSE_TIME;
+            }
+        }
+        blackhole.consume(closed);
+    }
+
+    @Benchmark
+    public void doorTimer(Blackhole blackhole) {
+        DoorTimer timer = new DoorTimer();
+        TimedDoor[] doors = new TimedDoor[this.doors];
+        for (int i = 0; i < doors.length; i++) {
+            doors[i] = new TimedDoor();
+        }
+        for (int tick = 0; tick < TICKS; tick++) {
+            for (int door : this.openedAt[tick]) {
+                TimedDoor timedDoor = doors[door];
+                timedDoor.open = true;
+                timedDoor.closeDeadline = tick + AUTOCLOSE_TIME;
+                timer.schedule(timedDoor, timedDoor.closeDeadline);
+            }
+            timer.tick(tick);
+        }
+        blackhole.consume(timer.getFired());
+    }
+
+    /**
+     * Body of the removed {@code DoorBlockEntity.serverTick}.
+     *
+     * @return whether the door closed this tick
+     */
+    private static boolean serverTick(LegacyDoor door) {
+        boolean closed = false;
+        if (door.open && !door.blasted) {
+            door.closeCountdown = door.closeCountdown - 1;
+            if (door.closeCountdown <= 0) {
+                // SmallDoorBlock.toggleDoor -> toggleOpen
+                door.open = false;
+                door.closeCountdown = 0;
+                closed = true;
+            }
+        } else {
+            door.closeCountdown = 0;
+        }
+
+        if (door.jammedTime > 0) {
+            door.jammedTime = door.jammedTime - 1;
+        }
+        return closed;
+    }
+
+    private static final class LegacyDoor {
+        private boolean open;
+        private boolean blasted;
+        private int closeCountdown;
+        private int jammedTime;
+    }
+
+    /**
+     * Mirrors {@code DoorBlockEntity.onCloseDeadline}.
+     */
+    private static final class TimedDoor implements DoorTimer.Target {
+        private boolean open;
+        private boolean blasted;
+        private long closeDeadline;
+
+        @Override
+        public boolean onCloseDeadline(long deadline) {
+            if (deadline != this.closeDeadline) return false;
+            this.closeDeadline = 0;
+            if (this.open && !this.blasted) {
+                this.open = false;
+            }
+            return true;
+        }
+    }
+}
@@ -10,10 +10,12 @@ import dev.doctor4t.wathe.command.argument.GameModeArgumentType;
 import dev.doctor4t.wathe.command.argument.MapEffectArgumentType;
 import dev.doctor4t.wathe.command.argument.TimeOfDayArgumentType;
 import dev.doctor4t.wathe.compat.TrainVoicePlugin;
+import dev.doctor4t.wathe.config.datapack.InteractionBlacklistMatcher;
 import dev.doctor4t.wathe.config.datapack.MapEnhancementsConfigurationReloader;
 import dev.doctor4t.wathe.api.event.WatheEventHandlers;
 import dev.doctor4t.wathe.game.GameConstants;
 import dev.doctor4t.wathe.game.GameFunctions;
+import dev.doctor4t.wathe.game.MapTransfer;
 import dev.doctor4t.wathe.index.*;
 import dev.doctor4t.wathe.network.VersionCheckConfigurationTask;
 import dev.doctor4t.wathe.network.VersionCheckPayload;
@@ -24,12 +26,13 @@ import dev.doctor4t.wathe.record.replay.DefaultReplayFormatters;
 import dev.doctor4t.wathe.record.replay.ReplayGenerator;
 import dev.doctor4t.wathe.record.replay.ReplayRegistry;
 import dev.doctor4t.wathe.api.event.RecordEvents;
-import dev.doctor4t.wathe.cosmetic.CosmeticApiClient;
+import dev.doctor4t.wathe.cosmetic.CosmeticResolver;
 import dev.doctor4t.wathe.cosmetic.CosmeticDataCache;
 import dev.doctor4t.wathe.util.*;
 import net.fabricmc.api.ModInitializer;
 import net.fabricmc.fabric.api.command.v2.ArgumentTypeRegistry;
 import net.fabricmc.fabric.api.command.v2.CommandRegistrationCallback;
+import net.fabricmc.fabric.api.entity.event.v1.ServerEntityWorldChangeEvents;
 import net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents;
 import net.fabricmc.fabric.api.networking.v1.PayloadTypeRegistry;
 import net.fabricmc.fabric.api.networking.v1.ServerConfigurationConnectionEvents;
@@ -56,7 +59,6 @@ import org.slf4j.LoggerFactory;
 
 import java.util.Objects;
 import java.util.Optional;
-import java.util.UUID;
 
 public class Wathe implements ModInitializer {
     public static final String MOD_ID = "wathe";
@@ -80,6 +82,7 @@ public class Wathe implements ModInitializer {
 
         // Register area configuration reloader (for datapack support)
         MapEnhancementsConfigurationReloader.register();
+        InteractionBlacklistMatcher.register();
 
         // Registry initializers
         Reflection.initialize(WatheDataComponentTypes.class);
@@ -106,10 +109,11 @@ public class Wathe implements ModInitializer {
             StopCommand.register(dispatcher);
             SetVisualCommand.register(dispatcher);
             ForceRoleCommand.register(dispatcher);
-//            UpdateDoorsCommand.register(dispatcher);
+            UpdateDoorsCommand.register(dispatcher);
             SetTimerCommand.register(dispatcher);
             SetMoneyCommand.register(dispatcher);
             MapVoteCommand.register(dispatcher);
+            DebugCommand.register(dispatcher);
         }));
 
         // 版本检查 - 在配置阶段验证客户端 mod 版本
@@ -160,17 +164,18 @@ public class Wathe implements ModInitializer {
         GameRecordHooks.register();
 
         // 注册回放默认格式化器
-        ReplayRegistry.registerFormatter(GameRecordTypes.DEATH, DefaultReplayFormatters::formatDeath);
-        ReplayRegistry.registerFormatter(GameRecordTypes.SHOP_PURCHASE, DefaultReplayFormatters::formatShopPurchase);
-        ReplayRegistry.registerFormatter(GameRecordTypes.ITEM_PICKUP, DefaultReplayFormatters::formatItemPickup);
-        ReplayRegistry.registerFormatter(GameRecordTypes.ITEM_USE, DefaultReplayFormatters::formatItemUse);
-        ReplayRegistry.registerFormatter(GameRecordTypes.PLATTER_TAKE, DefaultReplayFormatters::formatPlatterTake);
-        ReplayRegistry.registerFormatter(GameRecordTypes.PLAYER_POISONED, DefaultReplayFormatters::formatPoisoned);
-        ReplayRegistry.registerFormatter(GameRecordTypes.SKILL_USE, DefaultReplayFormatters::formatSkillUse);
-        ReplayRegistry.registerFormatter(GameRecordTypes.GLOBAL_EVENT, DefaultReplayFormatters::formatGlobalEvent);
-        ReplayRegistry.registerFormatter(GameRecordTypes.SHIELD_BLOCKED, DefaultReplayFormatters::formatShieldBlocked);
+        ReplayRegistry.registerFormatter(GameRecordTypes.DEATH, DefaultReplayFormatters::formatDeath, true);
+        ReplayRegistry.registerFormatter(GameRecordTypes.SHOP_PURCHASE, DefaultReplayFormatters::formatShopPurchase, true);
+        ReplayRegistry.registerFormatter(GameRecordTypes.ITEM_PICKUP, DefaultReplayFormatters::formatItemPickup, true);
+        ReplayRegistry.registerFormatter(GameRecordTypes.ITEM_USE, DefaultReplayFormatters::formatItemUse, true);
+        ReplayRegistry.registerFormatter(GameRecordTypes.PLATTER_TAKE, DefaultReplayFormatters::formatPlatterTake, true);
+        ReplayRegistry.registerFormatter(GameRecordTypes.PLAYER_POISONED, DefaultReplayFormatters::formatPoisoned, true);
+        ReplayRegistry.registerFormatter(GameRecordTypes.SKILL_USE, DefaultReplayFormatters::formatSkillUse, true);
+        ReplayRegistry.registerFormatter(GameRecordTypes.GLOBAL_EVENT, DefaultReplayFormatters::formatGlobalEvent, true);
+        ReplayRegistry.registerFormatter(GameRecordTypes.SHIELD_BLOCKED, DefaultReplayFormatters::formatShieldBlocked, true);
 
         // 监听记录结束事件，生成并发送回放
+        ReplayGenerator.init();
         RecordEvents.ON_RECORD_END.register((world, match) -> {
             ReplayGenerator.generateAndSend(world, match);
         });
@@ -181,6 +186,8 @@ public class Wathe implements ModInitializer {
             CosmeticDataCache.remove(player.getUuid());
             GameRecordManager.recordPlayerLeave(player);
             GameWorldComponent game = GameWorldComponent.KEY.get(player.getWorld());
+            // 离线玩家不再计入胜负判定的存活人数
+            game.getWinConditionTracker().onPlayerEliminated(player.getUuid());
             if (game.isRunning()
                 && game.hasAnyRole(player.getUuid())
                 && !game.isPlayerDead(player.getUuid())
@@ -190,18 +197,14 @@ public class Wathe implements ModInitializer {
                 });
             }
         });
+        // 离开本维度的玩家不计入原世界的存活人数，回来后重新计入
+        ServerEntityWorldChangeEvents.AFTER_PLAYER_CHANGE_WORLD.register((player, origin, destination) -> {
+            GameWorldComponent.KEY.get(origin).updatePresence(player);
+            GameWorldComponent.KEY.get(destination).updatePresence(player);
+        });
         ServerPlayConnectionEvents.JOIN.register((handler, sender, server) -> {
             GameRecordManager.recordPlayerJoin(handler.getPlayer());
 
-            // 异步拉取该玩家的皮肤数据并缓存
-            UUID skinUuid = handler.getPlayer().getUuid();
-            CosmeticApiClient.fetchPlayerCosmetics(skinUuid).thenAccept(cosmetics -> {
-                server.execute(() -> {
-                    if (!cosmetics.isEmpty()) {
-                        CosmeticDataCache.update(skinUuid, cosmetics);
-                    }
-                });
-            });
 //            ServerPlayerEntity player = handler.getPlayer();
 //
 //            // 查找是否有世界正在运行游戏
@@ -287,6 +290,15 @@ public class Wathe implements ModInitializer {
         });
 
         Scheduler.init();
+        MapTransfer.init();
+        LagCompensation.init();
+        // 玩家加入时从缓存或 API 获取皮肤数据
+        CosmeticResolver.init();
+        DoorRegistry.register();
+        DoorTimer.register();
+        RoundEntityRegistry.register();
+        // 在其他 tick 结束回调之后注册，本 tick 标记的同步都在同一 tick 发出
+        SyncCoalescer.init();
     }
 
     public static boolean isSkyVisibleAdjacent(@NotNull Entity player) {
@@ -7,6 +7,24 @@ public class WatheConfig extends MidnightConfig {
     @Entry
     public static boolean ignoreMapPlayerLimit = true;
 
+    @Entry(min = 64, max = 1048576)
+    public static int trainResetBlocksPerTick = 4096;
+
+    @Entry(min = 1, max = 50)
+    public static int roundTeardownBudgetMs = 5;
+
+    @Entry
+    public static String cosmeticApiUrl = "https://express-api.tlspark.cn";
+
+    @Entry(min = 0, max = 10080)
+    public static int cosmeticCacheTtlMinutes = 360;
+
+    @Entry(min = 1, max = 100000)
+    public static int recordRetentionMatches = 5000;
+
+    @Entry(min = 0, max = 3650)
+    public static int recordRetentionDays = 180;
+
     // Client-side settings
     @Entry
     public static boolean disableScreenShake = false;
@@ -17,6 +35,9 @@ public class WatheConfig extends MidnightConfig {
     @Entry(isSlider = true, min = 0, max = 100)
     public static int snowflakeChance = 100;
 
+    @Entry(min = 4, max = 1024)
+    public static int skinCacheBudgetMb = 64;
+
     public enum SnowModeConfig {
         NO_OPTIMIZATION,  // Standard behavior: checking if the particle hit the block.
         BOX_COLLIDER, // replaces the calculation against the terrain to the calculation against a box that approximates the train
@@ -4,6 +4,8 @@ import net.fabricmc.fabric.api.event.Event;
 import net.minecraft.entity.Entity;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.Arrays;
+
 import static net.fabricmc.fabric.api.event.EventFactory.createArrayBacked;
 
 /**
@@ -47,22 +49,33 @@ import static net.fabricmc.fabric.api.event.EventFactory.createArrayBacked;
  *     }
  *     return null;
  * });
+ *
+ * // 结果在同一 tick 内不变的监听器，可标记为稳定以参与客户端缓存
+ * GetInstinctHighlight.EVENT.register(GetInstinctHighlight.stable(target -> {
+ *     return isMarked(target) ? HighlightResult.withKeybind(0x00FFFF) : null;
+ * }));
  * }</pre>
+ * <p>
+ * 客户端每个 tick 为所有实体计算一次高亮表，渲染时只查表。{@link Stable} 监听器的结果随表一起缓存；
+ * 未标记的监听器仍会在每次查询时调用，因此只有依赖逐帧状态的监听器才应保持未标记。
  */
 public interface GetInstinctHighlight {
 
-    Event<GetInstinctHighlight> EVENT = createArrayBacked(GetInstinctHighlight.class, listeners -> target -> {
-        HighlightResult bestResult = null;
-        for (GetInstinctHighlight listener : listeners) {
-            HighlightResult result = listener.getHighlight(target);
-            if (result != null) {
-                if (bestResult == null || result.priority() > bestResult.priority()) {
-                    bestResult = result;
-                }
-            }
-        }
-        return bestResult;
-    });
+    Event<GetInstinctHighlight> EVENT = createArrayBacked(GetInstinctHighlight.class, Invoker::new);
+
+    /**
+     * 获取事件调用器，可分别计算稳定与非稳定监听器的结果
+     */
+    static Invoker invoker() {
+        return (Invoker) EVENT.invoker();
+    }
+
+    /**
+     * 将监听器标记为 tick 内稳定
+     */
+    static Stable stable(GetInstinctHighlight listener) {
+        return listener::getHighlight;
+    }
 
     /**
      * 获取实体的本能高亮效果
@@ -73,6 +86,66 @@ public interface GetInstinctHighlight {
     @Nullable
     HighlightResult getHighlight(Entity target);
 
+    /**
+     * 标记接口：同一 tick 内对同一实体总是返回相同结果的监听器。
+     * <p>
+     * 结果只依赖实体、角色等按 tick 同步的状态时应实现此接口，客户端会每 tick 计算一次并缓存，而不是每帧每个实体都调用。
+     */
+    @FunctionalInterface
+    interface Stable extends GetInstinctHighlight {
+    }
+
+    /**
+     * 事件调用器，按注册顺序保存监听器并区分稳定与非稳定监听器。
+     * <p>
+     * 同优先级时先注册的监听器优先；分开计算时，同优先级的稳定结果优先于非稳定结果。
+     */
+    final class Invoker implements GetInstinctHighlight {
+        private final GetInstinctHighlight[] stableListeners;
+        private final GetInstinctHighlight[] volatileListeners;
+        private final GetInstinctHighlight[] listeners;
+
+        private Invoker(GetInstinctHighlight[] listeners) {
+            this.listeners = listeners;
+            this.stableListeners = Arrays.stream(listeners).filter(listener -> listener instanceof Stable).toArray(GetInstinctHighlight[]::new);
+            this.volatileListeners = Arrays.stream(listeners).filter(listener -> !(listener instanceof Stable)).toArray(GetInstinctHighlight[]::new);
+        }
+
+        @Override
+        public @Nullable HighlightResult getHighlight(Entity target) {
+            return getBest(this.listeners, target);
+        }
+
+        public @Nullable HighlightResult getStableHighlight(Entity target) {
+            return getBest(this.stableListeners, target);
+        }
+
+        public @Nullable HighlightResult getVolatileHighlight(Entity target) {
+            return getBest(this.volatileListeners, target);
+        }
+
+        public boolean hasStableListeners() {
+            return this.stableListeners.length > 0;
+        }
+
+        public boolean hasVolatileListeners() {
+            return this.volatileListeners.length > 0;
+        }
+
+        private static @Nullable HighlightResult getBest(GetInstinctHighlight[] listeners, Entity target) {
+            HighlightResult bestResult = null;
+            for (GetInstinctHighlight listener : listeners) {
+                HighlightResult result = listener.getHighlight(target);
+                if (result != null) {
+                    if (bestResult == null || result.priority() > bestResult.priority()) {
+                        bestResult = result;
+                    }
+                }
+            }
+            return bestResult;
+        }
+    }
+
     /**
      * 高亮结果，包含颜色和额外配置。
      *
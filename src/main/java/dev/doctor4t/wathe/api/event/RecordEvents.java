@@ -11,7 +11,8 @@ public final class RecordEvents {
     }
 
     /**
-     * Called when a match record has finished and is ready for consumption.
+     * Called on the server thread when a match record has finished and is ready for consumption.
+     * If the record store is open, this fires only after the match segment has been written to disk.
      */
     public static final Event<OnRecordEnd> ON_RECORD_END = createArrayBacked(OnRecordEnd.class, listeners -> (world, record) -> {
         for (OnRecordEnd listener : listeners) {
@@ -7,7 +7,6 @@ import dev.doctor4t.wathe.cca.MapEnhancementsWorldComponent;
 import dev.doctor4t.wathe.cca.PlayerShopComponent;
 import dev.doctor4t.wathe.cca.PlayerVeteranComponent;
 import dev.doctor4t.wathe.client.WatheClient;
-import dev.doctor4t.wathe.config.datapack.MapEnhancementsConfiguration.InteractionBlacklistConfig;
 import dev.doctor4t.wathe.game.GameConstants;
 import dev.doctor4t.wathe.index.WatheItems;
 import net.fabricmc.fabric.api.event.player.UseBlockCallback;
@@ -31,9 +30,7 @@ public class WatheEventHandlers {
         UseBlockCallback.EVENT.register((player, world, hand, hitResult) -> {
             Block block = world.getBlockState(hitResult.getBlockPos()).getBlock();
             MapEnhancementsWorldComponent enhancements = MapEnhancementsWorldComponent.KEY.get(world);
-            InteractionBlacklistConfig blacklist = enhancements.getInteractionBlacklistConfig();
-
-            boolean isBlacklisted = blacklist.isBlacklisted(block);
+            boolean isBlacklisted = enhancements.getInteractionBlacklistMatcher().isBlacklisted(block);
 
             if (world.isClient && WatheClient.blockBlacklistDebugEnabled) {
                 String blockId = net.minecraft.registry.Registries.BLOCK.getId(block).toString();
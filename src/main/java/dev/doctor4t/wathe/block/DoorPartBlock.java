@@ -74,7 +74,8 @@ public abstract class DoorPartBlock extends BlockWithEntity {
 
     @Override
     public @Nullable <T extends BlockEntity> BlockEntityTicker<T> getTicker(World world, BlockState state, BlockEntityType<T> type) {
-        return world.isClient ? validateTicker(type, this.getBlockEntityType(), DoorBlockEntity::clientTick) : validateTicker(type, this.getBlockEntityType(), DoorBlockEntity::serverTick);
+        // 服务端不需要每 tick 更新，自动关门由 DoorTimer 驱动
+        return world.isClient ? validateTicker(type, this.getBlockEntityType(), DoorBlockEntity::clientTick) : null;
     }
 
     protected abstract BlockEntityType<? extends DoorBlockEntity> getBlockEntityType();
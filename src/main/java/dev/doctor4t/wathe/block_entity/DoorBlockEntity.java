@@ -5,18 +5,20 @@ import dev.doctor4t.wathe.block.DoorPartBlock;
 import dev.doctor4t.wathe.block.SmallDoorBlock;
 import dev.doctor4t.wathe.game.GameConstants;
 import dev.doctor4t.wathe.index.WatheSounds;
+import dev.doctor4t.wathe.util.DoorTimer;
 import net.minecraft.block.BlockState;
 import net.minecraft.block.entity.BlockEntityType;
 import net.minecraft.entity.AnimationState;
 import net.minecraft.nbt.NbtCompound;
 import net.minecraft.registry.RegistryWrapper;
+import net.minecraft.server.world.ServerWorld;
 import net.minecraft.sound.SoundCategory;
 import net.minecraft.state.property.Properties;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.Direction;
 import net.minecraft.world.World;
 
-public abstract class DoorBlockEntity extends SyncingBlockEntity {
+public abstract class DoorBlockEntity extends SyncingBlockEntity implements DoorTimer.Target {
 
     public AnimationState state = new AnimationState();
     protected long lastUpdate = 0L;
@@ -25,8 +27,12 @@ public abstract class DoorBlockEntity extends SyncingBlockEntity {
 
     private String keyName = "";
 
-    private int closeCountdown = 0;
-    private int jammedTime = 0;
+    // 自动关门和卡住的截止时间（世界 tick），0 表示没有
+    private long closeDeadline = 0;
+    private long jamDeadline = 0;
+    // 从 NBT 读取时世界可能还未设置，先保存剩余 tick，设置世界后再换算
+    private int pendingCloseCountdown = 0;
+    private int pendingJammedTime = 0;
     private boolean blasted = false;
 
     public DoorBlockEntity(BlockEntityType<?> type, BlockPos pos, BlockState state) {
@@ -40,18 +46,46 @@ public abstract class DoorBlockEntity extends SyncingBlockEntity {
         entity.age++;
     }
 
-    public static <T extends DoorBlockEntity> void serverTick(World world, BlockPos pos, BlockState state, T entity) {
-        if (state.get(DoorPartBlock.OPEN) && !entity.isBlasted()) {
-            entity.setCloseCountdown(entity.getCloseCountdown() - 1);
-            if (entity.getCloseCountdown() <= 0) {
-                SmallDoorBlock.toggleDoor(state, world, (SmallDoorBlockEntity) entity, pos);
-            }
+    /**
+     * Called by the {@link DoorTimer} once the world reaches a close deadline this door registered.
+     *
+     * @return false if the deadline is outdated, i.e. the door was closed, re-opened or unloaded in the meantime
+     */
+    @Override
+    public boolean onCloseDeadline(long deadline) {
+        if (this.world == null || this.isRemoved() || deadline != this.closeDeadline) return false;
+        this.closeDeadline = 0;
+        BlockState state = this.world.getBlockState(this.pos);
+        if (state.getBlock() instanceof SmallDoorBlock && state.get(DoorPartBlock.OPEN) && !this.isBlasted()) {
+            SmallDoorBlock.toggleDoor(state, this.world, (SmallDoorBlockEntity) this, this.pos);
+        }
+        return true;
+    }
+
+    @Override
+    public void setWorld(World world) {
+        super.setWorld(world);
+        if (this.pendingCloseCountdown > 0) {
+            this.setCloseCountdown(this.pendingCloseCountdown);
+            this.pendingCloseCountdown = 0;
         } else {
-            entity.setCloseCountdown(0);
+            this.scheduleCloseIfOpen();
+        }
+        if (this.pendingJammedTime > 0) {
+            this.setJammed(this.pendingJammedTime);
+            this.pendingJammedTime = 0;
         }
+    }
 
-        if (entity.isJammed()) {
-            entity.setJammed(entity.getJammedTime() - 1);
+    /**
+     * Doors that are open without a countdown, e.g. saved open in the map template or restored open by a train reset,
+     * used to close on the next server tick. Without a ticker they have to register that wakeup themselves.
+     */
+    private void scheduleCloseIfOpen() {
+        if (!(this.world instanceof ServerWorld) || this.closeDeadline != 0 || this.isBlasted()) return;
+        BlockState state = this.getCachedState();
+        if (state.contains(DoorPartBlock.OPEN) && state.get(DoorPartBlock.OPEN)) {
+            this.setCloseCountdown(1);
         }
     }
 
@@ -71,7 +105,7 @@ public abstract class DoorBlockEntity extends SyncingBlockEntity {
             this.lastUpdate = this.world.getTime();
             this.open = !this.open;
             this.world.addSyncedBlockEvent(this.pos, this.getCachedState().getBlock(), 1, this.open ? 1 : 0);
-            this.closeCountdown = this.open ? GameConstants.DOOR_AUTOCLOSE_TIME : 0;
+            this.setCloseCountdown(this.open ? GameConstants.DOOR_AUTOCLOSE_TIME : 0);
         }
     }
 
@@ -132,6 +166,10 @@ public abstract class DoorBlockEntity extends SyncingBlockEntity {
         this.setCloseCountdown(nbt.getInt("closeCountdown"));
         this.setJammed(nbt.getInt("jammedTime"));
         this.setKeyName(nbt.getString("keyName"));
+        // 列车重置会把模板数据写入已加载的门，此时不会再调用 setWorld
+        if (this.world != null) {
+            this.scheduleCloseIfOpen();
+        }
     }
 
     public String getKeyName() {
@@ -143,15 +181,38 @@ public abstract class DoorBlockEntity extends SyncingBlockEntity {
     }
 
     public int getCloseCountdown() {
-        return closeCountdown;
+        return this.getRemaining(this.closeDeadline);
     }
 
+    /**
+     * Closes the door after the given number of ticks, or never if it is not positive.
+     */
     public void setCloseCountdown(int closeCountdown) {
-        this.closeCountdown = closeCountdown;
+        if (this.world == null) {
+            this.pendingCloseCountdown = closeCountdown;
+            return;
+        }
+        if (closeCountdown <= 0) {
+            this.closeDeadline = 0;
+            return;
+        }
+        this.closeDeadline = this.world.getTime() + closeCountdown;
+        if (this.world instanceof ServerWorld serverWorld) {
+            DoorTimer.get(serverWorld).schedule(this, this.closeDeadline);
+        }
     }
 
     public void setJammed(int time) {
-        this.jammedTime = time;
+        if (this.world == null) {
+            this.pendingJammedTime = time;
+            return;
+        }
+        this.jamDeadline = time > 0 ? this.world.getTime() + time : 0;
+    }
+
+    private int getRemaining(long deadline) {
+        if (deadline == 0 || this.world == null) return 0;
+        return (int) Math.max(0, deadline - this.world.getTime());
     }
 
     public void jam() {
@@ -175,11 +236,11 @@ public abstract class DoorBlockEntity extends SyncingBlockEntity {
     }
 
     public boolean isJammed() {
-        return this.jammedTime > 0;
+        return this.getJammedTime() > 0;
     }
 
     public int getJammedTime() {
-        return jammedTime;
+        return this.getRemaining(this.jamDeadline);
     }
 
     public boolean isBlasted() {
@@ -187,6 +248,10 @@ public abstract class DoorBlockEntity extends SyncingBlockEntity {
     }
 
     public void setBlasted(boolean blasted) {
+        boolean repaired = this.blasted && !blasted;
         this.blasted = blasted;
+        if (repaired) {
+            this.scheduleCloseIfOpen();
+        }
     }
 }
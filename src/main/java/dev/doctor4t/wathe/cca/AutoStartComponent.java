@@ -4,6 +4,7 @@ import dev.doctor4t.wathe.Wathe;
 import dev.doctor4t.wathe.api.GameMode;
 import dev.doctor4t.wathe.game.GameConstants;
 import dev.doctor4t.wathe.game.GameFunctions;
+import dev.doctor4t.wathe.util.SyncCoalescer;
 import net.minecraft.nbt.NbtCompound;
 import net.minecraft.registry.RegistryWrapper;
 import net.minecraft.server.world.ServerWorld;
@@ -25,7 +26,7 @@ public class AutoStartComponent implements AutoSyncedComponent, CommonTickingCom
     }
 
     public void sync() {
-        KEY.sync(this.world);
+        SyncCoalescer.markDirty(KEY, this.world);
     }
 
     public void reset() {
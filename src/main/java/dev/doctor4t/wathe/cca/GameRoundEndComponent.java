@@ -8,6 +8,7 @@ import dev.doctor4t.wathe.api.Role;
 import dev.doctor4t.wathe.api.WatheGameModes;
 import dev.doctor4t.wathe.api.WatheRoles;
 import dev.doctor4t.wathe.game.GameFunctions;
+import dev.doctor4t.wathe.util.SyncCoalescer;
 import net.minecraft.nbt.NbtCompound;
 import net.minecraft.nbt.NbtElement;
 import net.minecraft.nbt.NbtList;
@@ -49,7 +50,7 @@ public class GameRoundEndComponent implements AutoSyncedComponent {
     }
 
     public void sync() {
-        KEY.sync(this.scoreboard);
+        SyncCoalescer.markDirty(KEY, this.scoreboard);
     }
 
     // 新方法：从 GameWorldComponent 获取所有玩家数据（包括退出的玩家）
@@ -1,6 +1,7 @@
 package dev.doctor4t.wathe.cca;
 
 import dev.doctor4t.wathe.Wathe;
+import dev.doctor4t.wathe.util.SyncCoalescer;
 import net.minecraft.nbt.NbtCompound;
 import net.minecraft.registry.RegistryWrapper;
 import net.minecraft.world.World;
@@ -21,7 +22,7 @@ public class GameTimeComponent implements AutoSyncedComponent, CommonTickingComp
     }
 
     public void sync() {
-        KEY.sync(this.world);
+        SyncCoalescer.markDirty(KEY, this.world);
     }
 
     public void reset() {
@@ -2,14 +2,21 @@ package dev.doctor4t.wathe.cca;
 
 import dev.doctor4t.wathe.Wathe;
 import dev.doctor4t.wathe.api.*;
+import dev.doctor4t.wathe.util.SyncCoalescer;
 import dev.doctor4t.wathe.util.WathePermissions;
 import dev.doctor4t.wathe.compat.TrainVoicePlugin;
 import dev.doctor4t.wathe.game.GameConstants;
 import dev.doctor4t.wathe.game.GameFunctions;
+import dev.doctor4t.wathe.game.WinConditionTracker;
+import dev.doctor4t.wathe.game.RoundTeardown;
+import dev.doctor4t.wathe.game.TrainResetEngine;
 import com.mojang.authlib.GameProfile;
+import it.unimi.dsi.fastutil.objects.Object2LongMap;
+import it.unimi.dsi.fastutil.objects.Object2LongOpenHashMap;
 import me.lucko.fabric.api.permissions.v0.Permissions;
 import net.minecraft.entity.player.PlayerEntity;
 import net.minecraft.nbt.*;
+import net.minecraft.network.RegistryByteBuf;
 import net.minecraft.registry.RegistryWrapper;
 import net.minecraft.server.network.ServerPlayerEntity;
 import net.minecraft.server.world.ServerWorld;
@@ -29,9 +36,13 @@ import org.ladysnake.cca.api.v3.component.tick.ClientTickingComponent;
 import org.ladysnake.cca.api.v3.component.tick.ServerTickingComponent;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 public class GameWorldComponent implements AutoSyncedComponent, ServerTickingComponent, ClientTickingComponent {
@@ -60,6 +71,41 @@ public class GameWorldComponent implements AutoSyncedComponent, ServerTickingCom
     private final HashSet<UUID> deadPlayers = new HashSet<>();
     private final HashMap<Integer, RoomData> rooms = new HashMap<>();
 
+    // 角色/阵营/存活索引，由 addRole、markPlayerDead、addPlayerToRoom 增量维护，查询时无需遍历 roles
+    private final HashMap<Role, UuidIndex> playersByRole = new HashMap<>();
+    private final EnumMap<Faction, UuidIndex> playersByFaction = new EnumMap<>(Faction.class);
+    private final UuidIndex killerTeamPlayers = new UuidIndex();
+    private final UuidIndex allPlayers = new UuidIndex();
+    private final UuidIndex alivePlayers = new UuidIndex();
+    private final HashMap<UUID, RoomData> roomByPlayer = new HashMap<>();
+    private final WinConditionTracker winConditionTracker = new WinConditionTracker();
+    private final TrainResetEngine trainResetEngine = new TrainResetEngine();
+    private final RoundTeardown roundTeardown = new RoundTeardown();
+    // 角色或死亡名单每次变化时递增，客户端缓存据此判断是否需要重建
+    private int roleVersion = 0;
+
+    /**
+     * 按插入顺序保存的 UUID 集合，contains 为 O(1)，并提供只读的 List 视图
+     */
+    private static final class UuidIndex {
+        private final HashSet<UUID> set = new HashSet<>();
+        private final ArrayList<UUID> list = new ArrayList<>();
+        private final List<UUID> view = Collections.unmodifiableList(list);
+
+        private void add(UUID uuid) {
+            if (set.add(uuid)) list.add(uuid);
+        }
+
+        private void remove(UUID uuid) {
+            if (set.remove(uuid)) list.remove(uuid);
+        }
+
+        private void clear() {
+            set.clear();
+            list.clear();
+        }
+    }
+
     /**
      * 房间数据类，存储房间索引、名称和玩家列表
      */
@@ -98,6 +144,11 @@ public class GameWorldComponent implements AutoSyncedComponent, ServerTickingCom
     }
 
     private int ticksUntilNextResetAttempt = -1;
+    private int failedResetAttempts = 0;
+    // 不持久化：重启或切换到新地图后的第一局开局前必须先重置一次
+    private boolean mapResetSinceLoad = false;
+    // 模板或列车区域一直未加载时最多重试的次数，之后放弃本次重置
+    private static final int MAX_RESET_ATTEMPTS = 30;
 
     private int psychosActive = 0;
 
@@ -116,13 +167,51 @@ public class GameWorldComponent implements AutoSyncedComponent, ServerTickingCom
     // Disabled roles (persisted)
     private final HashSet<Identifier> disabledRoles = new HashSet<>();
 
+    // 杀手阵营共享的商店冷却：商品 ID -> 结束时的世界 tick，本局有效，不持久化
+    private final Object2LongOpenHashMap<String> killerShopCooldowns = new Object2LongOpenHashMap<>();
+
+    // 增量同步：每个位对应一段同步数据，只发送上次同步后变化过的段
+    private static final int SYNC_SCALARS = 1;
+    private static final int SYNC_ROLES = 1 << 1;
+    private static final int SYNC_PROFILES = 1 << 2;
+    private static final int SYNC_DEAD_PLAYERS = 1 << 3;
+    private static final int SYNC_PREVENT_GUN_PICKUP = 1 << 4;
+    private static final int SYNC_DISABLED_ROLES = 1 << 5;
+    private static final int SYNC_ROOMS = 1 << 6;
+    private static final int SYNC_KILLER_SHOP_COOLDOWNS = 1 << 7;
+    private static final int SYNC_ALL = (1 << 8) - 1;
+
+    private int dirtySections = SYNC_ALL;
+
     public GameWorldComponent(World world) {
         this.world = world;
     }
 
+    private void markDirty(int sections) {
+        this.dirtySections |= sections;
+        if ((sections & (SYNC_ROLES | SYNC_DEAD_PLAYERS)) != 0) this.roleVersion++;
+    }
 
+    /**
+     * Sends the sections that changed since the last sync to all clients at the end of the tick, together with any
+     * sections marked dirty until then.
+     * Joining players still receive a full snapshot through {@link #writeSyncPacket}.
+     */
     public void sync() {
-        GameWorldComponent.KEY.sync(this.world);
+        if (this.world.isClient || this.dirtySections == 0) return;
+        SyncCoalescer.markDirty(KEY, this.world, () -> {
+            int sections = this.dirtySections;
+            this.dirtySections = 0;
+            return (buf, recipient) -> this.writeSections(buf, sections);
+        });
+    }
+
+    /**
+     * Sends a full snapshot to all clients, e.g. after mutating the maps returned by {@link #getRoles()}.
+     */
+    public void fullSync() {
+        this.markDirty(SYNC_ALL);
+        this.sync();
     }
 
     public boolean isBound() {
@@ -131,6 +220,7 @@ public class GameWorldComponent implements AutoSyncedComponent, ServerTickingCom
 
     public void setBound(boolean bound) {
         this.bound = bound;
+        this.markDirty(SYNC_SCALARS);
         this.sync();
     }
 
@@ -138,12 +228,17 @@ public class GameWorldComponent implements AutoSyncedComponent, ServerTickingCom
         return fade;
     }
 
+    /**
+     * Not synced on its own: clients advance the fade themselves in {@link #tickCommon} from the game status, and the
+     * current value is sent along whenever the status or another scalar changes.
+     */
     public void setFade(int fade) {
         this.fade = MathHelper.clamp(fade, 0, GameConstants.FADE_TIME + GameConstants.FADE_PAUSE);
     }
 
     public void setGameStatus(GameStatus gameStatus) {
         this.gameStatus = gameStatus;
+        this.markDirty(SYNC_SCALARS);
         this.sync();
     }
 
@@ -156,16 +251,78 @@ public class GameWorldComponent implements AutoSyncedComponent, ServerTickingCom
     }
 
     public void addRole(PlayerEntity player, Role role) {
-        this.roles.put(player.getUuid(), role);
+        this.putRole(player.getUuid(), role);
         this.gameProfiles.put(player.getUuid(), player.getGameProfile());
+        this.markDirty(SYNC_ROLES | SYNC_PROFILES);
     }
 
     public void addRole(UUID player, Role role) {
-        this.roles.put(player, role);
+        this.putRole(player, role);
+        this.markDirty(SYNC_ROLES);
+    }
+
+    private void putRole(UUID player, Role role) {
+        Role previous = this.roles.put(player, role);
+        if (previous == role) return;
+        if (previous != null) this.unindexRole(player, previous);
+        if (role != null) this.indexRole(player, role);
+    }
+
+    private void indexRole(UUID player, Role role) {
+        this.playersByRole.computeIfAbsent(role, r -> new UuidIndex()).add(player);
+        this.playersByFaction.computeIfAbsent(role.getFaction(), f -> new UuidIndex()).add(player);
+        if (role.canUseKiller()) this.killerTeamPlayers.add(player);
+        if (role != WatheRoles.NO_ROLE) {
+            this.allPlayers.add(player);
+            if (!this.deadPlayers.contains(player)) {
+                this.alivePlayers.add(player);
+                this.winConditionTracker.onRoleAssigned(player, role);
+            }
+        }
+    }
+
+    private void unindexRole(UUID player, Role role) {
+        UuidIndex byRole = this.playersByRole.get(role);
+        if (byRole != null) byRole.remove(player);
+        UuidIndex byFaction = this.playersByFaction.get(role.getFaction());
+        if (byFaction != null) byFaction.remove(player);
+        this.killerTeamPlayers.remove(player);
+        this.allPlayers.remove(player);
+        this.alivePlayers.remove(player);
+        this.winConditionTracker.onPlayerEliminated(player);
+    }
+
+    private void clearIndex() {
+        this.playersByRole.clear();
+        this.playersByFaction.clear();
+        this.killerTeamPlayers.clear();
+        this.allPlayers.clear();
+        this.alivePlayers.clear();
+        this.roomByPlayer.clear();
+        this.winConditionTracker.reset();
+    }
+
+    private void rebuildIndex() {
+        this.roleVersion++;
+        this.clearIndex();
+        this.roles.forEach((uuid, role) -> {
+            if (role != null) this.indexRole(uuid, role);
+        });
+        for (RoomData room : this.rooms.values()) {
+            for (UUID player : room.getPlayers()) {
+                this.roomByPlayer.putIfAbsent(player, room);
+            }
+        }
     }
 
     public void resetRole(Role role) {
-        roles.entrySet().removeIf(entry -> entry.getValue() == role);
+        UuidIndex byRole = this.playersByRole.get(role);
+        if (byRole == null || byRole.list.isEmpty()) return;
+        for (UUID player : new ArrayList<>(byRole.list)) {
+            this.roles.remove(player);
+            this.unindexRole(player, role);
+        }
+        this.markDirty(SYNC_ROLES);
     }
 
     public void setRoles(List<UUID> players, Role role) {
@@ -176,10 +333,20 @@ public class GameWorldComponent implements AutoSyncedComponent, ServerTickingCom
         }
     }
 
+    /**
+     * @return the backing role map; use {@link #addRole} to modify it so the role indexes stay current
+     */
     public HashMap<UUID, Role> getRoles() {
         return roles;
     }
 
+    /**
+     * Incremented whenever roles or dead players change, locally or through a sync.
+     */
+    public int getRoleVersion() {
+        return this.roleVersion;
+    }
+
     public @Nullable Role getRole(PlayerEntity player) {
         return getRole(player.getUuid());
     }
@@ -188,48 +355,45 @@ public class GameWorldComponent implements AutoSyncedComponent, ServerTickingCom
         return roles.get(uuid);
     }
 
-    public List<UUID> getAllAlivePlayers()
-    {
-        List<UUID> ret = new ArrayList<>();
-        roles.forEach((uuid, playerRole) -> {
-            if (hasAnyRole((uuid)) && !deadPlayers.contains(uuid))
-            {
-                ret.add(uuid);
-            }
-        });
-        return ret;
+    /**
+     * 以下查询返回内部索引的只读视图，会随角色变化实时更新；遍历时如需修改角色或击杀玩家请先复制
+     */
+    public List<UUID> getAllAlivePlayers() {
+        return alivePlayers.view;
     }
 
-    public List<UUID> getAllPlayers()
-    {
-        List<UUID> ret = new ArrayList<>();
-        roles.forEach((uuid, playerRole) -> {
-            if (hasAnyRole((uuid))) {
-                ret.add(uuid);
-            }
-        });
-        return ret;
+    public List<UUID> getAllPlayers() {
+        return allPlayers.view;
     }
 
     public List<UUID> getAllKillerTeamPlayers() {
-        List<UUID> ret = new ArrayList<>();
-        roles.forEach((uuid, playerRole) -> {
-            if (playerRole.canUseKiller()) {
-                ret.add(uuid);
-            }
-        });
-
-        return ret;
+        return killerTeamPlayers.view;
     }
+
     public List<UUID> getAllWithRole(Role role) {
-        List<UUID> ret = new ArrayList<>();
-        roles.forEach((uuid, playerRole) -> {
-            if (playerRole == role) {
-                ret.add(uuid);
-            }
-        });
+        UuidIndex byRole = playersByRole.get(role);
+        return byRole != null ? byRole.view : List.of();
+    }
 
-        return ret;
+    public List<UUID> getAllInFaction(Faction faction) {
+        UuidIndex byFaction = playersByFaction.get(faction);
+        return byFaction != null ? byFaction.view : List.of();
+    }
+
+    public boolean isPlayerAlive(UUID uuid) {
+        return alivePlayers.set.contains(uuid);
+    }
+
+    public WinConditionTracker getWinConditionTracker() {
+        return winConditionTracker;
+    }
+
+    public TrainResetEngine getTrainResetEngine() {
+        return trainResetEngine;
+    }
+
+    public RoundTeardown getRoundTeardown() {
+        return roundTeardown;
     }
 
     public boolean isRole(@NotNull PlayerEntity player, Role role) {
@@ -245,7 +409,7 @@ public class GameWorldComponent implements AutoSyncedComponent, ServerTickingCom
     }
 
     public boolean hasAnyRole(@NotNull UUID uuid) {
-        return this.roles.get(uuid) != null && this.roles.get(uuid) != WatheRoles.NO_ROLE;
+        return this.allPlayers.set.contains(uuid);
     }
 
     public boolean canUseKillerFeatures(@NotNull PlayerEntity player) {
@@ -260,11 +424,27 @@ public class GameWorldComponent implements AutoSyncedComponent, ServerTickingCom
         this.gameProfiles.clear();
         this.deadPlayers.clear();
         this.rooms.clear();
+        this.clearIndex();
+        this.killerShopCooldowns.clear();
+        this.markDirty(SYNC_ROLES | SYNC_PROFILES | SYNC_DEAD_PLAYERS | SYNC_ROOMS | SYNC_KILLER_SHOP_COOLDOWNS);
         setPsychosActive(0);
     }
 
     public void markPlayerDead(UUID uuid) {
-        this.deadPlayers.add(uuid);
+        if (this.deadPlayers.add(uuid)) {
+            this.alivePlayers.remove(uuid);
+            this.winConditionTracker.onPlayerEliminated(uuid);
+            this.markDirty(SYNC_DEAD_PLAYERS);
+        }
+    }
+
+    /**
+     * Only counts the player towards the win condition while they are in this world and neither spectating nor in
+     * creative, like the player scan it replaced.
+     */
+    public void updatePresence(PlayerEntity player) {
+        this.winConditionTracker.setPresent(player.getUuid(),
+                player.getWorld() == this.world && !GameFunctions.isPlayerSpectatingOrCreative(player));
     }
 
     public boolean isPlayerDead(UUID uuid) {
@@ -280,7 +460,10 @@ public class GameWorldComponent implements AutoSyncedComponent, ServerTickingCom
      * @return 房间数据
      */
     public RoomData getOrCreateRoom(int roomIndex, String roomName) {
-        return this.rooms.computeIfAbsent(roomIndex, idx -> new RoomData(idx, roomName));
+        return this.rooms.computeIfAbsent(roomIndex, idx -> {
+            this.markDirty(SYNC_ROOMS);
+            return new RoomData(idx, roomName);
+        });
     }
 
     /**
@@ -301,7 +484,11 @@ public class GameWorldComponent implements AutoSyncedComponent, ServerTickingCom
      */
     public void addPlayerToRoom(int roomIndex, String roomName, UUID playerUuid) {
         RoomData room = getOrCreateRoom(roomIndex, roomName);
-        room.addPlayer(playerUuid);
+        if (!room.hasPlayer(playerUuid)) {
+            room.addPlayer(playerUuid);
+            this.roomByPlayer.putIfAbsent(playerUuid, room);
+            this.markDirty(SYNC_ROOMS);
+        }
     }
 
     /**
@@ -339,12 +526,7 @@ public class GameWorldComponent implements AutoSyncedComponent, ServerTickingCom
      */
     @Nullable
     public RoomData getPlayerRoom(UUID playerUuid) {
-        for (RoomData room : this.rooms.values()) {
-            if (room.hasPlayer(playerUuid)) {
-                return room;
-            }
-        }
-        return null;
+        return this.roomByPlayer.get(playerUuid);
     }
 
     /**
@@ -362,6 +544,8 @@ public class GameWorldComponent implements AutoSyncedComponent, ServerTickingCom
      */
     public void clearRooms() {
         this.rooms.clear();
+        this.roomByPlayer.clear();
+        this.markDirty(SYNC_ROOMS);
     }
 
     public HashMap<UUID, GameProfile> getGameProfiles() {
@@ -372,6 +556,24 @@ public class GameWorldComponent implements AutoSyncedComponent, ServerTickingCom
         ticksUntilNextResetAttempt = 10;
     }
 
+    /**
+     * @return true from queueing a train reset until its completion callback has run
+     */
+    public boolean isMapResetPending() {
+        return ticksUntilNextResetAttempt > 0 || trainResetEngine.isResetting();
+    }
+
+    /**
+     * @return whether the train was reset since this world was loaded
+     */
+    public boolean hasMapResetSinceLoad() {
+        return mapResetSinceLoad;
+    }
+
+    public void onMapResetComplete() {
+        this.mapResetSinceLoad = true;
+    }
+
     public int getPsychosActive() {
         return psychosActive;
     }
@@ -382,6 +584,7 @@ public class GameWorldComponent implements AutoSyncedComponent, ServerTickingCom
 
     public void setPsychosActive(int psychosActive) {
         this.psychosActive = Math.max(0, psychosActive);
+        this.markDirty(SYNC_SCALARS);
         this.sync();
     }
 
@@ -391,6 +594,7 @@ public class GameWorldComponent implements AutoSyncedComponent, ServerTickingCom
 
     public void setGameMode(GameMode gameMode) {
         this.gameMode = gameMode;
+        this.markDirty(SYNC_SCALARS);
         this.sync();
     }
 
@@ -400,6 +604,7 @@ public class GameWorldComponent implements AutoSyncedComponent, ServerTickingCom
 
     public void setMapEffect(MapEffect mapEffect) {
         this.mapEffect = mapEffect;
+        this.markDirty(SYNC_SCALARS);
         this.sync();
     }
 
@@ -409,6 +614,7 @@ public class GameWorldComponent implements AutoSyncedComponent, ServerTickingCom
 
     public void setLooseEndWinner(UUID looseEndWinner) {
         this.looseEndWinner = looseEndWinner;
+        this.markDirty(SYNC_SCALARS);
         this.sync();
     }
 
@@ -419,6 +625,7 @@ public class GameWorldComponent implements AutoSyncedComponent, ServerTickingCom
 
     public void setBackfireChance(float backfireChance) {
         this.backfireChance = backfireChance;
+        this.markDirty(SYNC_SCALARS);
         this.sync();
     }
 
@@ -428,11 +635,14 @@ public class GameWorldComponent implements AutoSyncedComponent, ServerTickingCom
 
     public void setShootInnocentPunishment(ShootInnocentPunishment punishment) {
         this.shootInnocentPunishment = punishment;
+        this.markDirty(SYNC_SCALARS);
         this.sync();
     }
 
     public void addToPreventGunPickup(PlayerEntity player) {
-        this.preventGunPickup.add(player.getUuid());
+        if (this.preventGunPickup.add(player.getUuid())) {
+            this.markDirty(SYNC_PREVENT_GUN_PICKUP);
+        }
     }
 
     public boolean isPreventedFromGunPickup(PlayerEntity player) {
@@ -441,6 +651,24 @@ public class GameWorldComponent implements AutoSyncedComponent, ServerTickingCom
 
     public void clearPreventGunPickup() {
         this.preventGunPickup.clear();
+        this.markDirty(SYNC_PREVENT_GUN_PICKUP);
+    }
+
+    /**
+     * Puts a shop entry on cooldown for every killer-team player until the given world tick.
+     * Sent to clients as a single world sync; each client derives the remaining time from the world time.
+     */
+    public void setKillerShopCooldown(String entryId, long endTick) {
+        this.killerShopCooldowns.put(entryId, endTick);
+        this.markDirty(SYNC_KILLER_SHOP_COOLDOWNS);
+        this.sync();
+    }
+
+    /**
+     * @return the world tick at which the shared killer cooldown ends, or 0 if there is none
+     */
+    public long getKillerShopCooldownEnd(String entryId) {
+        return this.killerShopCooldowns.getLong(entryId);
     }
 
 
@@ -450,6 +678,7 @@ public class GameWorldComponent implements AutoSyncedComponent, ServerTickingCom
 
     public void setNeutralDividend(int neutralDividend) {
         this.neutralDividend = neutralDividend;
+        this.markDirty(SYNC_SCALARS);
         this.sync();
     }
 
@@ -459,6 +688,7 @@ public class GameWorldComponent implements AutoSyncedComponent, ServerTickingCom
 
     public void setKillerDividend(int killerDividend) {
         this.killerDividend = killerDividend;
+        this.markDirty(SYNC_SCALARS);
         this.sync();
     }
 
@@ -468,6 +698,7 @@ public class GameWorldComponent implements AutoSyncedComponent, ServerTickingCom
 
     public void setVigilanteDividend(int vigilanteDividend) {
         this.vigilanteDividend = vigilanteDividend;
+        this.markDirty(SYNC_SCALARS);
         this.sync();
     }
 
@@ -487,6 +718,7 @@ public class GameWorldComponent implements AutoSyncedComponent, ServerTickingCom
         } else {
             disabledRoles.add(role.identifier());
         }
+        this.markDirty(SYNC_DISABLED_ROLES);
         this.sync();
     }
 
@@ -583,6 +815,9 @@ public class GameWorldComponent implements AutoSyncedComponent, ServerTickingCom
                 this.rooms.put(index, room);
             }
         }
+
+        this.rebuildIndex();
+        this.markDirty(SYNC_ALL);
     }
 
     private ArrayList<UUID> uuidListFromNbt(NbtCompound nbtCompound, String listName) {
@@ -678,6 +913,167 @@ public class GameWorldComponent implements AutoSyncedComponent, ServerTickingCom
         return ret;
     }
 
+    @Override
+    public void writeSyncPacket(RegistryByteBuf buf, ServerPlayerEntity recipient) {
+        // 加入或重新同步时发送完整快照
+        this.writeSections(buf, SYNC_ALL);
+    }
+
+    private void writeSections(RegistryByteBuf buf, int sections) {
+        buf.writeVarInt(sections);
+
+        if ((sections & SYNC_SCALARS) != 0) {
+            buf.writeString(this.gameMode != null ? this.gameMode.identifier.toString() : "");
+            buf.writeString(this.mapEffect != null ? this.mapEffect.identifier.toString() : "");
+            buf.writeEnumConstant(this.gameStatus);
+            buf.writeVarInt(this.fade);
+            buf.writeBoolean(this.bound);
+            buf.writeVarInt(this.psychosActive);
+            buf.writeFloat(this.backfireChance);
+            buf.writeBoolean(this.shootInnocentPunishment != null);
+            if (this.shootInnocentPunishment != null) buf.writeEnumConstant(this.shootInnocentPunishment);
+            buf.writeVarInt(this.killerDividend);
+            buf.writeVarInt(this.vigilanteDividend);
+            buf.writeVarInt(this.neutralDividend);
+            buf.writeBoolean(this.looseEndWinner != null);
+            if (this.looseEndWinner != null) buf.writeUuid(this.looseEndWinner);
+        }
+
+        if ((sections & SYNC_ROLES) != 0) {
+            buf.writeVarInt(this.roles.size());
+            for (Map.Entry<UUID, Role> entry : this.roles.entrySet()) {
+                buf.writeUuid(entry.getKey());
+                buf.writeIdentifier(entry.getValue().identifier());
+            }
+        }
+
+        if ((sections & SYNC_PROFILES) != 0) {
+            buf.writeVarInt(this.gameProfiles.size());
+            for (Map.Entry<UUID, GameProfile> entry : this.gameProfiles.entrySet()) {
+                buf.writeUuid(entry.getKey());
+                buf.writeString(entry.getValue().getName());
+            }
+        }
+
+        if ((sections & SYNC_DEAD_PLAYERS) != 0) writeUuids(buf, this.deadPlayers);
+        if ((sections & SYNC_PREVENT_GUN_PICKUP) != 0) writeUuids(buf, this.preventGunPickup);
+
+        if ((sections & SYNC_DISABLED_ROLES) != 0) {
+            buf.writeVarInt(this.disabledRoles.size());
+            for (Identifier roleId : this.disabledRoles) {
+                buf.writeIdentifier(roleId);
+            }
+        }
+
+        if ((sections & SYNC_ROOMS) != 0) {
+            buf.writeVarInt(this.rooms.size());
+            for (RoomData room : this.rooms.values()) {
+                buf.writeVarInt(room.getIndex());
+                buf.writeString(room.getName());
+                writeUuids(buf, room.getPlayers());
+            }
+        }
+
+        if ((sections & SYNC_KILLER_SHOP_COOLDOWNS) != 0) {
+            buf.writeVarInt(this.killerShopCooldowns.size());
+            for (Object2LongMap.Entry<String> entry : this.killerShopCooldowns.object2LongEntrySet()) {
+                buf.writeString(entry.getKey());
+                buf.writeVarLong(entry.getLongValue());
+            }
+        }
+    }
+
+    @Override
+    public void applySyncPacket(RegistryByteBuf buf) {
+        int sections = buf.readVarInt();
+
+        if ((sections & SYNC_SCALARS) != 0) {
+            String gameModeId = buf.readString();
+            this.gameMode = gameModeId.isEmpty() ? null : WatheGameModes.GAME_MODES.get(Identifier.of(gameModeId));
+            String mapEffectId = buf.readString();
+            this.mapEffect = mapEffectId.isEmpty() ? null : WatheMapEffects.MAP_EFFECTS.get(Identifier.of(mapEffectId));
+            this.gameStatus = buf.readEnumConstant(GameStatus.class);
+            this.fade = buf.readVarInt();
+            this.bound = buf.readBoolean();
+            this.psychosActive = buf.readVarInt();
+            this.backfireChance = buf.readFloat();
+            this.shootInnocentPunishment = buf.readBoolean() ? buf.readEnumConstant(ShootInnocentPunishment.class) : null;
+            this.killerDividend = buf.readVarInt();
+            this.vigilanteDividend = buf.readVarInt();
+            this.neutralDividend = buf.readVarInt();
+            this.looseEndWinner = buf.readBoolean() ? buf.readUuid() : null;
+        }
+
+        if ((sections & SYNC_ROLES) != 0) {
+            this.roles.clear();
+            int count = buf.readVarInt();
+            for (int i = 0; i < count; i++) {
+                UUID uuid = buf.readUuid();
+                Role role = WatheRoles.getRole(buf.readIdentifier());
+                if (role != null) this.roles.put(uuid, role);
+            }
+        }
+
+        if ((sections & SYNC_PROFILES) != 0) {
+            this.gameProfiles.clear();
+            int count = buf.readVarInt();
+            for (int i = 0; i < count; i++) {
+                UUID uuid = buf.readUuid();
+                this.gameProfiles.put(uuid, new GameProfile(uuid, buf.readString()));
+            }
+        }
+
+        if ((sections & SYNC_DEAD_PLAYERS) != 0) readUuids(buf, this.deadPlayers);
+        if ((sections & SYNC_PREVENT_GUN_PICKUP) != 0) readUuids(buf, this.preventGunPickup);
+
+        if ((sections & SYNC_DISABLED_ROLES) != 0) {
+            this.disabledRoles.clear();
+            int count = buf.readVarInt();
+            for (int i = 0; i < count; i++) {
+                this.disabledRoles.add(buf.readIdentifier());
+            }
+        }
+
+        if ((sections & SYNC_ROOMS) != 0) {
+            this.rooms.clear();
+            int count = buf.readVarInt();
+            for (int i = 0; i < count; i++) {
+                RoomData room = new RoomData(buf.readVarInt(), buf.readString());
+                List<UUID> players = new ArrayList<>();
+                readUuids(buf, players);
+                players.forEach(room::addPlayer);
+                this.rooms.put(room.getIndex(), room);
+            }
+        }
+
+        if ((sections & SYNC_KILLER_SHOP_COOLDOWNS) != 0) {
+            this.killerShopCooldowns.clear();
+            int count = buf.readVarInt();
+            for (int i = 0; i < count; i++) {
+                this.killerShopCooldowns.put(buf.readString(), buf.readVarLong());
+            }
+        }
+
+        if ((sections & (SYNC_ROLES | SYNC_DEAD_PLAYERS | SYNC_ROOMS)) != 0) {
+            this.rebuildIndex();
+        }
+    }
+
+    private static void writeUuids(RegistryByteBuf buf, Collection<UUID> uuids) {
+        buf.writeVarInt(uuids.size());
+        for (UUID uuid : uuids) {
+            buf.writeUuid(uuid);
+        }
+    }
+
+    private static void readUuids(RegistryByteBuf buf, Collection<UUID> target) {
+        target.clear();
+        int count = buf.readVarInt();
+        for (int i = 0; i < count; i++) {
+            target.add(buf.readUuid());
+        }
+    }
+
     @Override
     public void clientTick() {
         tickCommon();
@@ -690,6 +1086,11 @@ public class GameWorldComponent implements AutoSyncedComponent, ServerTickingCom
 
     @Override
     public void serverTick() {
+        // 继续上一局未完成的清理，放在 tickCommon 之前，刚开始的清理在本 tick 内已经执行过一次
+        if (this.world instanceof ServerWorld serverWorld) {
+            roundTeardown.tick(serverWorld);
+        }
+
         tickCommon();
 
         if (!(this.world instanceof ServerWorld serverWorld)) {
@@ -701,12 +1102,19 @@ public class GameWorldComponent implements AutoSyncedComponent, ServerTickingCom
 
         // attempt to reset the play area
         if (--ticksUntilNextResetAttempt == 0) {
-            if (GameFunctions.tryResetTrain(serverWorld)) {
+            if (!GameFunctions.tryResetTrain(serverWorld)) {
+                failedResetAttempts = 0;
+                ticksUntilNextResetAttempt = -1;
+            } else if (++failedResetAttempts < MAX_RESET_ATTEMPTS) {
                 queueMapReset();
             } else {
+                // 不能无限重试，否则 isMapResetPending 永远为真，无法开局也不会开始投票
+                failedResetAttempts = 0;
                 ticksUntilNextResetAttempt = -1;
+                GameFunctions.onTrainResetFailed(serverWorld, MAX_RESET_ATTEMPTS);
             }
         }
+        trainResetEngine.tick(serverWorld);
 
         // if not running and spectators or not in lobby reset them
         if (serverWorld.getTime() % 20 == 0) {
@@ -728,7 +1136,8 @@ public class GameWorldComponent implements AutoSyncedComponent, ServerTickingCom
             }
         }
 
-        if (this.isRunning()) {
+        // 回合清理分摊到多个 tick 时状态仍是 STOPPING，这期间不能再把已重置的玩家切回旁观或触发死亡判定
+        if (this.isRunning() && !roundTeardown.isRunning()) {
             for (ServerPlayerEntity player : serverWorld.getPlayers()) {
                 if (GameFunctions.isPlayerPlayingAndAlive(player)) {
                     // kill players who fell off the train
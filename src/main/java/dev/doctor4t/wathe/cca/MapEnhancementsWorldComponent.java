@@ -1,6 +1,7 @@
 package dev.doctor4t.wathe.cca;
 
 import dev.doctor4t.wathe.Wathe;
+import dev.doctor4t.wathe.config.datapack.InteractionBlacklistMatcher;
 import dev.doctor4t.wathe.config.datapack.MapEnhancementsConfiguration;
 import dev.doctor4t.wathe.config.datapack.MapEnhancementsConfiguration.SceneryConfig;
 import dev.doctor4t.wathe.config.datapack.MapEnhancementsConfiguration.VisibilityConfig;
@@ -15,6 +16,7 @@ import dev.doctor4t.wathe.config.datapack.MapEnhancementsConfiguration.AmbienceC
 import dev.doctor4t.wathe.config.datapack.MapEnhancementsConfiguration.SpecialRolesConfig;
 import dev.doctor4t.wathe.config.datapack.MapEnhancementsConfigurationManager;
 import dev.doctor4t.wathe.config.datapack.RoomConfig;
+import dev.doctor4t.wathe.util.SyncCoalescer;
 import net.minecraft.nbt.NbtCompound;
 import net.minecraft.registry.RegistryWrapper;
 import net.minecraft.util.Identifier;
@@ -44,7 +46,7 @@ public class MapEnhancementsWorldComponent implements AutoSyncedComponent {
     }
 
     public void sync() {
-        KEY.sync(this.world);
+        SyncCoalescer.markDirty(KEY, this.world);
     }
 
     /**
@@ -64,11 +66,15 @@ public class MapEnhancementsWorldComponent implements AutoSyncedComponent {
     private VisibilityConfig syncedVisibility;
     private FogConfig syncedFog;
     private CameraShakeConfig syncedCameraShake;
+    private SnowParticlesConfig syncedSnowParticles;
     private InteractionBlacklistConfig syncedInteractionBlacklist;
     private GravityConfig syncedGravity;
     private MovementConfig syncedMovement;
     private JumpConfig syncedJump;
     private AmbienceConfig syncedAmbience;
+    // 编译后的交互黑名单及其来源配置
+    private InteractionBlacklistConfig compiledBlacklistSource;
+    private InteractionBlacklistMatcher compiledBlacklist = InteractionBlacklistMatcher.EMPTY;
     // ========== 渲染配置 Getter 方法 ==========
 
     public SceneryConfig getSceneryConfig() {
@@ -104,6 +110,14 @@ public class MapEnhancementsWorldComponent implements AutoSyncedComponent {
         return config != null ? config.getCameraShakeOrDefault() : CameraShakeConfig.DEFAULT;
     }
 
+    public SnowParticlesConfig getSnowParticlesConfig() {
+        if (world.isClient() && syncedSnowParticles != null) {
+            return syncedSnowParticles;
+        }
+        MapEnhancementsConfiguration config = getConfigForCurrentWorld();
+        return config != null ? config.getSnowParticlesOrDefault() : SnowParticlesConfig.DEFAULT;
+    }
+
     /**
      * 获取交互黑名单配置（同步到客户端）
      */
@@ -115,6 +129,18 @@ public class MapEnhancementsWorldComponent implements AutoSyncedComponent {
         return config != null ? config.getInteractionBlacklistOrDefault() : InteractionBlacklistConfig.DEFAULT;
     }
 
+    /**
+     * 获取编译后的交互黑名单，配置变化或数据包/标签重载后重新编译
+     */
+    public InteractionBlacklistMatcher getInteractionBlacklistMatcher() {
+        InteractionBlacklistConfig config = getInteractionBlacklistConfig();
+        if (config != compiledBlacklistSource || compiledBlacklist.isStale()) {
+            compiledBlacklist = InteractionBlacklistMatcher.compile(config);
+            compiledBlacklistSource = config;
+        }
+        return compiledBlacklist;
+    }
+
     public GravityConfig getGravityConfig() {
         if (world.isClient() && syncedGravity != null) {
             return syncedGravity;
@@ -228,6 +254,15 @@ public class MapEnhancementsWorldComponent implements AutoSyncedComponent {
                 tag.getFloat("cameraShakeStrengthOutdoor")
             );
         }
+        if (tag.contains("snowCount")) {
+            this.syncedSnowParticles = new SnowParticlesConfig(
+                tag.getInt("snowCount"),
+                tag.getFloat("snowSpawnOffsetX"),
+                tag.getFloat("snowSpawnRangeY"),
+                tag.getFloat("snowSpawnRangeZ"),
+                tag.getInt("snowBudget")
+            );
+        }
         // 反序列化交互黑名单配置
         if (tag.contains("blacklistBlocksCount")) {
             int blocksCount = tag.getInt("blacklistBlocksCount");
@@ -305,6 +340,13 @@ public class MapEnhancementsWorldComponent implements AutoSyncedComponent {
         tag.putFloat("cameraShakeStrengthIndoor", cameraShake.strengthIndoor());
         tag.putFloat("cameraShakeStrengthOutdoor", cameraShake.strengthOutdoor());
 
+        SnowParticlesConfig snowParticles = getSnowParticlesConfig();
+        tag.putInt("snowCount", snowParticles.count());
+        tag.putFloat("snowSpawnOffsetX", snowParticles.spawnOffsetX());
+        tag.putFloat("snowSpawnRangeY", snowParticles.spawnRangeY());
+        tag.putFloat("snowSpawnRangeZ", snowParticles.spawnRangeZ());
+        tag.putInt("snowBudget", snowParticles.budget());
+
         // 序列化交互黑名单配置
         InteractionBlacklistConfig blacklist = getInteractionBlacklistConfig();
         tag.putInt("blacklistBlocksCount", blacklist.blocks().size());
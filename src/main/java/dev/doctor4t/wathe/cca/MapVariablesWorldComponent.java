@@ -1,6 +1,7 @@
 package dev.doctor4t.wathe.cca;
 
 import dev.doctor4t.wathe.Wathe;
+import dev.doctor4t.wathe.util.SyncCoalescer;
 import net.minecraft.nbt.NbtCompound;
 import net.minecraft.registry.RegistryWrapper;
 import net.minecraft.util.math.Box;
@@ -21,7 +22,7 @@ public class MapVariablesWorldComponent implements AutoSyncedComponent {
     }
 
     public void sync() {
-        KEY.sync(this.world);
+        SyncCoalescer.markDirty(KEY, this.world);
     }
 
     // Game areas
@@ -79,6 +80,7 @@ public class MapVariablesWorldComponent implements AutoSyncedComponent {
 
     public void setPlayArea(Box playArea) {
         this.playArea = playArea;
+        WorldBlackoutComponent.KEY.get(this.world).buildLightIndex();
         this.sync();
     }
 
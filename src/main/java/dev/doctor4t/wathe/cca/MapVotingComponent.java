@@ -6,6 +6,8 @@ import dev.doctor4t.wathe.compat.TrainVoicePlugin;
 import dev.doctor4t.wathe.config.datapack.MapRegistry;
 import dev.doctor4t.wathe.config.datapack.MapRegistryEntry;
 import dev.doctor4t.wathe.game.GameFunctions;
+import dev.doctor4t.wathe.game.MapTransfer;
+import dev.doctor4t.wathe.util.SyncCoalescer;
 import net.minecraft.nbt.NbtCompound;
 import net.minecraft.nbt.NbtElement;
 import net.minecraft.nbt.NbtList;
@@ -93,7 +95,7 @@ public class MapVotingComponent implements AutoSyncedComponent, ServerTickingCom
     }
 
     public void sync() {
-        KEY.sync(this.scoreboard);
+        SyncCoalescer.markDirty(KEY, this.scoreboard);
     }
 
     // === Getters ===
@@ -289,6 +291,12 @@ public class MapVotingComponent implements AutoSyncedComponent, ServerTickingCom
         this.roulettePhase = true;
         this.rouletteTicksRemaining = ROULETTE_DURATION_TICKS;
 
+        // 结果在轮盘开始时已确定，趁动画播放期间后台加载目标地图的区块
+        if (selectedMapIndex >= 0 && selectedMapIndex < availableMaps.size()) {
+            ServerWorld targetWorld = server.getWorld(RegistryKey.of(RegistryKeys.WORLD, availableMaps.get(selectedMapIndex).dimensionId()));
+            if (targetWorld != null) MapTransfer.prewarm(targetWorld);
+        }
+
         Wathe.LOGGER.info("Voting ended, selected map index {} ({})",
             selectedMapIndex,
             selectedMapIndex >= 0 && selectedMapIndex < availableMaps.size()
@@ -8,6 +8,7 @@ import dev.doctor4t.wathe.game.GameConstants;
 import dev.doctor4t.wathe.game.GameFunctions;
 import dev.doctor4t.wathe.index.tag.WatheItemTags;
 import dev.doctor4t.wathe.util.TaskCompletePayload;
+import dev.doctor4t.wathe.util.SyncCoalescer;
 import net.fabricmc.fabric.api.networking.v1.ServerPlayNetworking;
 import net.minecraft.entity.player.PlayerEntity;
 import net.minecraft.item.Item;
@@ -51,7 +52,7 @@ public class PlayerMoodComponent implements AutoSyncedComponent, ServerTickingCo
     }
 
     public void sync() {
-        KEY.sync(this.player);
+        SyncCoalescer.markDirty(KEY, this.player);
     }
 
     @Override
@@ -1,6 +1,7 @@
 package dev.doctor4t.wathe.cca;
 
 import dev.doctor4t.wathe.Wathe;
+import dev.doctor4t.wathe.util.SyncCoalescer;
 import net.minecraft.entity.player.PlayerEntity;
 import net.minecraft.nbt.NbtCompound;
 import net.minecraft.registry.RegistryWrapper;
@@ -26,7 +27,7 @@ public class PlayerNoteComponent implements AutoSyncedComponent {
     }
 
     public void sync() {
-        KEY.sync(this.player);
+        SyncCoalescer.markDirty(KEY, this.player);
     }
 
     public void reset() {
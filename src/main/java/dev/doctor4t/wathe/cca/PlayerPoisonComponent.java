@@ -5,6 +5,7 @@ import dev.doctor4t.wathe.api.event.PlayerPoisoned;
 import dev.doctor4t.wathe.game.GameConstants;
 import dev.doctor4t.wathe.game.GameFunctions;
 import dev.doctor4t.wathe.record.GameRecordManager;
+import dev.doctor4t.wathe.util.SyncCoalescer;
 import net.minecraft.entity.player.PlayerEntity;
 import net.minecraft.nbt.NbtCompound;
 import net.minecraft.network.RegistryByteBuf;
@@ -40,7 +41,7 @@ public class PlayerPoisonComponent implements AutoSyncedComponent, ServerTicking
     }
 
     public void sync() {
-        KEY.sync(this.player);
+        SyncCoalescer.markDirty(KEY, this.player);
     }
 
     @Override
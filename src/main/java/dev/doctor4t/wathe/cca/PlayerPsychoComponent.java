@@ -6,6 +6,7 @@ import dev.doctor4t.wathe.game.GameConstants;
 import dev.doctor4t.wathe.game.GameFunctions;
 import dev.doctor4t.wathe.index.WatheItems;
 import dev.doctor4t.wathe.util.ShopEntry;
+import dev.doctor4t.wathe.util.SyncCoalescer;
 import net.minecraft.entity.player.PlayerEntity;
 import net.minecraft.item.ItemStack;
 import net.minecraft.nbt.NbtCompound;
@@ -31,7 +32,7 @@ public class PlayerPsychoComponent implements AutoSyncedComponent, ServerTicking
     }
 
     public void sync() {
-        KEY.sync(this.player);
+        SyncCoalescer.markDirty(KEY, this.player);
     }
 
     @Override
@@ -75,7 +76,7 @@ public class PlayerPsychoComponent implements AutoSyncedComponent, ServerTicking
         } else if (this.psychoTicks % 20 == 0 && this.player instanceof ServerPlayerEntity serverPlayer) {
             // 每秒只同步给自己，校正客户端进度条时间
             // 其他玩家只需要知道是否狂暴（>0），不需要精确时间
-            KEY.sync(serverPlayer);
+            this.sync();
         }
     }
 
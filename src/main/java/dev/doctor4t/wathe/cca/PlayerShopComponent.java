@@ -7,6 +7,9 @@ import dev.doctor4t.wathe.game.GameFunctions;
 import dev.doctor4t.wathe.index.WatheSounds;
 import dev.doctor4t.wathe.util.ShopEntry;
 import dev.doctor4t.wathe.util.ShopUtils;
+import dev.doctor4t.wathe.util.SyncCoalescer;
+import it.unimi.dsi.fastutil.objects.Object2LongMap;
+import it.unimi.dsi.fastutil.objects.Object2LongOpenHashMap;
 import net.fabricmc.loader.api.FabricLoader;
 import net.minecraft.entity.player.PlayerEntity;
 import net.minecraft.nbt.NbtCompound;
@@ -33,8 +36,12 @@ public class PlayerShopComponent implements AutoSyncedComponent, ServerTickingCo
     private final PlayerEntity player;
     public int balance = 0;
 
-    // Custom cooldown system - entry ID -> remaining cooldown ticks
-    private final Map<String, Integer> cooldowns = new HashMap<>();
+    // Custom cooldown system - entry ID -> world tick at which the cooldown ends.
+    // Clients derive the remaining time from their own world time, so nothing needs to be synced while counting down.
+    private final Object2LongOpenHashMap<String> cooldownEnds = new Object2LongOpenHashMap<>();
+
+    // Earliest deadline in cooldownEnds, Long.MAX_VALUE if there is none
+    private long nextExpiry = Long.MAX_VALUE;
 
     // Stock system - entry ID -> remaining stock
     private final Map<String, Integer> stock = new HashMap<>();
@@ -52,7 +59,7 @@ public class PlayerShopComponent implements AutoSyncedComponent, ServerTickingCo
     }
 
     public void sync() {
-        KEY.sync(this.player);
+        SyncCoalescer.markDirty(KEY, this.player);
     }
 
     // === Shop Initialization ===
@@ -64,14 +71,16 @@ public class PlayerShopComponent implements AutoSyncedComponent, ServerTickingCo
      * @param entries the shop entries available to this player
      */
     public void initializeShop(List<ShopEntry> entries) {
-        cooldowns.clear();
+        cooldownEnds.clear();
+        nextExpiry = Long.MAX_VALUE;
         stock.clear();
         maxStockCache.clear();
 
+        long now = this.getTime();
         for (ShopEntry entry : entries) {
             // Set initial cooldowns
             if (entry.hasInitialCooldown()) {
-                cooldowns.put(entry.id(), entry.initialCooldownTicks());
+                setCooldownEnd(entry.id(), now + entry.initialCooldownTicks());
             }
 
             // Set initial stock
@@ -90,14 +99,20 @@ public class PlayerShopComponent implements AutoSyncedComponent, ServerTickingCo
      * Checks if an entry is on cooldown.
      */
     public boolean isOnCooldown(String entryId) {
-        return cooldowns.getOrDefault(entryId, 0) > 0;
+        return getRemainingCooldown(entryId) > 0;
     }
 
     /**
-     * Gets the remaining cooldown ticks for an entry.
+     * Gets the remaining cooldown ticks for an entry, including cooldowns shared by the killer team.
      */
     public int getRemainingCooldown(String entryId) {
-        return cooldowns.getOrDefault(entryId, 0);
+        long end = cooldownEnds.getLong(entryId);
+        GameWorldComponent game = GameWorldComponent.KEY.get(this.player.getWorld());
+        if (game.canUseKillerFeatures(this.player)) {
+            end = Math.max(end, game.getKillerShopCooldownEnd(entryId));
+        }
+        long remaining = end - this.getTime();
+        return remaining > 0 ? (int) Math.min(remaining, Integer.MAX_VALUE) : 0;
     }
 
     /**
@@ -105,10 +120,19 @@ public class PlayerShopComponent implements AutoSyncedComponent, ServerTickingCo
      */
     private void applyCooldown(ShopEntry entry) {
         if (entry.hasCooldown()) {
-            cooldowns.put(entry.id(), entry.cooldownTicks());
+            setCooldownEnd(entry.id(), this.getTime() + entry.cooldownTicks());
         }
     }
 
+    private void setCooldownEnd(String entryId, long end) {
+        cooldownEnds.put(entryId, end);
+        nextExpiry = Math.min(nextExpiry, end);
+    }
+
+    private long getTime() {
+        return this.player.getWorld().getTime();
+    }
+
     // === Stock Management ===
 
     /**
@@ -155,50 +179,36 @@ public class PlayerShopComponent implements AutoSyncedComponent, ServerTickingCo
 
     // === Tick ===
 
-    private static final int SYNC_INTERVAL = 20; // Sync every second (20 ticks)
-    private int syncTickCounter = 0;
-
     @Override
     public void serverTick() {
-        if (cooldowns.isEmpty()) {
-            syncTickCounter = 0;
+        // 只在最早的冷却到期时处理，其余 tick 只做一次比较
+        long now = this.getTime();
+        if (now < nextExpiry) {
             return;
         }
 
-        boolean cooldownEnded = false;
-        var iterator = cooldowns.entrySet().iterator();
+        long next = Long.MAX_VALUE;
+        var iterator = cooldownEnds.object2LongEntrySet().iterator();
         while (iterator.hasNext()) {
-            var entry = iterator.next();
-            int remaining = entry.getValue();
-            if (remaining > 0) {
-                entry.setValue(remaining - 1);
-                if (remaining - 1 <= 0) {
-                    iterator.remove();
-                    cooldownEnded = true; // A cooldown just ended
-                }
+            long end = iterator.next().getLongValue();
+            if (end <= now) {
+                iterator.remove();
+            } else {
+                next = Math.min(next, end);
             }
         }
+        nextExpiry = next;
 
-        // Sync immediately when a cooldown ends (important for UI)
-        if (cooldownEnded) {
-            syncTickCounter = 0;
-            this.sync();
-            return;
-        }
-
-        // Otherwise, sync periodically (every second)
-        syncTickCounter++;
-        if (syncTickCounter >= SYNC_INTERVAL) {
-            syncTickCounter = 0;
-            this.sync();
-        }
+        // Sync once when cooldowns end so the client drops the expired entries
+        this.sync();
     }
 
     // === Reset ===
 
     public void reset() {
         this.balance = 0;
-        this.cooldowns.clear();
+        this.cooldownEnds.clear();
+        this.nextExpiry = Long.MAX_VALUE;
         this.stock.clear();
         this.maxStockCache.clear();
         this.sync();
@@ -360,13 +370,8 @@ public class PlayerShopComponent implements AutoSyncedComponent, ServerTickingCo
         GameWorldComponent gameComponent = GameWorldComponent.KEY.get(purchaser.getWorld());
         int cooldownTicks = GameConstants.getInTicks(5, 0); // 5分钟冷却
 
-        for (ServerPlayerEntity killer : purchaser.getServerWorld().getPlayers()) {
-            if (gameComponent.canUseKillerFeatures(killer)) {
-                PlayerShopComponent shop = KEY.get(killer);
-                shop.cooldowns.put("blackout", cooldownTicks);
-                shop.sync();
-            }
-        }
+        // 杀手阵营共享一个截止时间，一次世界组件同步代替逐个玩家同步
+        gameComponent.setKillerShopCooldown("blackout", purchaser.getWorld().getTime() + cooldownTicks);
     }
 
     public static boolean usePsychoMode(@NotNull PlayerEntity player) {
@@ -382,10 +387,10 @@ public class PlayerShopComponent implements AutoSyncedComponent, ServerTickingCo
 
         // Save cooldowns
         NbtCompound cooldownsNbt = new NbtCompound();
-        for (var entry : cooldowns.entrySet()) {
-            cooldownsNbt.putInt(entry.getKey(), entry.getValue());
+        for (Object2LongMap.Entry<String> entry : cooldownEnds.object2LongEntrySet()) {
+            cooldownsNbt.putLong(entry.getKey(), entry.getLongValue());
         }
-        tag.put("Cooldowns", cooldownsNbt);
+        tag.put("CooldownEnds", cooldownsNbt);
 
         // Save stock
         NbtCompound stockNbt = new NbtCompound();
@@ -407,11 +412,19 @@ public class PlayerShopComponent implements AutoSyncedComponent, ServerTickingCo
         this.balance = tag.getInt("Balance");
 
         // Load cooldowns
-        cooldowns.clear();
-        if (tag.contains("Cooldowns")) {
+        cooldownEnds.clear();
+        nextExpiry = Long.MAX_VALUE;
+        if (tag.contains("CooldownEnds")) {
+            NbtCompound cooldownsNbt = tag.getCompound("CooldownEnds");
+            for (String key : cooldownsNbt.getKeys()) {
+                setCooldownEnd(key, cooldownsNbt.getLong(key));
+            }
+        } else if (tag.contains("Cooldowns")) {
+            // Older saves store remaining ticks
+            long now = this.getTime();
             NbtCompound cooldownsNbt = tag.getCompound("Cooldowns");
             for (String key : cooldownsNbt.getKeys()) {
-                cooldowns.put(key, cooldownsNbt.getInt(key));
+                setCooldownEnd(key, now + cooldownsNbt.getInt(key));
             }
         }
 
@@ -3,6 +3,7 @@ package dev.doctor4t.wathe.cca;
 import dev.doctor4t.wathe.Wathe;
 import dev.doctor4t.wathe.client.WatheClient;
 import dev.doctor4t.wathe.game.mapeffect.HarpyExpressTrainMapEffect;
+import dev.doctor4t.wathe.util.SyncCoalescer;
 import net.minecraft.nbt.NbtCompound;
 import net.minecraft.registry.RegistryWrapper;
 import net.minecraft.server.world.ServerWorld;
@@ -30,7 +31,7 @@ public class TrainWorldComponent implements AutoSyncedComponent, ServerTickingCo
     }
 
     private void sync() {
-        TrainWorldComponent.KEY.sync(this.world);
+        SyncCoalescer.markDirty(KEY, this.world);
     }
 
     public void setSpeed(int speed) {
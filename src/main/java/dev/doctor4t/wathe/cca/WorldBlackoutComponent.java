@@ -5,6 +5,8 @@ import dev.doctor4t.wathe.api.WatheRoles;
 import dev.doctor4t.wathe.game.GameConstants;
 import dev.doctor4t.wathe.index.WatheProperties;
 import dev.doctor4t.wathe.index.WatheSounds;
+import dev.doctor4t.wathe.util.LightBlockIndex;
+import it.unimi.dsi.fastutil.longs.LongIterator;
 import net.minecraft.block.BlockState;
 import net.minecraft.nbt.NbtCompound;
 import net.minecraft.nbt.NbtElement;
@@ -39,11 +41,26 @@ public class WorldBlackoutComponent implements ServerTickingComponent {
     private final List<BlackoutDetails> blackouts = new ArrayList<>();
     private int ticks = 0;
     private boolean wasBlackoutActive = false;
+    private final LightBlockIndex lightIndex = new LightBlockIndex();
 
     public WorldBlackoutComponent(World world) {
         this.world = world;
     }
 
+    public LightBlockIndex getLightIndex() {
+        return this.lightIndex;
+    }
+
+    /**
+     * Indexes the lights of the current play area ahead of time so that buying a blackout does not scan the area.
+     */
+    public void buildLightIndex() {
+        Box area = MapVariablesWorldComponent.KEY.get(this.world).getPlayArea();
+        if (area != null && this.world instanceof ServerWorld) {
+            this.lightIndex.ensureBuilt(this.world, area);
+        }
+    }
+
     public void reset() {
         for (BlackoutDetails detail : this.blackouts) detail.end(this.world);
         this.blackouts.clear();
@@ -91,19 +108,16 @@ public class WorldBlackoutComponent implements ServerTickingComponent {
 
         Box area = areas.getPlayArea();
         if (area == null || this.ticks > 0) return false;
-        for (int x = (int) area.minX; x <= (int) area.maxX; x++) {
-            for (int y = (int) area.minY; y <= (int) area.maxY; y++) {
-                for (int z = (int) area.minZ; z <= (int) area.maxZ; z++) {
-                    BlockPos pos = new BlockPos(x, y, z);
-                    BlockState state = this.world.getBlockState(pos);
-                    if (!state.contains(Properties.LIT) || !state.contains(WatheProperties.ACTIVE)) continue;
-                    int duration = GameConstants.BLACKOUT_MIN_DURATION + this.world.random.nextInt(GameConstants.BLACKOUT_MAX_DURATION - GameConstants.BLACKOUT_MIN_DURATION);
-                    if (duration > this.ticks) this.ticks = duration;
-                    BlackoutDetails detail = new BlackoutDetails(pos, duration, state.get(Properties.LIT));
-                    detail.init(this.world);
-                    this.blackouts.add(detail);
-                }
-            }
+        // 只遍历索引中已知的灯，而不是整个游玩区域
+        for (LongIterator iterator = this.lightIndex.getPositions(this.world, area).iterator(); iterator.hasNext(); ) {
+            BlockPos pos = BlockPos.fromLong(iterator.nextLong());
+            BlockState state = this.world.getBlockState(pos);
+            if (!LightBlockIndex.isLight(state)) continue;
+            int duration = GameConstants.BLACKOUT_MIN_DURATION + this.world.random.nextInt(GameConstants.BLACKOUT_MAX_DURATION - GameConstants.BLACKOUT_MIN_DURATION);
+            if (duration > this.ticks) this.ticks = duration;
+            BlackoutDetails detail = new BlackoutDetails(pos, duration, state.get(Properties.LIT));
+            detail.init(this.world);
+            this.blackouts.add(detail);
         }
         if (this.world instanceof ServerWorld serverWorld) for (ServerPlayerEntity player : serverWorld.getPlayers()) {
             player.networkHandler.sendPacket(new PlaySoundS2CPacket(Registries.SOUND_EVENT.getEntry(WatheSounds.AMBIENT_BLACKOUT), SoundCategory.PLAYERS, player.getX(), player.getY(), player.getZ(), 100f, 1f, player.getRandom().nextLong()));
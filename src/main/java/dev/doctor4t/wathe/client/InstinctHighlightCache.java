@@ -0,0 +1,211 @@
+package dev.doctor4t.wathe.client;
+
+import dev.doctor4t.wathe.api.Role;
+import dev.doctor4t.wathe.api.WatheRoles;
+import dev.doctor4t.wathe.api.event.GetInstinctHighlight;
+import dev.doctor4t.wathe.cca.GameWorldComponent;
+import dev.doctor4t.wathe.entity.FirecrackerEntity;
+import dev.doctor4t.wathe.entity.NoteEntity;
+import dev.doctor4t.wathe.entity.PlayerBodyEntity;
+import dev.doctor4t.wathe.game.GameFunctions;
+import it.unimi.dsi.fastutil.ints.Int2IntOpenHashMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import net.fabricmc.fabric.api.client.event.lifecycle.v1.ClientEntityEvents;
+import net.fabricmc.fabric.api.client.event.lifecycle.v1.ClientTickEvents;
+import net.minecraft.client.MinecraftClient;
+import net.minecraft.client.network.ClientPlayerEntity;
+import net.minecraft.client.world.ClientWorld;
+import net.minecraft.entity.Entity;
+import net.minecraft.entity.ItemEntity;
+import net.minecraft.entity.player.PlayerEntity;
+import net.minecraft.util.math.MathHelper;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Objects;
+
+/**
+ * 本能高亮表：按实体 ID 缓存每个实体的高亮颜色，渲染时（每帧每个实体两次）只查表。
+ * <p>
+ * 只有角色/死亡名单、本能键、实体列表、玩家游戏模式或本地玩家状态变化时才重建；
+ * 存在 {@link GetInstinctHighlight.Stable} 监听器时每 tick 重建一次，因为它们只保证 tick 内稳定。
+ * 未标记为稳定的监听器仍在每次查询时调用，并与缓存的稳定结果按优先级合并。
+ */
+public final class InstinctHighlightCache {
+    private static final int NO_HIGHLIGHT = -1;
+    private static final int ITEM_COLOR = 0xDB9D00;
+
+    // 稳定监听器有结果时存放其结果解析后的颜色，否则存放默认逻辑的颜色
+    private static final Int2IntOpenHashMap COLORS = new Int2IntOpenHashMap();
+    private static final Int2ObjectOpenHashMap<GetInstinctHighlight.HighlightResult> STABLE_RESULTS = new Int2ObjectOpenHashMap<>();
+
+    static {
+        COLORS.defaultReturnValue(NO_HIGHLIGHT);
+    }
+
+    private static int entityVersion = 0;
+    private static @Nullable ClientWorld builtWorld;
+    private static int builtRoleVersion;
+    private static int builtEntityVersion;
+    private static int builtLocalState;
+    private static int builtPlayerState;
+    private static boolean builtWithStableListeners;
+    private static int rebuilds = 0;
+
+    private InstinctHighlightCache() {
+    }
+
+    public static void init() {
+        ClientEntityEvents.ENTITY_LOAD.register((entity, world) -> entityVersion++);
+        ClientEntityEvents.ENTITY_UNLOAD.register((entity, world) -> entityVersion++);
+        ClientTickEvents.END_CLIENT_TICK.register(client -> update(client.world, client.player));
+    }
+
+    /**
+     * @return 实体的高亮颜色，-1 表示不高亮
+     */
+    public static int get(Entity target) {
+        if (target.getWorld() != builtWorld) {
+            // 表尚未为该世界建立（如刚切换世界），直接计算
+            return resolve(GetInstinctHighlight.invoker().getHighlight(target), compute(target));
+        }
+        int id = target.getId();
+        GetInstinctHighlight.Invoker invoker = GetInstinctHighlight.invoker();
+        if (!invoker.hasVolatileListeners()) return COLORS.get(id);
+
+        GetInstinctHighlight.HighlightResult result = STABLE_RESULTS.get(id);
+        GetInstinctHighlight.HighlightResult volatileResult = invoker.getVolatileHighlight(target);
+        if (volatileResult != null && (result == null || volatileResult.priority() > result.priority())) {
+            return resolve(volatileResult, NO_HIGHLIGHT);
+        }
+        return COLORS.get(id);
+    }
+
+    public static void invalidate() {
+        builtWorld = null;
+    }
+
+    public static int getSize() {
+        return COLORS.size();
+    }
+
+    public static int getRebuilds() {
+        return rebuilds;
+    }
+
+    private static void update(@Nullable ClientWorld world, @Nullable ClientPlayerEntity player) {
+        if (world == null || player == null) {
+            if (builtWorld != null) {
+                COLORS.clear();
+                STABLE_RESULTS.clear();
+                builtWorld = null;
+            }
+            return;
+        }
+        GameWorldComponent game = GameWorldComponent.KEY.get(world);
+        GetInstinctHighlight.Invoker invoker = GetInstinctHighlight.invoker();
+        boolean hasStableListeners = invoker.hasStableListeners();
+        int localState = getLocalState(game);
+        int playerState = getPlayerState(world);
+        if (world == builtWorld && !hasStableListeners && !builtWithStableListeners
+                && game.getRoleVersion() == builtRoleVersion && entityVersion == builtEntityVersion
+                && localState == builtLocalState && playerState == builtPlayerState) {
+            return;
+        }
+
+        COLORS.clear();
+        STABLE_RESULTS.clear();
+        // 没有稳定监听器且未按本能键（默认逻辑需要按键）时表必为空，无需遍历实体
+        if (hasStableListeners || WatheClient.isInstinctEnabledAndIsKiller()) {
+            for (Entity entity : world.getEntities()) {
+                GetInstinctHighlight.HighlightResult result = hasStableListeners ? invoker.getStableHighlight(entity) : null;
+                int color;
+                if (result != null) {
+                    STABLE_RESULTS.put(entity.getId(), result);
+                    color = resolve(result, NO_HIGHLIGHT);
+                } else {
+                    color = compute(entity);
+                }
+                if (color != NO_HIGHLIGHT) COLORS.put(entity.getId(), color);
+            }
+        }
+
+        builtWorld = world;
+        builtRoleVersion = game.getRoleVersion();
+        builtEntityVersion = entityVersion;
+        builtLocalState = localState;
+        builtPlayerState = playerState;
+        builtWithStableListeners = hasStableListeners;
+        rebuilds++;
+    }
+
+    /**
+     * 本能键与本地玩家身份，任一变化都会影响默认逻辑
+     */
+    private static int getLocalState(GameWorldComponent game) {
+        int state = game.getGameStatus().ordinal();
+        if (WatheClient.isInstinctEnabled()) state |= 1 << 4;
+        if (WatheClient.canSeeSpectatorInformation()) state |= 1 << 5;
+        if (WatheClient.isKiller()) state |= 1 << 6;
+        if (WatheClient.isPlayerPlayingAndAlive()) state |= 1 << 7;
+        return state;
+    }
+
+    /**
+     * 所有玩家及其游戏模式的摘要，玩家切换到旁观/创造时需要重建
+     */
+    private static int getPlayerState(ClientWorld world) {
+        int state = 1;
+        for (PlayerEntity player : world.getPlayers()) {
+            state = 31 * state + player.getId();
+            state = 31 * state + (GameFunctions.isPlayerSpectatingOrCreative(player) ? 1 : 0);
+        }
+        return state;
+    }
+
+    private static int resolve(@Nullable GetInstinctHighlight.HighlightResult result, int fallback) {
+        if (result == null) return fallback;
+        // 显式跳过
+        if (result.isSkip()) return NO_HIGHLIGHT;
+        // 检查是否需要按键
+        if (result.requiresKeybind() && !WatheClient.isInstinctEnabled()) return NO_HIGHLIGHT;
+        return result.color();
+    }
+
+    /**
+     * 默认高亮逻辑，需要按下本能键
+     */
+    private static int compute(Entity target) {
+        if (!WatheClient.isInstinctEnabledAndIsKiller()) return NO_HIGHLIGHT;
+
+        ClientPlayerEntity localPlayer = MinecraftClient.getInstance().player;
+        if (localPlayer == null) return NO_HIGHLIGHT;
+
+        GameWorldComponent gameWorldComponent = GameWorldComponent.KEY.get(localPlayer.getWorld());
+        if (WatheClient.canSeeSpectatorInformation()) {
+            if (target instanceof PlayerEntity playerTarget) {
+                if (GameFunctions.isPlayerPlayingAndAlive(playerTarget)) {
+                    Role role = gameWorldComponent.getRole(playerTarget);
+                    return Objects.requireNonNullElse(role, WatheRoles.CIVILIAN).color();
+                }
+            }
+            if (target instanceof ItemEntity || target instanceof NoteEntity || target instanceof FirecrackerEntity)
+                return ITEM_COLOR;
+            if (target instanceof PlayerBodyEntity body) {
+                return Objects.requireNonNullElse(gameWorldComponent.getRole(body.getPlayerUuid()), WatheRoles.CIVILIAN).color();
+            }
+        }
+        if (WatheClient.isKiller()) {
+            if (target instanceof ItemEntity || target instanceof NoteEntity || target instanceof FirecrackerEntity)
+                return ITEM_COLOR;
+            if (target instanceof PlayerEntity player) {
+                if (GameFunctions.isPlayerSpectatingOrCreative(player)) return NO_HIGHLIGHT;
+                if (gameWorldComponent.canUseKillerFeatures(player)) {
+                    return MathHelper.hsvToRgb(0F, 1.0F, 0.6F);
+                } else {
+                    return 0x4EDD35;
+                }
+            }
+        }
+        return NO_HIGHLIGHT;
+    }
+}
@@ -6,15 +6,15 @@ import dev.doctor4t.ratatouille.client.util.ambience.AmbienceUtil;
 import dev.doctor4t.ratatouille.client.util.ambience.BackgroundAmbience;
 import dev.doctor4t.wathe.Wathe;
 import dev.doctor4t.wathe.WatheConfig;
-import dev.doctor4t.wathe.api.Role;
-import dev.doctor4t.wathe.api.WatheRoles;
 import dev.doctor4t.wathe.cca.*;
+import dev.doctor4t.wathe.client.gui.CrosshairTargetResolver;
 import dev.doctor4t.wathe.client.gui.RoundTextRenderer;
 import dev.doctor4t.wathe.client.gui.StoreRenderer;
 import dev.doctor4t.wathe.client.gui.TimeRenderer;
 import dev.doctor4t.wathe.client.gui.screen.MapVotingScreen;
 import dev.doctor4t.wathe.client.model.WatheModelLayers;
 import dev.doctor4t.wathe.client.model.item.KnifeModelLoadingPlugin;
+import dev.doctor4t.wathe.client.particle.SnowflakeParticle;
 import dev.doctor4t.wathe.client.skin.ItemSkinTextureManager;
 import dev.doctor4t.wathe.client.render.block_entity.PlateBlockEntityRenderer;
 import dev.doctor4t.wathe.client.render.block_entity.SmallDoorBlockEntityRenderer;
@@ -25,9 +25,7 @@ import dev.doctor4t.wathe.client.render.entity.NoteEntityRenderer;
 import dev.doctor4t.wathe.client.util.WatheItemTooltips;
 import dev.doctor4t.wathe.entity.FirecrackerEntity;
 import dev.doctor4t.wathe.entity.NoteEntity;
-import dev.doctor4t.wathe.entity.PlayerBodyEntity;
 import dev.doctor4t.wathe.api.event.AllowPlayerChat;
-import dev.doctor4t.wathe.api.event.GetInstinctHighlight;
 import dev.doctor4t.wathe.game.GameConstants;
 import dev.doctor4t.wathe.game.GameFunctions;
 import dev.doctor4t.wathe.index.*;
@@ -123,6 +121,7 @@ public class WatheClient implements ClientModInitializer {
         // Clear skin textures on disconnect (release GPU resources)
         ClientPlayConnectionEvents.DISCONNECT.register((handler, client) -> {
             ItemSkinTextureManager.getInstance().clearAll();
+            SnowflakeParticle.clearPool();
         });
 
         // Block render layers
@@ -348,6 +347,8 @@ public class WatheClient implements ClientModInitializer {
             WatheClient.handParticleManager.tick();
             RoundTextRenderer.tick();
         });
+        CrosshairTargetResolver.init();
+        InstinctHighlightCache.init();
 
         // 版本检查 - 响应服务端版本检查请求
         ClientConfigurationNetworking.registerGlobalReceiver(VersionCheckPayload.ID, (payload, context) -> {
@@ -514,58 +515,11 @@ public class WatheClient implements ClientModInitializer {
         return false;
     }
 
+    /**
+     * 实体的本能高亮颜色，-1 表示不高亮。结果来自每 tick 重建的 {@link InstinctHighlightCache}
+     */
     public static int getInstinctHighlight(Entity target) {
-        // 触发事件，允许附属 mod 自定义高亮
-        GetInstinctHighlight.HighlightResult eventResult = GetInstinctHighlight.EVENT.invoker().getHighlight(target);
-        if (eventResult != null) {
-            // 显式跳过
-            if (eventResult.isSkip()) {
-                return -1;
-            }
-            // 检查是否需要按键
-            if (eventResult.requiresKeybind() && !isInstinctEnabled()) {
-                return -1;
-            }
-            return eventResult.color();
-        }
-
-        // 默认逻辑需要按键
-        if (!isInstinctEnabledAndIsKiller()) return -1;
-
-        var localPlayer = MinecraftClient.getInstance().player;
-
-        if (localPlayer == null){
-            return -1;
-        }
-
-        GameWorldComponent gameWorldComponent = GameWorldComponent.KEY.get(localPlayer.getWorld());
-        if (canSeeSpectatorInformation()) {
-            if (target instanceof PlayerEntity playerTarget) {
-                if (GameFunctions.isPlayerPlayingAndAlive(playerTarget)) {
-                    Role role = gameWorldComponent.getRole(playerTarget);
-                    return Objects.requireNonNullElse(role, WatheRoles.CIVILIAN).color();
-                }
-            }
-            if (target instanceof ItemEntity || target instanceof NoteEntity || target instanceof FirecrackerEntity)
-                return 0xDB9D00;
-            if(target instanceof PlayerBodyEntity body)
-            {
-                return Objects.requireNonNullElse(gameWorldComponent.getRole(body.getPlayerUuid()), WatheRoles.CIVILIAN).color();
-            }
-        }
-        if (isKiller()){
-            if (target instanceof ItemEntity || target instanceof NoteEntity || target instanceof FirecrackerEntity)
-                return 0xDB9D00;
-            if (target instanceof PlayerEntity player) {
-                if (GameFunctions.isPlayerSpectatingOrCreative(player)) return -1;
-                if (gameWorldComponent.canUseKillerFeatures(player)){
-                    return MathHelper.hsvToRgb(0F, 1.0F, 0.6F);
-                } else {
-                    return 0x4EDD35;
-                }
-            }
-        }
-        return -1;
+        return InstinctHighlightCache.get(target);
     }
 
     public static boolean isInstinctEnabledAndIsKiller() {
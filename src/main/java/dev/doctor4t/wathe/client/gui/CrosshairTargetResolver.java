@@ -0,0 +1,168 @@
+package dev.doctor4t.wathe.client.gui;
+
+import dev.doctor4t.wathe.api.event.CanTargetBody;
+import dev.doctor4t.wathe.client.WatheClient;
+import dev.doctor4t.wathe.entity.NoteEntity;
+import dev.doctor4t.wathe.entity.PlayerBodyEntity;
+import dev.doctor4t.wathe.game.GameFunctions;
+import dev.doctor4t.wathe.index.WatheItems;
+import dev.doctor4t.wathe.item.DerringerItem;
+import dev.doctor4t.wathe.item.KnifeItem;
+import dev.doctor4t.wathe.item.RevolverItem;
+import net.fabricmc.fabric.api.client.event.lifecycle.v1.ClientTickEvents;
+import net.minecraft.client.MinecraftClient;
+import net.minecraft.client.network.ClientPlayerEntity;
+import net.minecraft.entity.Entity;
+import net.minecraft.entity.player.PlayerEntity;
+import net.minecraft.item.ItemStack;
+import net.minecraft.util.hit.HitResult;
+import net.minecraft.util.math.Box;
+import net.minecraft.util.math.Vec3d;
+import net.minecraft.world.RaycastContext;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Optional;
+
+/**
+ * 每个客户端 tick 解析一次准星目标，供各 HUD 渲染器共享
+ * <p>
+ * 一次方块射线检测加一次实体粗筛，按类型（任意玩家、存活玩家、可见的存活玩家、尸体、纸条）分别记录最近的命中及距离。
+ * 与分别调用 {@link net.minecraft.entity.projectile.ProjectileUtil#getCollision} 的结果一致：
+ * 只有同类实体会互相遮挡，方块会遮挡所有类型。渲染器每帧只读取缓存结果并插值透明度。
+ */
+public final class CrosshairTargetResolver {
+    private static final double BASE_RANGE = 2.0;
+    private static final double SPECTATOR_RANGE = 8.0;
+
+    private static final Target ANY_PLAYER = new Target();
+    private static final Target LIVING_PLAYER = new Target();
+    private static final Target VISIBLE_LIVING_PLAYER = new Target();
+    private static final Target BODY = new Target();
+    private static final Target NOTE = new Target();
+    private static final Target[] TARGETS = {ANY_PLAYER, LIVING_PLAYER, VISIBLE_LIVING_PLAYER, BODY, NOTE};
+
+    private CrosshairTargetResolver() {
+    }
+
+    public static void init() {
+        ClientTickEvents.END_CLIENT_TICK.register(CrosshairTargetResolver::resolve);
+    }
+
+    /**
+     * Nearest player of any game mode under the crosshair.
+     */
+    public static @Nullable PlayerEntity getPlayer(double range) {
+        return (PlayerEntity) ANY_PLAYER.get(range);
+    }
+
+    /**
+     * Nearest alive survival player under the crosshair, as targeted by guns and knives.
+     */
+    public static @Nullable PlayerEntity getLivingPlayer(double range) {
+        return (PlayerEntity) LIVING_PLAYER.get(range);
+    }
+
+    /**
+     * Like {@link #getLivingPlayer(double)}, but ignoring invisible players.
+     */
+    public static @Nullable PlayerEntity getVisibleLivingPlayer(double range) {
+        return (PlayerEntity) VISIBLE_LIVING_PLAYER.get(range);
+    }
+
+    /**
+     * Nearest body under the crosshair that {@link CanTargetBody} allows.
+     */
+    public static @Nullable PlayerBodyEntity getBody(double range) {
+        return (PlayerBodyEntity) BODY.get(range);
+    }
+
+    public static @Nullable NoteEntity getNote(double range) {
+        return (NoteEntity) NOTE.get(range);
+    }
+
+    private static void resolve(MinecraftClient client) {
+        for (Target target : TARGETS) {
+            target.clear();
+        }
+        ClientPlayerEntity player = client.player;
+        if (player == null || client.world == null) return;
+
+        double range = getRequiredRange(player);
+        Vec3d start = player.getEyePos();
+        Vec3d end = start.add(player.getRotationVec(1.0F).multiply(range));
+
+        // 方块遮挡：只需一次射线检测，命中点之后的实体都不可见
+        HitResult blockHit = client.world.raycast(new RaycastContext(start, end, RaycastContext.ShapeType.COLLIDER, RaycastContext.FluidHandling.NONE, player));
+        double maxDistanceSq = range * range;
+        if (blockHit.getType() != HitResult.Type.MISS) {
+            end = blockHit.getPos();
+            maxDistanceSq = start.squaredDistanceTo(end);
+        }
+
+        Box searchBox = player.getBoundingBox().stretch(end.subtract(start)).expand(1.0);
+        for (Entity entity : client.world.getOtherEntities(player, searchBox, entity -> entity instanceof PlayerEntity || entity instanceof PlayerBodyEntity || entity instanceof NoteEntity)) {
+            Box box = entity.getBoundingBox().expand(entity.getTargetingMargin());
+            double distanceSq;
+            if (box.contains(start)) {
+                distanceSq = 0.0;
+            } else {
+                Optional<Vec3d> hit = box.raycast(start, end);
+                if (hit.isEmpty()) continue;
+                distanceSq = start.squaredDistanceTo(hit.get());
+            }
+            if (distanceSq > maxDistanceSq) continue;
+
+            if (entity instanceof PlayerEntity target) {
+                ANY_PLAYER.offer(target, distanceSq);
+                if (GameFunctions.isPlayerAliveAndSurvival(target)) {
+                    LIVING_PLAYER.offer(target, distanceSq);
+                    if (!target.isInvisible()) VISIBLE_LIVING_PLAYER.offer(target, distanceSq);
+                }
+            } else if (entity instanceof PlayerBodyEntity body) {
+                if (distanceSq < BODY.distanceSq && CanTargetBody.EVENT.invoker().canTarget(player, body)) {
+                    BODY.offer(body, distanceSq);
+                }
+            } else if (entity instanceof NoteEntity note) {
+                NOTE.offer(note, distanceSq);
+            }
+        }
+    }
+
+    /**
+     * 只检测当前 HUD 需要的最远距离：旁观信息、手持枪械或刀
+     */
+    private static double getRequiredRange(ClientPlayerEntity player) {
+        double range = WatheClient.canSeeSpectatorInformation() ? SPECTATOR_RANGE : BASE_RANGE;
+        ItemStack stack = player.getMainHandStack();
+        if (stack.isOf(WatheItems.REVOLVER)) {
+            range = Math.max(range, RevolverItem.RANGE);
+        } else if (stack.isOf(WatheItems.DERRINGER)) {
+            range = Math.max(range, DerringerItem.RANGE);
+        } else if (stack.isOf(WatheItems.KNIFE)) {
+            range = Math.max(range, KnifeItem.RANGE);
+        }
+        return range;
+    }
+
+    private static final class Target {
+        private @Nullable Entity entity;
+        private double distanceSq = Double.MAX_VALUE;
+
+        private void offer(Entity entity, double distanceSq) {
+            if (distanceSq < this.distanceSq) {
+                this.entity = entity;
+                this.distanceSq = distanceSq;
+            }
+        }
+
+        private @Nullable Entity get(double range) {
+            if (this.entity == null || this.entity.isRemoved() || this.distanceSq > range * range) return null;
+            return this.entity;
+        }
+
+        private void clear() {
+            this.entity = null;
+            this.distanceSq = Double.MAX_VALUE;
+        }
+    }
+}
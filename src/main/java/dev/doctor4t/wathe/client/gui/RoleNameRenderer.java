@@ -8,7 +8,6 @@ import dev.doctor4t.wathe.client.WatheClient;
 import dev.doctor4t.wathe.entity.NoteEntity;
 import dev.doctor4t.wathe.entity.PlayerBodyEntity;
 import dev.doctor4t.wathe.api.event.CanSeeBodyRole;
-import dev.doctor4t.wathe.api.event.CanTargetBody;
 import dev.doctor4t.wathe.api.event.ShouldShowCohort;
 import dev.doctor4t.wathe.game.GameFunctions;
 import net.minecraft.client.MinecraftClient;
@@ -18,13 +17,11 @@ import net.minecraft.client.network.ClientPlayerEntity;
 import net.minecraft.client.network.PlayerListEntry;
 import net.minecraft.client.render.RenderTickCounter;
 import net.minecraft.entity.player.PlayerEntity;
-import net.minecraft.entity.projectile.ProjectileUtil;
 import net.minecraft.text.MutableText;
 import net.minecraft.text.Text;
 import net.minecraft.util.Colors;
 import net.minecraft.util.Formatting;
 import net.minecraft.util.Identifier;
-import net.minecraft.util.hit.EntityHitResult;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.MathHelper;
 import net.minecraft.world.LightType;
@@ -50,7 +47,9 @@ public class RoleNameRenderer {
         float range = WatheClient.canSeeSpectatorInformation() ? 8f : 2f;
         Role targetPlayerRole = null;
         PlayerEntity targetPlayer = null; // 保存目标玩家引用，用于事件调用
-        if (ProjectileUtil.getCollision(player, entity -> entity instanceof PlayerEntity, range) instanceof EntityHitResult entityHitResult && entityHitResult.getEntity() instanceof PlayerEntity target) {
+        // 准星目标每 tick 解析一次，这里只读取缓存结果
+        PlayerEntity target = CrosshairTargetResolver.getPlayer(range);
+        if (target != null) {
             nametagAlpha = MathHelper.lerp(tickCounter.getTickDelta(true) / 4, nametagAlpha, 1f);
             // Get target's role for spectator/creative mode display
             targetPlayerRole = component.getRole(target);
@@ -107,7 +106,8 @@ public class RoleNameRenderer {
         // 尸体角色显示逻辑：检测玩家是否在看尸体
         boolean canSeeFullBodyInfo = false;
         boolean canSeeEscapedDeathReason = false;
-        if (ProjectileUtil.getCollision(player, entity -> entity instanceof PlayerBodyEntity b && CanTargetBody.EVENT.invoker().canTarget(player, b), range) instanceof EntityHitResult ehr && ehr.getEntity() instanceof PlayerBodyEntity body) {
+        PlayerBodyEntity body = CrosshairTargetResolver.getBody(range);
+        if (body != null) {
             UUID deadPlayerUuid = body.getPlayerUuid();
             Identifier currentDeathReason = body.getDeathReason();
             // 检查死因是否是"退出游戏"（escaped），所有人都能看到
@@ -158,7 +158,8 @@ public class RoleNameRenderer {
             }
             context.getMatrices().pop();
         }
-        if (ProjectileUtil.getCollision(player, entity -> entity instanceof NoteEntity, range) instanceof EntityHitResult entityHitResult && entityHitResult.getEntity() instanceof NoteEntity note) {
+        NoteEntity note = CrosshairTargetResolver.getNote(range);
+        if (note != null) {
             noteAlpha = MathHelper.lerp(tickCounter.getTickDelta(true) / 4, noteAlpha, 1f);
             nametagAlpha = MathHelper.lerp(tickCounter.getTickDelta(true), nametagAlpha, 0f);
             RoleNameRenderer.note[0] = Text.literal(note.getLines()[0]);
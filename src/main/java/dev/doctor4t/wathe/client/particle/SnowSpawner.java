@@ -0,0 +1,157 @@
+package dev.doctor4t.wathe.client.particle;
+
+import dev.doctor4t.wathe.config.datapack.MapEnhancementsConfiguration.SnowParticlesConfig;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * 雪花生成器：决定每 tick 在哪里生成多少雪花，不依赖渲染或世界对象，可脱离客户端运行。
+ * <p>
+ * 地表高度按列缓存在一个环形表中，生成窗口随列车移动时重叠的列继续命中，缓存项在 {@link #HEIGHT_TTL} tick 后过期。
+ * 生成数量受两方面限制：同时存在的雪花不超过配置的 budget（按最近 {@link #LIFETIME_TICKS} tick 的生成数估算），
+ * 以及根据帧时间自适应的缩放系数。
+ */
+public final class SnowSpawner {
+    @FunctionalInterface
+    public interface HeightSource {
+        /**
+         * @return 该列最高的阻挡运动方块之上的 Y
+         */
+        int getTopY(int x, int z);
+    }
+
+    @FunctionalInterface
+    public interface Sink {
+        void spawn(double x, double y, double z, double velocityX, double velocityY, double velocityZ);
+    }
+
+    // 雪花寿命为 40~59 tick，超过这个时间的生成记录一定已经消失
+    static final int LIFETIME_TICKS = 60;
+    static final int HEIGHT_TTL = 40;
+    // 每个轴的缓存列数，必须是 2 的幂
+    private static final int CACHE_BITS = 6;
+    private static final int CACHE_SIZE = 1 << CACHE_BITS;
+    private static final int CACHE_MASK = CACHE_SIZE - 1;
+
+    private static final float SLOW_FRAME_MS = 1000f / 30f;
+    private static final float FAST_FRAME_MS = 1000f / 50f;
+    private static final float MIN_SCALE = .1f;
+
+    private final Random random;
+    private final int[] columnX = new int[CACHE_SIZE * CACHE_SIZE];
+    private final int[] columnZ = new int[CACHE_SIZE * CACHE_SIZE];
+    private final int[] columnTopY = new int[CACHE_SIZE * CACHE_SIZE];
+    private final int[] columnExpiry = new int[CACHE_SIZE * CACHE_SIZE];
+    private final int[] spawnHistory = new int[LIFETIME_TICKS];
+    private int recentSpawns = 0;
+    private int tick = 0;
+    private float scale = 1f;
+
+    private long heightLookups = 0;
+    private long heightMisses = 0;
+    private int lastSpawned = 0;
+
+    public SnowSpawner() {
+        this(new Random());
+    }
+
+    public SnowSpawner(Random random) {
+        this.random = random;
+        this.invalidateHeights();
+    }
+
+    /**
+     * 根据最近的帧时间调整生成数量：低于 30 FPS 时快速减少，高于 50 FPS 时缓慢恢复
+     */
+    public void updateFrameTime(float frameTimeMs) {
+        if (frameTimeMs > SLOW_FRAME_MS) {
+            this.scale = Math.max(MIN_SCALE, this.scale * .9f);
+        } else if (frameTimeMs < FAST_FRAME_MS) {
+            this.scale = Math.min(1f, this.scale + .02f);
+        }
+    }
+
+    /**
+     * 生成一个 tick 的雪花
+     *
+     * @param chance 雪花浓度百分比（0~100）
+     * @return 本 tick 实际生成的数量
+     */
+    public int tick(HeightSource heights, Sink sink, SnowParticlesConfig config, int chance,
+                    double x, double y, double z, double velocityX, double velocityY, double velocityZ) {
+        int slot = this.tick % LIFETIME_TICKS;
+        this.recentSpawns -= this.spawnHistory[slot];
+        this.spawnHistory[slot] = 0;
+        this.tick++;
+
+        int attempts = Math.round(config.count() * chance / 100f * this.scale);
+        int available = config.budget() - this.recentSpawns;
+        int spawned = 0;
+        for (int i = 0; i < attempts && spawned < available; i++) {
+            double posX = x + config.spawnOffsetX() + this.random.nextFloat() + velocityX;
+            double posY = y + (this.random.nextFloat() * 2 - 1) * config.spawnRangeY() + velocityY;
+            double posZ = z + (this.random.nextFloat() * 2 - 1) * config.spawnRangeZ() + velocityZ;
+
+            if (posY >= this.getTopY(heights, (int) Math.floor(posX), (int) Math.floor(posZ))) {
+                sink.spawn(posX, posY, posZ, 2 + velocityX, velocityY, velocityZ);
+                spawned++;
+            }
+        }
+
+        this.spawnHistory[slot] = spawned;
+        this.recentSpawns += spawned;
+        this.lastSpawned = spawned;
+        return spawned;
+    }
+
+    private int getTopY(HeightSource heights, int x, int z) {
+        this.heightLookups++;
+        int index = (x & CACHE_MASK) << CACHE_BITS | (z & CACHE_MASK);
+        if (this.columnX[index] == x && this.columnZ[index] == z && this.columnExpiry[index] - this.tick > 0) {
+            return this.columnTopY[index];
+        }
+        this.heightMisses++;
+        int topY = heights.getTopY(x, z);
+        this.columnX[index] = x;
+        this.columnZ[index] = z;
+        this.columnTopY[index] = topY;
+        this.columnExpiry[index] = this.tick + HEIGHT_TTL;
+        return topY;
+    }
+
+    /**
+     * 雪停后清空生成记录，避免恢复下雪时沿用过期的计数
+     */
+    public void clearHistory() {
+        if (this.recentSpawns == 0) return;
+        Arrays.fill(this.spawnHistory, 0);
+        this.recentSpawns = 0;
+    }
+
+    public void invalidateHeights() {
+        // 用不会出现在世界中的坐标标记空位
+        Arrays.fill(this.columnX, Integer.MIN_VALUE);
+        Arrays.fill(this.columnZ, Integer.MIN_VALUE);
+    }
+
+    public float getScale() {
+        return this.scale;
+    }
+
+    public int getRecentSpawns() {
+        return this.recentSpawns;
+    }
+
+    public int getLastSpawned() {
+        return this.lastSpawned;
+    }
+
+    public long getHeightLookups() {
+        return this.heightLookups;
+    }
+
+    public long getHeightMisses() {
+        return this.heightMisses;
+    }
+}
@@ -13,9 +13,16 @@ import net.minecraft.particle.SimpleParticleType;
 import net.minecraft.util.math.MathHelper;
 import org.joml.Quaternionf;
 
+import java.util.ArrayDeque;
+
 public class SnowflakeParticle extends SpriteBillboardParticle {
-    private final float yRand;
-    private final float zRand;
+    // 死亡的雪花回收到池中，下雪时每 tick 生成上百个，复用可以避免大量短命对象
+    private static final int MAX_POOLED = 4096;
+    private static final ArrayDeque<SnowflakeParticle> POOL = new ArrayDeque<>();
+
+    private final SpriteProvider spriteProvider;
+    private float yRand;
+    private float zRand;
 
     private float angleX;
     private float angleY;
@@ -23,13 +30,56 @@ public class SnowflakeParticle extends SpriteBillboardParticle {
     private float prevAngleX;
     private float prevAngleY;
     private float prevAngleZ;
-    private final float angleRandX;
-    private final float angleRandY;
-    private final float angleRandZ;
+    private float angleRandX;
+    private float angleRandY;
+    private float angleRandZ;
+    // 纵向移动被挡住后原版会永久停止移动，这样的粒子不能复用
+    private boolean reusable = true;
 
     public SnowflakeParticle(ClientWorld world, double x, double y, double z, double velocityX, double velocityY, double velocityZ, SpriteProvider spriteProvider) {
         super(world, x, y, z, velocityX, velocityY, velocityZ);
+        this.spriteProvider = spriteProvider;
+        this.init(velocityX, velocityY, velocityZ);
+    }
+
+    /**
+     * 从池中取出一个雪花并重置到新位置，池为空或属于其他世界时新建
+     */
+    public static SnowflakeParticle obtain(ClientWorld world, double x, double y, double z, double velocityX, double velocityY, double velocityZ, SpriteProvider spriteProvider) {
+        SnowflakeParticle particle = POOL.poll();
+        if (particle == null) {
+            return new SnowflakeParticle(world, x, y, z, velocityX, velocityY, velocityZ, spriteProvider);
+        }
+        if (particle.world != world || particle.spriteProvider != spriteProvider) {
+            // 切换世界或重载资源后旧对象全部作废
+            POOL.clear();
+            return new SnowflakeParticle(world, x, y, z, velocityX, velocityY, velocityZ, spriteProvider);
+        }
+        particle.dead = false;
+        particle.onGround = false;
+        particle.age = 0;
+        particle.setPos(x, y, z);
+        particle.prevPosX = x;
+        particle.prevPosY = y;
+        particle.prevPosZ = z;
+        particle.angleX = particle.angleY = particle.angleZ = 0f;
+        particle.prevAngleX = particle.prevAngleY = particle.prevAngleZ = 0f;
+        particle.init(velocityX, velocityY, velocityZ);
+        return particle;
+    }
+
+    /**
+     * 池中的粒子引用着创建它们的世界，切换世界或断开连接时必须清空，否则旧世界无法被回收
+     */
+    public static void clearPool() {
+        POOL.clear();
+    }
 
+    public static int getPooledCount() {
+        return POOL.size();
+    }
+
+    private void init(double velocityX, double velocityY, double velocityZ) {
         this.velocityX = velocityX;
         this.velocityY = velocityY;
         this.velocityZ = velocityZ;
@@ -45,9 +95,26 @@ public class SnowflakeParticle extends SpriteBillboardParticle {
         this.scale = .1f + world.random.nextFloat() * .1f;
         this.alpha = 0f;
 
-        if (WatheConfig.snowOptLevel == WatheConfig.SnowModeConfig.BOX_COLLIDER) collidesWithWorld = false;
+        this.collidesWithWorld = WatheConfig.snowOptLevel != WatheConfig.SnowModeConfig.BOX_COLLIDER;
+        this.reusable = true;
 
-        this.setSprite(spriteProvider.getSprite(world.random));
+        this.setSprite(this.spriteProvider.getSprite(world.random));
+    }
+
+    @Override
+    public void move(double dx, double dy, double dz) {
+        double prevY = this.y;
+        super.move(dx, dy, dz);
+        if (Math.abs(dy) >= 1.0E-5 && this.y == prevY) this.reusable = false;
+    }
+
+    @Override
+    public void markDead() {
+        if (!this.dead && this.reusable && POOL.size() < MAX_POOLED) {
+            // 粒子管理器会在本次遍历中移除它，之后才会被重新取出
+            POOL.push(this);
+        }
+        super.markDead();
     }
 
     public ParticleTextureSheet getType() {
@@ -99,7 +166,7 @@ public class SnowflakeParticle extends SpriteBillboardParticle {
 
         @Override
         public Particle createParticle(SimpleParticleType parameters, ClientWorld world, double x, double y, double z, double velocityX, double velocityY, double velocityZ) {
-            return new SnowflakeParticle(world, x, y, z, velocityX, velocityY, velocityZ, this.spriteProvider);
+            return SnowflakeParticle.obtain(world, x, y, z, velocityX, velocityY, velocityZ, this.spriteProvider);
         }
     }
 }
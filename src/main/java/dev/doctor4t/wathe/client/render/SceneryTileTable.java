@@ -0,0 +1,220 @@
+package dev.doctor4t.wathe.client.render;
+
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+
+import java.util.Arrays;
+
+/**
+ * 风景区块的虚拟位置表，按列（结构体数组）保存在连续的基本类型数组中。
+ * <p>
+ * 列车行驶时风景以 3 块首尾相接的地块循环滚动：Y 偏移只随配置的高度变化，Z 偏移只随相机所在区块变化，
+ * 二者在变化时才重新计算；X 偏移随时间连续变化，每帧对整个表计算一次。渲染器之后只需在连续内存上做距离和视锥测试。
+ * <p>
+ * 纯 Java 实现，不依赖 Sodium 或渲染代码，payload 由调用方决定（如 Sodium 的 RenderSection）。
+ */
+public final class SceneryTileTable<T> {
+    public static final int SECTION_SIZE = 16;
+    public static final int TILE_WIDTH = 15 * SECTION_SIZE;
+    public static final int TILE_LENGTH = 32 * SECTION_SIZE;
+    public static final int TILE_SIZE = TILE_LENGTH * 3;
+    // 相机前后 8 个区块之外的风景属于相邻的地块
+    private static final int BAND_SECTIONS = 8;
+
+    private final Long2IntOpenHashMap indexByKey = new Long2IntOpenHashMap();
+    private long[] keys = new long[64];
+    private int[] originX = new int[64];
+    private int[] originY = new int[64];
+    private int[] originZ = new int[64];
+    private int[] sectionZ = new int[64];
+    private Object[] payloads = new Object[64];
+
+    // 派生列
+    private float[] offsetX = new float[64];
+    private int[] offsetY = new int[64];
+    private int[] offsetZ = new int[64];
+    // 每个区块所在地块相对相机地块的偏移：-1、0 或 1
+    private byte[] band = new byte[64];
+    private int size = 0;
+
+    private int height = 0;
+    private int cameraSectionZ = Integer.MIN_VALUE;
+
+    public SceneryTileTable() {
+        this.indexByKey.defaultReturnValue(-1);
+    }
+
+    public void add(long key, int originX, int originY, int originZ, T payload) {
+        int index = this.indexByKey.get(key);
+        if (index < 0) {
+            if (this.size == this.keys.length) this.grow();
+            index = this.size++;
+            this.indexByKey.put(key, index);
+        }
+        this.keys[index] = key;
+        this.originX[index] = originX;
+        this.originY[index] = originY;
+        this.originZ[index] = originZ;
+        this.sectionZ[index] = Math.floorDiv(originZ, SECTION_SIZE);
+        this.payloads[index] = payload;
+        this.offsetY[index] = this.height;
+        this.updateZ(index);
+    }
+
+    public void remove(long key) {
+        int index = this.indexByKey.remove(key);
+        if (index < 0) return;
+        int last = --this.size;
+        if (index != last) {
+            // 用最后一项填补空位，保持数组连续
+            this.keys[index] = this.keys[last];
+            this.originX[index] = this.originX[last];
+            this.originY[index] = this.originY[last];
+            this.originZ[index] = this.originZ[last];
+            this.sectionZ[index] = this.sectionZ[last];
+            this.payloads[index] = this.payloads[last];
+            this.offsetX[index] = this.offsetX[last];
+            this.offsetY[index] = this.offsetY[last];
+            this.offsetZ[index] = this.offsetZ[last];
+            this.band[index] = this.band[last];
+            this.indexByKey.put(this.keys[index], index);
+        }
+        this.payloads[last] = null;
+    }
+
+    public void clear() {
+        Arrays.fill(this.payloads, 0, this.size, null);
+        this.indexByKey.clear();
+        this.size = 0;
+    }
+
+    /**
+     * 风景高度来自 SceneryConfig，只在配置变化时更新 Y 列
+     */
+    public void setHeight(int height) {
+        if (height == this.height) return;
+        this.height = height;
+        Arrays.fill(this.offsetY, 0, this.size, height);
+    }
+
+    /**
+     * 相机跨越区块时重新划分地块并更新 Z 列
+     */
+    public void setCameraSectionZ(int cameraSectionZ) {
+        if (cameraSectionZ == this.cameraSectionZ) return;
+        this.cameraSectionZ = cameraSectionZ;
+        for (int i = 0; i < this.size; i++) {
+            this.updateZ(i);
+        }
+    }
+
+    private void updateZ(int index) {
+        int band = getBand(this.sectionZ[index] - this.cameraSectionZ);
+        this.band[index] = (byte) band;
+        this.offsetZ[index] = -band * TILE_WIDTH;
+    }
+
+    /**
+     * 按列车行驶距离更新整列 X 偏移
+     *
+     * @param distance 列车行驶的距离（方块）
+     * @param cameraX  相机 X 坐标
+     */
+    public void updateX(float distance, float cameraX) {
+        float half = TILE_SIZE / 2f;
+        for (int i = 0; i < this.size; i++) {
+            int centerX = this.originX[i] + SECTION_SIZE / 2;
+            this.offsetX[i] = getOffsetX(centerX, cameraX, distance + this.band[i] * TILE_LENGTH, half);
+        }
+    }
+
+    /**
+     * 区块相对相机所在的地块：前后超过 8 个区块的属于相邻地块
+     */
+    public static int getBand(int zSectionFromCamera) {
+        if (zSectionFromCamera <= -BAND_SECTIONS) return -1;
+        if (zSectionFromCamera >= BAND_SECTIONS) return 1;
+        return 0;
+    }
+
+    /**
+     * 区块在滚动后相对原位置的 X 偏移，使其落在相机周围一个地块长度的循环区间内
+     */
+    public static float getOffsetX(int centerX, float cameraX, float distance, float half) {
+        float relative = centerX - cameraX;
+        float wrapped = (relative + distance) % TILE_SIZE - half;
+        return wrapped - relative;
+    }
+
+    /**
+     * 轴对齐区块到相机的距离测试，与 Sodium 的水平圆柱形渲染距离一致
+     *
+     * @param relX  区块虚拟原点相对相机的 X
+     * @param relY  区块虚拟原点相对相机整数坐标的 Y
+     * @param relZ  区块虚拟原点相对相机整数坐标的 Z
+     * @param fracY 相机 Y 的小数部分
+     * @param fracZ 相机 Z 的小数部分
+     */
+    public static boolean isWithinRenderDistance(float relX, int relY, int relZ, float fracY, float fracZ, float maxDistance) {
+        float dx = nearestToZero(relX, relX + SECTION_SIZE);
+        float dy = nearestToZero(relY, relY + SECTION_SIZE) - fracY;
+        float dz = nearestToZero(relZ, relZ + SECTION_SIZE) - fracZ;
+        return dx * dx + dz * dz < maxDistance * maxDistance && Math.abs(dy) < maxDistance;
+    }
+
+    private static float nearestToZero(float min, float max) {
+        if (min > 0) return min;
+        if (max < 0) return max;
+        return 0;
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    public int indexOf(long key) {
+        return this.indexByKey.get(key);
+    }
+
+    @SuppressWarnings("unchecked")
+    public T getPayload(int index) {
+        return (T) this.payloads[index];
+    }
+
+    public float getOffsetX(int index) {
+        return this.offsetX[index];
+    }
+
+    public int getOffsetY(int index) {
+        return this.offsetY[index];
+    }
+
+    public int getOffsetZ(int index) {
+        return this.offsetZ[index];
+    }
+
+    public float getVirtualOriginX(int index) {
+        return this.originX[index] + this.offsetX[index];
+    }
+
+    public int getVirtualOriginY(int index) {
+        return this.originY[index] + this.offsetY[index];
+    }
+
+    public int getVirtualOriginZ(int index) {
+        return this.originZ[index] + this.offsetZ[index];
+    }
+
+    private void grow() {
+        int capacity = this.keys.length * 2;
+        this.keys = Arrays.copyOf(this.keys, capacity);
+        this.originX = Arrays.copyOf(this.originX, capacity);
+        this.originY = Arrays.copyOf(this.originY, capacity);
+        this.originZ = Arrays.copyOf(this.originZ, capacity);
+        this.sectionZ = Arrays.copyOf(this.sectionZ, capacity);
+        this.payloads = Arrays.copyOf(this.payloads, capacity);
+        this.offsetX = Arrays.copyOf(this.offsetX, capacity);
+        this.offsetY = Arrays.copyOf(this.offsetY, capacity);
+        this.offsetZ = Arrays.copyOf(this.offsetZ, capacity);
+        this.band = Arrays.copyOf(this.band, capacity);
+    }
+}
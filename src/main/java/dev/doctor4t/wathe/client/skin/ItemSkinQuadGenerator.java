@@ -25,6 +25,42 @@ public final class ItemSkinQuadGenerator {
             if (face == null) return unculledQuads;
             return faceQuads.getOrDefault(face, List.of());
         }
+
+        /**
+         * Maps the 0-1 UVs of every quad into a sub-rectangle, e.g. the skin's cell in the shared atlas.
+         */
+        public SkinQuadData remapUv(float minU, float minV, float scaleU, float scaleV) {
+            Map<Direction, List<BakedQuad>> remappedFaces = new EnumMap<>(Direction.class);
+            for (Map.Entry<Direction, List<BakedQuad>> entry : faceQuads.entrySet()) {
+                remappedFaces.put(entry.getKey(), remapUv(entry.getValue(), minU, minV, scaleU, scaleV));
+            }
+            return new SkinQuadData(
+                    Collections.unmodifiableMap(remappedFaces),
+                    remapUv(unculledQuads, minU, minV, scaleU, scaleV)
+            );
+        }
+
+        private static List<BakedQuad> remapUv(List<BakedQuad> quads, float minU, float minV, float scaleU, float scaleV) {
+            List<BakedQuad> result = new ArrayList<>(quads.size());
+            for (BakedQuad quad : quads) {
+                int[] data = quad.getVertexData().clone();
+                for (int i = 0; i < 4; i++) {
+                    int offset = i * 8;
+                    data[offset + 4] = Float.floatToRawIntBits(minU + Float.intBitsToFloat(data[offset + 4]) * scaleU);
+                    data[offset + 5] = Float.floatToRawIntBits(minV + Float.intBitsToFloat(data[offset + 5]) * scaleV);
+                }
+                result.add(new BakedQuad(data, quad.getColorIndex(), quad.getFace(), quad.getSprite(), quad.hasShade()));
+            }
+            return Collections.unmodifiableList(result);
+        }
+
+        public int getQuadCount() {
+            int count = unculledQuads.size();
+            for (List<BakedQuad> quads : faceQuads.values()) {
+                count += quads.size();
+            }
+            return count;
+        }
     }
 
     private ItemSkinQuadGenerator() {}
@@ -1,6 +1,7 @@
 package dev.doctor4t.wathe.client.skin;
 
 import dev.doctor4t.wathe.Wathe;
+import dev.doctor4t.wathe.WatheConfig;
 import net.minecraft.client.MinecraftClient;
 import net.minecraft.client.texture.NativeImage;
 import net.minecraft.client.texture.NativeImageBackedTexture;
@@ -10,6 +11,7 @@ import net.minecraft.util.Util;
 import org.jetbrains.annotations.Nullable;
 
 import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
 import java.net.http.HttpClient;
@@ -23,6 +25,14 @@ import java.util.HexFormat;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Downloads, caches and uploads item skin textures.
+ * <p>
+ * Downloading, PNG decoding and quad generation run on worker threads; only the GPU upload happens on the client
+ * thread. Skins are packed into the shared {@link SkinAtlas} (large ones keep their own texture) and held in a
+ * {@link SkinLruCache} bounded by {@link WatheConfig#skinCacheBudgetMb}, so long sessions with many different
+ * skins no longer grow without limit. Evicted skins are reloaded from the on-disk cache when drawn again.
+ */
 public class ItemSkinTextureManager {
     private static final ItemSkinTextureManager INSTANCE = new ItemSkinTextureManager();
 
@@ -33,10 +43,23 @@ public class ItemSkinTextureManager {
     public enum TextureState { LOADING, READY, FAILED }
 
     private final ConcurrentHashMap<String, TextureState> textureStates = new ConcurrentHashMap<>();
-    private final ConcurrentHashMap<String, Identifier> registeredTextures = new ConcurrentHashMap<>();
-    private final ConcurrentHashMap<String, ItemSkinQuadGenerator.SkinQuadData> quadCache = new ConcurrentHashMap<>();
+    // 以下字段仅在客户端线程访问
+    private final SkinAtlas atlas = new SkinAtlas();
+    private final SkinLruCache<String, LoadedSkin> skins = new SkinLruCache<>(getConfiguredBudget(), this::release);
+    // 清空后丢弃仍在加载中的旧结果
+    private volatile int generation = 0;
     private Path cacheDir;
 
+    /**
+     * A skin that is ready to draw, either in the atlas or in its own texture.
+     */
+    private record LoadedSkin(Identifier textureId, ItemSkinQuadGenerator.SkinQuadData quads,
+                              @Nullable SkinAtlasPacker.Region region) {
+    }
+
+    private record DecodedSkin(NativeImage image, ItemSkinQuadGenerator.SkinQuadData quads) {
+    }
+
     private ItemSkinTextureManager() {}
 
     public static ItemSkinTextureManager getInstance() {
@@ -92,13 +115,19 @@ public class ItemSkinTextureManager {
 
     public @Nullable Identifier getTextureId(String textureUrl) {
         if (textureStates.get(textureUrl) != TextureState.READY) return null;
-        return registeredTextures.get(textureUrl);
+        LoadedSkin skin = skins.get(textureUrl);
+        return skin != null ? skin.textureId() : null;
     }
 
     public void ensureLoaded(String textureUrl) {
         if (textureStates.containsKey(textureUrl)) return;
         textureStates.put(textureUrl, TextureState.LOADING);
 
+        int requestGeneration = generation;
+        // 占位精灵需在客户端线程获取，生成的面只引用它
+        Sprite dummySprite = MinecraftClient.getInstance()
+                .getBakedModelManager().getMissingModel().getParticleSprite();
+
         CompletableFuture.supplyAsync(() -> {
             try {
                 String hash = sha256(textureUrl);
@@ -125,45 +154,122 @@ public class ItemSkinTextureManager {
             } catch (Exception e) {
                 throw new RuntimeException(e);
             }
-        }, Util.getMainWorkerExecutor()).thenAcceptAsync(bytes -> {
-            try {
-                InputStream stream = new ByteArrayInputStream(bytes);
+        }, Util.getIoWorkerExecutor()).thenApplyAsync(bytes -> {
+            // 解码和生成面都在工作线程完成
+            try (InputStream stream = new ByteArrayInputStream(bytes)) {
                 NativeImage image = NativeImage.read(stream);
-
-                // Generate quads from the skin image before creating the GPU texture
-                Sprite dummySprite = MinecraftClient.getInstance()
-                        .getBakedModelManager().getMissingModel().getParticleSprite();
-                ItemSkinQuadGenerator.SkinQuadData quads = ItemSkinQuadGenerator.generate(image, dummySprite);
-                quadCache.put(textureUrl, quads);
-
-                NativeImageBackedTexture texture = new NativeImageBackedTexture(image);
-                Identifier texId = Wathe.id("skins/" + sha256(textureUrl));
-
-                MinecraftClient.getInstance().getTextureManager().registerTexture(texId, texture);
-                registeredTextures.put(textureUrl, texId);
+                try {
+                    return new DecodedSkin(image, ItemSkinQuadGenerator.generate(image, dummySprite));
+                } catch (RuntimeException e) {
+                    image.close();
+                    throw e;
+                }
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }, Util.getMainWorkerExecutor()).thenAcceptAsync(decoded -> {
+            if (requestGeneration != generation) {
+                decoded.image().close();
+                return;
+            }
+            try {
+                install(textureUrl, decoded);
                 textureStates.put(textureUrl, TextureState.READY);
             } catch (Exception e) {
+                decoded.image().close();
                 Wathe.LOGGER.warn("[SkinTexture] Failed to register texture for {}: {}", textureUrl, e.getMessage());
                 textureStates.put(textureUrl, TextureState.FAILED);
             }
         }, MinecraftClient.getInstance()).exceptionally(e -> {
-            Wathe.LOGGER.warn("[SkinTexture] Failed to download {}: {}", textureUrl, e.getMessage());
-            textureStates.put(textureUrl, TextureState.FAILED);
+            Wathe.LOGGER.warn("[SkinTexture] Failed to load {}: {}", textureUrl, e.getMessage());
+            if (requestGeneration == generation) {
+                textureStates.put(textureUrl, TextureState.FAILED);
+            }
             return null;
         });
     }
 
+    /**
+     * Uploads a decoded skin, preferring a cell in the shared atlas, and adds it to the LRU cache.
+     */
+    private void install(String textureUrl, DecodedSkin decoded) {
+        NativeImage image = decoded.image();
+        long weight = (long) image.getWidth() * image.getHeight() * 4 + decoded.quads().getQuadCount() * 32L * 4;
+
+        SkinAtlasPacker.Region region = null;
+        if (image.getWidth() <= SkinAtlas.MAX_CELL_SIZE && image.getHeight() <= SkinAtlas.MAX_CELL_SIZE) {
+            region = atlas.add(image);
+            // 图集已满时先淘汰最久未用的皮肤腾出空间
+            while (region == null && skins.evictEldest()) {
+                region = atlas.add(image);
+            }
+        }
+
+        LoadedSkin skin;
+        if (region != null) {
+            float scale = 1f / SkinAtlas.SIZE;
+            ItemSkinQuadGenerator.SkinQuadData quads = decoded.quads().remapUv(
+                    region.x() * scale, region.y() * scale, image.getWidth() * scale, image.getHeight() * scale);
+            image.close();
+            skin = new LoadedSkin(SkinAtlas.TEXTURE_ID, quads, region);
+        } else {
+            NativeImageBackedTexture texture = new NativeImageBackedTexture(image);
+            Identifier texId = Wathe.id("skins/" + sha256(textureUrl));
+            MinecraftClient.getInstance().getTextureManager().registerTexture(texId, texture);
+            skin = new LoadedSkin(texId, decoded.quads(), null);
+        }
+        // 配置可能在游戏中被修改
+        updateBudget();
+        skins.put(textureUrl, skin, weight);
+    }
+
+    private void release(String textureUrl, LoadedSkin skin) {
+        if (skin.region() != null) {
+            atlas.remove(skin.region());
+        } else {
+            MinecraftClient.getInstance().getTextureManager().destroyTexture(skin.textureId());
+        }
+        // 被淘汰的皮肤下次绘制时重新从磁盘缓存加载
+        textureStates.remove(textureUrl, TextureState.READY);
+    }
+
     public @Nullable ItemSkinQuadGenerator.SkinQuadData getQuads(String textureUrl) {
-        return quadCache.get(textureUrl);
+        LoadedSkin skin = skins.peek(textureUrl);
+        return skin != null ? skin.quads() : null;
+    }
+
+    /**
+     * Applies a changed {@link WatheConfig#skinCacheBudgetMb}, evicting skins if the cache is now over budget.
+     */
+    public void updateBudget() {
+        skins.setBudget(getConfiguredBudget());
+    }
+
+    public int getLoadedCount() {
+        return skins.size();
+    }
+
+    public long getUsedBytes() {
+        return skins.getUsedBytes();
+    }
+
+    public long getEvictions() {
+        return skins.getEvictions();
+    }
+
+    public float getAtlasFill() {
+        return atlas.getFill();
     }
 
     public void clearAll() {
-        for (Identifier texId : registeredTextures.values()) {
-            MinecraftClient.getInstance().getTextureManager().destroyTexture(texId);
-        }
-        registeredTextures.clear();
+        generation++;
+        skins.clear();
+        atlas.clear();
         textureStates.clear();
-        quadCache.clear();
+    }
+
+    private static long getConfiguredBudget() {
+        return WatheConfig.skinCacheBudgetMb * 1024L * 1024L;
     }
 
     private static String sha256(String input) {
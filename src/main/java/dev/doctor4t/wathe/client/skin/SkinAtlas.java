@@ -0,0 +1,78 @@
+package dev.doctor4t.wathe.client.skin;
+
+import com.mojang.blaze3d.systems.RenderSystem;
+import dev.doctor4t.wathe.Wathe;
+import net.minecraft.client.MinecraftClient;
+import net.minecraft.client.texture.NativeImage;
+import net.minecraft.client.texture.NativeImageBackedTexture;
+import net.minecraft.util.Identifier;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Shared dynamic texture that item skins are packed into, so skins drawn in the same frame share one texture and
+ * one render layer. Cells are handed out by {@link SkinAtlasPacker}; only the changed cell is uploaded when a skin
+ * is added. Must only be used on the render thread.
+ */
+public final class SkinAtlas {
+    public static final Identifier TEXTURE_ID = Wathe.id("skins/atlas");
+    public static final int SIZE = 1024;
+    private static final int MIN_CELL_SIZE = 16;
+    /**
+     * Skins larger than this keep their own texture instead of taking a quarter of the atlas.
+     */
+    public static final int MAX_CELL_SIZE = SIZE / 4;
+
+    private final SkinAtlasPacker packer = new SkinAtlasPacker(SIZE, MIN_CELL_SIZE);
+    private @Nullable NativeImageBackedTexture texture;
+
+    /**
+     * Copies the image into a free cell and uploads that cell.
+     *
+     * @return the cell, or null if the image is too large or no cell is free
+     */
+    public @Nullable SkinAtlasPacker.Region add(NativeImage image) {
+        RenderSystem.assertOnRenderThread();
+        int width = image.getWidth();
+        int height = image.getHeight();
+        if (width > MAX_CELL_SIZE || height > MAX_CELL_SIZE) return null;
+        SkinAtlasPacker.Region region = this.packer.allocate(width, height);
+        if (region == null) return null;
+
+        NativeImageBackedTexture atlas = this.getTexture();
+        NativeImage atlasImage = atlas.getImage();
+        if (atlasImage == null) {
+            this.packer.free(region);
+            return null;
+        }
+        // 先清空整格，避免残留上一个皮肤的像素
+        atlasImage.fillRect(region.x(), region.y(), region.size(), region.size(), 0);
+        image.copyRect(atlasImage, 0, 0, region.x(), region.y(), width, height, false, false);
+        atlas.bindTexture();
+        atlasImage.upload(0, region.x(), region.y(), region.x(), region.y(), region.size(), region.size(), false, false, false, false);
+        return region;
+    }
+
+    public void remove(SkinAtlasPacker.Region region) {
+        this.packer.free(region);
+    }
+
+    public void clear() {
+        this.packer.clear();
+    }
+
+    public int getAllocations() {
+        return this.packer.getAllocations();
+    }
+
+    public float getFill() {
+        return this.packer.getUsedArea() / (float) (SIZE * SIZE);
+    }
+
+    private NativeImageBackedTexture getTexture() {
+        if (this.texture == null) {
+            this.texture = new NativeImageBackedTexture(SIZE, SIZE, true);
+            MinecraftClient.getInstance().getTextureManager().registerTexture(TEXTURE_ID, this.texture);
+        }
+        return this.texture;
+    }
+}
@@ -0,0 +1,143 @@
+package dev.doctor4t.wathe.client.skin;
+
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Allocates square power-of-two cells in a square atlas, as a quadtree (buddy) allocator.
+ * <p>
+ * A request is rounded up to the next power of two and served by splitting a free cell into quarters as often as
+ * needed. Freeing a cell merges it back with its siblings once all four are free, so the atlas does not fragment
+ * permanently as skins are evicted and loaded again. Plain Java with no render dependencies.
+ */
+public final class SkinAtlasPacker {
+    public record Region(int x, int y, int size) {
+    }
+
+    private final int size;
+    private final int minCellSize;
+    private final Node root;
+    private int usedArea = 0;
+    private int allocations = 0;
+
+    /**
+     * @param size        the atlas width and height, a power of two
+     * @param minCellSize the smallest cell handed out, a power of two
+     */
+    public SkinAtlasPacker(int size, int minCellSize) {
+        if (Integer.bitCount(size) != 1 || Integer.bitCount(minCellSize) != 1 || minCellSize > size) {
+            throw new IllegalArgumentException("Atlas size " + size + " and cell size " + minCellSize + " must be powers of two");
+        }
+        this.size = size;
+        this.minCellSize = minCellSize;
+        this.root = new Node(0, 0, size);
+    }
+
+    /**
+     * @return the allocated cell, or null if no free cell is large enough
+     */
+    public @Nullable Region allocate(int width, int height) {
+        int needed = Math.max(this.minCellSize, Integer.highestOneBit(Math.max(1, Math.max(width, height)) - 1) << 1);
+        if (needed > this.size) return null;
+        Node node = this.allocate(this.root, needed);
+        if (node == null) return null;
+        this.usedArea += needed * needed;
+        this.allocations++;
+        return new Region(node.x, node.y, node.size);
+    }
+
+    private @Nullable Node allocate(Node node, int needed) {
+        if (node.used || node.size < needed || node.freeArea < needed * needed) return null;
+        if (node.children == null) {
+            if (node.size == needed) {
+                node.used = true;
+                node.freeArea = 0;
+                return node;
+            }
+            node.split();
+        }
+        for (Node child : node.children) {
+            Node result = this.allocate(child, needed);
+            if (result != null) {
+                node.freeArea -= needed * needed;
+                return result;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Releases a cell previously returned by {@link #allocate(int, int)}.
+     */
+    public void free(Region region) {
+        if (this.free(this.root, region)) {
+            this.usedArea -= region.size() * region.size();
+            this.allocations--;
+        }
+    }
+
+    private boolean free(Node node, Region region) {
+        if (node.size == region.size()) {
+            if (!node.used || node.x != region.x() || node.y != region.y()) return false;
+            node.used = false;
+            node.freeArea = node.size * node.size;
+            return true;
+        }
+        if (node.children == null) return false;
+        int half = node.size / 2;
+        int index = (region.x() >= node.x + half ? 1 : 0) + (region.y() >= node.y + half ? 2 : 0);
+        if (!this.free(node.children[index], region)) return false;
+        node.freeArea += region.size() * region.size();
+        // 四个子格都空闲时合并回一个整格
+        if (node.freeArea == node.size * node.size) {
+            node.children = null;
+        }
+        return true;
+    }
+
+    public void clear() {
+        this.root.children = null;
+        this.root.used = false;
+        this.root.freeArea = this.size * this.size;
+        this.usedArea = 0;
+        this.allocations = 0;
+    }
+
+    public int getSize() {
+        return this.size;
+    }
+
+    public int getUsedArea() {
+        return this.usedArea;
+    }
+
+    public int getAllocations() {
+        return this.allocations;
+    }
+
+    private static final class Node {
+        private final int x;
+        private final int y;
+        private final int size;
+        private @Nullable Node[] children;
+        private boolean used = false;
+        // 子树中空闲面积，用于提前剪枝
+        private int freeArea;
+
+        private Node(int x, int y, int size) {
+            this.x = x;
+            this.y = y;
+            this.size = size;
+            this.freeArea = size * size;
+        }
+
+        private void split() {
+            int half = this.size / 2;
+            this.children = new Node[]{
+                    new Node(this.x, this.y, half),
+                    new Node(this.x + half, this.y, half),
+                    new Node(this.x, this.y + half, half),
+                    new Node(this.x + half, this.y + half, half)
+            };
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package dev.doctor4t.wathe.client.skin;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Least-recently-used cache bounded by a memory budget instead of an entry count.
+ * <p>
+ * Every entry carries a weight in bytes. Inserting past the budget evicts the least recently used entries (never
+ * the one being inserted) and hands them to the eviction listener so their resources can be released. Plain Java
+ * with no render dependencies; not thread-safe, the skin manager only uses it from the client thread.
+ */
+public final class SkinLruCache<K, V> {
+    @FunctionalInterface
+    public interface EvictionListener<K, V> {
+        void onEvict(K key, V value);
+    }
+
+    // 插入顺序即使用顺序，get 时移到末尾
+    private final LinkedHashMap<K, Entry<V>> entries = new LinkedHashMap<>();
+    private final EvictionListener<K, V> listener;
+    private long budget;
+    private long usedBytes = 0;
+    private long evictions = 0;
+
+    public SkinLruCache(long budget, EvictionListener<K, V> listener) {
+        this.budget = budget;
+        this.listener = listener;
+    }
+
+    /**
+     * Returns the value and marks it as recently used.
+     */
+    public @Nullable V get(K key) {
+        Entry<V> entry = this.entries.remove(key);
+        if (entry == null) return null;
+        this.entries.put(key, entry);
+        return entry.value;
+    }
+
+    /**
+     * Returns the value without changing its position.
+     */
+    public @Nullable V peek(K key) {
+        Entry<V> entry = this.entries.get(key);
+        return entry != null ? entry.value : null;
+    }
+
+    public boolean contains(K key) {
+        return this.entries.containsKey(key);
+    }
+
+    /**
+     * Inserts or replaces a value, then evicts least recently used entries until the cache fits its budget again.
+     */
+    public void put(K key, V value, long weight) {
+        Entry<V> previous = this.entries.remove(key);
+        this.entries.put(key, new Entry<>(value, weight));
+        if (previous != null) {
+            this.usedBytes -= previous.weight;
+            if (previous.value != value) this.listener.onEvict(key, previous.value);
+        }
+        this.usedBytes += weight;
+        this.trim(key);
+    }
+
+    public boolean remove(K key) {
+        Entry<V> entry = this.entries.remove(key);
+        if (entry == null) return false;
+        this.usedBytes -= entry.weight;
+        this.listener.onEvict(key, entry.value);
+        return true;
+    }
+
+    /**
+     * Evicts the least recently used entry.
+     *
+     * @return false if the cache was empty
+     */
+    public boolean evictEldest() {
+        Iterator<Map.Entry<K, Entry<V>>> iterator = this.entries.entrySet().iterator();
+        if (!iterator.hasNext()) return false;
+        Map.Entry<K, Entry<V>> eldest = iterator.next();
+        iterator.remove();
+        this.usedBytes -= eldest.getValue().weight;
+        this.evictions++;
+        this.listener.onEvict(eldest.getKey(), eldest.getValue().value);
+        return true;
+    }
+
+    public void clear() {
+        Iterator<Map.Entry<K, Entry<V>>> iterator = this.entries.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<K, Entry<V>> entry = iterator.next();
+            iterator.remove();
+            this.listener.onEvict(entry.getKey(), entry.getValue().value);
+        }
+        this.usedBytes = 0;
+    }
+
+    public void setBudget(long budget) {
+        this.budget = budget;
+        this.trim(null);
+    }
+
+    private void trim(@Nullable K keep) {
+        Iterator<Map.Entry<K, Entry<V>>> iterator = this.entries.entrySet().iterator();
+        while (this.usedBytes > this.budget && iterator.hasNext()) {
+            Map.Entry<K, Entry<V>> eldest = iterator.next();
+            if (eldest.getKey().equals(keep)) continue;
+            iterator.remove();
+            this.usedBytes -= eldest.getValue().weight;
+            this.evictions++;
+            this.listener.onEvict(eldest.getKey(), eldest.getValue().value);
+        }
+    }
+
+    public int size() {
+        return this.entries.size();
+    }
+
+    public long getUsedBytes() {
+        return this.usedBytes;
+    }
+
+    public long getBudget() {
+        return this.budget;
+    }
+
+    public long getEvictions() {
+        return this.evictions;
+    }
+
+    private record Entry<V>(V value, long weight) {
+    }
+}
@@ -0,0 +1,279 @@
+package dev.doctor4t.wathe.command;
+
+import com.mojang.brigadier.CommandDispatcher;
+import dev.doctor4t.wathe.cca.GameWorldComponent;
+import dev.doctor4t.wathe.cca.MapVariablesWorldComponent;
+import dev.doctor4t.wathe.cca.WorldBlackoutComponent;
+import dev.doctor4t.wathe.cosmetic.CosmeticResolver;
+import dev.doctor4t.wathe.entity.PlayerBodyEntity;
+import dev.doctor4t.wathe.game.MapTransfer;
+import dev.doctor4t.wathe.game.RoundTeardown;
+import dev.doctor4t.wathe.game.TrainResetEngine;
+import dev.doctor4t.wathe.index.WatheEntities;
+import dev.doctor4t.wathe.record.GameRecordStore;
+import dev.doctor4t.wathe.util.DoorRegistry;
+import dev.doctor4t.wathe.util.DoorTimer;
+import dev.doctor4t.wathe.util.EntityTickMetrics;
+import dev.doctor4t.wathe.util.LagCompensation;
+import dev.doctor4t.wathe.util.LightBlockIndex;
+import dev.doctor4t.wathe.util.RoundEntityRegistry;
+import dev.doctor4t.wathe.util.Scheduler;
+import dev.doctor4t.wathe.util.SyncMetrics;
+import dev.doctor4t.wathe.util.WathePermissions;
+import me.lucko.fabric.api.permissions.v0.Permissions;
+import net.minecraft.entity.EntityType;
+import net.minecraft.server.command.CommandManager;
+import net.minecraft.server.command.ServerCommandSource;
+import net.minecraft.text.Text;
+import net.minecraft.util.Formatting;
+import net.minecraft.util.Identifier;
+import net.minecraft.util.math.Box;
+
+import java.util.List;
+import java.util.Map;
+
+public class DebugCommand {
+    public static void register(CommandDispatcher<ServerCommandSource> dispatcher) {
+        dispatcher.register(
+                CommandManager.literal("wathe:debug")
+                        .requires(Permissions.require(WathePermissions.COMMAND_DEBUG, WathePermissions.DEFAULT_COMMAND_LEVEL))
+                        .then(CommandManager.literal("sync")
+                                .then(CommandManager.literal("reset")
+                                        .executes(context -> resetSyncMetrics(context.getSource()))
+                                )
+                                .executes(context -> reportSyncMetrics(context.getSource()))
+                        )
+                        .then(CommandManager.literal("lights")
+                                .then(CommandManager.literal("rebuild")
+                                        .executes(context -> reportLightIndex(context.getSource(), true))
+                                )
+                                .executes(context -> reportLightIndex(context.getSource(), false))
+                        )
+                        .then(CommandManager.literal("trainreset")
+                                .then(CommandManager.literal("invalidate")
+                                        .executes(context -> invalidateTrainResetSnapshot(context.getSource()))
+                                )
+                                .executes(context -> reportTrainReset(context.getSource()))
+                        )
+                        .then(CommandManager.literal("teardown")
+                                .executes(context -> reportRoundTeardown(context.getSource()))
+                        )
+                        .then(CommandManager.literal("transfer")
+                                .executes(context -> reportMapTransfer(context.getSource()))
+                        )
+                        .then(CommandManager.literal("doors")
+                                .executes(context -> reportDoors(context.getSource()))
+                        )
+                        .then(CommandManager.literal("entities")
+                                .then(CommandManager.literal("reset")
+                                        .executes(context -> resetEntityTicks(context.getSource()))
+                                )
+                                .executes(context -> reportEntityTicks(context.getSource()))
+                        )
+                        .then(CommandManager.literal("scheduler")
+                                .executes(context -> reportScheduler(context.getSource()))
+                        )
+                        .then(CommandManager.literal("records")
+                                .executes(context -> reportRecordStore(context.getSource()))
+                        )
+                        .then(CommandManager.literal("cosmetics")
+                                .executes(context -> reportCosmetics(context.getSource()))
+                        )
+                        .then(CommandManager.literal("hits")
+                                .then(CommandManager.literal("reset")
+                                        .executes(context -> resetHitValidation(context.getSource()))
+                                )
+                                .executes(context -> reportHitValidation(context.getSource()))
+                        )
+        );
+    }
+
+    private static int reportSyncMetrics(ServerCommandSource source) {
+        Map<Identifier, SyncMetrics.Counter> counters = SyncMetrics.getCounters();
+        if (counters.isEmpty()) {
+            source.sendFeedback(() -> Text.literal("No component syncs recorded").formatted(Formatting.GRAY), false);
+            return 0;
+        }
+        source.sendFeedback(() -> Text.literal("Component sync traffic:").formatted(Formatting.GOLD), false);
+        for (Map.Entry<Identifier, SyncMetrics.Counter> entry : counters.entrySet()) {
+            SyncMetrics.Counter counter = entry.getValue();
+            Text line = Text.literal(" " + entry.getKey() + ": ").formatted(Formatting.YELLOW)
+                    .append(Text.literal(counter.getPackets() + " packets, " + counter.getBytes() + " B, " + counter.getBytesPerSecond() + " B/s").formatted(Formatting.WHITE));
+            source.sendFeedback(() -> line, false);
+        }
+        source.sendFeedback(() -> Text.literal(SyncMetrics.getCoalesced() + " syncs coalesced, " + SyncMetrics.getBundledPackets() + " packets sent in "
+                + SyncMetrics.getBundles() + " bundles").formatted(Formatting.GRAY), false);
+        return counters.size();
+    }
+
+    private static int reportLightIndex(ServerCommandSource source, boolean rebuild) {
+        LightBlockIndex index = WorldBlackoutComponent.KEY.get(source.getWorld()).getLightIndex();
+        if (rebuild) {
+            Box area = MapVariablesWorldComponent.KEY.get(source.getWorld()).getPlayArea();
+            if (area == null) {
+                source.sendError(Text.literal("No play area set"));
+                return 0;
+            }
+            index.rebuild(source.getWorld(), area);
+        }
+        if (!index.isBuilt()) {
+            source.sendFeedback(() -> Text.literal("Light index not built yet, it is built on the first blackout").formatted(Formatting.GRAY), false);
+            return 0;
+        }
+        double rebuildMs = index.getLastRebuildNanos() / 1_000_000.0;
+        source.sendFeedback(() -> Text.literal("Light index: " + index.size() + " lights, last rebuild took " + String.format("%.2f", rebuildMs) + " ms"), false);
+        return index.size();
+    }
+
+    private static int reportTrainReset(ServerCommandSource source) {
+        TrainResetEngine engine = GameWorldComponent.KEY.get(source.getWorld()).getTrainResetEngine();
+        TrainResetEngine.Snapshot snapshot = engine.getSnapshot();
+        if (snapshot == null) {
+            source.sendFeedback(() -> Text.literal("Train reset template not captured yet, it is captured on the next reset").formatted(Formatting.GRAY), false);
+            return 0;
+        }
+        double captureMs = engine.getLastCaptureNanos() / 1_000_000.0;
+        source.sendFeedback(() -> Text.literal("Train reset template: " + snapshot.getBlockCount() + " blocks, " + snapshot.getPaletteSize() + " states, "
+                + snapshot.getBlockEntityCount() + " block entities, captured in " + String.format("%.2f", captureMs) + " ms"), false);
+        if (engine.isResetting()) {
+            source.sendFeedback(() -> Text.literal("Reset in progress").formatted(Formatting.YELLOW), false);
+        } else if (engine.getLastResetTicks() >= 0) {
+            source.sendFeedback(() -> Text.literal("Last reset: " + engine.getLastChangedBlocks() + " blocks changed over " + engine.getLastResetTicks() + " ticks"), false);
+        }
+        return snapshot.getBlockCount();
+    }
+
+    private static int invalidateTrainResetSnapshot(ServerCommandSource source) {
+        GameWorldComponent.KEY.get(source.getWorld()).getTrainResetEngine().invalidateSnapshot();
+        source.sendFeedback(() -> Text.literal("Train reset template will be recaptured on the next reset"), false);
+        return 1;
+    }
+
+    private static int reportRoundTeardown(ServerCommandSource source) {
+        RoundTeardown teardown = GameWorldComponent.KEY.get(source.getWorld()).getRoundTeardown();
+        int tracked = RoundEntityRegistry.get(source.getWorld()).size();
+        source.sendFeedback(() -> Text.literal("Round entities tracked: " + tracked), false);
+        if (teardown.isRunning()) {
+            source.sendFeedback(() -> Text.literal("Teardown in progress").formatted(Formatting.YELLOW), false);
+        } else if (teardown.getLastTicks() < 0) {
+            source.sendFeedback(() -> Text.literal("No round has been torn down yet").formatted(Formatting.GRAY), false);
+            return tracked;
+        }
+        if (teardown.getLastTicks() >= 0) {
+            source.sendFeedback(() -> Text.literal("Last teardown: " + teardown.getLastDiscardedEntities() + " entities, "
+                    + teardown.getLastResetPlayers() + " players over " + teardown.getLastTicks() + " ticks").formatted(Formatting.GOLD), false);
+            for (RoundTeardown.Stage stage : RoundTeardown.Stage.values()) {
+                double ms = teardown.getLastStageNanos(stage) / 1_000_000.0;
+                Text line = Text.literal(" " + stage.name().toLowerCase() + ": ").formatted(Formatting.YELLOW)
+                        .append(Text.literal(String.format("%.3f", ms) + " ms").formatted(Formatting.WHITE));
+                source.sendFeedback(() -> line, false);
+            }
+        }
+        return tracked;
+    }
+
+    private static int reportMapTransfer(ServerCommandSource source) {
+        long waitNanos = MapTransfer.getLastChunkWaitNanos();
+        String chunks = MapTransfer.isPrewarming() ? "loading " + MapTransfer.getLastPrewarmChunks() + " chunks"
+                : waitNanos < 0 ? "no pre-load yet" : MapTransfer.getLastPrewarmChunks() + " chunks loaded in " + String.format("%.1f", waitNanos / 1_000_000.0) + " ms";
+        source.sendFeedback(() -> Text.literal("Map transfer: " + chunks + ", " + MapTransfer.getQueuedPlayers() + " players queued"), false);
+        double averageMs = MapTransfer.getAverageLatencyNanos() / 1_000_000.0;
+        double maxMs = MapTransfer.getMaxLatencyNanos() / 1_000_000.0;
+        source.sendFeedback(() -> Text.literal("Teleported " + MapTransfer.getTeleported() + " players (" + MapTransfer.getForcedTeleports() + " without pre-loaded chunk), latency avg "
+                + String.format("%.1f", averageMs) + " ms, max " + String.format("%.1f", maxMs) + " ms"), false);
+        return MapTransfer.getQueuedPlayers();
+    }
+
+    private static int reportDoors(ServerCommandSource source) {
+        DoorRegistry doors = DoorRegistry.get(source.getWorld());
+        DoorTimer timer = DoorTimer.get(source.getWorld());
+        double lastMs = timer.getLastTickNanos() / 1_000_000.0;
+        source.sendFeedback(() -> Text.literal("Doors: " + doors.size() + " loaded in " + doors.getChunkCount() + " chunks, " + timer.getPending() + " close timers pending"), false);
+        source.sendFeedback(() -> Text.literal("Auto-closed " + timer.getFired() + " doors, " + timer.getStale() + " outdated timers skipped, last tick "
+                + String.format("%.3f", lastMs) + " ms"), false);
+        return timer.getPending();
+    }
+
+    private static int reportEntityTicks(ServerCommandSource source) {
+        List<? extends PlayerBodyEntity> bodies = source.getWorld().getEntitiesByType(WatheEntities.PLAYER_BODY, entity -> true);
+        long settled = bodies.stream().filter(PlayerBodyEntity::isSettled).count();
+        source.sendFeedback(() -> Text.literal("Bodies: " + bodies.size() + " loaded, " + settled + " settled"), false);
+        Map<EntityType<?>, EntityTickMetrics.Counter> counters = EntityTickMetrics.getCounters();
+        if (counters.isEmpty()) {
+            source.sendFeedback(() -> Text.literal("No entity ticks recorded").formatted(Formatting.GRAY), false);
+            return bodies.size();
+        }
+        source.sendFeedback(() -> Text.literal("Entity tick time:").formatted(Formatting.GOLD), false);
+        for (Map.Entry<EntityType<?>, EntityTickMetrics.Counter> entry : counters.entrySet()) {
+            EntityTickMetrics.Counter counter = entry.getValue();
+            double activeUs = counter.getActiveTicks() == 0 ? 0 : counter.getActiveNanos() / 1000.0 / counter.getActiveTicks();
+            double dormantUs = counter.getDormantTicks() == 0 ? 0 : counter.getDormantNanos() / 1000.0 / counter.getDormantTicks();
+            Text line = Text.literal(" " + EntityType.getId(entry.getKey()) + ": ").formatted(Formatting.YELLOW)
+                    .append(Text.literal(counter.getActiveTicks() + " active ticks (avg " + String.format("%.1f", activeUs) + " µs), "
+                            + counter.getDormantTicks() + " settled ticks (avg " + String.format("%.1f", dormantUs) + " µs)").formatted(Formatting.WHITE));
+            source.sendFeedback(() -> line, false);
+        }
+        return bodies.size();
+    }
+
+    private static int resetEntityTicks(ServerCommandSource source) {
+        EntityTickMetrics.reset();
+        source.sendFeedback(() -> Text.literal("Entity tick metrics reset"), false);
+        return 1;
+    }
+
+    private static int reportScheduler(ServerCommandSource source) {
+        double lastMs = Scheduler.getLastTickNanos() / 1_000_000.0;
+        double totalMs = Scheduler.getTotalTickNanos() / 1_000_000.0;
+        source.sendFeedback(() -> Text.literal("Scheduler: " + Scheduler.getPendingTasks() + " pending, " + Scheduler.getExecutedTasks() + " executed, "
+                + Scheduler.getCancelledTasks() + " cancelled, last tick " + String.format("%.3f", lastMs) + " ms, total " + String.format("%.1f", totalMs) + " ms"), false);
+        return Scheduler.getPendingTasks();
+    }
+
+    private static int reportRecordStore(ServerCommandSource source) {
+        GameRecordStore store = GameRecordStore.get();
+        if (store == null) {
+            source.sendError(Text.literal("Match record store is not open"));
+            return 0;
+        }
+        int stored = store.listMatches().size();
+        source.sendFeedback(() -> Text.literal("Match records: " + stored + " stored, " + store.getQueuedTasks() + " queued tasks, "
+                + store.getDroppedTasks() + " dropped, " + store.getStreamedEvents() + " events streamed"), false);
+        return stored;
+    }
+
+    private static int reportHitValidation(ServerCommandSource source) {
+        source.sendFeedback(() -> Text.literal("Hit validation (" + LagCompensation.getTrackedPlayers() + " players tracked):").formatted(Formatting.GOLD), false);
+        for (LagCompensation.HitType type : LagCompensation.HitType.values()) {
+            long accepted = LagCompensation.getAccepted(type);
+            long rejected = LagCompensation.getRejected(type);
+            Text line = Text.literal(" " + type.name().toLowerCase() + ": ").formatted(Formatting.YELLOW)
+                    .append(Text.literal(accepted + " accepted, " + rejected + " rejected").formatted(Formatting.WHITE));
+            source.sendFeedback(() -> line, false);
+        }
+        return LagCompensation.getTrackedPlayers();
+    }
+
+    private static int resetHitValidation(ServerCommandSource source) {
+        LagCompensation.resetCounters();
+        source.sendFeedback(() -> Text.literal("Hit validation counters reset"), false);
+        return 1;
+    }
+
+    private static int reportCosmetics(ServerCommandSource source) {
+        source.sendFeedback(() -> Text.literal("Cosmetics: " + CosmeticResolver.getCachedPlayers() + " cached, " + CosmeticResolver.getInFlight() + " in flight, "
+                + CosmeticResolver.getCacheHits() + " cache hits, " + CosmeticResolver.getCoalescedRequests() + " coalesced"), false);
+        source.sendFeedback(() -> Text.literal("Fetched " + CosmeticResolver.getFetchedPlayers() + " players in " + CosmeticResolver.getBatches() + " batches, "
+                + CosmeticResolver.getFailedPlayers() + " failed, " + CosmeticResolver.getSkippedBatches() + " batches skipped"), false);
+        if (CosmeticResolver.isCircuitOpen()) {
+            source.sendFeedback(() -> Text.literal("API requests are paused after repeated failures").formatted(Formatting.RED), false);
+        }
+        return CosmeticResolver.getCachedPlayers();
+    }
+
+    private static int resetSyncMetrics(ServerCommandSource source) {
+        SyncMetrics.reset();
+        source.sendFeedback(() -> Text.literal("Component sync metrics reset"), false);
+        return 1;
+    }
+}
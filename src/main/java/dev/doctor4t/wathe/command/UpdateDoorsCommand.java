@@ -3,39 +3,114 @@ package dev.doctor4t.wathe.command;
 import com.mojang.brigadier.CommandDispatcher;
 import dev.doctor4t.wathe.block.SmallDoorBlock;
 import dev.doctor4t.wathe.block_entity.SmallDoorBlockEntity;
+import dev.doctor4t.wathe.cca.MapVariablesWorldComponent;
+import dev.doctor4t.wathe.util.DoorRegistry;
+import dev.doctor4t.wathe.util.Scheduler;
 import dev.doctor4t.wathe.util.WathePermissions;
 import me.lucko.fabric.api.permissions.v0.Permissions;
 import net.minecraft.block.BlockState;
-import net.minecraft.block.enums.DoubleBlockHalf;
 import net.minecraft.server.command.CommandManager;
 import net.minecraft.server.command.ServerCommandSource;
 import net.minecraft.server.world.ServerWorld;
+import net.minecraft.text.Text;
 import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.Box;
+import net.minecraft.util.math.Vec3d;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
+
 public class UpdateDoorsCommand {
+    private static final int HORIZONTAL_RANGE = 250;
+    private static final int VERTICAL_RANGE = 10;
+    private static final int DOORS_PER_TICK = 32;
+    private static final int PROGRESS_INTERVAL_TICKS = 20;
+
     public static void register(@NotNull CommandDispatcher<ServerCommandSource> dispatcher) {
-        dispatcher.register(CommandManager.literal("wathe:updateDoors").requires(Permissions.require(WathePermissions.COMMAND_UPDATE_DOORS, WathePermissions.DEFAULT_COMMAND_LEVEL)).executes(context -> {
-            ServerCommandSource source = context.getSource();
-
-            BlockPos playerPos = source.getPlayer().getBlockPos();
-            BlockPos.Mutable mutable = new BlockPos.Mutable();
-            for (int x = -250; x <= 250; x++) {
-                for (int y = -10; y <= 10; y++) {
-                    for (int z = -250; z <= 250; z++) {
-                        mutable.set(playerPos.getX() + x, playerPos.getY() + y, playerPos.getZ() + z);
-                        ServerWorld world = source.getWorld();
-                        BlockState blockState = world.getBlockState(mutable);
-                        if (blockState.getBlock() instanceof SmallDoorBlock && blockState.get(SmallDoorBlock.HALF).equals(DoubleBlockHalf.LOWER)) {
-                            if (world.getBlockEntity(mutable) instanceof SmallDoorBlockEntity entity) {
-                                SmallDoorBlock.toggleDoor(blockState, world, entity, mutable);
-                            }
-                        }
+        dispatcher.register(CommandManager.literal("wathe:updateDoors").requires(Permissions.require(WathePermissions.COMMAND_UPDATE_DOORS, WathePermissions.DEFAULT_COMMAND_LEVEL))
+                .then(CommandManager.literal("playArea").executes(context -> {
+                    ServerCommandSource source = context.getSource();
+                    Box playArea = MapVariablesWorldComponent.KEY.get(source.getWorld()).getPlayArea();
+                    if (playArea == null) {
+                        source.sendError(Text.translatable("commands.wathe.update_doors.no_play_area"));
+                        return 0;
                     }
-                }
+                    return start(source, pos -> playArea.contains(Vec3d.ofCenter(pos)));
+                }))
+                .executes(context -> {
+                    ServerCommandSource source = context.getSource();
+                    BlockPos origin = BlockPos.ofFloored(source.getPosition());
+                    return start(source, pos -> Math.abs(pos.getX() - origin.getX()) <= HORIZONTAL_RANGE
+                            && Math.abs(pos.getY() - origin.getY()) <= VERTICAL_RANGE
+                            && Math.abs(pos.getZ() - origin.getZ()) <= HORIZONTAL_RANGE);
+                }));
+    }
+
+    private static int start(ServerCommandSource source, Predicate<BlockPos> filter) {
+        ServerWorld world = source.getWorld();
+        List<SmallDoorBlockEntity> doors = DoorRegistry.get(world).collect(filter);
+        if (doors.isEmpty()) {
+            source.sendFeedback(() -> Text.translatable("commands.wathe.update_doors.none"), false);
+            return 0;
+        }
+        source.sendFeedback(() -> Text.translatable("commands.wathe.update_doors.start", doors.size()), false);
+        new UpdateJob(source, world, doors).schedule();
+        return doors.size();
+    }
+
+    /**
+     * 每 tick 切换一部分已加载的门，直到全部处理完
+     */
+    private static class UpdateJob implements Runnable {
+        private final ServerCommandSource source;
+        private final ServerWorld world;
+        private final List<SmallDoorBlockEntity> doors;
+        // 已随相邻门一起切换的门，避免被再次切换
+        private final Set<SmallDoorBlockEntity> handled = Collections.newSetFromMap(new IdentityHashMap<>());
+        private int cursor = 0;
+        private int toggled = 0;
+        private int ticks = 0;
+
+        private UpdateJob(ServerCommandSource source, ServerWorld world, List<SmallDoorBlockEntity> doors) {
+            this.source = source;
+            this.world = world;
+            this.doors = doors;
+        }
+
+        private void schedule() {
+            // 不属于回合，回合结束时不能被取消
+            Scheduler.schedule(this, 1);
+        }
+
+        @Override
+        public void run() {
+            int end = Math.min(this.doors.size(), this.cursor + DOORS_PER_TICK);
+            for (; this.cursor < end; this.cursor++) {
+                SmallDoorBlockEntity door = this.doors.get(this.cursor);
+                if (door.isRemoved() || !this.handled.add(door)) continue;
+                BlockPos pos = door.getPos();
+                BlockState state = this.world.getBlockState(pos);
+                if (!(state.getBlock() instanceof SmallDoorBlock)) continue;
+                SmallDoorBlockEntity neighbor = SmallDoorBlock.getNeighborDoorEntity(state, this.world, pos);
+                if (neighbor != null) this.handled.add(neighbor);
+                SmallDoorBlock.toggleDoor(state, this.world, door, pos);
+                this.toggled++;
             }
 
-            return 1;
-        }));
+            if (this.cursor >= this.doors.size()) {
+                int toggled = this.toggled;
+                this.source.sendFeedback(() -> Text.translatable("commands.wathe.update_doors.done", toggled), false);
+                return;
+            }
+            if (++this.ticks % PROGRESS_INTERVAL_TICKS == 0) {
+                int done = this.cursor;
+                this.source.sendFeedback(() -> Text.translatable("commands.wathe.update_doors.progress", done, this.doors.size()), false);
+            }
+            this.schedule();
+        }
     }
 }
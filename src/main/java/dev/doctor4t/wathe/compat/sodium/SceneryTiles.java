@@ -0,0 +1,14 @@
+package dev.doctor4t.wathe.compat.sodium;
+
+import dev.doctor4t.wathe.client.render.SceneryTileTable;
+import net.caffeinemc.mods.sodium.client.render.chunk.RenderSection;
+
+/**
+ * 当前区块管理器的风景区块表，由 RenderSectionManagerMixin 维护并每帧更新偏移，DefaultChunkRendererMixin 按区块读取偏移
+ */
+public final class SceneryTiles {
+    public static final SceneryTileTable<RenderSection> TABLE = new SceneryTileTable<>();
+
+    private SceneryTiles() {
+    }
+}
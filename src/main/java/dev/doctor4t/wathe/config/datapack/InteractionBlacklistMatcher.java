@@ -0,0 +1,89 @@
+package dev.doctor4t.wathe.config.datapack;
+
+import dev.doctor4t.wathe.Wathe;
+import dev.doctor4t.wathe.config.datapack.MapEnhancementsConfiguration.InteractionBlacklistConfig;
+import net.fabricmc.fabric.api.event.lifecycle.v1.CommonLifecycleEvents;
+import net.minecraft.block.Block;
+import net.minecraft.registry.Registries;
+import net.minecraft.registry.RegistryKeys;
+import net.minecraft.registry.tag.TagKey;
+import net.minecraft.util.Identifier;
+
+import java.util.BitSet;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 编译后的交互黑名单
+ * <p>
+ * 把 {@link InteractionBlacklistConfig} 中的方块 ID 和方块标签展开为以方块注册表原始 ID 为下标的位集，
+ * 每次右键只需一次 {@link BitSet#get(int)}，不再拼接字符串或创建 {@link TagKey}。
+ * <p>
+ * 标签内容只有在标签加载后才确定，因此数据包重载和标签重新加载（包括客户端收到服务端标签）都会使已编译的结果失效，
+ * 见 {@link #invalidate()}。
+ */
+public final class InteractionBlacklistMatcher {
+    public static final InteractionBlacklistMatcher EMPTY = new InteractionBlacklistMatcher(new BitSet(), 0);
+
+    private static final AtomicInteger GENERATION = new AtomicInteger();
+
+    private final BitSet rawIds;
+    private final int generationCompiled;
+
+    private InteractionBlacklistMatcher(BitSet rawIds, int generationCompiled) {
+        this.rawIds = rawIds;
+        this.generationCompiled = generationCompiled;
+    }
+
+    public static void register() {
+        CommonLifecycleEvents.TAGS_LOADED.register((registries, client) -> invalidate());
+    }
+
+    /**
+     * 使之前编译的黑名单全部失效，下次查询时重新编译
+     */
+    public static void invalidate() {
+        GENERATION.incrementAndGet();
+    }
+
+    public static InteractionBlacklistMatcher compile(InteractionBlacklistConfig config) {
+        int compiledAt = GENERATION.get();
+        if (config.blocks().isEmpty() && config.blockTags().isEmpty()) {
+            return new InteractionBlacklistMatcher(new BitSet(), compiledAt);
+        }
+
+        BitSet rawIds = new BitSet(Registries.BLOCK.size());
+        for (String id : config.blocks()) {
+            Identifier identifier = Identifier.tryParse(id);
+            if (identifier == null || !Registries.BLOCK.containsId(identifier)) {
+                Wathe.LOGGER.warn("Unknown block '{}' in interaction blacklist", id);
+                continue;
+            }
+            rawIds.set(Registries.BLOCK.getRawId(Registries.BLOCK.get(identifier)));
+        }
+        for (String tagName : config.blockTags()) {
+            Identifier identifier = Identifier.tryParse(tagName);
+            if (identifier == null) {
+                Wathe.LOGGER.warn("Invalid block tag '{}' in interaction blacklist", tagName);
+                continue;
+            }
+            TagKey<Block> tagKey = TagKey.of(RegistryKeys.BLOCK, identifier);
+            Registries.BLOCK.iterateEntries(tagKey).forEach(entry -> rawIds.set(Registries.BLOCK.getRawId(entry.value())));
+        }
+        return new InteractionBlacklistMatcher(rawIds, compiledAt);
+    }
+
+    public boolean isBlacklisted(Block block) {
+        return !this.rawIds.isEmpty() && this.rawIds.get(Registries.BLOCK.getRawId(block));
+    }
+
+    /**
+     * @return 是否在最近一次数据包或标签重载之前编译
+     */
+    public boolean isStale() {
+        return this != EMPTY && this.generationCompiled != GENERATION.get();
+    }
+
+    public int size() {
+        return this.rawIds.cardinality();
+    }
+}
@@ -30,6 +30,7 @@ public record MapEnhancementsConfiguration(
     Optional<VisibilityConfig> visibility,
     Optional<FogConfig> fog,
     Optional<CameraShakeConfig> cameraShake,
+    Optional<SnowParticlesConfig> snowParticles,
     // 交互黑名单
     Optional<InteractionBlacklistConfig> interactionBlacklist,
     // 游戏参数配置
@@ -130,15 +131,17 @@ public record MapEnhancementsConfiguration(
 
     /**
      * 雪花粒子配置
+     * count 为雪花浓度 100% 时每 tick 的生成尝试次数，budget 为同时存在的雪花数量上限
      */
-    public record SnowParticlesConfig(int count, float spawnOffsetX, float spawnRangeY, float spawnRangeZ) {
-        public static final SnowParticlesConfig DEFAULT = new SnowParticlesConfig(350, -180f, 48f, 32f);
+    public record SnowParticlesConfig(int count, float spawnOffsetX, float spawnRangeY, float spawnRangeZ, int budget) {
+        public static final SnowParticlesConfig DEFAULT = new SnowParticlesConfig(200, -20f, 10f, 10f, 8000);
 
         public static final Codec<SnowParticlesConfig> CODEC = RecordCodecBuilder.create(instance -> instance.group(
-            Codec.INT.optionalFieldOf("count", 350).forGetter(SnowParticlesConfig::count),
-            Codec.FLOAT.optionalFieldOf("spawn_offset_x", -180f).forGetter(SnowParticlesConfig::spawnOffsetX),
-            Codec.FLOAT.optionalFieldOf("spawn_range_y", 48f).forGetter(SnowParticlesConfig::spawnRangeY),
-            Codec.FLOAT.optionalFieldOf("spawn_range_z", 32f).forGetter(SnowParticlesConfig::spawnRangeZ)
+            Codec.INT.optionalFieldOf("count", 200).forGetter(SnowParticlesConfig::count),
+            Codec.FLOAT.optionalFieldOf("spawn_offset_x", -20f).forGetter(SnowParticlesConfig::spawnOffsetX),
+            Codec.FLOAT.optionalFieldOf("spawn_range_y", 10f).forGetter(SnowParticlesConfig::spawnRangeY),
+            Codec.FLOAT.optionalFieldOf("spawn_range_z", 10f).forGetter(SnowParticlesConfig::spawnRangeZ),
+            Codec.INT.optionalFieldOf("budget", 8000).forGetter(SnowParticlesConfig::budget)
         ).apply(instance, SnowParticlesConfig::new));
     }
 
@@ -213,6 +216,7 @@ public record MapEnhancementsConfiguration(
 
         /**
          * 检查指定方块是否在黑名单中
+         * 每次调用都会重新解析配置，频繁查询请使用 {@link InteractionBlacklistMatcher}
          */
         public boolean isBlacklisted(Block block) {
             Identifier blockId = Registries.BLOCK.getId(block);
@@ -282,6 +286,7 @@ public record MapEnhancementsConfiguration(
         VisibilityConfig.CODEC.optionalFieldOf("visibility").forGetter(MapEnhancementsConfiguration::visibility),
         FogConfig.CODEC.optionalFieldOf("fog").forGetter(MapEnhancementsConfiguration::fog),
         CameraShakeConfig.CODEC.optionalFieldOf("camera_shake").forGetter(MapEnhancementsConfiguration::cameraShake),
+        SnowParticlesConfig.CODEC.optionalFieldOf("snow_particles").forGetter(MapEnhancementsConfiguration::snowParticles),
         // 交互黑名单
         InteractionBlacklistConfig.CODEC.optionalFieldOf("interaction_blacklist").forGetter(MapEnhancementsConfiguration::interactionBlacklist),
         // 游戏参数配置
@@ -311,6 +316,10 @@ public record MapEnhancementsConfiguration(
         return cameraShake.orElse(CameraShakeConfig.DEFAULT);
     }
 
+    public SnowParticlesConfig getSnowParticlesOrDefault() {
+        return snowParticles.orElse(SnowParticlesConfig.DEFAULT);
+    }
+
     public InteractionBlacklistConfig getInteractionBlacklistOrDefault() {
         return interactionBlacklist.orElse(InteractionBlacklistConfig.DEFAULT);
     }
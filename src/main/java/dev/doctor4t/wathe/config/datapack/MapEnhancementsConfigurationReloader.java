@@ -139,6 +139,9 @@ public class MapEnhancementsConfigurationReloader implements SimpleSynchronousRe
             }
         }
 
+        // 标签在重载监听器之后才绑定，黑名单在标签加载后的首次查询时重新编译
+        InteractionBlacklistMatcher.invalidate();
+
         Wathe.LOGGER.info("Map registry loaded: {} maps registered", MapRegistry.getInstance().getMapCount());
     }
 }
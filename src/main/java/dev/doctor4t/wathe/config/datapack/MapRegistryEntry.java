@@ -25,7 +25,7 @@ public record MapRegistryEntry(
         Codec.STRING.optionalFieldOf("description").forGetter(MapRegistryEntry::description),
         MapEnhancementsConfiguration.CODEC.optionalFieldOf("enhancements", new MapEnhancementsConfiguration(
             java.util.List.of(), Optional.empty(), Optional.empty(), Optional.empty(), Optional.empty(), Optional.empty(),
-            Optional.empty(), Optional.empty(), Optional.empty(), Optional.empty(), Optional.empty()
+            Optional.empty(), Optional.empty(), Optional.empty(), Optional.empty(), Optional.empty(), Optional.empty()
         )).forGetter(MapRegistryEntry::enhancements),
         Codec.INT.optionalFieldOf("min_players", 0).forGetter(MapRegistryEntry::minPlayers),
         Codec.INT.optionalFieldOf("max_players", 100).forGetter(MapRegistryEntry::maxPlayers)
@@ -4,9 +4,11 @@ import com.google.gson.Gson;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import dev.doctor4t.wathe.Wathe;
+import dev.doctor4t.wathe.WatheConfig;
 import dev.doctor4t.wathe.item.component.CosmeticComponent;
 import net.minecraft.util.Identifier;
 
+import java.io.IOException;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
@@ -16,39 +18,63 @@ import java.util.HashMap;
 import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 public class CosmeticApiClient {
     private static final Gson GSON = new Gson();
-    private static final String COSMETIC_API_URL = "https://express-api.tlspark.cn";
+    public static final String DEFAULT_API_URL = "https://express-api.tlspark.cn";
     private static final HttpClient HTTP_CLIENT = HttpClient.newBuilder()
             .connectTimeout(Duration.ofSeconds(5))
             .build();
 
     /**
-     * Fetch equipped cosmetics for a single player from the API.
-     * GET /cosmetics/equipped/v1/{uuid}
+     * The API base URL from {@link WatheConfig#cosmeticApiUrl}, without a trailing slash.
      */
-    public static CompletableFuture<Map<Identifier, CosmeticComponent>> fetchPlayerCosmetics(UUID uuid) {
-        return CompletableFuture.supplyAsync(() -> {
-            try {
-                HttpRequest request = HttpRequest.newBuilder()
-                        .uri(URI.create(COSMETIC_API_URL + "/cosmetics/equipped/v1/" + uuid))
-                        .timeout(Duration.ofSeconds(10))
-                        .GET()
-                        .build();
+    public static String getApiUrl() {
+        String url = WatheConfig.cosmeticApiUrl == null ? "" : WatheConfig.cosmeticApiUrl.trim();
+        if (url.isEmpty()) return DEFAULT_API_URL;
+        return url.endsWith("/") ? url.substring(0, url.length() - 1) : url;
+    }
 
-                HttpResponse<String> response = HTTP_CLIENT.send(request, HttpResponse.BodyHandlers.ofString());
+    /**
+     * Fetch equipped cosmetics for a single player from the API, returning an empty map on failure.
+     * Prefer {@link CosmeticResolver#request(UUID)}, which caches and coalesces lookups.
+     */
+    public static CompletableFuture<Map<Identifier, CosmeticComponent>> fetchPlayerCosmetics(UUID uuid) {
+        return fetch(getApiUrl(), uuid).exceptionally(e -> {
+            Wathe.LOGGER.warn("[CosmeticApi] Failed to fetch cosmetics for {}: {}", uuid, e.getMessage());
+            return Map.of();
+        });
+    }
 
-                if (response.statusCode() != 200) {
-                    Wathe.LOGGER.warn("[CosmeticApi] HTTP {}: {}", response.statusCode(), response.body());
-                    return Map.<Identifier, CosmeticComponent>of();
-                }
+    /**
+     * GET /cosmetics/equipped/v1/{uuid}
+     * <p>
+     * Completes exceptionally when the API is unreachable, answers with a server error or the configured URL is
+     * invalid, so callers can tell an outage from a player without cosmetics. Never throws.
+     */
+    static CompletableFuture<Map<Identifier, CosmeticComponent>> fetch(String baseUrl, UUID uuid) {
+        HttpRequest request;
+        try {
+            request = HttpRequest.newBuilder()
+                    .uri(URI.create(baseUrl + "/cosmetics/equipped/v1/" + uuid))
+                    .timeout(Duration.ofSeconds(10))
+                    .GET()
+                    .build();
+        } catch (IllegalArgumentException e) {
+            // 配置的地址无效，和请求失败一样处理
+            return CompletableFuture.failedFuture(e);
+        }
 
-                return parsePlayerResponse(response.body());
-            } catch (Exception e) {
-                Wathe.LOGGER.warn("[CosmeticApi] Failed to fetch cosmetics for {}: {}", uuid, e.getMessage());
+        return HTTP_CLIENT.sendAsync(request, HttpResponse.BodyHandlers.ofString()).thenApply(response -> {
+            if (response.statusCode() >= 500) {
+                throw new CompletionException(new IOException("HTTP " + response.statusCode()));
+            }
+            if (response.statusCode() != 200) {
+                Wathe.LOGGER.warn("[CosmeticApi] HTTP {}: {}", response.statusCode(), response.body());
                 return Map.<Identifier, CosmeticComponent>of();
             }
+            return parsePlayerResponse(response.body());
         });
     }
 
@@ -0,0 +1,307 @@
+package dev.doctor4t.wathe.cosmetic;
+
+import com.mojang.serialization.Codec;
+import dev.doctor4t.wathe.Wathe;
+import dev.doctor4t.wathe.WatheConfig;
+import dev.doctor4t.wathe.item.component.CosmeticComponent;
+import dev.doctor4t.wathe.util.Scheduler;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents;
+import net.fabricmc.fabric.api.networking.v1.ServerPlayConnectionEvents;
+import net.minecraft.nbt.NbtCompound;
+import net.minecraft.nbt.NbtElement;
+import net.minecraft.nbt.NbtIo;
+import net.minecraft.nbt.NbtOps;
+import net.minecraft.nbt.NbtSizeTracker;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.util.Identifier;
+import net.minecraft.util.WorldSavePath;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Resolves the equipped cosmetics of joining players.
+ * <p>
+ * Results are kept in a persistent cache ({@code <world>/wathe/cosmetics.dat}) with a time to live of
+ * {@link WatheConfig#cosmeticCacheTtlMinutes}. A cached entry is applied immediately on join, and only stale or
+ * missing entries are fetched. Joins are coalesced for a few ticks so a burst of joins becomes a single batch,
+ * which runs on a dedicated single-thread executor with a bounded queue.
+ * <p>
+ * A circuit breaker stops fetching for a while after several batches in a row failed completely, so a slow or
+ * unreachable API does not keep tying up the executor. Players keep their cached cosmetics in the meantime.
+ */
+public final class CosmeticResolver {
+    private static final int COALESCE_TICKS = 5;
+    private static final int MAX_BATCH_SIZE = 32;
+    private static final int QUEUE_CAPACITY = 8;
+    private static final long BATCH_TIMEOUT_SECONDS = 15;
+    private static final int FAILURE_THRESHOLD = 3;
+    private static final long OPEN_MILLIS = TimeUnit.MINUTES.toMillis(1);
+    // 长期未登录玩家的缓存在加载时丢弃
+    private static final long MAX_ENTRY_AGE_MILLIS = TimeUnit.DAYS.toMillis(30);
+    private static final String CACHE_FILE = "cosmetics.dat";
+    private static final Codec<Map<Identifier, CosmeticComponent>> COSMETICS_CODEC = Codec.unboundedMap(Identifier.CODEC, CosmeticComponent.CODEC);
+
+    private static final ThreadPoolExecutor EXECUTOR = new ThreadPoolExecutor(1, 1, 30, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(QUEUE_CAPACITY), runnable -> {
+        Thread thread = new Thread(runnable, "Wathe Cosmetic Resolver");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    static {
+        EXECUTOR.allowCoreThreadTimeOut(true);
+    }
+
+    private static final Map<UUID, CacheEntry> CACHE = new ConcurrentHashMap<>();
+    private static final Set<UUID> IN_FLIGHT = ConcurrentHashMap.newKeySet();
+    // 仅服务器线程访问
+    private static final Set<UUID> PENDING = new LinkedHashSet<>();
+    private static boolean flushScheduled = false;
+
+    private static volatile @Nullable MinecraftServer server;
+    private static volatile @Nullable Path cacheFile;
+
+    private static final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private static volatile long openUntil = 0;
+
+    private static final AtomicLong cacheHits = new AtomicLong();
+    private static final AtomicLong coalescedRequests = new AtomicLong();
+    private static final AtomicLong fetchedPlayers = new AtomicLong();
+    private static final AtomicLong failedPlayers = new AtomicLong();
+    private static final AtomicLong batches = new AtomicLong();
+    private static final AtomicLong skippedBatches = new AtomicLong();
+
+    private record CacheEntry(long fetchedAt, Map<Identifier, CosmeticComponent> cosmetics) {
+    }
+
+    public static void init() {
+        ServerLifecycleEvents.SERVER_STARTING.register(minecraftServer -> {
+            server = minecraftServer;
+            Path file = minecraftServer.getSavePath(WorldSavePath.ROOT).resolve("wathe").resolve(CACHE_FILE);
+            cacheFile = file;
+            load(file);
+        });
+        ServerLifecycleEvents.SERVER_STOPPED.register(minecraftServer -> {
+            save();
+            server = null;
+            cacheFile = null;
+            CACHE.clear();
+            PENDING.clear();
+            flushScheduled = false;
+            CosmeticDataCache.clear();
+        });
+        ServerPlayConnectionEvents.JOIN.register((handler, sender, minecraftServer) -> request(handler.getPlayer().getUuid()));
+    }
+
+    /**
+     * Applies the cached cosmetics of a player and fetches them again if they are missing or stale.
+     * Must be called on the server thread.
+     */
+    public static void request(UUID uuid) {
+        CacheEntry cached = CACHE.get(uuid);
+        if (cached != null) {
+            cacheHits.incrementAndGet();
+            CosmeticDataCache.update(uuid, cached.cosmetics());
+            if (isFresh(cached)) return;
+        }
+        if (IN_FLIGHT.contains(uuid) || !PENDING.add(uuid)) {
+            coalescedRequests.incrementAndGet();
+            return;
+        }
+        if (!flushScheduled) {
+            flushScheduled = true;
+            Scheduler.schedule(CosmeticResolver::flush, COALESCE_TICKS);
+        }
+    }
+
+    /**
+     * Drops the cached entry of a player so the next join fetches it again.
+     */
+    public static void invalidate(UUID uuid) {
+        CACHE.remove(uuid);
+    }
+
+    public static boolean isCircuitOpen() {
+        return System.currentTimeMillis() < openUntil;
+    }
+
+    private static boolean isFresh(CacheEntry entry) {
+        long ttl = TimeUnit.MINUTES.toMillis(Math.max(0, WatheConfig.cosmeticCacheTtlMinutes));
+        return System.currentTimeMillis() - entry.fetchedAt() < ttl;
+    }
+
+    private static void flush() {
+        flushScheduled = false;
+        if (PENDING.isEmpty()) return;
+        if (isCircuitOpen()) {
+            // 熔断期间只使用缓存
+            skippedBatches.incrementAndGet();
+            PENDING.clear();
+            return;
+        }
+
+        List<UUID> batch = new ArrayList<>(Math.min(PENDING.size(), MAX_BATCH_SIZE));
+        Iterator<UUID> iterator = PENDING.iterator();
+        while (iterator.hasNext() && batch.size() < MAX_BATCH_SIZE) {
+            batch.add(iterator.next());
+            iterator.remove();
+        }
+        if (!PENDING.isEmpty()) {
+            flushScheduled = true;
+            Scheduler.schedule(CosmeticResolver::flush, 1);
+        }
+
+        IN_FLIGHT.addAll(batch);
+        String baseUrl = CosmeticApiClient.getApiUrl();
+        try {
+            EXECUTOR.execute(() -> runBatch(baseUrl, batch));
+        } catch (RejectedExecutionException e) {
+            batch.forEach(IN_FLIGHT::remove);
+            skippedBatches.incrementAndGet();
+            Wathe.LOGGER.warn("[CosmeticApi] Resolver queue is full, skipping {} players", batch.size());
+        }
+    }
+
+    private static void runBatch(String baseUrl, List<UUID> batch) {
+        batches.incrementAndGet();
+        List<CompletableFuture<Map<Identifier, CosmeticComponent>>> futures = new ArrayList<>(batch.size());
+        for (UUID uuid : batch) {
+            futures.add(CosmeticApiClient.fetch(baseUrl, uuid));
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(BATCH_TIMEOUT_SECONDS);
+        int failures = 0;
+        for (int i = 0; i < batch.size(); i++) {
+            UUID uuid = batch.get(i);
+            CompletableFuture<Map<Identifier, CosmeticComponent>> future = futures.get(i);
+            try {
+                Map<Identifier, CosmeticComponent> cosmetics = future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                CACHE.put(uuid, new CacheEntry(System.currentTimeMillis(), cosmetics));
+                fetchedPlayers.incrementAndGet();
+                deliver(uuid, cosmetics);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failures += batch.size() - i;
+                break;
+            } catch (ExecutionException | TimeoutException e) {
+                future.cancel(true);
+                failures++;
+                failedPlayers.incrementAndGet();
+                Wathe.LOGGER.warn("[CosmeticApi] Failed to fetch cosmetics for {}: {}", uuid, e.getCause() != null ? e.getCause().getMessage() : e.getMessage());
+            } finally {
+                IN_FLIGHT.remove(uuid);
+            }
+        }
+        batch.forEach(IN_FLIGHT::remove);
+
+        if (failures < batch.size()) {
+            consecutiveFailures.set(0);
+            save();
+        } else if (consecutiveFailures.incrementAndGet() >= FAILURE_THRESHOLD) {
+            openUntil = System.currentTimeMillis() + OPEN_MILLIS;
+            Wathe.LOGGER.warn("[CosmeticApi] {} failed batches in a row, pausing requests for {} s", consecutiveFailures.get(), OPEN_MILLIS / 1000);
+        }
+    }
+
+    private static void deliver(UUID uuid, Map<Identifier, CosmeticComponent> cosmetics) {
+        MinecraftServer minecraftServer = server;
+        if (minecraftServer == null) return;
+        minecraftServer.execute(() -> {
+            // 玩家已离线时不写入运行时缓存，下次加入时从持久缓存读取
+            if (minecraftServer.getPlayerManager().getPlayer(uuid) != null) {
+                CosmeticDataCache.update(uuid, cosmetics);
+            }
+        });
+    }
+
+    private static void load(Path file) {
+        CACHE.clear();
+        if (!Files.exists(file)) return;
+        try {
+            NbtCompound root = NbtIo.readCompressed(file, NbtSizeTracker.ofUnlimitedBytes());
+            NbtCompound players = root.getCompound("players");
+            long now = System.currentTimeMillis();
+            for (String key : players.getKeys()) {
+                NbtCompound entry = players.getCompound(key);
+                long fetchedAt = entry.getLong("fetchedAt");
+                if (now - fetchedAt > MAX_ENTRY_AGE_MILLIS) continue;
+                UUID uuid;
+                try {
+                    uuid = UUID.fromString(key);
+                } catch (IllegalArgumentException e) {
+                    continue;
+                }
+                COSMETICS_CODEC.parse(NbtOps.INSTANCE, entry.get("cosmetics"))
+                        .resultOrPartial(error -> Wathe.LOGGER.warn("[CosmeticApi] Skipping cached cosmetics of {}: {}", key, error))
+                        .ifPresent(cosmetics -> CACHE.put(uuid, new CacheEntry(fetchedAt, Map.copyOf(cosmetics))));
+            }
+            Wathe.LOGGER.info("[CosmeticApi] Loaded {} cached players", CACHE.size());
+        } catch (IOException e) {
+            Wathe.LOGGER.warn("[CosmeticApi] Failed to read cosmetic cache {}", file, e);
+        }
+    }
+
+    private static synchronized void save() {
+        Path file = cacheFile;
+        if (file == null) return;
+        NbtCompound players = new NbtCompound();
+        for (Map.Entry<UUID, CacheEntry> entry : CACHE.entrySet()) {
+            Optional<NbtElement> cosmetics = COSMETICS_CODEC.encodeStart(NbtOps.INSTANCE, entry.getValue().cosmetics()).result();
+            if (cosmetics.isEmpty()) continue;
+            NbtCompound player = new NbtCompound();
+            player.putLong("fetchedAt", entry.getValue().fetchedAt());
+            player.put("cosmetics", cosmetics.get());
+            players.put(entry.getKey().toString(), player);
+        }
+        NbtCompound root = new NbtCompound();
+        root.put("players", players);
+        try {
+            Files.createDirectories(file.getParent());
+            Path temp = file.resolveSibling(CACHE_FILE + ".tmp");
+            NbtIo.writeCompressed(root, temp);
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            Wathe.LOGGER.warn("[CosmeticApi] Failed to write cosmetic cache {}", file, e);
+        }
+    }
+
+    public static int getCachedPlayers() {
+        return CACHE.size();
+    }
+
+    public static int getInFlight() {
+        return IN_FLIGHT.size();
+    }
+
+    public static long getCacheHits() {
+        return cacheHits.get();
+    }
+
+    public static long getCoalescedRequests() {
+        return coalescedRequests.get();
+    }
+
+    public static long getFetchedPlayers() {
+        return fetchedPlayers.get();
+    }
+
+    public static long getFailedPlayers() {
+        return failedPlayers.get();
+    }
+
+    public static long getBatches() {
+        return batches.get();
+    }
+
+    public static long getSkippedBatches() {
+        return skippedBatches.get();
+    }
+}
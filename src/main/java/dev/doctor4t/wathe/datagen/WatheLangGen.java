@@ -164,6 +164,7 @@ public class WatheLangGen extends FabricLanguageProvider {
         builder.add("game.start_error.not_enough_players", "Game cannot start: %s players minimum are required.");
         builder.add("game.start_error.game_running", "Game cannot start: a game is already running. Please try again from the lobby.");
         builder.add("game.start_error.voting_active", "Game cannot start: map voting is active. Please wait for voting to finish.");
+        builder.add("game.start_error.resetting", "Game cannot start: the train is still being reset. Please try again in a moment.");
 
         builder.add("wathe.gui.reset", "Clear");
 
@@ -204,6 +205,16 @@ public class WatheLangGen extends FabricLanguageProvider {
         builder.add("wathe.midnightconfig.enum.SnowModeConfig.TURN_OFF", "No particles");
         builder.add("wathe.midnightconfig.snowflakeChance", "Snowflake Particle Count (%)");
         builder.add("wathe.midnightconfig.snowflakeChance.tooltip", "Controls the spawn chance of snowflake particles.\n0 = Off, 100 = Maximum.");
+        builder.add("wathe.midnightconfig.skinCacheBudgetMb", "Skin Cache Budget (MB)");
+        builder.add("wathe.midnightconfig.skinCacheBudgetMb.tooltip", "Memory kept for loaded item skins.\nThe least recently drawn skins are unloaded when this is exceeded.");
+        builder.add("wathe.midnightconfig.trainResetBlocksPerTick", "Train Reset Blocks Per Tick");
+        builder.add("wathe.midnightconfig.trainResetBlocksPerTick.tooltip", "Maximum number of blocks rewritten per tick while the train is being reset.\nLower values spread the reset over more ticks.");
+        builder.add("wathe.midnightconfig.roundTeardownBudgetMs", "Round Teardown Budget (ms)");
+        builder.add("wathe.midnightconfig.roundTeardownBudgetMs.tooltip", "Time per tick spent removing leftover entities and resetting players after a round.\nLower values spread the cleanup over more ticks.");
+        builder.add("wathe.midnightconfig.cosmeticApiUrl", "Cosmetic API URL");
+        builder.add("wathe.midnightconfig.cosmeticApiUrl.tooltip", "Base URL of the cosmetic API queried when players join.");
+        builder.add("wathe.midnightconfig.cosmeticCacheTtlMinutes", "Cosmetic Cache Lifetime (minutes)");
+        builder.add("wathe.midnightconfig.cosmeticCacheTtlMinutes.tooltip", "How long cached player cosmetics are used before they are fetched again.\nCached cosmetics are still applied while the new ones load.");
 
         builder.add("wathe.argument.game_mode.invalid", "Game mode could not be found");
         builder.add("wathe.argument.map_effect.invalid", "Map effect could not be found");
@@ -237,6 +248,13 @@ public class WatheLangGen extends FabricLanguageProvider {
         builder.add("commands.wathe.listroles.click_to_enable", "Click to enable");
         builder.add("commands.wathe.listroles.click_to_disable", "Click to disable");
 
+        // Update doors
+        builder.add("commands.wathe.update_doors.done", "Updated %s doors");
+        builder.add("commands.wathe.update_doors.no_play_area", "No play area is set for this map");
+        builder.add("commands.wathe.update_doors.none", "No loaded doors found");
+        builder.add("commands.wathe.update_doors.progress", "Updating doors... %s/%s");
+        builder.add("commands.wathe.update_doors.start", "Updating %s doors");
+
         // Shoot innocent punishment
         builder.add("commands.wathe.gamesettings.shootinnocentpunishment.success", "Shoot innocent punishment set to: %s");
         builder.add("commands.wathe.gamesettings.shootinnocentpunishment.preventgunpickup", "Prevent Gun Pickup");
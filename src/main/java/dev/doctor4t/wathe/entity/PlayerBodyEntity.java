@@ -1,10 +1,12 @@
 package dev.doctor4t.wathe.entity;
 
 import dev.doctor4t.wathe.game.GameConstants;
+import dev.doctor4t.wathe.util.EntityTickMetrics;
 import net.minecraft.entity.Entity;
 import net.minecraft.entity.EntityType;
 import net.minecraft.entity.EquipmentSlot;
 import net.minecraft.entity.LivingEntity;
+import net.minecraft.entity.MovementType;
 import net.minecraft.entity.attribute.DefaultAttributeContainer;
 import net.minecraft.entity.attribute.EntityAttributes;
 import net.minecraft.entity.damage.DamageSource;
@@ -18,6 +20,7 @@ import net.minecraft.nbt.NbtCompound;
 import net.minecraft.server.ServerConfigHandler;
 import net.minecraft.util.Arm;
 import net.minecraft.util.Identifier;
+import net.minecraft.util.math.Vec3d;
 import net.minecraft.world.World;
 
 import java.util.Optional;
@@ -28,6 +31,19 @@ public class PlayerBodyEntity extends LivingEntity {
     private static final TrackedData<String> DEATH_REASON = DataTracker.registerData(PlayerBodyEntity.class, TrackedDataHandlerRegistry.STRING);
     private static final TrackedData<Integer> DEATH_GAME_TIME = DataTracker.registerData(PlayerBodyEntity.class, TrackedDataHandlerRegistry.INTEGER);
 
+    /**
+     * Ticks between position/data updates the tracker sends for a settled body. A multiple of the default tracking
+     * interval, so the updates that do go through are not skipped by the vanilla interval check.
+     */
+    public static final int SETTLED_TRACKING_INTERVAL = 60;
+    // 落地后静止这么多 tick 进入休眠
+    private static final int SETTLE_DELAY = 20;
+    // 休眠时每隔这么多 tick 检查脚下是否还有方块
+    private static final int SUPPORT_CHECK_INTERVAL = 20;
+
+    private int stillTicks = 0;
+    private boolean settled = false;
+
     public PlayerBodyEntity(EntityType<? extends LivingEntity> entityType, World world) {
         super(entityType, world);
     }
@@ -40,6 +56,77 @@ public class PlayerBodyEntity extends LivingEntity {
         builder.add(DEATH_GAME_TIME, 0);
     }
 
+    /**
+     * Once a body has rested on the ground for {@link #SETTLE_DELAY} ticks it stops running the living entity tick on
+     * the server (movement, gravity, status effects, equipment checks). It wakes up when something moves or pushes it,
+     * or when the block under it disappears.
+     */
+    @Override
+    public void tick() {
+        if (this.getWorld().isClient) {
+            super.tick();
+            return;
+        }
+        long start = System.nanoTime();
+        boolean wasSettled = this.settled;
+        if (wasSettled) {
+            this.getWorld().getProfiler().push("wathe_settled_body");
+            this.tickSettled();
+            this.getWorld().getProfiler().pop();
+        } else {
+            super.tick();
+            this.updateSettled();
+        }
+        EntityTickMetrics.record(this.getType(), wasSettled, System.nanoTime() - start);
+    }
+
+    private void tickSettled() {
+        if (this.age % SUPPORT_CHECK_INTERVAL == 0 && this.getWorld().isSpaceEmpty(this, this.getBoundingBox().offset(0, -0.05, 0))) {
+            this.wake();
+        }
+    }
+
+    private void updateSettled() {
+        boolean still = this.isOnGround()
+                && this.getVelocity().horizontalLengthSquared() < 1.0E-6
+                && this.getPos().squaredDistanceTo(this.prevX, this.prevY, this.prevZ) < 1.0E-6;
+        if (!still) {
+            this.stillTicks = 0;
+            return;
+        }
+        if (++this.stillTicks >= SETTLE_DELAY) {
+            super.setVelocity(Vec3d.ZERO);
+            this.settled = true;
+        }
+    }
+
+    public void wake() {
+        this.settled = false;
+        this.stillTicks = 0;
+    }
+
+    public boolean isSettled() {
+        return this.settled;
+    }
+
+    @Override
+    public void setVelocity(Vec3d velocity) {
+        super.setVelocity(velocity);
+        // 爆炸、击退等外力
+        if (this.settled && velocity.lengthSquared() > 1.0E-7) {
+            this.wake();
+        }
+    }
+
+    @Override
+    public void move(MovementType movementType, Vec3d movement) {
+        // 活塞、潜影盒等推动
+        if (this.settled && movementType != MovementType.SELF) {
+            this.wake();
+        }
+        super.move(movementType, movement);
+    }
+
     @Override
     public Iterable<ItemStack> getArmorItems() {
         return null;
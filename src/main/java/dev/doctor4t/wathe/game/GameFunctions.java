@@ -1,6 +1,5 @@
 package dev.doctor4t.wathe.game;
 
-import com.google.common.collect.Lists;
 import dev.doctor4t.wathe.Wathe;
 import dev.doctor4t.wathe.api.Faction;
 import dev.doctor4t.wathe.api.GameMode;
@@ -13,11 +12,12 @@ import dev.doctor4t.wathe.cca.*;
 import dev.doctor4t.wathe.compat.TrainVoicePlugin;
 import dev.doctor4t.wathe.config.datapack.MapRegistry;
 import dev.doctor4t.wathe.record.GameRecordTypes;
+import dev.doctor4t.wathe.util.RoundEntityRegistry;
+import dev.doctor4t.wathe.util.Scheduler;
+import dev.doctor4t.wathe.util.SyncCoalescer;
 import dev.doctor4t.wathe.util.ShopEntry;
 import dev.doctor4t.wathe.util.ShopUtils;
 import dev.doctor4t.wathe.config.datapack.RoomConfig;
-import dev.doctor4t.wathe.entity.FirecrackerEntity;
-import dev.doctor4t.wathe.entity.NoteEntity;
 import dev.doctor4t.wathe.entity.PlayerBodyEntity;
 import dev.doctor4t.wathe.api.event.KillPlayer;
 import dev.doctor4t.wathe.api.event.ShouldDropOnDeath;
@@ -30,16 +30,9 @@ import dev.doctor4t.wathe.record.GameRecordManager;
 import dev.doctor4t.wathe.util.WathePermissions;
 import me.lucko.fabric.api.permissions.v0.Permissions;
 import net.fabricmc.fabric.api.networking.v1.ServerPlayNetworking;
-import net.minecraft.block.Block;
-import net.minecraft.block.BlockState;
-import net.minecraft.block.Blocks;
-import net.minecraft.block.entity.BlockEntity;
-import net.minecraft.block.pattern.CachedBlockPosition;
 import net.minecraft.component.ComponentMap;
 import net.minecraft.component.DataComponentTypes;
 import net.minecraft.component.type.LoreComponent;
-import net.minecraft.entity.EntityType;
-import net.minecraft.entity.ItemEntity;
 import net.minecraft.entity.player.PlayerEntity;
 import net.minecraft.item.Item;
 import net.minecraft.item.ItemStack;
@@ -50,7 +43,6 @@ import net.minecraft.server.world.ServerWorld;
 import net.minecraft.sound.SoundCategory;
 import net.minecraft.text.Style;
 import net.minecraft.text.Text;
-import net.minecraft.util.Clearable;
 import net.minecraft.registry.RegistryKey;
 import net.minecraft.registry.RegistryKeys;
 import net.minecraft.util.Identifier;
@@ -68,9 +60,6 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.*;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.TimeUnit;
 import java.util.function.UnaryOperator;
 
 public class GameFunctions {
@@ -118,6 +107,13 @@ public class GameFunctions {
         }
 
         GameWorldComponent game = GameWorldComponent.KEY.get(world);
+        if (game.isMapResetPending() || game.getRoundTeardown().isRunning()) {
+            for (ServerPlayerEntity player : world.getPlayers()) {
+                player.sendMessage(Text.translatable("game.start_error.resetting"), true);
+            }
+            return;
+        }
+
         MapVariablesWorldComponent areas = MapVariablesWorldComponent.KEY.get(world);
         int playerCount = Math.toIntExact(world.getPlayers().stream().filter(serverPlayerEntity -> isPlayerInReadyArea(serverPlayerEntity, areas)).count());
         game.setGameMode(gameMode);
@@ -140,18 +136,23 @@ public class GameFunctions {
 
     public static void initializeGame(ServerWorld serverWorld) {
         GameWorldComponent gameComponent = GameWorldComponent.KEY.get(serverWorld);
-        List<ServerPlayerEntity> readyPlayerList = getReadyPlayerList(serverWorld);
+        RoundRoster roster = new RoundRoster(getReadyPlayerList(serverWorld));
+        List<ServerPlayerEntity> readyPlayerList = roster.getPlayers();
 
         GameEvents.ON_GAME_START.invoker().onGameStart(gameComponent.getGameMode());
+        roster.endPhase("start event");
         // baseInitialize现在返回房间号映射
-        Map<UUID, Integer> playerRoomMap = baseInitialize(serverWorld, gameComponent, readyPlayerList);
+        Map<UUID, Integer> playerRoomMap = baseInitialize(serverWorld, gameComponent, roster);
         gameComponent.getGameMode().initializeGame(serverWorld, gameComponent, readyPlayerList);
+        roster.endPhase("roles");
 
         // 角色分配后初始化商店
         initializeShopsForPlayers(readyPlayerList);
+        roster.endPhase("shops");
 
         // 角色分配后再生成信件
         giveLettersToPlayers(serverWorld, gameComponent, readyPlayerList, playerRoomMap);
+        roster.endPhase("letters");
 
         GameEvents.ON_FINISH_INITIALIZE.invoker().onFinishInitialize(serverWorld, gameComponent);
         gameComponent.setGameStatus(GameWorldComponent.GameStatus.ACTIVE);
@@ -162,13 +163,18 @@ public class GameFunctions {
         }
 
         gameComponent.sync();
+        roster.endPhase("finish");
+        roster.logTimings(serverWorld);
     }
 
-    private static Map<UUID, Integer> baseInitialize(ServerWorld serverWorld, GameWorldComponent gameComponent, List<ServerPlayerEntity> players) {
+    private static Map<UUID, Integer> baseInitialize(ServerWorld serverWorld, GameWorldComponent gameComponent, RoundRoster roster) {
+        List<ServerPlayerEntity> players = roster.getPlayers();
         MapVariablesWorldComponent areas = MapVariablesWorldComponent.KEY.get(serverWorld);
         MapEnhancementsWorldComponent enhancements = MapEnhancementsWorldComponent.KEY.get(serverWorld);
 
-        WorldBlackoutComponent.KEY.get(serverWorld).reset();
+        WorldBlackoutComponent blackout = WorldBlackoutComponent.KEY.get(serverWorld);
+        blackout.reset();
+        blackout.buildLightIndex();
 
         serverWorld.getGameRules().get(GameRules.KEEP_INVENTORY).set(true, serverWorld.getServer());
         serverWorld.getGameRules().get(GameRules.DO_WEATHER_CYCLE).set(false, serverWorld.getServer());
@@ -179,7 +185,7 @@ public class GameFunctions {
         serverWorld.getGameRules().get(GameRules.DO_TRADER_SPAWNING).set(false, serverWorld.getServer());
         serverWorld.getGameRules().get(GameRules.PLAYERS_SLEEPING_PERCENTAGE).set(9999, serverWorld.getServer());
         serverWorld.getServer().setDifficulty(Difficulty.PEACEFUL, true);
-
+        roster.endPhase("world");
 
         for (ServerPlayerEntity player : serverWorld.getPlayers()) {
             player.dismountVehicle();
@@ -191,7 +197,7 @@ public class GameFunctions {
 
 
         // kick non playing players
-        for (ServerPlayerEntity player : serverWorld.getPlayers(serverPlayerEntity -> !players.contains(serverPlayerEntity))) {
+        for (ServerPlayerEntity player : serverWorld.getPlayers(serverPlayerEntity -> !roster.contains(serverPlayerEntity))) {
             if(Permissions.check(player, WathePermissions.SPECTATE, 1)){
                 player.changeGameMode(net.minecraft.world.GameMode.SPECTATOR);
                 TrainVoicePlugin.addPlayer(player.getUuid());
@@ -203,20 +209,13 @@ public class GameFunctions {
                 player.networkHandler.disconnect(Text.translatable("disconnect.wathe.not_in_ready_area"));
             }
         }
+        roster.endPhase("spectators");
 
         // clear items, clear previous game data
         for (ServerPlayerEntity serverPlayerEntity : players) {
             serverPlayerEntity.getInventory().clear();
             serverPlayerEntity.clearStatusEffects();
-            PlayerMoodComponent.KEY.get(serverPlayerEntity).reset();
-            PlayerShopComponent.KEY.get(serverPlayerEntity).reset();
-            PlayerPoisonComponent.KEY.get(serverPlayerEntity).reset();
-            PlayerPsychoComponent.KEY.get(serverPlayerEntity).reset();
-            PlayerNoteComponent.KEY.get(serverPlayerEntity).reset();
-            PlayerShopComponent.KEY.get(serverPlayerEntity).reset();
-            PlayerStaminaComponent.KEY.get(serverPlayerEntity).reset();
-            PlayerVeteranComponent.KEY.get(serverPlayerEntity).reset();
-            TrainVoicePlugin.resetPlayer(serverPlayerEntity.getUuid());
+            resetPlayerComponents(serverPlayerEntity);
             // remove item cooldowns
             HashSet<Item> copy = new HashSet<>(serverPlayerEntity.getItemCooldownManager().entries.keySet());
             for (Item item : copy) serverPlayerEntity.getItemCooldownManager().remove(item);
@@ -224,10 +223,13 @@ public class GameFunctions {
         }
         gameComponent.clearRoleMap();
         gameComponent.clearPreventGunPickup(); // 清空射杀无辜惩罚列表
+        // 重启或切换地图后的第一局，以及上一局结束后的重置没有完成时，开局前再重置一次
+        if (gameComponent.isMapResetPending() || !gameComponent.hasMapResetSinceLoad()) {
+            RoundEntityRegistry.get(serverWorld).discardAll();
+            gameComponent.queueMapReset();
+        }
         GameTimeComponent.KEY.get(serverWorld).reset();
-
-        // reset map
-        gameComponent.queueMapReset();
+        roster.endPhase("player reset");
 
         // select rooms and give keys
         Random random = new Random();
@@ -236,6 +238,7 @@ public class GameFunctions {
 
         // map effect initialize
         gameComponent.getMapEffect().initializeMapEffects(serverWorld, players);
+        roster.endPhase("map effects");
 
         if (totalRooms > 0) {
             // 有房间配置：使用配置的房间分配和传送
@@ -291,8 +294,7 @@ public class GameFunctions {
                 }
             }
         }
-
-
+        roster.endPhase("rooms");
 
         return playerRoomMap;
     }
@@ -442,26 +444,29 @@ public class GameFunctions {
 
     public static void finalizeGame(ServerWorld world) {
         GameWorldComponent gameComponent = GameWorldComponent.KEY.get(world);
+        // 上一次清理还在进行中（渐变结束后每 tick 都会调用）
+        if (gameComponent.getRoundTeardown().isRunning()) return;
         GameEvents.ON_GAME_STOP.invoker().onGameStop(gameComponent.getGameMode());
         GameRecordManager.endMatch(world);
+        // 取消本局遗留的延迟任务（开枪惩罚、下毒等）
+        Scheduler.cancelRound(world);
         gameComponent.getGameMode().finalizeGame(world, gameComponent);
 
         WorldBlackoutComponent.KEY.get(world).reset();
-        TrainWorldComponent trainComponent = TrainWorldComponent.KEY.get(world);
 
-        // discard all player bodies
-        for (PlayerBodyEntity body : world.getEntitiesByType(WatheEntities.PLAYER_BODY, playerBodyEntity -> true))
-            body.discard();
-        for (FirecrackerEntity entity : world.getEntitiesByType(WatheEntities.FIRECRACKER, entity -> true))
-            entity.discard();
-        for (NoteEntity entity : world.getEntitiesByType(WatheEntities.NOTE, entity -> true)) entity.discard();
-        for (ItemEntity item : world.getEntitiesByType(EntityType.ITEM, playerBodyEntity -> true)) item.discard();
-        // reset all players
-        for (ServerPlayerEntity player : world.getPlayers()) {
+        List<ServerPlayerEntity> players = world.getPlayers();
+        for (ServerPlayerEntity player : players) {
             ServerPlayNetworking.send(player, new AnnounceEndingPayload());
-            resetPlayer(player);
         }
 
+        // discard bodies, firecrackers, notes and items, then reset all players, spread over ticks if needed
+        gameComponent.getRoundTeardown().start(world, players, () -> onRoundTeardownComplete(world));
+    }
+
+    private static void onRoundTeardownComplete(ServerWorld world) {
+        GameWorldComponent gameComponent = GameWorldComponent.KEY.get(world);
+        TrainWorldComponent trainComponent = TrainWorldComponent.KEY.get(world);
+
         // reset game component
         GameTimeComponent.KEY.get(world).reset();
         gameComponent.clearRoleMap();
@@ -471,18 +476,15 @@ public class GameFunctions {
 
         GameEvents.ON_FINISH_FINALIZE.invoker().onFinishFinalize(world, gameComponent);
 
-        // Check if map voting should start
-        if (MapRegistry.getInstance().getMapCount() > 0) {
-            MapVotingComponent voting = MapVotingComponent.KEY.get(
-                world.getServer().getScoreboard());
-            voting.startVoting();
-        }
+        // reset map, the next round can only start once the reset has completed
+        gameComponent.queueMapReset();
     }
 
-    public static void resetPlayer(ServerPlayerEntity player) {
-        player.dismountVehicle();
-        player.getInventory().clear();
-        player.clearStatusEffects();
+    /**
+     * Resets every per-player round component once. Their syncs are merged by {@link SyncCoalescer}, so the player
+     * receives all of them in one bundle at the end of the tick.
+     */
+    private static void resetPlayerComponents(ServerPlayerEntity player) {
         PlayerMoodComponent.KEY.get(player).reset();
         PlayerShopComponent.KEY.get(player).reset();
         PlayerPoisonComponent.KEY.get(player).reset();
@@ -491,6 +493,13 @@ public class GameFunctions {
         PlayerStaminaComponent.KEY.get(player).reset();
         PlayerVeteranComponent.KEY.get(player).reset();
         TrainVoicePlugin.resetPlayer(player.getUuid());
+    }
+
+    public static void resetPlayer(ServerPlayerEntity player) {
+        player.dismountVehicle();
+        player.getInventory().clear();
+        player.clearStatusEffects();
+        resetPlayerComponents(player);
         player.changeGameMode(net.minecraft.world.GameMode.ADVENTURE);
         player.wakeUp();
         MapVariablesWorldComponent.PosWithOrientation spawnPos = MapVariablesWorldComponent.KEY.get(player.getWorld()).getSpawnPos();
@@ -685,9 +694,6 @@ public class GameFunctions {
     record BlockEntityInfo(NbtCompound nbt, ComponentMap components) {
     }
 
-    record BlockInfo(BlockPos pos, BlockState state, @Nullable BlockEntityInfo blockEntityInfo) {
-    }
-
     enum Mode {
         FORCE(true),
         MOVE(true),
@@ -712,103 +718,54 @@ public class GameFunctions {
         BlockPos backupMaxPos = BlockPos.ofFloored(areas.getResetTemplateArea().getMaxPos());
         BlockBox backupTrainBox = BlockBox.create(backupMinPos, backupMaxPos);
         BlockPos trainMinPos = BlockPos.ofFloored(areas.getResetTemplateArea().offset(Vec3d.of(areas.getResetPasteOffset())).getMinPos());
-        BlockPos trainMaxPos = trainMinPos.add(backupTrainBox.getDimensions());
-        BlockBox trainBox = BlockBox.create(trainMinPos, trainMaxPos);
-
-        if (serverWorld.isRegionLoaded(backupMinPos, backupMaxPos) && serverWorld.isRegionLoaded(trainMinPos, trainMaxPos)) {
-            List<BlockInfo> list = Lists.newArrayList();
-            List<BlockInfo> list2 = Lists.newArrayList();
-            List<BlockInfo> list3 = Lists.newArrayList();
-            Deque<BlockPos> deque = Lists.newLinkedList();
-            BlockPos blockPos5 = new BlockPos(
-                    trainBox.getMinX() - backupTrainBox.getMinX(), trainBox.getMinY() - backupTrainBox.getMinY(), trainBox.getMinZ() - backupTrainBox.getMinZ()
-            );
-
-            for (int k = backupTrainBox.getMinZ(); k <= backupTrainBox.getMaxZ(); k++) {
-                for (int l = backupTrainBox.getMinY(); l <= backupTrainBox.getMaxY(); l++) {
-                    for (int m = backupTrainBox.getMinX(); m <= backupTrainBox.getMaxX(); m++) {
-                        BlockPos blockPos6 = new BlockPos(m, l, k);
-                        BlockPos blockPos7 = blockPos6.add(blockPos5);
-                        CachedBlockPosition cachedBlockPosition = new CachedBlockPosition(serverWorld, blockPos6, false);
-                        BlockState blockState = cachedBlockPosition.getBlockState();
-
-                        BlockEntity blockEntity = serverWorld.getBlockEntity(blockPos6);
-                        if (blockEntity != null) {
-                            BlockEntityInfo blockEntityInfo = new BlockEntityInfo(
-                                    blockEntity.createComponentlessNbt(serverWorld.getRegistryManager()), blockEntity.getComponents()
-                            );
-                            list2.add(new BlockInfo(blockPos7, blockState, blockEntityInfo));
-                            deque.addLast(blockPos6);
-                        } else if (!blockState.isOpaqueFullCube(serverWorld, blockPos6) && !blockState.isFullCube(serverWorld, blockPos6)) {
-                            list3.add(new BlockInfo(blockPos7, blockState, null));
-                            deque.addFirst(blockPos6);
-                        } else {
-                            list.add(new BlockInfo(blockPos7, blockState, null));
-                            deque.addLast(blockPos6);
-                        }
-                    }
-                }
-            }
+        BlockPos offset = trainMinPos.subtract(backupMinPos);
 
-            List<BlockInfo> list4 = Lists.newArrayList();
-            list4.addAll(list);
-            list4.addAll(list2);
-            list4.addAll(list3);
-            List<BlockInfo> list5 = Lists.reverse(list4);
-
-            for (BlockInfo blockInfo : list5) {
-                BlockEntity blockEntity3 = serverWorld.getBlockEntity(blockInfo.pos);
-                Clearable.clear(blockEntity3);
-                serverWorld.setBlockState(blockInfo.pos, Blocks.BARRIER.getDefaultState(), Block.NOTIFY_LISTENERS);
-            }
+        // 只写入与模板不同的方块，分多个tick完成，完成后再清理实体
+        TrainResetEngine engine = GameWorldComponent.KEY.get(serverWorld).getTrainResetEngine();
+        if (!engine.start(serverWorld, backupTrainBox, offset, () -> onTrainResetComplete(serverWorld), () -> onTrainResetAbandoned(serverWorld))) {
+            Wathe.LOGGER.info("Train reset failed: Clone positions not loaded. Queueing another attempt. Dimension: {}", dimensionId);
+            return true;
+        }
+        return false;
+    }
 
-            int mx = 0;
+    private static void onTrainResetComplete(ServerWorld serverWorld) {
+        GameWorldComponent gameComponent = GameWorldComponent.KEY.get(serverWorld);
+        TrainResetEngine engine = gameComponent.getTrainResetEngine();
+        Wathe.LOGGER.info("Train reset successful: {} blocks changed over {} ticks. Dimension: {}",
+                engine.getLastChangedBlocks(), engine.getLastResetTicks(), serverWorld.getRegistryKey().getValue());
+        gameComponent.onMapResetComplete();
+        finishTrainReset(serverWorld);
+    }
 
-            for (BlockInfo blockInfo2 : list4) {
-                if (serverWorld.setBlockState(blockInfo2.pos, blockInfo2.state, Block.NOTIFY_LISTENERS)) {
-                    mx++;
-                }
-            }
+    /**
+     * Called when the reset region stayed unloaded for every attempt. Gives up on this reset so that the game can
+     * still be started and map voting is not blocked forever.
+     */
+    public static void onTrainResetFailed(ServerWorld serverWorld, int attempts) {
+        Wathe.LOGGER.error("Train reset failed: Clone positions still not loaded after {} attempts, giving up. Dimension: {}",
+                attempts, serverWorld.getRegistryKey().getValue());
+        finishTrainReset(serverWorld);
+    }
 
-            for (BlockInfo blockInfo2x : list2) {
-                BlockEntity blockEntity4 = serverWorld.getBlockEntity(blockInfo2x.pos);
-                if (blockInfo2x.blockEntityInfo != null && blockEntity4 != null) {
-                    blockEntity4.readComponentlessNbt(blockInfo2x.blockEntityInfo.nbt, serverWorld.getRegistryManager());
-                    blockEntity4.setComponents(blockInfo2x.blockEntityInfo.components);
-                    blockEntity4.markDirty();
-                }
+    private static void onTrainResetAbandoned(ServerWorld serverWorld) {
+        Wathe.LOGGER.error("Train reset abandoned: Train stayed unloaded while resetting. Dimension: {}", serverWorld.getRegistryKey().getValue());
+        finishTrainReset(serverWorld);
+    }
 
-                serverWorld.setBlockState(blockInfo2x.pos, blockInfo2x.state, Block.NOTIFY_LISTENERS);
-            }
+    private static void finishTrainReset(ServerWorld serverWorld) {
+        // 开局前的重置在回合进行中完成，不能清掉本局的实体，也不能开始投票
+        if (GameWorldComponent.KEY.get(serverWorld).getGameStatus() != GameWorldComponent.GameStatus.INACTIVE) return;
 
-            for (BlockInfo blockInfo2x : list5) {
-                serverWorld.updateNeighbors(blockInfo2x.pos, blockInfo2x.state.getBlock());
-            }
+        // discard all player bodies, items, firecrackers and notes
+        RoundEntityRegistry.get(serverWorld).discardAll();
 
-            serverWorld.getBlockTickScheduler().scheduleTicks(serverWorld.getBlockTickScheduler(), backupTrainBox, blockPos5);
-            if (mx == 0) {
-                Wathe.LOGGER.info("Train reset failed: No blocks copied. Queueing another attempt. Dimension: {}", dimensionId);
-                return true;
-            }
-        } else {
-            Wathe.LOGGER.info("Train reset failed: Clone positions not loaded. Queueing another attempt. Dimension: {}", dimensionId);
-            return true;
-        }
-
-        // discard all player bodies and items
-        for (PlayerBodyEntity body : serverWorld.getEntitiesByType(WatheEntities.PLAYER_BODY, playerBodyEntity -> true)) {
-            body.discard();
-        }
-        for (ItemEntity item : serverWorld.getEntitiesByType(EntityType.ITEM, playerBodyEntity -> true)) {
-            item.discard();
+        // Check if map voting should start
+        if (MapRegistry.getInstance().getMapCount() > 0) {
+            MapVotingComponent voting = MapVotingComponent.KEY.get(
+                serverWorld.getServer().getScoreboard());
+            voting.startVoting();
         }
-        for (FirecrackerEntity entity : serverWorld.getEntitiesByType(WatheEntities.FIRECRACKER, entity -> true))
-            entity.discard();
-        for (NoteEntity entity : serverWorld.getEntitiesByType(WatheEntities.NOTE, entity -> true))
-            entity.discard();
-
-        Wathe.LOGGER.info("Train reset successful. Dimension: {}", dimensionId);
-        return false;
     }
 
     public static int getReadyPlayerCount(World world) {
@@ -866,7 +823,6 @@ public class GameFunctions {
         );
 
     }
-    public static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor();
 
     /**
      * 设置玩家的 Minecraft 出生点到当前地图的配置出生位置。
@@ -886,35 +842,33 @@ public class GameFunctions {
         );
     }
 
+    /**
+     * 将玩家加入传送队列，之后传送到上次选中地图的出生点（见 {@link MapTransfer}）
+     */
     public static void teleportPlayer(ServerPlayerEntity player) {
-        MinecraftServer server = player.getServer();
-        SCHEDULER.schedule(() -> {
-            if (server == null) return;
-            server.execute(() -> {
-                RegistryKey<World> worldKey = RegistryKey.of(RegistryKeys.WORLD, MapVotingComponent.KEY.get(player.getServer().getScoreboard()).getLastSelectedDimension());
-                if (worldKey == null) return;
-                ServerWorld world = server.getWorld(worldKey);
-                if (world == null) return;
-                MapVariablesWorldComponent spawn = MapVariablesWorldComponent.KEY.get(world);
-                MapVariablesWorldComponent.PosWithOrientation spawnPos = spawn.getSpawnPos();
-                if(player.isSpectator()){
-                    spawnPos = spawn.getSpectatorSpawnPos();
-                }
-                world.getChunk(Vec3dToBlockPos(spawnPos.pos));
-
-                player.teleport(
-                        world,
-                        spawnPos.pos.getX() + 0.5,
-                        spawnPos.pos.getY() + 1,
-                        spawnPos.pos.getZ() + 0.5,
-                        spawnPos.yaw,
-                        spawnPos.pitch
-                );
-                setPlayerSpawnToMapSpawn(player, world);
-                TrainVoicePlugin.resetPlayer(player.getUuid());
-                player.getInventory().clear();
-            });
-        }, 100, TimeUnit.MILLISECONDS);
+        MapTransfer.enqueue(player);
+    }
+
+    static void teleportPlayerNow(ServerPlayerEntity player, ServerWorld world) {
+        MapVariablesWorldComponent spawn = MapVariablesWorldComponent.KEY.get(world);
+        MapVariablesWorldComponent.PosWithOrientation spawnPos = spawn.getSpawnPos();
+        if(player.isSpectator()){
+            spawnPos = spawn.getSpectatorSpawnPos();
+        }
+        // 通常已被预加载，等待超时时在这里同步加载
+        world.getChunk(Vec3dToBlockPos(spawnPos.pos));
+
+        player.teleport(
+                world,
+                spawnPos.pos.getX() + 0.5,
+                spawnPos.pos.getY() + 1,
+                spawnPos.pos.getZ() + 0.5,
+                spawnPos.yaw,
+                spawnPos.pitch
+        );
+        setPlayerSpawnToMapSpawn(player, world);
+        TrainVoicePlugin.resetPlayer(player.getUuid());
+        player.getInventory().clear();
     }
     /**
      * 投票结束后传送所有玩家到目标维度
@@ -928,7 +882,10 @@ public class GameFunctions {
             return;
         }
 
-        // Teleport all players from all worlds to the target dimension
+        // 轮盘开始时通常已经预加载，单地图跳过投票时从这里开始
+        MapTransfer.prewarm(targetWorld);
+
+        // Teleport all players from all worlds to the target dimension, a few per tick
         for (ServerWorld world : currentWorld.getServer().getWorlds()) {
             for (ServerPlayerEntity player : new ArrayList<>(world.getPlayers())) {
                 if (world.getRegistryKey().equals(dimKey)) {
@@ -940,7 +897,7 @@ public class GameFunctions {
             }
         }
 
-        Wathe.LOGGER.info("Teleported all players to dimension {}", targetDimensionId);
+        Wathe.LOGGER.info("Queued teleport of all players to dimension {}", targetDimensionId);
     }
 
     public enum WinStatus {
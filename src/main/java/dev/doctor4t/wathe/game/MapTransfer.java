@@ -0,0 +1,239 @@
+package dev.doctor4t.wathe.game;
+
+import dev.doctor4t.wathe.Wathe;
+import dev.doctor4t.wathe.cca.MapVariablesWorldComponent;
+import dev.doctor4t.wathe.cca.MapVotingComponent;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerTickEvents;
+import net.minecraft.registry.RegistryKey;
+import net.minecraft.registry.RegistryKeys;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.network.ServerPlayerEntity;
+import net.minecraft.server.world.ChunkTicketType;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.Identifier;
+import net.minecraft.util.math.Box;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.world.World;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+
+/**
+ * Moves players into the map chosen by the vote.
+ * <p>
+ * As soon as the map is known (when the roulette starts), chunk tickets are added around both spawn points and over
+ * the ready and play areas, so the server loads them in the background while the roulette plays. Teleports are then
+ * handed out a few players per tick; a player waits until the chunk of their spawn point is loaded, up to
+ * {@link #MAX_WAIT_TICKS}, after which the chunk is loaded synchronously as before.
+ */
+public final class MapTransfer {
+    // 门票在一分钟后自动过期，传送结束后不会一直占用区块
+    private static final int TICKET_EXPIRY_TICKS = 60 * 20;
+    private static final ChunkTicketType<ChunkPos> TICKET = ChunkTicketType.create("wathe_map_transfer", Comparator.comparingLong(ChunkPos::toLong), TICKET_EXPIRY_TICKS);
+    private static final int SPAWN_TICKET_RADIUS = 2;
+    // 区域过大（配置错误）时只预加载出生点
+    private static final int MAX_AREA_CHUNKS = 1024;
+    private static final int TELEPORTS_PER_TICK = 4;
+    private static final int MAX_WAIT_TICKS = 5 * 20;
+
+    private static final Map<UUID, Pending> QUEUE = new LinkedHashMap<>();
+    private static @Nullable RegistryKey<World> prewarmedWorld;
+    private static final LongArrayList PREWARM_CHUNKS = new LongArrayList();
+    private static int prewarmCursor = 0;
+    private static long prewarmTick = 0;
+    private static long prewarmStartNanos = 0;
+    private static long currentTick = 0;
+
+    private static long lastChunkWaitNanos = -1;
+    private static int lastPrewarmChunks = 0;
+    private static long teleported = 0;
+    private static long forcedTeleports = 0;
+    private static long totalLatencyNanos = 0;
+    private static long maxLatencyNanos = 0;
+
+    private MapTransfer() {
+    }
+
+    public static void init() {
+        ServerTickEvents.END_SERVER_TICK.register(MapTransfer::tick);
+        ServerLifecycleEvents.SERVER_STOPPED.register(server -> clear());
+    }
+
+    /**
+     * Starts loading the chunks players will arrive in. Does nothing if the world was pre-warmed recently, e.g. when
+     * the roulette started and the teleport follows.
+     */
+    public static void prewarm(ServerWorld world) {
+        if (world.getRegistryKey().equals(prewarmedWorld) && currentTick - prewarmTick < TICKET_EXPIRY_TICKS / 2) return;
+        prewarmedWorld = world.getRegistryKey();
+        PREWARM_CHUNKS.clear();
+        prewarmCursor = 0;
+        prewarmTick = currentTick;
+        prewarmStartNanos = System.nanoTime();
+
+        MapVariablesWorldComponent areas = MapVariablesWorldComponent.KEY.get(world);
+        addTicket(world, new ChunkPos(GameFunctions.Vec3dToBlockPos(areas.getSpawnPos().pos)), SPAWN_TICKET_RADIUS);
+        addTicket(world, new ChunkPos(GameFunctions.Vec3dToBlockPos(areas.getSpectatorSpawnPos().pos)), SPAWN_TICKET_RADIUS);
+        addArea(world, areas.getReadyArea());
+        addArea(world, areas.getPlayArea());
+        lastPrewarmChunks = PREWARM_CHUNKS.size();
+    }
+
+    private static void addArea(ServerWorld world, @Nullable Box area) {
+        if (area == null) return;
+        int minX = ((int) Math.floor(area.minX)) >> 4;
+        int maxX = ((int) Math.floor(area.maxX)) >> 4;
+        int minZ = ((int) Math.floor(area.minZ)) >> 4;
+        int maxZ = ((int) Math.floor(area.maxZ)) >> 4;
+        if ((long) (maxX - minX + 1) * (maxZ - minZ + 1) > MAX_AREA_CHUNKS) {
+            Wathe.LOGGER.warn("Not pre-loading area {} in {}: larger than {} chunks", area, world.getRegistryKey().getValue(), MAX_AREA_CHUNKS);
+            return;
+        }
+        for (int x = minX; x <= maxX; x++) {
+            for (int z = minZ; z <= maxZ; z++) {
+                addTicket(world, new ChunkPos(x, z), 0);
+            }
+        }
+    }
+
+    private static void addTicket(ServerWorld world, ChunkPos pos, int radius) {
+        world.getChunkManager().addTicket(TICKET, pos, radius, pos);
+        PREWARM_CHUNKS.add(pos.toLong());
+    }
+
+    /**
+     * Queues a teleport to the spawn point of the last selected map. A player already in the queue keeps their place.
+     */
+    public static void enqueue(ServerPlayerEntity player) {
+        Pending pending = QUEUE.get(player.getUuid());
+        if (pending != null) {
+            // 重新连接的玩家是新的实体
+            pending.player = player;
+            return;
+        }
+        QUEUE.put(player.getUuid(), new Pending(player, currentTick, System.nanoTime()));
+    }
+
+    private static void tick(MinecraftServer server) {
+        currentTick++;
+        tickPrewarm(server);
+        if (QUEUE.isEmpty()) return;
+
+        Identifier dimensionId = MapVotingComponent.KEY.get(server.getScoreboard()).getLastSelectedDimension();
+        ServerWorld world = dimensionId == null ? null : server.getWorld(RegistryKey.of(RegistryKeys.WORLD, dimensionId));
+        if (world == null) {
+            QUEUE.clear();
+            return;
+        }
+
+        int sent = 0;
+        Iterator<Pending> iterator = QUEUE.values().iterator();
+        while (iterator.hasNext() && sent < TELEPORTS_PER_TICK) {
+            Pending pending = iterator.next();
+            ServerPlayerEntity player = pending.player;
+            if (player.isDisconnected()) {
+                iterator.remove();
+                continue;
+            }
+            // 至少等一个完整的 tick，让刚加入的玩家先完成登录
+            if (currentTick - pending.enqueuedTick < 2) continue;
+
+            ChunkPos spawnChunk = new ChunkPos(GameFunctions.Vec3dToBlockPos(getSpawn(player, world).pos));
+            boolean ready = world.getChunkManager().isChunkLoaded(spawnChunk.x, spawnChunk.z);
+            boolean forced = !ready && currentTick - pending.enqueuedTick >= MAX_WAIT_TICKS;
+            if (!ready && !forced) continue;
+
+            iterator.remove();
+            GameFunctions.teleportPlayerNow(player, world);
+            long latency = System.nanoTime() - pending.enqueuedNanos;
+            teleported++;
+            if (forced) forcedTeleports++;
+            totalLatencyNanos += latency;
+            maxLatencyNanos = Math.max(maxLatencyNanos, latency);
+            sent++;
+        }
+    }
+
+    private static void tickPrewarm(MinecraftServer server) {
+        if (prewarmedWorld == null || prewarmCursor >= PREWARM_CHUNKS.size()) return;
+        ServerWorld world = server.getWorld(prewarmedWorld);
+        if (world == null) {
+            PREWARM_CHUNKS.clear();
+            prewarmCursor = 0;
+            return;
+        }
+        // 按添加顺序检查，遇到未加载的区块就等下一个 tick
+        while (prewarmCursor < PREWARM_CHUNKS.size()) {
+            long pos = PREWARM_CHUNKS.getLong(prewarmCursor);
+            if (!world.getChunkManager().isChunkLoaded(ChunkPos.getPackedX(pos), ChunkPos.getPackedZ(pos))) return;
+            prewarmCursor++;
+        }
+        lastChunkWaitNanos = System.nanoTime() - prewarmStartNanos;
+        Wathe.LOGGER.info("Pre-loaded {} chunks of {} in {} ms", PREWARM_CHUNKS.size(), prewarmedWorld.getValue(), lastChunkWaitNanos / 1_000_000);
+    }
+
+    private static MapVariablesWorldComponent.PosWithOrientation getSpawn(ServerPlayerEntity player, ServerWorld world) {
+        MapVariablesWorldComponent spawn = MapVariablesWorldComponent.KEY.get(world);
+        return player.isSpectator() ? spawn.getSpectatorSpawnPos() : spawn.getSpawnPos();
+    }
+
+    private static void clear() {
+        QUEUE.clear();
+        PREWARM_CHUNKS.clear();
+        prewarmCursor = 0;
+        prewarmedWorld = null;
+        currentTick = 0;
+    }
+
+    public static int getQueuedPlayers() {
+        return QUEUE.size();
+    }
+
+    public static boolean isPrewarming() {
+        return prewarmCursor < PREWARM_CHUNKS.size();
+    }
+
+    public static int getLastPrewarmChunks() {
+        return lastPrewarmChunks;
+    }
+
+    /**
+     * @return the time from adding the tickets until every pre-loaded chunk was ready, or -1 if no pre-load finished yet
+     */
+    public static long getLastChunkWaitNanos() {
+        return lastChunkWaitNanos;
+    }
+
+    public static long getTeleported() {
+        return teleported;
+    }
+
+    /**
+     * @return teleports that gave up waiting for the chunk and loaded it synchronously
+     */
+    public static long getForcedTeleports() {
+        return forcedTeleports;
+    }
+
+    public static long getAverageLatencyNanos() {
+        return teleported == 0 ? 0 : totalLatencyNanos / teleported;
+    }
+
+    public static long getMaxLatencyNanos() {
+        return maxLatencyNanos;
+    }
+
+    private static final class Pending {
+        private ServerPlayerEntity player;
+        private final long enqueuedTick;
+        private final long enqueuedNanos;
+
+        private Pending(ServerPlayerEntity player, long enqueuedTick, long enqueuedNanos) {
+            this.player = player;
+            this.enqueuedTick = enqueuedTick;
+            this.enqueuedNanos = enqueuedNanos;
+        }
+    }
+}
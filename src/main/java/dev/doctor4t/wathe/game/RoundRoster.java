@@ -0,0 +1,58 @@
+package dev.doctor4t.wathe.game;
+
+import dev.doctor4t.wathe.Wathe;
+import it.unimi.dsi.fastutil.objects.ReferenceOpenHashSet;
+import net.minecraft.server.network.ServerPlayerEntity;
+import net.minecraft.server.world.ServerWorld;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+
+/**
+ * The players taking part in a round being initialized, prepared once before any initialization step runs.
+ * <p>
+ * Keeps the ready-area order for role and room assignment plus a set for membership checks, and times each
+ * initialization phase so the whole breakdown can be logged once the round is active.
+ */
+public class RoundRoster {
+    private final List<ServerPlayerEntity> players;
+    private final ReferenceOpenHashSet<ServerPlayerEntity> members;
+    private final Map<String, Long> phaseNanos = new LinkedHashMap<>();
+    private final long startNanos = System.nanoTime();
+    private long phaseStart = this.startNanos;
+
+    public RoundRoster(List<ServerPlayerEntity> players) {
+        this.players = List.copyOf(players);
+        this.members = new ReferenceOpenHashSet<>(this.players);
+    }
+
+    public List<ServerPlayerEntity> getPlayers() {
+        return this.players;
+    }
+
+    public boolean contains(ServerPlayerEntity player) {
+        return this.members.contains(player);
+    }
+
+    public int size() {
+        return this.players.size();
+    }
+
+    /**
+     * Ends the current phase under the given name; the next phase starts now.
+     */
+    public void endPhase(String name) {
+        long now = System.nanoTime();
+        this.phaseNanos.merge(name, now - this.phaseStart, Long::sum);
+        this.phaseStart = now;
+    }
+
+    public void logTimings(ServerWorld world) {
+        StringJoiner phases = new StringJoiner(", ");
+        this.phaseNanos.forEach((name, nanos) -> phases.add(name + " " + String.format("%.2f", nanos / 1_000_000.0) + " ms"));
+        Wathe.LOGGER.info("Round initialized for {} players in {} ms ({}). Dimension: {}", this.players.size(),
+                String.format("%.2f", (System.nanoTime() - this.startNanos) / 1_000_000.0), phases, world.getRegistryKey().getValue());
+    }
+}
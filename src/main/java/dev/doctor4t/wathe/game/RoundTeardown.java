@@ -0,0 +1,146 @@
+package dev.doctor4t.wathe.game;
+
+import dev.doctor4t.wathe.Wathe;
+import dev.doctor4t.wathe.WatheConfig;
+import dev.doctor4t.wathe.util.RoundEntityRegistry;
+import net.minecraft.server.network.ServerPlayerEntity;
+import net.minecraft.server.world.ServerWorld;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Cleans up a finished round in stages, spread over as many ticks as needed to stay within
+ * {@link WatheConfig#roundTeardownBudgetMs} per tick.
+ * <p>
+ * Stages run in order: discard the entities tracked by {@link RoundEntityRegistry}, reset every player, then run the
+ * completion callback that resets the world state. The time spent in each stage is kept for {@code /wathe:debug teardown}.
+ */
+public class RoundTeardown {
+    public enum Stage {
+        ENTITIES, PLAYERS, WORLD
+    }
+
+    // 每处理这么多实体检查一次时间
+    private static final int ENTITIES_PER_CLOCK_CHECK = 16;
+
+    private @Nullable Job job;
+
+    private final long[] lastStageNanos = new long[Stage.values().length];
+    private int lastDiscardedEntities = -1;
+    private int lastResetPlayers = -1;
+    private int lastTicks = -1;
+
+    public boolean isRunning() {
+        return this.job != null;
+    }
+
+    /**
+     * Starts a teardown and runs its first slice right away, so small rounds are still cleaned up within the tick.
+     *
+     * @param players    the players to reset
+     * @param onComplete resets the world state once every entity and player has been handled
+     */
+    public void start(ServerWorld world, List<ServerPlayerEntity> players, Runnable onComplete) {
+        this.job = new Job(new ArrayList<>(players), onComplete);
+        this.tick(world);
+    }
+
+    public void tick(ServerWorld world) {
+        Job job = this.job;
+        if (job == null) return;
+        job.ticks++;
+        long deadline = System.nanoTime() + Math.max(1, WatheConfig.roundTeardownBudgetMs) * 1_000_000L;
+        if (!job.step(world, deadline)) return;
+
+        this.job = null;
+        System.arraycopy(job.stageNanos, 0, this.lastStageNanos, 0, this.lastStageNanos.length);
+        this.lastDiscardedEntities = job.discarded;
+        this.lastResetPlayers = job.reset;
+        this.lastTicks = job.ticks;
+        Wathe.LOGGER.info("Round teardown finished over {} ticks: {} entities in {} ms, {} players in {} ms, world in {} ms. Dimension: {}",
+                this.lastTicks, this.lastDiscardedEntities, this.getLastStageNanos(Stage.ENTITIES) / 1_000_000.0,
+                this.lastResetPlayers, this.getLastStageNanos(Stage.PLAYERS) / 1_000_000.0,
+                this.getLastStageNanos(Stage.WORLD) / 1_000_000.0, world.getRegistryKey().getValue());
+    }
+
+    public long getLastStageNanos(Stage stage) {
+        return this.lastStageNanos[stage.ordinal()];
+    }
+
+    public int getLastDiscardedEntities() {
+        return this.lastDiscardedEntities;
+    }
+
+    public int getLastResetPlayers() {
+        return this.lastResetPlayers;
+    }
+
+    public int getLastTicks() {
+        return this.lastTicks;
+    }
+
+    private static class Job {
+        private final List<ServerPlayerEntity> players;
+        private final Runnable onComplete;
+        private final long[] stageNanos = new long[Stage.values().length];
+        private Stage stage = Stage.ENTITIES;
+        private int cursor = 0;
+        private int discarded = 0;
+        private int reset = 0;
+        private int ticks = 0;
+
+        private Job(List<ServerPlayerEntity> players, Runnable onComplete) {
+            this.players = players;
+            this.onComplete = onComplete;
+        }
+
+        /**
+         * Every stage makes progress at least once per call, even when the budget is already used up.
+         *
+         * @return true once every stage is done
+         */
+        private boolean step(ServerWorld world, long deadline) {
+            if (this.stage == Stage.ENTITIES) {
+                long start = System.nanoTime();
+                RoundEntityRegistry entities = RoundEntityRegistry.get(world);
+                boolean done = false;
+                for (int i = 1; ; i++) {
+                    if (!entities.discardNext()) {
+                        done = true;
+                        break;
+                    }
+                    this.discarded++;
+                    if (i % ENTITIES_PER_CLOCK_CHECK == 0 && System.nanoTime() >= deadline) break;
+                }
+                this.stageNanos[Stage.ENTITIES.ordinal()] += System.nanoTime() - start;
+                if (!done) return false;
+                this.stage = Stage.PLAYERS;
+            }
+
+            if (this.stage == Stage.PLAYERS) {
+                long start = System.nanoTime();
+                while (this.cursor < this.players.size()) {
+                    ServerPlayerEntity player = this.players.get(this.cursor++);
+                    // 期间离开或换到其他世界的玩家不再重置
+                    if (!player.isDisconnected() && player.getServerWorld() == world) {
+                        GameFunctions.resetPlayer(player);
+                        this.reset++;
+                    }
+                    if (System.nanoTime() >= deadline) break;
+                }
+                this.stageNanos[Stage.PLAYERS.ordinal()] += System.nanoTime() - start;
+                if (this.cursor < this.players.size()) return false;
+                this.stage = Stage.WORLD;
+                // 世界状态的重置不可拆分，预算已用完时留到下一个 tick
+                if (System.nanoTime() >= deadline) return false;
+            }
+
+            long start = System.nanoTime();
+            this.onComplete.run();
+            this.stageNanos[Stage.WORLD.ordinal()] += System.nanoTime() - start;
+            return true;
+        }
+    }
+}
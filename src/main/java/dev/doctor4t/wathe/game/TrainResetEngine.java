@@ -0,0 +1,324 @@
+package dev.doctor4t.wathe.game;
+
+import dev.doctor4t.wathe.Wathe;
+import dev.doctor4t.wathe.WatheConfig;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import net.minecraft.block.Block;
+import net.minecraft.block.BlockState;
+import net.minecraft.block.entity.BlockEntity;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.Clearable;
+import net.minecraft.util.math.BlockBox;
+import net.minecraft.util.math.BlockPos;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Restores the train from its reset template.
+ * <p>
+ * The template is captured once into a palette-indexed snapshot. Each reset then diffs the snapshot against the
+ * live train and only rewrites the blocks and block entities that changed, spread over several ticks according to
+ * {@link WatheConfig#trainResetBlocksPerTick}. Writes are grouped by target chunk section.
+ */
+public class TrainResetEngine {
+    // 不触发形状更新和掉落，邻居更新在所有写入完成后统一进行
+    private static final int WRITE_FLAGS = Block.NOTIFY_LISTENERS | Block.FORCE_STATE | Block.SKIP_DROPS;
+    // 每次写入预算对应的最大比较次数
+    private static final int CHECKS_PER_WRITE = 16;
+    // 列车区域卸载后最多等待的 tick 数，超时后放弃本次重置
+    private static final int MAX_STALLED_TICKS = 20 * 30;
+
+    private @Nullable Snapshot snapshot;
+    private @Nullable Job job;
+
+    private long lastCaptureNanos = -1;
+    private int lastChangedBlocks = -1;
+    private int lastResetTicks = -1;
+
+    public boolean isResetting() {
+        return this.job != null;
+    }
+
+    /**
+     * Drops the captured template, e.g. after the template area has been edited.
+     */
+    public void invalidateSnapshot() {
+        this.snapshot = null;
+    }
+
+    /**
+     * Invalidates the snapshot if the given position lies inside the captured template. Called for block state
+     * changes and for block entities marked dirty, e.g. a refilled chest or an edited sign.
+     */
+    public void onBlockChanged(BlockPos pos) {
+        if (this.snapshot != null && this.snapshot.template.contains(pos)) {
+            this.snapshot = null;
+        }
+    }
+
+    /**
+     * Starts a reset, replacing any reset already in progress.
+     *
+     * @param template   the reset template area
+     * @param offset     the offset from the template to the train
+     * @param onComplete called once every changed block has been written and updated
+     * @param onAbandoned called instead if the train stays unloaded for too long while resetting
+     * @return false if the template or the train is not loaded
+     */
+    public boolean start(ServerWorld world, BlockBox template, BlockPos offset, Runnable onComplete, Runnable onAbandoned) {
+        BlockPos templateMin = new BlockPos(template.getMinX(), template.getMinY(), template.getMinZ());
+        BlockPos templateMax = new BlockPos(template.getMaxX(), template.getMaxY(), template.getMaxZ());
+        if (!world.isRegionLoaded(templateMin, templateMax) || !world.isRegionLoaded(templateMin.add(offset), templateMax.add(offset))) {
+            return false;
+        }
+
+        if (this.snapshot == null || !this.snapshot.matches(template, offset)) {
+            long start = System.nanoTime();
+            this.snapshot = Snapshot.capture(world, template, offset);
+            this.lastCaptureNanos = System.nanoTime() - start;
+            Wathe.LOGGER.info("Captured train reset template: {} blocks, {} states, {} block entities in {} ms. Dimension: {}",
+                    this.snapshot.states.length, this.snapshot.palette.length, this.snapshot.blockEntities.size(),
+                    this.lastCaptureNanos / 1_000_000, world.getRegistryKey().getValue());
+        }
+
+        this.job = new Job(this.snapshot, onComplete, onAbandoned);
+        return true;
+    }
+
+    public void tick(ServerWorld world) {
+        Job job = this.job;
+        if (job == null) return;
+        Snapshot snapshot = job.snapshot;
+        if (!world.isRegionLoaded(snapshot.targetMin, snapshot.targetMax)) {
+            if (++job.stalledTicks >= MAX_STALLED_TICKS) {
+                this.job = null;
+                job.onAbandoned.run();
+            }
+            return;
+        }
+        job.stalledTicks = 0;
+
+        int writeBudget = Math.max(1, WatheConfig.trainResetBlocksPerTick);
+        job.ticks++;
+        if (!job.step(world, writeBudget, writeBudget * CHECKS_PER_WRITE)) return;
+
+        this.job = null;
+        this.lastChangedBlocks = job.changed.size();
+        this.lastResetTicks = job.ticks;
+        world.getBlockTickScheduler().scheduleTicks(world.getBlockTickScheduler(), snapshot.template, snapshot.offset);
+        job.onComplete.run();
+    }
+
+    public @Nullable Snapshot getSnapshot() {
+        return this.snapshot;
+    }
+
+    public long getLastCaptureNanos() {
+        return this.lastCaptureNanos;
+    }
+
+    public int getLastChangedBlocks() {
+        return this.lastChangedBlocks;
+    }
+
+    public int getLastResetTicks() {
+        return this.lastResetTicks;
+    }
+
+    public static class Snapshot {
+        private final BlockBox template;
+        private final BlockPos offset;
+        private final BlockPos targetMin;
+        private final BlockPos targetMax;
+        private final int sizeX, sizeZ;
+        private final BlockState[] palette;
+        // 调色板索引，index = (y * sizeZ + z) * sizeX + x
+        private final char[] states;
+        private final Int2ObjectOpenHashMap<GameFunctions.BlockEntityInfo> blockEntities;
+        // 写入顺序：完整方块、方块实体、其他方块；每段内按目标区块分组
+        private final int[][] phases;
+
+        private Snapshot(BlockBox template, BlockPos offset, BlockState[] palette, char[] states,
+                         Int2ObjectOpenHashMap<GameFunctions.BlockEntityInfo> blockEntities, int[][] phases) {
+            this.template = template;
+            this.offset = offset;
+            this.targetMin = new BlockPos(template.getMinX(), template.getMinY(), template.getMinZ()).add(offset);
+            this.targetMax = new BlockPos(template.getMaxX(), template.getMaxY(), template.getMaxZ()).add(offset);
+            this.sizeX = template.getBlockCountX();
+            this.sizeZ = template.getBlockCountZ();
+            this.palette = palette;
+            this.states = states;
+            this.blockEntities = blockEntities;
+            this.phases = phases;
+        }
+
+        private boolean matches(BlockBox template, BlockPos offset) {
+            return this.template.equals(template) && this.offset.equals(offset);
+        }
+
+        private static Snapshot capture(ServerWorld world, BlockBox template, BlockPos offset) {
+            int sizeX = template.getBlockCountX();
+            int sizeY = template.getBlockCountY();
+            int sizeZ = template.getBlockCountZ();
+            List<BlockState> palette = new ArrayList<>();
+            Object2IntOpenHashMap<BlockState> paletteIds = new Object2IntOpenHashMap<>();
+            paletteIds.defaultReturnValue(-1);
+            char[] states = new char[sizeX * sizeY * sizeZ];
+            Int2ObjectOpenHashMap<GameFunctions.BlockEntityInfo> blockEntities = new Int2ObjectOpenHashMap<>();
+            IntArrayList[] phases = {new IntArrayList(), new IntArrayList(), new IntArrayList()};
+
+            int targetMinX = template.getMinX() + offset.getX();
+            int targetMinY = template.getMinY() + offset.getY();
+            int targetMinZ = template.getMinZ() + offset.getZ();
+            BlockPos.Mutable pos = new BlockPos.Mutable();
+
+            for (int sectionX = targetMinX >> 4; sectionX <= (targetMinX + sizeX - 1) >> 4; sectionX++) {
+                for (int sectionZ = targetMinZ >> 4; sectionZ <= (targetMinZ + sizeZ - 1) >> 4; sectionZ++) {
+                    for (int sectionY = targetMinY >> 4; sectionY <= (targetMinY + sizeY - 1) >> 4; sectionY++) {
+                        int fromX = Math.max(sectionX << 4, targetMinX) - targetMinX;
+                        int toX = Math.min((sectionX << 4) + 15, targetMinX + sizeX - 1) - targetMinX;
+                        int fromY = Math.max(sectionY << 4, targetMinY) - targetMinY;
+                        int toY = Math.min((sectionY << 4) + 15, targetMinY + sizeY - 1) - targetMinY;
+                        int fromZ = Math.max(sectionZ << 4, targetMinZ) - targetMinZ;
+                        int toZ = Math.min((sectionZ << 4) + 15, targetMinZ + sizeZ - 1) - targetMinZ;
+
+                        for (int y = fromY; y <= toY; y++) {
+                            for (int z = fromZ; z <= toZ; z++) {
+                                for (int x = fromX; x <= toX; x++) {
+                                    pos.set(template.getMinX() + x, template.getMinY() + y, template.getMinZ() + z);
+                                    BlockState state = world.getBlockState(pos);
+                                    int id = paletteIds.getInt(state);
+                                    if (id < 0) {
+                                        id = palette.size();
+                                        if (id > Character.MAX_VALUE) {
+                                            throw new IllegalStateException("Train reset template uses more than " + (Character.MAX_VALUE + 1) + " block states");
+                                        }
+                                        palette.add(state);
+                                        paletteIds.put(state, id);
+                                    }
+
+                                    int index = (y * sizeZ + z) * sizeX + x;
+                                    states[index] = (char) id;
+
+                                    BlockEntity blockEntity = world.getBlockEntity(pos);
+                                    if (blockEntity != null) {
+                                        blockEntities.put(index, new GameFunctions.BlockEntityInfo(
+                                                blockEntity.createComponentlessNbt(world.getRegistryManager()), blockEntity.getComponents()
+                                        ));
+                                        phases[1].add(index);
+                                    } else if (!state.isOpaqueFullCube(world, pos) && !state.isFullCube(world, pos)) {
+                                        phases[2].add(index);
+                                    } else {
+                                        phases[0].add(index);
+                                    }
+                                }
+                            }
+                        }
+                    }
+                }
+            }
+
+            return new Snapshot(template, offset.toImmutable(), palette.toArray(new BlockState[0]), states, blockEntities,
+                    new int[][]{phases[0].toIntArray(), phases[1].toIntArray(), phases[2].toIntArray()});
+        }
+
+        private void toTarget(int index, BlockPos.Mutable pos) {
+            int x = index % this.sizeX;
+            int rest = index / this.sizeX;
+            pos.set(this.targetMin.getX() + x, this.targetMin.getY() + rest / this.sizeZ, this.targetMin.getZ() + rest % this.sizeZ);
+        }
+
+        public int getBlockCount() {
+            return this.states.length;
+        }
+
+        public int getPaletteSize() {
+            return this.palette.length;
+        }
+
+        public int getBlockEntityCount() {
+            return this.blockEntities.size();
+        }
+    }
+
+    private static class Job {
+        private final Snapshot snapshot;
+        private final Runnable onComplete;
+        private final Runnable onAbandoned;
+        private final LongArrayList changed = new LongArrayList();
+        private final BlockPos.Mutable pos = new BlockPos.Mutable();
+        private int phase = 0;
+        private int cursor = 0;
+        private int updateCursor = 0;
+        private int ticks = 0;
+        private int stalledTicks = 0;
+
+        private Job(Snapshot snapshot, Runnable onComplete, Runnable onAbandoned) {
+            this.snapshot = snapshot;
+            this.onComplete = onComplete;
+            this.onAbandoned = onAbandoned;
+        }
+
+        /**
+         * @return true once every phase and all neighbor updates are done
+         */
+        private boolean step(ServerWorld world, int writeBudget, int checkBudget) {
+            int writes = 0;
+            int checks = 0;
+
+            while (this.phase < this.snapshot.phases.length) {
+                int[] order = this.snapshot.phases[this.phase];
+                while (this.cursor < order.length) {
+                    if (writes >= writeBudget || checks >= checkBudget) return false;
+                    checks++;
+                    if (this.restore(world, order[this.cursor++])) writes++;
+                }
+                this.phase++;
+                this.cursor = 0;
+            }
+
+            while (this.updateCursor < this.changed.size()) {
+                if (writes >= writeBudget) return false;
+                this.pos.set(this.changed.getLong(this.updateCursor++));
+                world.updateNeighbors(this.pos, world.getBlockState(this.pos).getBlock());
+                writes++;
+            }
+            return true;
+        }
+
+        private boolean restore(ServerWorld world, int index) {
+            this.snapshot.toTarget(index, this.pos);
+            BlockState expected = this.snapshot.palette[this.snapshot.states[index]];
+            boolean stateChanged = false;
+
+            if (world.getBlockState(this.pos) != expected) {
+                Clearable.clear(world.getBlockEntity(this.pos));
+                world.setBlockState(this.pos, expected, WRITE_FLAGS);
+                this.changed.add(this.pos.asLong());
+                stateChanged = true;
+            }
+
+            GameFunctions.BlockEntityInfo info = this.snapshot.blockEntities.get(index);
+            if (info == null) return stateChanged;
+            BlockEntity blockEntity = world.getBlockEntity(this.pos);
+            if (blockEntity == null) return stateChanged;
+            if (!stateChanged
+                    && blockEntity.createComponentlessNbt(world.getRegistryManager()).equals(info.nbt())
+                    && blockEntity.getComponents().equals(info.components())) {
+                return false;
+            }
+
+            Clearable.clear(blockEntity);
+            blockEntity.readComponentlessNbt(info.nbt(), world.getRegistryManager());
+            blockEntity.setComponents(info.components());
+            blockEntity.markDirty();
+            world.updateListeners(this.pos, expected, expected, Block.NOTIFY_LISTENERS);
+            return true;
+        }
+    }
+}
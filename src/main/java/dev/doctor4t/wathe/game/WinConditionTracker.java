@@ -0,0 +1,111 @@
+package dev.doctor4t.wathe.game;
+
+import dev.doctor4t.wathe.api.Faction;
+import dev.doctor4t.wathe.api.Role;
+import dev.doctor4t.wathe.api.WatheRoles;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Keeps alive counters per faction so the default win condition can be evaluated without scanning players.
+ * <p>
+ * Fed by {@link dev.doctor4t.wathe.cca.GameWorldComponent} on role assignment and death, and by the
+ * disconnect handler. Players who left the world or switched to spectator or creative are not counted until they come
+ * back, see {@link #setPresent}. The base status is only recomputed when a counter changes or the timer runs out.
+ */
+public class WinConditionTracker {
+    private final Map<UUID, Role> alivePlayers = new HashMap<>();
+    // 不在本世界或处于旁观/创造模式的玩家，存活但不计数
+    private final Set<UUID> absentPlayers = new HashSet<>();
+    private final EnumMap<Faction, Integer> aliveByFaction = new EnumMap<>(Faction.class);
+    private int aliveInnocents = 0;
+    private int aliveKillerTeam = 0;
+
+    private boolean dirty = true;
+    private boolean outOfTime = false;
+    private GameFunctions.WinStatus status = GameFunctions.WinStatus.NONE;
+
+    public void onRoleAssigned(UUID player, Role role) {
+        this.onPlayerEliminated(player);
+        if (role == null || role == WatheRoles.NO_ROLE) return;
+        this.alivePlayers.put(player, role);
+        if (!this.absentPlayers.contains(player)) this.count(role, 1);
+    }
+
+    /**
+     * Called when a player dies, leaves the game or loses their role.
+     */
+    public void onPlayerEliminated(UUID player) {
+        Role role = this.alivePlayers.remove(player);
+        if (role != null && !this.absentPlayers.contains(player)) this.count(role, -1);
+    }
+
+    /**
+     * Called when a player changes world or game mode.
+     *
+     * @param present whether the player is in this world and neither spectating nor in creative
+     */
+    public void setPresent(UUID player, boolean present) {
+        boolean changed = present ? this.absentPlayers.remove(player) : this.absentPlayers.add(player);
+        if (!changed) return;
+        Role role = this.alivePlayers.get(player);
+        if (role != null) this.count(role, present ? 1 : -1);
+    }
+
+    private void count(Role role, int delta) {
+        this.aliveByFaction.merge(role.getFaction(), delta, Integer::sum);
+        if (role.isInnocent()) this.aliveInnocents += delta;
+        if (role.canUseKiller()) this.aliveKillerTeam += delta;
+        this.dirty = true;
+    }
+
+    public void reset() {
+        this.alivePlayers.clear();
+        this.absentPlayers.clear();
+        this.aliveByFaction.clear();
+        this.aliveInnocents = 0;
+        this.aliveKillerTeam = 0;
+        this.outOfTime = false;
+        this.dirty = true;
+    }
+
+    public int getAliveCount(Faction faction) {
+        return this.aliveByFaction.getOrDefault(faction, 0);
+    }
+
+    public int getAliveInnocents() {
+        return this.aliveInnocents;
+    }
+
+    public int getAliveKillerTeam() {
+        return this.aliveKillerTeam;
+    }
+
+    /**
+     * @param outOfTime whether the game timer has run out
+     * @return the base win status before {@link dev.doctor4t.wathe.api.event.CheckWinCondition} listeners are applied
+     */
+    public GameFunctions.WinStatus evaluate(boolean outOfTime) {
+        if (this.dirty || outOfTime != this.outOfTime) {
+            this.outOfTime = outOfTime;
+            this.dirty = false;
+            if (outOfTime) {
+                this.status = GameFunctions.WinStatus.TIME;
+            } else if (this.aliveInnocents <= 0) {
+                // killed all civilians
+                this.status = GameFunctions.WinStatus.KILLERS;
+            } else if (this.aliveKillerTeam <= 0) {
+                // all killers are dead
+                this.status = GameFunctions.WinStatus.PASSENGERS;
+            } else {
+                this.status = GameFunctions.WinStatus.NONE;
+            }
+        }
+        return this.status;
+    }
+}
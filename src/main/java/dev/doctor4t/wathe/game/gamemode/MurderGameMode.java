@@ -61,47 +61,24 @@ public class MurderGameMode extends GameMode {
 
     @Override
     public void tickServerGameLoop(ServerWorld serverWorld, GameWorldComponent gameWorldComponent) {
-        GameFunctions.WinStatus winStatus = GameFunctions.WinStatus.NONE;
         ServerPlayerEntity neutralWinner = null;
 
-        // check if out of time
-        if (!GameTimeComponent.KEY.get(serverWorld).hasTime())
-            winStatus = GameFunctions.WinStatus.TIME;
-
-        boolean civilianAlive = false;
-        for (ServerPlayerEntity player : serverWorld.getPlayers()) {
-            // passive money
-            if (gameWorldComponent.canUseKillerFeatures(player)) {
-                Integer balanceToAdd = GameConstants.PASSIVE_MONEY_TICKER.apply(serverWorld.getTime());
-                if (balanceToAdd > 0) {
+        // passive money
+        Integer balanceToAdd = GameConstants.PASSIVE_MONEY_TICKER.apply(serverWorld.getTime());
+        if (balanceToAdd > 0) {
+            for (UUID uuid : gameWorldComponent.getAllKillerTeamPlayers()) {
+                if (serverWorld.getEntity(uuid) instanceof ServerPlayerEntity player) {
                     PlayerShopComponent shopComponent = PlayerShopComponent.KEY.get(player);
                     if (shopComponent.getBalance() < GameConstants.KILLER_PASSIVE_MONEY_CAP) {
                         shopComponent.addToBalance(balanceToAdd);
                     }
                 }
             }
-
-            // check if some civilians are still alive
-            if (gameWorldComponent.isInnocent(player) && GameFunctions.isPlayerPlayingAndAlive(player)) {
-                civilianAlive = true;
-            }
-        }
-
-        // check killer win condition (killed all civilians)
-        if (winStatus == GameFunctions.WinStatus.NONE && !civilianAlive) {
-            winStatus = GameFunctions.WinStatus.KILLERS;
         }
 
-        // check passenger win condition (all killers are dead)
-        if (winStatus == GameFunctions.WinStatus.NONE) {
-            winStatus = GameFunctions.WinStatus.PASSENGERS;
-            for (UUID player : gameWorldComponent.getAllKillerTeamPlayers()) {
-                if (GameFunctions.isPlayerPlayingAndAlive(serverWorld.getPlayerByUuid(player))) {
-                    winStatus = GameFunctions.WinStatus.NONE;
-                    break;
-                }
-            }
-        }
+        // out of time, killed all civilians or all killers are dead; only recomputed when an alive counter changes
+        GameFunctions.WinStatus winStatus = gameWorldComponent.getWinConditionTracker()
+                .evaluate(!GameTimeComponent.KEY.get(serverWorld).hasTime());
 
         // allow mods to override win conditions (neutral wins, block wins, etc.)
         CheckWinCondition.WinResult eventResult = CheckWinCondition.EVENT.invoker()
@@ -23,6 +23,8 @@ import org.jetbrains.annotations.NotNull;
 import java.util.List;
 
 public class DerringerItem extends RevolverItem {
+    public static final float RANGE = 7f;
+
     public DerringerItem(Settings settings) {
         super(settings);
     }
@@ -68,6 +70,6 @@ public class DerringerItem extends RevolverItem {
     }
 
     public static HitResult getGunTarget(PlayerEntity user) {
-        return ProjectileUtil.getCollision(user, entity -> entity instanceof PlayerEntity player && GameFunctions.isPlayerAliveAndSurvival(player), 7f);
+        return ProjectileUtil.getCollision(user, entity -> entity instanceof PlayerEntity player && GameFunctions.isPlayerAliveAndSurvival(player), RANGE);
     }
 }
@@ -28,6 +28,7 @@ import java.util.List;
 import java.util.Optional;
 
 public class KnifeItem extends Item implements ItemWithSkin {
+    public static final float RANGE = 3f;
 
     /**
      * the registry ID of the knife item
@@ -64,7 +65,7 @@ public class KnifeItem extends Item implements ItemWithSkin {
     }
 
     public static HitResult getKnifeTarget(PlayerEntity user) {
-        return ProjectileUtil.getCollision(user, entity -> entity instanceof PlayerEntity player && GameFunctions.isPlayerAliveAndSurvival(player), 3f);
+        return ProjectileUtil.getCollision(user, entity -> entity instanceof PlayerEntity player && GameFunctions.isPlayerAliveAndSurvival(player), RANGE);
     }
 
     @Override
@@ -27,6 +27,8 @@ import java.util.Optional;
 import org.jetbrains.annotations.NotNull;
 
 public class RevolverItem extends Item {
+    public static final float RANGE = 30f;
+
     public RevolverItem(Settings settings) {
         super(settings);
     }
@@ -106,6 +108,6 @@ public class RevolverItem extends Item {
     }
 
     public static HitResult getGunTarget(PlayerEntity user) {
-        return ProjectileUtil.getCollision(user, entity -> entity instanceof PlayerEntity player && GameFunctions.isPlayerAliveAndSurvival(player), 30f);
+        return ProjectileUtil.getCollision(user, entity -> entity instanceof PlayerEntity player && GameFunctions.isPlayerAliveAndSurvival(player), RANGE);
     }
 }
\ No newline at end of file
@@ -0,0 +1,23 @@
+package dev.doctor4t.wathe.mixin;
+
+import dev.doctor4t.wathe.cca.GameWorldComponent;
+import net.minecraft.block.BlockState;
+import net.minecraft.block.entity.BlockEntity;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.World;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+@Mixin(BlockEntity.class)
+public abstract class BlockEntityMixin {
+    /**
+     * 重置模板内的方块实体数据被修改时（补充箱子、编辑告示牌等）丢弃已捕获的模板快照
+     */
+    @Inject(method = "markDirty(Lnet/minecraft/world/World;Lnet/minecraft/util/math/BlockPos;Lnet/minecraft/block/BlockState;)V", at = @At("HEAD"))
+    private static void wathe$invalidateTrainResetSnapshot(World world, BlockPos pos, BlockState state, CallbackInfo ci) {
+        if (world.isClient) return;
+        GameWorldComponent.KEY.get(world).getTrainResetEngine().onBlockChanged(pos);
+    }
+}
@@ -0,0 +1,34 @@
+package dev.doctor4t.wathe.mixin;
+
+import dev.doctor4t.wathe.entity.PlayerBodyEntity;
+import net.minecraft.entity.Entity;
+import net.minecraft.server.network.EntityTrackerEntry;
+import org.spongepowered.asm.mixin.Final;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Shadow;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+@Mixin(EntityTrackerEntry.class)
+public abstract class EntityTrackerEntryMixin {
+    @Shadow
+    @Final
+    private Entity entity;
+
+    @Shadow
+    private int trackingTick;
+
+    /**
+     * 休眠的尸体不会移动，只在 {@link PlayerBodyEntity#SETTLED_TRACKING_INTERVAL} 的倍数时检查更新
+     * 有待同步的数据或速度时照常发送
+     */
+    @Inject(method = "tick", at = @At("HEAD"), cancellable = true)
+    private void wathe$throttleSettledBody(CallbackInfo ci) {
+        if (!(this.entity instanceof PlayerBodyEntity body) || !body.isSettled()) return;
+        if (body.velocityDirty || body.getDataTracker().isDirty()) return;
+        if (this.trackingTick % PlayerBodyEntity.SETTLED_TRACKING_INTERVAL == 0) return;
+        this.trackingTick++;
+        ci.cancel();
+    }
+}
@@ -218,6 +218,7 @@ public abstract class PlayerEntityMixin extends LivingEntity {
             if (this.poisonSleepTask != null) this.poisonSleepTask.cancel();
 
             this.poisonSleepTask = Scheduler.schedule(
+                    serverPlayer.getServerWorld(),
                     () -> PoisonUtils.bedPoison(serverPlayer),
                     40
             );
@@ -3,6 +3,7 @@ package dev.doctor4t.wathe.mixin;
 import com.llamalad7.mixinextras.injector.ModifyExpressionValue;
 import com.llamalad7.mixinextras.injector.wrapoperation.Operation;
 import com.llamalad7.mixinextras.injector.wrapoperation.WrapOperation;
+import dev.doctor4t.wathe.cca.GameWorldComponent;
 import dev.doctor4t.wathe.game.GameConstants;
 import dev.doctor4t.wathe.game.GameFunctions;
 import dev.doctor4t.wathe.index.WatheItems;
@@ -11,6 +12,7 @@ import net.minecraft.registry.RegistryKey;
 import net.minecraft.server.network.ServerPlayerEntity;
 import net.minecraft.text.Text;
 import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.GameMode;
 import net.minecraft.world.World;
 import org.jetbrains.annotations.Nullable;
 import org.spongepowered.asm.mixin.Mixin;
@@ -56,6 +58,14 @@ public class ServerPlayerEntityMixin {
         return false;
     }
 
+    @Inject(method = "changeGameMode", at = @At("RETURN"))
+    private void wathe$updateWinConditionPresence(GameMode gameMode, CallbackInfoReturnable<Boolean> cir) {
+        if (cir.getReturnValue()) {
+            ServerPlayerEntity self = (ServerPlayerEntity) (Object) this;
+            GameWorldComponent.KEY.get(self.getWorld()).updatePresence(self);
+        }
+    }
+
     // Layer 2: 安全网 — 万一原版死亡被触发，将其路由到模组死亡系统
     @Inject(method = "onDeath", at = @At("HEAD"), cancellable = true)
     private void wathe$interceptVanillaDeath(DamageSource damageSource, CallbackInfo ci) {
@@ -0,0 +1,43 @@
+package dev.doctor4t.wathe.mixin;
+
+import dev.doctor4t.wathe.cca.GameWorldComponent;
+import dev.doctor4t.wathe.cca.WorldBlackoutComponent;
+import dev.doctor4t.wathe.util.LightBlockIndex;
+import net.minecraft.block.BlockState;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.World;
+import net.minecraft.world.chunk.WorldChunk;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Shadow;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
+
+@Mixin(WorldChunk.class)
+public abstract class WorldChunkMixin {
+    @Shadow
+    public abstract World getWorld();
+
+    /**
+     * 灯被放置或移除时更新关灯索引
+     */
+    @Inject(method = "setBlockState", at = @At("RETURN"))
+    private void wathe$updateLightIndex(BlockPos pos, BlockState state, boolean moved, CallbackInfoReturnable<BlockState> cir) {
+        BlockState previous = cir.getReturnValue();
+        if (previous == null || (!LightBlockIndex.isLight(previous) && !LightBlockIndex.isLight(state))) return;
+        World world = this.getWorld();
+        if (world.isClient) return;
+        WorldBlackoutComponent.KEY.get(world).getLightIndex().onBlockChanged(pos, previous, state);
+    }
+
+    /**
+     * 重置模板被修改时丢弃已捕获的模板快照
+     */
+    @Inject(method = "setBlockState", at = @At("RETURN"))
+    private void wathe$invalidateTrainResetSnapshot(BlockPos pos, BlockState state, boolean moved, CallbackInfoReturnable<BlockState> cir) {
+        if (cir.getReturnValue() == null) return;
+        World world = this.getWorld();
+        if (world.isClient) return;
+        GameWorldComponent.KEY.get(world).getTrainResetEngine().onBlockChanged(pos);
+    }
+}
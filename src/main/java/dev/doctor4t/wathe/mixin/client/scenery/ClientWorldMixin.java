@@ -1,7 +1,10 @@
 package dev.doctor4t.wathe.mixin.client.scenery;
 
 import dev.doctor4t.wathe.WatheConfig;
+import dev.doctor4t.wathe.cca.MapEnhancementsWorldComponent;
 import dev.doctor4t.wathe.client.WatheClient;
+import dev.doctor4t.wathe.client.particle.SnowSpawner;
+import dev.doctor4t.wathe.client.particle.SnowflakeParticle;
 import dev.doctor4t.wathe.config.datapack.MapEnhancementsConfiguration.SnowParticlesConfig;
 import dev.doctor4t.wathe.index.WatheBlocks;
 import dev.doctor4t.wathe.index.WatheParticles;
@@ -15,9 +18,7 @@ import net.minecraft.particle.ParticleEffect;
 import net.minecraft.registry.DynamicRegistryManager;
 import net.minecraft.registry.RegistryKey;
 import net.minecraft.registry.entry.RegistryEntry;
-import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.Vec3d;
-import net.minecraft.util.math.random.Random;
 import net.minecraft.util.profiler.Profiler;
 import net.minecraft.world.Heightmap;
 import net.minecraft.world.MutableWorldProperties;
@@ -27,6 +28,7 @@ import org.spongepowered.asm.mixin.Final;
 import org.spongepowered.asm.mixin.Mixin;
 import org.spongepowered.asm.mixin.Mutable;
 import org.spongepowered.asm.mixin.Shadow;
+import org.spongepowered.asm.mixin.Unique;
 import org.spongepowered.asm.mixin.injection.At;
 import org.spongepowered.asm.mixin.injection.Inject;
 import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
@@ -59,45 +61,35 @@ public abstract class ClientWorldMixin extends World {
         BLOCK_MARKER_ITEMS = new HashSet<>(BLOCK_MARKER_ITEMS);
         BLOCK_MARKER_ITEMS.add(WatheBlocks.BARRIER_PANEL.asItem());
         BLOCK_MARKER_ITEMS.add(WatheBlocks.LIGHT_BARRIER.asItem());
+        // 新世界创建时丢弃上一个世界的雪花
+        SnowflakeParticle.clearPool();
     }
 
-    private final BlockPos.Mutable mutablePos = new BlockPos.Mutable();
+    @Unique
+    private final SnowSpawner wathe$snowSpawner = new SnowSpawner();
+    @Unique
+    private final SnowSpawner.HeightSource wathe$snowHeights = (x, z) -> this.getTopY(Heightmap.Type.MOTION_BLOCKING, x, z);
+    @Unique
+    private final SnowSpawner.Sink wathe$snowSink = (x, y, z, velocityX, velocityY, velocityZ) -> this.addParticle(WatheParticles.SNOWFLAKE, x, y, z, velocityX, velocityY, velocityZ);
 
     @Inject(method = "tick", at = @At("TAIL"))
     public void wathe$addSnowflakes(BooleanSupplier shouldKeepTicking, CallbackInfo ci) {
         if (!WatheClient.isTrainMoving()
                 || !WatheClient.getTrainComponent().isSnowing()
                 || WatheConfig.snowOptLevel == WatheConfig.SnowModeConfig.TURN_OFF) {
+            this.wathe$snowSpawner.clearHistory();
             return;
         }
 
         ClientPlayerEntity player = client.player;
-        ClientWorld world = this.client.world;
-        if (player == null || world == null) return;
+        if (player == null) return;
 
-        Random random = player.getRandom();
-        int snowFlakeCount = WatheConfig.snowflakeChance * 2;
-
-        double playerX = player.getX();
-        double playerY = player.getY();
-        double playerZ = player.getZ();
+        // getCurrentFps 是过去一秒的平均值，足够用来调整生成数量
+        this.wathe$snowSpawner.updateFrameTime(1000f / Math.max(1, this.client.getCurrentFps()));
+        SnowParticlesConfig config = MapEnhancementsWorldComponent.KEY.get(this).getSnowParticlesConfig();
         Vec3d playerVel = player.getMovement();
-        double velX = playerVel.getX();
-        double velY = playerVel.getY();
-        double velZ = playerVel.getZ();
-
-        for (int i = 0; i < snowFlakeCount; i++) {
-            double posX = playerX - 20f + random.nextFloat() + velX;
-            double posY = playerY + (random.nextFloat() * 2 - 1) * 10f + velY;
-            double posZ = playerZ + (random.nextFloat() * 2 - 1) * 10f + velZ;
-
-            int topY = world.getTopY(Heightmap.Type.MOTION_BLOCKING, (int) posX, (int) posZ);
-
-            if (posY >= topY) {
-                this.addParticle(WatheParticles.SNOWFLAKE,
-                        posX, posY, posZ,
-                        2 + velX, velY, velZ);
-            }
-        }
+        this.wathe$snowSpawner.tick(this.wathe$snowHeights, this.wathe$snowSink, config, WatheConfig.snowflakeChance,
+                player.getX(), player.getY(), player.getZ(),
+                playerVel.getX(), playerVel.getY(), playerVel.getZ());
     }
 }
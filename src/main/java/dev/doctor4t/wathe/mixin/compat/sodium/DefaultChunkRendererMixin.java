@@ -5,7 +5,8 @@ import com.llamalad7.mixinextras.injector.wrapoperation.WrapOperation;
 import com.llamalad7.mixinextras.sugar.Local;
 import dev.doctor4t.wathe.client.WatheClient;
 import dev.doctor4t.wathe.compat.SodiumShaderInterface;
-import dev.doctor4t.wathe.compat.sodium.SceneryRenderSection;
+import dev.doctor4t.wathe.client.render.SceneryTileTable;
+import dev.doctor4t.wathe.compat.sodium.SceneryTiles;
 import net.caffeinemc.mods.sodium.client.gl.buffer.GlBufferUsage;
 import net.caffeinemc.mods.sodium.client.gl.buffer.GlMutableBuffer;
 import net.caffeinemc.mods.sodium.client.gl.device.CommandList;
@@ -58,14 +59,15 @@ public abstract class DefaultChunkRendererMixin {
             wathe_buffer = MemoryUtil.memAlloc(RenderRegion.REGION_SIZE * 16);
         }
         if (WatheClient.isTrainMoving()) {
-            var section = SceneryRenderSection.cache.get(ChunkSectionPos.asLong(chunkX,chunkY,chunkZ));
-            if(section != null){
-                wathe_buffer.putFloat(sectionIndex * 16, section.getOffsetX());
-                wathe_buffer.putFloat(sectionIndex * 16 + 4, section.getOffsetY());
-                wathe_buffer.putFloat(sectionIndex * 16 + 8, section.getOffsetZ());
-                float boundsMinX = section.getVirtualOriginX(), boundsMaxX = boundsMinX + 16;
-                int boundsMinY =  section.getVirtualOriginY(), boundsMaxY = boundsMinY + 16;
-                int boundsMinZ =  section.getVirtualOriginZ(), boundsMaxZ = boundsMinZ + 16;
+            SceneryTileTable<?> table = SceneryTiles.TABLE;
+            int section = table.indexOf(ChunkSectionPos.asLong(chunkX,chunkY,chunkZ));
+            if(section >= 0){
+                wathe_buffer.putFloat(sectionIndex * 16, table.getOffsetX(section));
+                wathe_buffer.putFloat(sectionIndex * 16 + 4, table.getOffsetY(section));
+                wathe_buffer.putFloat(sectionIndex * 16 + 8, table.getOffsetZ(section));
+                float boundsMinX = table.getVirtualOriginX(section), boundsMaxX = boundsMinX + 16;
+                int boundsMinY =  table.getVirtualOriginY(section), boundsMaxY = boundsMinY + 16;
+                int boundsMinZ =  table.getVirtualOriginZ(section), boundsMaxZ = boundsMinZ + 16;
 
                 int planes = (1 << MODEL_UNASSIGNED);
 
@@ -4,8 +4,9 @@ import com.llamalad7.mixinextras.injector.wrapoperation.Operation;
 import com.llamalad7.mixinextras.injector.wrapoperation.WrapOperation;
 import com.llamalad7.mixinextras.sugar.Local;
 import dev.doctor4t.wathe.client.WatheClient;
+import dev.doctor4t.wathe.client.render.SceneryTileTable;
 import dev.doctor4t.wathe.compat.sodium.SceneryOcclusionVisitor;
-import dev.doctor4t.wathe.compat.sodium.SceneryRenderSection;
+import dev.doctor4t.wathe.compat.sodium.SceneryTiles;
 import dev.doctor4t.wathe.config.datapack.MapEnhancementsConfiguration;
 import it.unimi.dsi.fastutil.longs.Long2ReferenceMap;
 import it.unimi.dsi.fastutil.longs.Long2ReferenceMaps;
@@ -29,9 +30,6 @@ import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
 public abstract class RenderSectionManagerMixin
 {
 
-    @Unique
-    private Long2ReferenceMap<SceneryRenderSection> scenerySectionsByOriginPosition = new Long2ReferenceOpenHashMap<>();
-
     @Unique
     private Long2ReferenceMap<RenderSection> trainSectionsByPosition = new Long2ReferenceOpenHashMap<>();
 
@@ -48,6 +46,8 @@ public abstract class RenderSectionManagerMixin
     @Inject(method = "<init>", at = @At("TAIL"))
     private void onConstructTail(ClientWorld level, int renderDistance, CommandList commandList, CallbackInfo ci) {
         trainOcclusionCuller = new OcclusionCuller(Long2ReferenceMaps.unmodifiable(this.trainSectionsByPosition), level);
+        // 新的区块管理器会重新添加所有区块
+        SceneryTiles.TABLE.clear();
     }
 
     @Inject(method = "onSectionAdded", at = @At("TAIL"))
@@ -59,9 +59,7 @@ public abstract class RenderSectionManagerMixin
             this.trainSectionsByPosition.put(key, renderSection);
             return;
         }
-        MapEnhancementsConfiguration.SceneryConfig sceneryConfig = WatheClient.mapEnhancementsWorldComponent != null
-                ? WatheClient.mapEnhancementsWorldComponent.getSceneryConfig()
-                : MapEnhancementsConfiguration.SceneryConfig.DEFAULT;
+        MapEnhancementsConfiguration.SceneryConfig sceneryConfig = getSceneryConfig();
         var minX = sceneryConfig.minX();
         var maxX = sceneryConfig.maxX();
         var minZ = sceneryConfig.minZ();
@@ -70,80 +68,28 @@ public abstract class RenderSectionManagerMixin
         {
             return;
         }
-        SceneryRenderSection sceneryRenderSection = new SceneryRenderSection(renderSection);
-        scenerySectionsByOriginPosition.put(key, sceneryRenderSection);
-        SceneryRenderSection.cache.put(key, sceneryRenderSection);
+        SceneryTiles.TABLE.add(key, renderSection.getOriginX(), renderSection.getOriginY(), renderSection.getOriginZ(), renderSection);
     }
 
     @Inject(method = "onSectionRemoved", at = @At("TAIL"))
     private void onSectionRemoved(int x, int y, int z, CallbackInfo ci, @Local long sectionPos, @Local RenderSection section) {
         trainSectionsByPosition.remove(sectionPos);
-        scenerySectionsByOriginPosition.remove(sectionPos);
-        SceneryRenderSection.cache.remove(sectionPos);
-    }
-
-    @Unique
-    private static Frustum getFrustum(Viewport viewport) {
-        ViewportAccessor accessor = (ViewportAccessor)(Object)viewport;
-        return accessor.wathe$getFrustum();
-    }
-
-    @Unique
-    private static boolean isBoxVisible(Viewport viewport, float originX, int intOriginY, int intOriginZ){
-        float floatOriginX = originX - (float)viewport.getTransform().x;
-        float floatOriginY = (intOriginY - viewport.getTransform().intY) - viewport.getTransform().fracY;
-        float floatOriginZ = (intOriginZ - viewport.getTransform().intZ) - viewport.getTransform().fracZ;
-        return getFrustum(viewport).testAab(floatOriginX - RenderSectionManagerMixin.CHUNK_SECTION_SIZE, floatOriginY - RenderSectionManagerMixin.CHUNK_SECTION_SIZE, floatOriginZ - RenderSectionManagerMixin.CHUNK_SECTION_SIZE, floatOriginX + RenderSectionManagerMixin.CHUNK_SECTION_SIZE, floatOriginY + RenderSectionManagerMixin.CHUNK_SECTION_SIZE, floatOriginZ + RenderSectionManagerMixin.CHUNK_SECTION_SIZE);
-    }
-
-    @Unique
-    private static boolean isWithinFrustum(Viewport viewport, SceneryRenderSection section) {
-        return isBoxVisible(viewport,
-                section.getVirtualCenterX(),
-                section.getVirtualCenterY(),
-                section.getVirtualCenterZ()
-        );
+        SceneryTiles.TABLE.remove(sectionPos);
     }
 
     @Unique
-    private static float nearestToZeroFloat(float min, float max) {
-        float clamped = 0;
-        if (min > 0) { clamped = min; }
-        if (max < 0) { clamped = max; }
-        return clamped;
-    }
-
-    @Unique
-    private static boolean isWithinRenderDistance(
-            CameraTransform camera,
-            SceneryRenderSection section,
-            float maxDistance
-    ) {
-        var ox = (float) (section.getVirtualOriginX() - camera.x);
-        var oy = section.getVirtualOriginY() - camera.intY;
-        var oz = section.getVirtualOriginZ() - camera.intZ;
-        float dx = nearestToZeroFloat(ox, ox + 16);
-        float dy = nearestToZeroFloat(oy, oy + 16) - camera.fracY;
-        float dz = nearestToZeroFloat(oz, oz + 16) - camera.fracZ;
-        return (((dx * dx) + (dz * dz)) < (maxDistance * maxDistance)) && (Math.abs(dy) < maxDistance);
+    private static MapEnhancementsConfiguration.SceneryConfig getSceneryConfig() {
+        return WatheClient.mapEnhancementsWorldComponent != null
+                ? WatheClient.mapEnhancementsWorldComponent.getSceneryConfig()
+                : MapEnhancementsConfiguration.SceneryConfig.DEFAULT;
     }
 
     @Unique
-    private static boolean isSectionVisible(SceneryRenderSection section, Viewport viewport, float maxDistance) {
-        return isWithinRenderDistance(viewport.getTransform(), section, maxDistance) && isWithinFrustum(viewport, section);
+    private static Frustum getFrustum(Viewport viewport) {
+        ViewportAccessor accessor = (ViewportAccessor)(Object)viewport;
+        return accessor.wathe$getFrustum();
     }
 
-    @Unique
-    private int lastTileWidth;
-    @Unique
-    private int lastTileLength;
-    @Unique
-    private int lastHeight;
-    @Unique
-    private float lastCamaraX;
-    @Unique
-    private float lastMile;
-
     @WrapOperation(
             method = "createTerrainRenderList",
             at = @At(
@@ -165,81 +111,32 @@ public abstract class RenderSectionManagerMixin
 
             trainOcclusionCuller.findVisible(visitor, viewport, searchDistance, useOcclusionCulling, frame);
 
-            var cameraTransform = viewport.getTransform();
-
-            MapEnhancementsConfiguration.SceneryConfig sceneryConfig = WatheClient.mapEnhancementsWorldComponent != null
-                    ? WatheClient.mapEnhancementsWorldComponent.getSceneryConfig()
-                    : MapEnhancementsConfiguration.SceneryConfig.DEFAULT;
+            CameraTransform camera = viewport.getTransform();
             float trainSpeed = WatheClient.getTrainSpeed();
-            int tileWidth  = 15 * 16;
-            int tileLength = 32 * 16;
-            int height     = sceneryConfig.heightOffset();
-            int tileSize   = tileLength * 3;
             float time = WatheClient.trainComponent.getTime()
                     + MinecraftClient.getInstance().getRenderTickCounter().getTickDelta(true);
-            float cameraX = cameraTransform.intX + cameraTransform.fracX;
-
-
-            boolean isTileWidthUpdated = tileWidth == lastTileWidth;
-            boolean isTileLengthUpdated = tileLength == lastTileLength;
-            boolean isHeightUpdated = height == lastHeight;
-            boolean isCamaraXUpdated = cameraX == lastCamaraX;
-
-            lastTileWidth = tileWidth;
-            lastTileLength = tileLength;
-            lastHeight = height;
-            lastCamaraX = cameraX;
-
-
-            int cameraSectionZ = viewport.getChunkCoord().getSectionZ();
-
-            float s = (time / 73.8f) * trainSpeed;
-            boolean isMileUpdated = s == lastMile;
-            lastMile = s;
-            float s1 = s - tileLength;
-            float s2 = s + tileLength;
-            float offset = tileSize / 2f;
-
-            for (var entry : scenerySectionsByOriginPosition.long2ReferenceEntrySet())
-            {
-                var sceneryRenderSection = entry.getValue();
-                var renderSection = sceneryRenderSection.getRenderSection();
-                if (sceneryRenderSection.init(cameraTransform)){
-                    sceneryRenderSection.updateY(height);
-                    int sectionZ = renderSection.getChunkZ();
-                    int zSectionFromCamera = sectionZ - cameraSectionZ;
-                    sceneryRenderSection.updateZ(zSectionFromCamera,tileWidth);
-                    if (zSectionFromCamera <= -8){
-                        sceneryRenderSection.updateX(offset, tileSize, s1, cameraX);
-                    } else if (zSectionFromCamera >= 8)
-                    {
-                        sceneryRenderSection.updateX(offset, tileSize, s2, cameraX);
-                    } else{
-                        sceneryRenderSection.updateX(offset, tileSize, s, cameraX);
-                    }
-                } else {
-                    if (isHeightUpdated){
-                        sceneryRenderSection.updateY(height);
-                    }
-                    int sectionZ = renderSection.getChunkZ();
-                    int zSectionFromCamera = sectionZ - cameraSectionZ;
-                    boolean isZSectionUpdated = zSectionFromCamera != sceneryRenderSection.getLastZSectionFromCamera();
-                    if (isZSectionUpdated || isTileWidthUpdated){
-                        sceneryRenderSection.updateZ(zSectionFromCamera,tileWidth);
-                    }
-                    if (isZSectionUpdated || isMileUpdated || isTileLengthUpdated || isCamaraXUpdated)
-                    {
-                        if (zSectionFromCamera <= -8){
-                            sceneryRenderSection.updateX(offset, tileSize, s1, cameraX);
-                        } else if (zSectionFromCamera >= 8)
-                        {
-                            sceneryRenderSection.updateX(offset, tileSize, s2, cameraX);
-                        } else {
-                            sceneryRenderSection.updateX(offset, tileSize, s, cameraX);
-                        }
-                    }
+            float cameraX = camera.intX + camera.fracX;
+
+            // Y/Z 偏移只在高度或相机区块变化时重算，X 偏移随行驶距离每帧更新
+            SceneryTileTable<RenderSection> table = SceneryTiles.TABLE;
+            table.setHeight(getSceneryConfig().heightOffset());
+            table.setCameraSectionZ(viewport.getChunkCoord().getSectionZ());
+            table.updateX((time / 73.8f) * trainSpeed, cameraX);
+
+            Frustum frustum = getFrustum(viewport);
+            for (int i = 0, size = table.size(); i < size; i++) {
+                float relX = (float) (table.getVirtualOriginX(i) - camera.x);
+                int relY = table.getVirtualOriginY(i) - camera.intY;
+                int relZ = table.getVirtualOriginZ(i) - camera.intZ;
+                if (!SceneryTileTable.isWithinRenderDistance(relX, relY, relZ, camera.fracY, camera.fracZ, searchDistance)) {
+                    continue;
                 }
-                if(isSectionVisible(sceneryRenderSection,viewport,searchDistance)){
+                float centerX = relX + CHUNK_SECTION_RADIUS;
+                float centerY = relY + CHUNK_SECTION_RADIUS - camera.fracY;
+                float centerZ = relZ + CHUNK_SECTION_RADIUS - camera.fracZ;
+                if (frustum.testAab(centerX - CHUNK_SECTION_SIZE, centerY - CHUNK_SECTION_SIZE, centerZ - CHUNK_SECTION_SIZE,
+                        centerX + CHUNK_SECTION_SIZE, centerY + CHUNK_SECTION_SIZE, centerZ + CHUNK_SECTION_SIZE)) {
+                    RenderSection renderSection = table.getPayload(i);
                     renderSection.setLastVisibleFrame(frame);
                     visitor.visit(renderSection);
                 }
@@ -5,14 +5,21 @@ import dev.doctor4t.wathe.api.event.GameEvents;
 import dev.doctor4t.wathe.api.event.KillPlayer;
 import dev.doctor4t.wathe.api.event.ShopPurchase;
 import dev.doctor4t.wathe.api.event.TaskComplete;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents;
 import net.minecraft.server.network.ServerPlayerEntity;
 import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.WorldSavePath;
 
 public final class GameRecordHooks {
     private GameRecordHooks() {
     }
 
     public static void register() {
+        // 对局记录保存在存档目录下，关服时写完队列中的所有帧
+        ServerLifecycleEvents.SERVER_STARTING.register(server ->
+            GameRecordStore.open(server.getSavePath(WorldSavePath.ROOT).resolve("wathe").resolve("records")));
+        ServerLifecycleEvents.SERVER_STOPPED.register(server -> GameRecordStore.close());
+
         GameEvents.ON_FINISH_INITIALIZE.register((world, gameComponent) -> {
             if (!(world instanceof ServerWorld serverWorld)) {
                 return;
@@ -15,6 +15,7 @@ import net.minecraft.nbt.NbtList;
 import net.minecraft.nbt.NbtString;
 import net.minecraft.registry.Registries;
 import net.minecraft.item.ItemStack;
+import net.minecraft.server.MinecraftServer;
 import net.minecraft.server.network.ServerPlayerEntity;
 import net.minecraft.server.world.ServerWorld;
 import net.minecraft.text.Text;
@@ -24,11 +25,16 @@ import net.minecraft.util.math.Vec3d;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 
 public final class GameRecordManager {
     private GameRecordManager() {
     }
 
+    /**
+     * 对局记录。进行中的对局由服务器线程无锁写入 {@link RecordEventBuffer}，
+     * 在 {@link #endMatch} 时冻结为不可变的事件列表
+     */
     public static final class MatchRecord {
         private final UUID matchId;
         private final Identifier dimensionId;
@@ -36,10 +42,10 @@ public final class GameRecordManager {
         private final Identifier mapEffectId;
         private final long startTick;
         private final long startMs;
-        private final List<GameRecordEvent> events = new ArrayList<>();
         private final Set<UUID> roleSnapshotRecorded = new HashSet<>();
+        private @Nullable RecordEventBuffer buffer;
+        private @Nullable List<GameRecordEvent> frozenEvents;
         private boolean active = true;
-        private int nextSeq = 0;
 
         private MatchRecord(UUID matchId, Identifier dimensionId, Identifier gameModeId, Identifier mapEffectId, long startTick, long startMs) {
             this.matchId = matchId;
@@ -48,6 +54,7 @@ public final class GameRecordManager {
             this.mapEffectId = mapEffectId;
             this.startTick = startTick;
             this.startMs = startMs;
+            this.buffer = new RecordEventBuffer(matchId);
         }
 
         public UUID getMatchId() {
@@ -74,32 +81,70 @@ public final class GameRecordManager {
             return startMs;
         }
 
+        /**
+         * @return the events of the match; for a running match this is a snapshot of the events recorded so far
+         */
         public List<GameRecordEvent> getEvents() {
-            return Collections.unmodifiableList(events);
+            if (frozenEvents != null) {
+                return frozenEvents;
+            }
+            return buffer != null ? buffer.freeze() : List.of();
+        }
+
+        public boolean isFrozen() {
+            return frozenEvents != null;
+        }
+
+        @Nullable RecordEventBuffer getBuffer() {
+            return buffer;
         }
 
         private void addEvent(String type, long worldTick, long realTimeMs, NbtCompound data) {
-            events.add(new GameRecordEvent(matchId, nextSeq++, type, worldTick, realTimeMs, data));
+            if (buffer != null) {
+                buffer.append(type, worldTick, realTimeMs, data);
+            }
+        }
+
+        private void freeze() {
+            if (buffer != null) {
+                frozenEvents = buffer.freeze();
+                buffer = null;
+            }
+            roleSnapshotRecorded.clear();
+            active = false;
+        }
+
+        /**
+         * 从 {@link GameRecordStore} 读取的已结束对局
+         */
+        static MatchRecord restore(UUID matchId, Identifier dimensionId, Identifier gameModeId, Identifier mapEffectId, long startTick, long startMs, List<GameRecordEvent> events) {
+            MatchRecord match = new MatchRecord(matchId, dimensionId, gameModeId, mapEffectId, startTick, startMs);
+            match.buffer = null;
+            match.frozenEvents = Collections.unmodifiableList(new ArrayList<>(events));
+            match.active = false;
+            return match;
         }
     }
 
-    private static MatchRecord currentMatch = null;
-    private static MatchRecord lastFinishedMatch = null;
+    // 记录只在服务器线程写入，volatile 仅用于其他线程读取
+    private static volatile MatchRecord currentMatch = null;
+    private static volatile MatchRecord lastFinishedMatch = null;
     private static final Set<UUID> connectedPlayers = new HashSet<>();
 
-    public static synchronized boolean hasActiveMatch() {
-        return currentMatch != null && currentMatch.active;
+    public static boolean hasActiveMatch() {
+        MatchRecord match = currentMatch;
+        return match != null && match.active;
     }
 
-    public static synchronized @Nullable MatchRecord getCurrentMatch() {
+    public static @Nullable MatchRecord getCurrentMatch() {
         return currentMatch;
     }
 
-    public static synchronized @Nullable MatchRecord getLastFinishedMatch() {
+    public static @Nullable MatchRecord getLastFinishedMatch() {
         return lastFinishedMatch;
     }
 
-    public static synchronized void startMatch(ServerWorld world, GameWorldComponent gameComponent) {
+    public static void startMatch(ServerWorld world, GameWorldComponent gameComponent) {
         if (currentMatch != null && currentMatch.active) {
             endMatch(world);
         }
@@ -109,9 +154,14 @@ public final class GameRecordManager {
         Identifier mapEffectId = gameComponent.getMapEffect() != null ? gameComponent.getMapEffect().identifier : Identifier.of("wathe", "unknown");
         currentMatch = new MatchRecord(UUID.randomUUID(), dimensionId, gameModeId, mapEffectId, world.getTime(), System.currentTimeMillis());
         connectedPlayers.clear();
+
+        GameRecordStore store = GameRecordStore.get();
+        if (store != null) {
+            store.beginMatch(currentMatch);
+        }
     }
 
-    public static synchronized void recordMatchStart(ServerWorld world, GameWorldComponent gameComponent) {
+    public static void recordMatchStart(ServerWorld world, GameWorldComponent gameComponent) {
         if (!hasActiveMatch()) {
             return;
         }
@@ -130,7 +180,7 @@ public final class GameRecordManager {
         }
     }
 
-    public static synchronized void recordRoleSnapshot(ServerWorld world, GameWorldComponent gameComponent) {
+    public static void recordRoleSnapshot(ServerWorld world, GameWorldComponent gameComponent) {
         if (!hasActiveMatch()) {
             return;
         }
@@ -151,7 +201,7 @@ public final class GameRecordManager {
         }
     }
 
-    public static synchronized void endMatch(ServerWorld world) {
+    public static void endMatch(ServerWorld world) {
         if (!hasActiveMatch()) {
             return;
         }
@@ -181,11 +231,39 @@ public final class GameRecordManager {
             addEvent(world, GameRecordTypes.PLAYER_RESULT, null, null, data);
         }
 
-        match.active = false;
+        match.freeze();
         lastFinishedMatch = match;
         currentMatch = null;
         connectedPlayers.clear();
-        RecordEvents.ON_RECORD_END.invoker().onRecordEnd(world, match);
+
+        GameRecordStore store = GameRecordStore.get();
+        if (store == null) {
+            RecordEvents.ON_RECORD_END.invoker().onRecordEnd(world, match);
+            return;
+        }
+        // 分段落盘后再回到服务器线程通知监听者，写入失败时同样通知，避免回放丢失
+        MinecraftServer server = world.getServer();
+        store.finishMatch(match, winStatus.name()).whenComplete((ignored, throwable) ->
+                server.execute(() -> RecordEvents.ON_RECORD_END.invoker().onRecordEnd(world, match)));
+    }
+
+    /**
+     * @return the summaries of all matches stored on disk, oldest first
+     */
+    public static List<GameRecordStore.MatchSummary> listStoredMatches() {
+        GameRecordStore store = GameRecordStore.get();
+        return store == null ? List.of() : store.listMatches();
+    }
+
+    /**
+     * Loads a stored match from disk off the server thread.
+     */
+    public static CompletableFuture<MatchRecord> loadStoredMatch(UUID matchId) {
+        GameRecordStore store = GameRecordStore.get();
+        if (store == null) {
+            return CompletableFuture.failedFuture(new IllegalStateException("Match record store is not open"));
+        }
+        return store.loadMatch(matchId);
     }
 
     public static void recordPlayerJoin(ServerPlayerEntity player) {
@@ -433,7 +511,8 @@ public final class GameRecordManager {
             if (world == null) {
                 return;
             }
-            addEvent(world, type, actor, target, data);
+            // 记录持有独立的副本，之后继续修改构建器不会影响已记录（可能正在写盘）的事件
+            addEvent(world, type, actor, target, data.copy());
         }
     }
 
@@ -462,19 +541,28 @@ public final class GameRecordManager {
         addEvent(player.getServerWorld(), GameRecordTypes.PLAYER_JOIN, player, null, data);
     }
 
+    /**
+     * @param data a payload owned by the record from now on, callers must not modify it afterwards
+     */
     private static void addEvent(ServerWorld world, String type, @Nullable ServerPlayerEntity actor, @Nullable ServerPlayerEntity target, @Nullable NbtCompound data) {
-        if (!hasActiveMatch()) {
+        MinecraftServer server = world.getServer();
+        if (!server.isOnThread()) {
+            // 事件缓冲区只允许服务器线程写入
+            server.execute(() -> addEvent(world, type, actor, target, data));
             return;
         }
         MatchRecord match = currentMatch;
-        NbtCompound payload = data == null ? new NbtCompound() : data.copy();
+        if (match == null || !match.active) {
+            return;
+        }
+        NbtCompound payload = data == null ? new NbtCompound() : data;
         if (actor != null) {
             payload.putUuid("actor", actor.getUuid());
         }
         if (target != null) {
             payload.putUuid("target", target.getUuid());
         }
-        match.addEvent(type, world.getTime(), System.currentTimeMillis(), payload);
+        match.addEvent(GameRecordTypes.intern(type), world.getTime(), System.currentTimeMillis(), payload);
     }
 
     /**
@@ -0,0 +1,525 @@
+package dev.doctor4t.wathe.record;
+
+import dev.doctor4t.wathe.Wathe;
+import dev.doctor4t.wathe.WatheConfig;
+import net.minecraft.nbt.NbtCompound;
+import net.minecraft.nbt.NbtElement;
+import net.minecraft.nbt.NbtIo;
+import net.minecraft.nbt.NbtList;
+import net.minecraft.nbt.NbtSizeTracker;
+import net.minecraft.util.Identifier;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Append-only on-disk storage for finished and running match records.
+ * <p>
+ * Every match is written to its own segment file as a sequence of length-prefixed, gzip-compressed NBT frames
+ * (a header, batches of events and an end frame). Finished matches are appended to an index file so they can be
+ * listed without reading any segment, and segments are only read when a match is loaded.
+ * <p>
+ * Finished matches beyond {@link WatheConfig#recordRetentionMatches} or older than
+ * {@link WatheConfig#recordRetentionDays} are pruned together with their segments. Pruning waits until the limits are
+ * exceeded by a margin, so the index is only rewritten once in a while instead of after every match.
+ * <p>
+ * All file I/O happens on a single background writer thread fed by a bounded queue of begin/finish/load tasks.
+ * Events are not queued one by one: the writer periodically streams the newly published slots of each running
+ * match's {@link RecordEventBuffer}, so recording an event never blocks or allocates a task. Tasks are never waited
+ * for on the server thread either: when the writer falls too far behind, new tasks are logged and dropped.
+ */
+public final class GameRecordStore {
+    private static final int QUEUE_CAPACITY = 256;
+    private static final int MAX_BATCH = 64;
+    private static final long STREAM_INTERVAL_MS = 250;
+    private static final String INDEX_FILE = "index.dat";
+    private static final String SEGMENT_EXTENSION = ".wrec";
+    // 超出保留上限这么多场/这么久之后才清理一次
+    private static final int PRUNE_SLACK_MATCHES = 64;
+    private static final long PRUNE_SLACK_MS = TimeUnit.DAYS.toMillis(1);
+
+    private static @Nullable GameRecordStore instance;
+
+    private final Path directory;
+    private final BlockingQueue<Task> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final Thread writerThread;
+    private volatile boolean running = true;
+
+    private final List<MatchSummary> summaries = new CopyOnWriteArrayList<>();
+    private final AtomicLong streamedEvents = new AtomicLong();
+    // 仅在服务器线程访问
+    private long droppedTasks = 0;
+
+    // 仅在写入线程访问
+    private final Map<UUID, OpenSegment> openSegments = new HashMap<>();
+    private @Nullable FileChannel indexChannel;
+
+    private GameRecordStore(Path directory) {
+        this.directory = directory;
+        this.writerThread = new Thread(this::runWriter, "Wathe Record Writer");
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+    }
+
+    public static @Nullable GameRecordStore get() {
+        return instance;
+    }
+
+    public static void open(Path directory) {
+        close();
+        instance = new GameRecordStore(directory);
+    }
+
+    /**
+     * Flushes every queued frame and stops the writer thread.
+     */
+    public static void close() {
+        GameRecordStore store = instance;
+        if (store == null) return;
+        instance = null;
+        store.running = false;
+        try {
+            store.writerThread.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // ==================== 服务器线程 API ====================
+
+    /**
+     * Starts streaming the events of a running match to its segment.
+     */
+    public void beginMatch(GameRecordManager.MatchRecord match) {
+        RecordEventBuffer buffer = match.getBuffer();
+        if (buffer == null) return;
+        this.submit(new BeginTask(match.getMatchId(), writeHeader(match), buffer));
+    }
+
+    /**
+     * @param match a frozen match previously passed to {@link #beginMatch}
+     * @return a future completed once the match segment and its index entry have been forced to disk
+     */
+    public CompletableFuture<Void> finishMatch(GameRecordManager.MatchRecord match, String winStatus) {
+        MatchSummary summary = new MatchSummary(match.getMatchId(), match.getDimensionId(), match.getGameModeId(), match.getMapEffectId(),
+                match.getStartMs(), System.currentTimeMillis(), match.getEvents().size(), winStatus);
+        FinishTask task = new FinishTask(summary, new CompletableFuture<>());
+        if (!this.submit(task)) {
+            task.future.completeExceptionally(new IllegalStateException("Record writer queue is full, match " + summary.matchId() + " was not saved"));
+        }
+        return task.future;
+    }
+
+    /**
+     * Queues a task without blocking. A full queue means the writer is stuck on I/O; the task is dropped rather than
+     * stalling the server thread. A dropped begin task makes the matching finish task fail, so the match is not saved.
+     */
+    private boolean submit(Task task) {
+        if (this.queue.offer(task)) return true;
+        this.droppedTasks++;
+        Wathe.LOGGER.warn("Record writer queue is full ({} tasks), dropping {}", QUEUE_CAPACITY, task.getClass().getSimpleName());
+        return false;
+    }
+
+    /**
+     * @return the summaries of all stored matches, oldest first
+     */
+    public List<MatchSummary> listMatches() {
+        return Collections.unmodifiableList(this.summaries);
+    }
+
+    /**
+     * Reads a stored match from its segment on the writer thread.
+     */
+    public CompletableFuture<GameRecordManager.MatchRecord> loadMatch(UUID matchId) {
+        LoadTask task = new LoadTask(matchId, new CompletableFuture<>());
+        if (!this.queue.offer(task)) {
+            task.future.completeExceptionally(new IllegalStateException("Record writer queue is full"));
+        }
+        return task.future;
+    }
+
+    public int getQueuedTasks() {
+        return this.queue.size();
+    }
+
+    /**
+     * @return begin/finish tasks dropped because the writer queue was full
+     */
+    public long getDroppedTasks() {
+        return this.droppedTasks;
+    }
+
+    public long getStreamedEvents() {
+        return this.streamedEvents.get();
+    }
+
+    // ==================== 写入线程 ====================
+
+    private void runWriter() {
+        try {
+            Files.createDirectories(this.directory);
+            this.loadIndex();
+            this.indexChannel = this.openIndex();
+            this.pruneIfNeeded();
+        } catch (IOException e) {
+            Wathe.LOGGER.error("Failed to open match record store at {}", this.directory, e);
+        }
+
+        List<Task> batch = new ArrayList<>(MAX_BATCH);
+        while (this.running || !this.queue.isEmpty()) {
+            try {
+                Task first = this.queue.poll(STREAM_INTERVAL_MS, TimeUnit.MILLISECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    this.queue.drainTo(batch, MAX_BATCH - 1);
+                    for (Task task : batch) {
+                        task.run(this);
+                    }
+                }
+                this.streamEvents();
+            } catch (InterruptedException e) {
+                break;
+            } finally {
+                batch.clear();
+            }
+        }
+
+        this.streamEvents();
+        for (OpenSegment segment : this.openSegments.values()) {
+            closeQuietly(segment.channel);
+        }
+        this.openSegments.clear();
+        closeQuietly(this.indexChannel);
+    }
+
+    private void loadIndex() throws IOException {
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(this.directory.resolve(INDEX_FILE))))) {
+            NbtCompound frame;
+            while ((frame = readFrame(input)) != null) {
+                this.summaries.add(MatchSummary.fromNbt(frame));
+            }
+        } catch (NoSuchFileException ignored) {
+        }
+    }
+
+    private FileChannel openIndex() throws IOException {
+        return FileChannel.open(this.directory.resolve(INDEX_FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    /**
+     * Drops the oldest matches beyond the retention limits: rewrites the index without them, then deletes their
+     * segments.
+     */
+    private void pruneIfNeeded() {
+        int maxMatches = Math.max(1, WatheConfig.recordRetentionMatches);
+        long minEndMs = WatheConfig.recordRetentionDays > 0
+                ? System.currentTimeMillis() - TimeUnit.DAYS.toMillis(WatheConfig.recordRetentionDays)
+                : Long.MIN_VALUE;
+        int size = this.summaries.size();
+        boolean overCount = size > maxMatches + PRUNE_SLACK_MATCHES;
+        boolean overAge = size > 0 && minEndMs != Long.MIN_VALUE && this.summaries.get(0).endMs() < minEndMs - PRUNE_SLACK_MS;
+        if (!overCount && !overAge) return;
+
+        // 索引按结束顺序追加，最早的在前
+        int drop = Math.max(0, size - maxMatches);
+        while (drop < size && this.summaries.get(drop).endMs() < minEndMs) {
+            drop++;
+        }
+        if (drop == 0) return;
+        List<MatchSummary> expired = new ArrayList<>(this.summaries.subList(0, drop));
+
+        Path index = this.directory.resolve(INDEX_FILE);
+        Path rewritten = this.directory.resolve(INDEX_FILE + ".tmp");
+        closeQuietly(this.indexChannel);
+        this.indexChannel = null;
+        try {
+            try (FileChannel channel = FileChannel.open(rewritten,
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                for (int i = drop; i < size; i++) {
+                    writeFrame(channel, this.summaries.get(i).toNbt());
+                }
+                channel.force(true);
+            }
+            Files.move(rewritten, index, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            Wathe.LOGGER.error("Failed to rewrite match record index at {}", index, e);
+            this.reopenIndex();
+            return;
+        }
+        this.reopenIndex();
+
+        // 新索引落盘后再删除分段，崩溃时最多留下没有索引项的分段文件
+        this.summaries.removeAll(expired);
+        for (MatchSummary summary : expired) {
+            try {
+                Files.deleteIfExists(this.segmentPath(summary.matchId()));
+            } catch (IOException e) {
+                Wathe.LOGGER.warn("Failed to delete record segment for match {}", summary.matchId(), e);
+            }
+        }
+        Wathe.LOGGER.info("Pruned {} match records, {} kept", expired.size(), this.summaries.size());
+    }
+
+    private void reopenIndex() {
+        try {
+            this.indexChannel = this.openIndex();
+        } catch (IOException e) {
+            Wathe.LOGGER.error("Failed to reopen match record index in {}", this.directory, e);
+        }
+    }
+
+    private Path segmentPath(UUID matchId) {
+        return this.directory.resolve(matchId + SEGMENT_EXTENSION);
+    }
+
+    private void begin(BeginTask task) {
+        try {
+            FileChannel channel = FileChannel.open(this.segmentPath(task.matchId),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+            OpenSegment previous = this.openSegments.put(task.matchId, new OpenSegment(channel, task.buffer));
+            if (previous != null) closeQuietly(previous.channel);
+            writeFrame(channel, task.header);
+        } catch (IOException e) {
+            Wathe.LOGGER.error("Failed to create record segment for match {}", task.matchId, e);
+        }
+    }
+
+    private void streamEvents() {
+        for (Map.Entry<UUID, OpenSegment> entry : this.openSegments.entrySet()) {
+            try {
+                this.streamEvents(entry.getValue());
+            } catch (IOException e) {
+                Wathe.LOGGER.error("Failed to append events to record segment for match {}", entry.getKey(), e);
+            }
+        }
+    }
+
+    private void streamEvents(OpenSegment segment) throws IOException {
+        int size = segment.buffer.size();
+        if (size <= segment.cursor) return;
+        NbtList events = new NbtList();
+        for (int i = segment.cursor; i < size; i++) {
+            events.add(writeEvent(segment.buffer.get(i)));
+        }
+        NbtCompound frame = new NbtCompound();
+        frame.putString("frame", "events");
+        frame.put("events", events);
+        writeFrame(segment.channel, frame);
+        this.streamedEvents.addAndGet(size - segment.cursor);
+        segment.cursor = size;
+    }
+
+    private void finish(FinishTask task) {
+        UUID matchId = task.summary.matchId();
+        OpenSegment segment = this.openSegments.remove(matchId);
+        try {
+            if (segment == null) {
+                throw new IOException("No open record segment for match " + matchId);
+            }
+            FileChannel channel = segment.channel;
+            this.streamEvents(segment);
+            NbtCompound end = new NbtCompound();
+            end.putString("frame", "end");
+            end.putLong("end_ms", task.summary.endMs());
+            end.putInt("event_count", task.summary.eventCount());
+            end.putString("win_status", task.summary.winStatus());
+            writeFrame(channel, end);
+            channel.force(true);
+            channel.close();
+
+            if (this.indexChannel != null) {
+                writeFrame(this.indexChannel, task.summary.toNbt());
+                this.indexChannel.force(true);
+            }
+            this.summaries.add(task.summary);
+            task.future.complete(null);
+            this.pruneIfNeeded();
+        } catch (IOException e) {
+            if (segment != null) closeQuietly(segment.channel);
+            Wathe.LOGGER.error("Failed to finish record segment for match {}", matchId, e);
+            task.future.completeExceptionally(e);
+        }
+    }
+
+    private void load(LoadTask task) {
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(this.segmentPath(task.matchId))))) {
+            NbtCompound header = readFrame(input);
+            if (header == null || !"header".equals(header.getString("frame"))) {
+                throw new IOException("Record segment for match " + task.matchId + " has no header");
+            }
+            List<GameRecordEvent> events = new ArrayList<>();
+            NbtCompound frame;
+            while ((frame = readFrame(input)) != null) {
+                if (!"events".equals(frame.getString("frame"))) continue;
+                NbtList list = frame.getList("events", NbtElement.COMPOUND_TYPE);
+                for (int i = 0; i < list.size(); i++) {
+                    events.add(readEvent(task.matchId, list.getCompound(i)));
+                }
+            }
+            task.future.complete(GameRecordManager.MatchRecord.restore(
+                    task.matchId,
+                    Identifier.of(header.getString("dimension")),
+                    Identifier.of(header.getString("game_mode")),
+                    Identifier.of(header.getString("map_effect")),
+                    header.getLong("start_tick"),
+                    header.getLong("start_ms"),
+                    events
+            ));
+        } catch (IOException | RuntimeException e) {
+            task.future.completeExceptionally(e);
+        }
+    }
+
+    // ==================== 帧格式 ====================
+
+    private static NbtCompound writeHeader(GameRecordManager.MatchRecord match) {
+        NbtCompound header = new NbtCompound();
+        header.putString("frame", "header");
+        header.putUuid("match_id", match.getMatchId());
+        header.putString("dimension", match.getDimensionId().toString());
+        header.putString("game_mode", match.getGameModeId().toString());
+        header.putString("map_effect", match.getMapEffectId().toString());
+        header.putLong("start_tick", match.getStartTick());
+        header.putLong("start_ms", match.getStartMs());
+        return header;
+    }
+
+    private static NbtCompound writeEvent(GameRecordEvent event) {
+        NbtCompound tag = new NbtCompound();
+        tag.putInt("seq", event.seq());
+        tag.putString("type", event.type());
+        tag.putLong("tick", event.worldTick());
+        tag.putLong("ms", event.realTimeMs());
+        tag.put("data", event.data());
+        return tag;
+    }
+
+    private static GameRecordEvent readEvent(UUID matchId, NbtCompound tag) {
+        return new GameRecordEvent(matchId, tag.getInt("seq"), GameRecordTypes.intern(tag.getString("type")), tag.getLong("tick"), tag.getLong("ms"), tag.getCompound("data"));
+    }
+
+    private static void writeFrame(FileChannel channel, NbtCompound frame) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        NbtIo.writeCompressed(frame, bytes);
+        ByteBuffer buffer = ByteBuffer.allocate(Integer.BYTES + bytes.size());
+        buffer.putInt(bytes.size());
+        buffer.put(bytes.toByteArray());
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * @return the next frame, or null at the end of the file or at a truncated trailing frame
+     */
+    private static @Nullable NbtCompound readFrame(DataInputStream input) throws IOException {
+        int length;
+        try {
+            length = input.readInt();
+        } catch (EOFException e) {
+            return null;
+        }
+        if (length < 0) {
+            throw new IOException("Invalid record frame length " + length);
+        }
+        byte[] bytes = new byte[length];
+        try {
+            input.readFully(bytes);
+        } catch (EOFException e) {
+            // 服务器崩溃时最后一帧可能只写了一半
+            return null;
+        }
+        return NbtIo.readCompressed(new ByteArrayInputStream(bytes), NbtSizeTracker.ofUnlimitedBytes());
+    }
+
+    private static void closeQuietly(@Nullable Closeable closeable) {
+        if (closeable == null) return;
+        try {
+            closeable.close();
+        } catch (IOException e) {
+            Wathe.LOGGER.warn("Failed to close record file", e);
+        }
+    }
+
+    // ==================== 任务 ====================
+
+    private interface Task {
+        void run(GameRecordStore store);
+    }
+
+    private static final class OpenSegment {
+        private final FileChannel channel;
+        private final RecordEventBuffer buffer;
+        // 已写入分段的事件数
+        private int cursor = 0;
+
+        private OpenSegment(FileChannel channel, RecordEventBuffer buffer) {
+            this.channel = channel;
+            this.buffer = buffer;
+        }
+    }
+
+    private record BeginTask(UUID matchId, NbtCompound header, RecordEventBuffer buffer) implements Task {
+        @Override
+        public void run(GameRecordStore store) {
+            store.begin(this);
+        }
+    }
+
+    private record FinishTask(MatchSummary summary, CompletableFuture<Void> future) implements Task {
+        @Override
+        public void run(GameRecordStore store) {
+            store.finish(this);
+        }
+    }
+
+    private record LoadTask(UUID matchId, CompletableFuture<GameRecordManager.MatchRecord> future) implements Task {
+        @Override
+        public void run(GameRecordStore store) {
+            store.streamEvents();
+            store.load(this);
+        }
+    }
+
+    public record MatchSummary(UUID matchId, Identifier dimensionId, Identifier gameModeId, Identifier mapEffectId,
+                               long startMs, long endMs, int eventCount, String winStatus) {
+        private NbtCompound toNbt() {
+            NbtCompound tag = new NbtCompound();
+            tag.putUuid("match_id", this.matchId);
+            tag.putString("dimension", this.dimensionId.toString());
+            tag.putString("game_mode", this.gameModeId.toString());
+            tag.putString("map_effect", this.mapEffectId.toString());
+            tag.putLong("start_ms", this.startMs);
+            tag.putLong("end_ms", this.endMs);
+            tag.putInt("event_count", this.eventCount);
+            tag.putString("win_status", this.winStatus);
+            return tag;
+        }
+
+        private static MatchSummary fromNbt(NbtCompound tag) {
+            return new MatchSummary(
+                    tag.getUuid("match_id"),
+                    Identifier.of(tag.getString("dimension")),
+                    Identifier.of(tag.getString("game_mode")),
+                    Identifier.of(tag.getString("map_effect")),
+                    tag.getLong("start_ms"),
+                    tag.getLong("end_ms"),
+                    tag.getInt("event_count"),
+                    tag.getString("win_status")
+            );
+        }
+    }
+}
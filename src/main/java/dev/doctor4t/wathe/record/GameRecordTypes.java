@@ -1,9 +1,22 @@
 package dev.doctor4t.wathe.record;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 public final class GameRecordTypes {
+    private static final Map<String, String> INTERNED = new ConcurrentHashMap<>();
+
     private GameRecordTypes() {
     }
 
+    /**
+     * 返回同一类型的唯一字符串实例，避免每个事件各自保存一份类型字符串
+     */
+    public static String intern(String type) {
+        String interned = INTERNED.putIfAbsent(type, type);
+        return interned != null ? interned : type;
+    }
+
     public static final String MATCH_START = "match_start";
     public static final String ROLE_ASSIGNED = "role_assigned";
     public static final String SHOP_PURCHASE = "shop_purchase";
@@ -0,0 +1,96 @@
+package dev.doctor4t.wathe.record;
+
+import net.minecraft.nbt.NbtCompound;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Single-writer event storage for a running match.
+ * <p>
+ * Events are written into preallocated slots (parallel arrays grouped in chunks of {@value #CHUNK_SIZE}) without
+ * locking or allocating an event object. Only the server thread appends. The published size is a volatile field,
+ * so other threads (the {@link GameRecordStore} writer) may read every slot below {@link #size()} at any time.
+ */
+final class RecordEventBuffer {
+    private static final int CHUNK_BITS = 10;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    private final UUID matchId;
+    private volatile Chunk[] chunks = {new Chunk()};
+    private volatile int published = 0;
+    // 仅写入线程访问
+    private int size = 0;
+
+    RecordEventBuffer(UUID matchId) {
+        this.matchId = matchId;
+    }
+
+    /**
+     * @param type an interned type string, see {@link GameRecordTypes#intern(String)}
+     * @param data the payload, owned by the buffer from now on
+     * @return the sequence number of the event
+     */
+    int append(String type, long worldTick, long realTimeMs, NbtCompound data) {
+        int index = this.size;
+        int chunkIndex = index >>> CHUNK_BITS;
+        Chunk[] chunks = this.chunks;
+        if (chunkIndex == chunks.length) {
+            chunks = Arrays.copyOf(chunks, chunks.length * 2);
+            this.chunks = chunks;
+        }
+        Chunk chunk = chunks[chunkIndex];
+        if (chunk == null) {
+            chunk = new Chunk();
+            chunks[chunkIndex] = chunk;
+        }
+
+        int slot = index & CHUNK_MASK;
+        chunk.types[slot] = type;
+        chunk.worldTicks[slot] = worldTick;
+        chunk.realTimes[slot] = realTimeMs;
+        chunk.data[slot] = data;
+        this.size = index + 1;
+        // volatile 写入之前的槽位写入对读取线程可见
+        this.published = index + 1;
+        return index;
+    }
+
+    /**
+     * @return the number of events that can safely be read from any thread
+     */
+    int size() {
+        return this.published;
+    }
+
+    /**
+     * @param index must be below a value previously returned by {@link #size()}
+     */
+    GameRecordEvent get(int index) {
+        Chunk chunk = this.chunks[index >>> CHUNK_BITS];
+        int slot = index & CHUNK_MASK;
+        return new GameRecordEvent(this.matchId, index, chunk.types[slot], chunk.worldTicks[slot], chunk.realTimes[slot], chunk.data[slot]);
+    }
+
+    /**
+     * @return an immutable list of every published event
+     */
+    List<GameRecordEvent> freeze() {
+        int size = this.size();
+        GameRecordEvent[] events = new GameRecordEvent[size];
+        for (int i = 0; i < size; i++) {
+            events[i] = this.get(i);
+        }
+        return Collections.unmodifiableList(Arrays.asList(events));
+    }
+
+    private static final class Chunk {
+        private final String[] types = new String[CHUNK_SIZE];
+        private final long[] worldTicks = new long[CHUNK_SIZE];
+        private final long[] realTimes = new long[CHUNK_SIZE];
+        private final NbtCompound[] data = new NbtCompound[CHUNK_SIZE];
+    }
+}
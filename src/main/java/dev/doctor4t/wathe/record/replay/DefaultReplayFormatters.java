@@ -19,14 +19,11 @@ public final class DefaultReplayFormatters {
     private DefaultReplayFormatters() {
     }
 
-    // 缓存，用于存储当前回放的玩家信息
-    private static Map<UUID, ReplayGenerator.PlayerInfo> currentPlayerInfoCache;
-
     /**
-     * 设置当前玩家信息缓存（在生成回放前调用）
+     * 玩家信息现在按对局缓存在 {@link ReplayGenerator#getPlayerInfoCache} 中，此方法不再有作用
      */
+    @Deprecated
     public static void setPlayerInfoCache(Map<UUID, ReplayGenerator.PlayerInfo> cache) {
-        currentPlayerInfoCache = cache;
     }
 
     /**
@@ -34,9 +31,7 @@ public final class DefaultReplayFormatters {
      */
     @Nullable
     public static Text formatDeath(GameRecordEvent event, GameRecordManager.MatchRecord match, ServerWorld world) {
-        if (currentPlayerInfoCache == null) {
-            currentPlayerInfoCache = ReplayGenerator.getPlayerInfoCache(match);
-        }
+        Map<UUID, ReplayGenerator.PlayerInfo> playerInfoCache = ReplayGenerator.getPlayerInfoCache(match);
 
         NbtCompound data = event.data();
         UUID victimUuid = data.containsUuid("target") ? data.getUuid("target") : null;
@@ -47,8 +42,8 @@ public final class DefaultReplayFormatters {
             return null;
         }
 
-        Text victimText = ReplayGenerator.formatPlayerName(victimUuid, currentPlayerInfoCache);
-        Text killerText = killerUuid != null ? ReplayGenerator.formatPlayerName(killerUuid, currentPlayerInfoCache) : null;
+        Text victimText = ReplayGenerator.formatPlayerName(victimUuid, playerInfoCache);
+        Text killerText = killerUuid != null ? ReplayGenerator.formatPlayerName(killerUuid, playerInfoCache) : null;
 
         // 构建翻译键
         String translationKey = buildDeathTranslationKey(deathReason, killerUuid != null);
@@ -101,9 +96,7 @@ public final class DefaultReplayFormatters {
      */
     @Nullable
     public static Text formatShopPurchase(GameRecordEvent event, GameRecordManager.MatchRecord match, ServerWorld world) {
-        if (currentPlayerInfoCache == null) {
-            currentPlayerInfoCache = ReplayGenerator.getPlayerInfoCache(match);
-        }
+        Map<UUID, ReplayGenerator.PlayerInfo> playerInfoCache = ReplayGenerator.getPlayerInfoCache(match);
 
         NbtCompound data = event.data();
         UUID actorUuid = data.containsUuid("actor") ? data.getUuid("actor") : null;
@@ -113,7 +106,7 @@ public final class DefaultReplayFormatters {
             return null;
         }
 
-        Text playerText = ReplayGenerator.formatPlayerName(actorUuid, currentPlayerInfoCache);
+        Text playerText = ReplayGenerator.formatPlayerName(actorUuid, playerInfoCache);
         Text itemName = ReplayGenerator.formatItemName(data, world);
 
         return Text.translatable("replay.shop_purchase", playerText, itemName, price);
@@ -124,9 +117,7 @@ public final class DefaultReplayFormatters {
      */
     @Nullable
     public static Text formatItemPickup(GameRecordEvent event, GameRecordManager.MatchRecord match, ServerWorld world) {
-        if (currentPlayerInfoCache == null) {
-            currentPlayerInfoCache = ReplayGenerator.getPlayerInfoCache(match);
-        }
+        Map<UUID, ReplayGenerator.PlayerInfo> playerInfoCache = ReplayGenerator.getPlayerInfoCache(match);
 
         NbtCompound data = event.data();
         UUID actorUuid = data.containsUuid("actor") ? data.getUuid("actor") : null;
@@ -135,7 +126,7 @@ public final class DefaultReplayFormatters {
             return null;
         }
 
-        Text playerText = ReplayGenerator.formatPlayerName(actorUuid, currentPlayerInfoCache);
+        Text playerText = ReplayGenerator.formatPlayerName(actorUuid, playerInfoCache);
         Text itemName = ReplayGenerator.formatItemName(data, world);
         int count = data.getInt("count");
 
@@ -191,16 +182,14 @@ public final class DefaultReplayFormatters {
         if (!data.containsUuid("poisoner")) {
             return null;
         }
-        if (currentPlayerInfoCache == null) {
-            currentPlayerInfoCache = ReplayGenerator.getPlayerInfoCache(match);
-        }
+        Map<UUID, ReplayGenerator.PlayerInfo> playerInfoCache = ReplayGenerator.getPlayerInfoCache(match);
         UUID actorUuid = data.containsUuid("actor") ? data.getUuid("actor") : null;
         UUID poisonerUuid = data.getUuid("poisoner");
         if (actorUuid == null) {
             return null;
         }
-        Text actorText = ReplayGenerator.formatPlayerName(actorUuid, currentPlayerInfoCache);
-        Text poisonerText = ReplayGenerator.formatPlayerName(poisonerUuid, currentPlayerInfoCache);
+        Text actorText = ReplayGenerator.formatPlayerName(actorUuid, playerInfoCache);
+        Text poisonerText = ReplayGenerator.formatPlayerName(poisonerUuid, playerInfoCache);
         Text itemName = ReplayGenerator.formatItemName(data, world);
         return Text.translatable("replay.platter_take.poisoned", actorText, itemName, poisonerText);
     }
@@ -210,9 +199,7 @@ public final class DefaultReplayFormatters {
      */
     @Nullable
     public static Text formatPoisoned(GameRecordEvent event, GameRecordManager.MatchRecord match, ServerWorld world) {
-        if (currentPlayerInfoCache == null) {
-            currentPlayerInfoCache = ReplayGenerator.getPlayerInfoCache(match);
-        }
+        Map<UUID, ReplayGenerator.PlayerInfo> playerInfoCache = ReplayGenerator.getPlayerInfoCache(match);
 
         NbtCompound data = event.data();
         UUID victimUuid = data.containsUuid("target") ? data.getUuid("target") : null;
@@ -222,12 +209,12 @@ public final class DefaultReplayFormatters {
             return null;
         }
 
-        Text victimText = ReplayGenerator.formatPlayerName(victimUuid, currentPlayerInfoCache);
+        Text victimText = ReplayGenerator.formatPlayerName(victimUuid, playerInfoCache);
         String source = data.contains("source") ? data.getString("source") : null;
         String translationKey = buildPoisonedTranslationKey(source, poisonerUuid != null);
 
         if (poisonerUuid != null) {
-            Text poisonerText = ReplayGenerator.formatPlayerName(poisonerUuid, currentPlayerInfoCache);
+            Text poisonerText = ReplayGenerator.formatPlayerName(poisonerUuid, playerInfoCache);
             return Text.translatable(translationKey, victimText, poisonerText);
         } else {
             return Text.translatable(translationKey, victimText);
@@ -239,9 +226,7 @@ public final class DefaultReplayFormatters {
      */
     @Nullable
     public static Text formatSkillUse(GameRecordEvent event, GameRecordManager.MatchRecord match, ServerWorld world) {
-        if (currentPlayerInfoCache == null) {
-            currentPlayerInfoCache = ReplayGenerator.getPlayerInfoCache(match);
-        }
+        Map<UUID, ReplayGenerator.PlayerInfo> playerInfoCache = ReplayGenerator.getPlayerInfoCache(match);
 
         NbtCompound data = event.data();
         String skillId = data.getString("skill");
@@ -264,13 +249,13 @@ public final class DefaultReplayFormatters {
             return null;
         }
 
-        Text actorText = ReplayGenerator.formatPlayerName(actorUuid, currentPlayerInfoCache);
+        Text actorText = ReplayGenerator.formatPlayerName(actorUuid, playerInfoCache);
 
         // 构建技能翻译键
         String translationKey = buildSkillTranslationKey(skillId, targetUuid != null);
 
         if (targetUuid != null) {
-            Text targetText = ReplayGenerator.formatPlayerName(targetUuid, currentPlayerInfoCache);
+            Text targetText = ReplayGenerator.formatPlayerName(targetUuid, playerInfoCache);
             return Text.translatable(translationKey, actorText, targetText);
         } else {
             return Text.translatable(translationKey, actorText);
@@ -299,9 +284,7 @@ public final class DefaultReplayFormatters {
      */
     @Nullable
     public static Text formatShieldBlocked(GameRecordEvent event, GameRecordManager.MatchRecord match, ServerWorld world) {
-        if (currentPlayerInfoCache == null) {
-            currentPlayerInfoCache = ReplayGenerator.getPlayerInfoCache(match);
-        }
+        Map<UUID, ReplayGenerator.PlayerInfo> playerInfoCache = ReplayGenerator.getPlayerInfoCache(match);
 
         NbtCompound data = event.data();
         UUID actorUuid = data.containsUuid("actor") ? data.getUuid("actor") : null;
@@ -311,12 +294,12 @@ public final class DefaultReplayFormatters {
             return null;
         }
 
-        Text actorText = ReplayGenerator.formatPlayerName(actorUuid, currentPlayerInfoCache);
+        Text actorText = ReplayGenerator.formatPlayerName(actorUuid, playerInfoCache);
         String source = data.contains("source") ? data.getString("source") : null;
         String translationKey = buildShieldBlockedTranslationKey(source, targetUuid != null);
 
         if (targetUuid != null) {
-            Text targetText = ReplayGenerator.formatPlayerName(targetUuid, currentPlayerInfoCache);
+            Text targetText = ReplayGenerator.formatPlayerName(targetUuid, playerInfoCache);
             return Text.translatable(translationKey, actorText, targetText);
         } else {
             return Text.translatable(translationKey, actorText);
@@ -345,9 +328,7 @@ public final class DefaultReplayFormatters {
      */
     @Nullable
     public static Text formatGlobalEvent(GameRecordEvent event, GameRecordManager.MatchRecord match, ServerWorld world) {
-        if (currentPlayerInfoCache == null) {
-            currentPlayerInfoCache = ReplayGenerator.getPlayerInfoCache(match);
-        }
+        Map<UUID, ReplayGenerator.PlayerInfo> playerInfoCache = ReplayGenerator.getPlayerInfoCache(match);
 
         NbtCompound data = event.data();
         String eventId = data.getString("event");
@@ -368,7 +349,7 @@ public final class DefaultReplayFormatters {
         String translationKey = buildGlobalEventTranslationKey(eventId);
 
         if (actorUuid != null) {
-            Text actorText = ReplayGenerator.formatPlayerName(actorUuid, currentPlayerInfoCache);
+            Text actorText = ReplayGenerator.formatPlayerName(actorUuid, playerInfoCache);
             return Text.translatable(translationKey, actorText);
         } else {
             return Text.translatable(translationKey);
@@ -9,6 +9,9 @@ import org.jetbrains.annotations.Nullable;
 /**
  * 回放事件格式化器接口
  * 用于将游戏记录事件转换为玩家可读的文本
+ * <p>
+ * 默认在服务器线程上调用；注册时声明为线程安全的格式化器会在回放生成线程上调用，
+ * 参见 {@link ReplayRegistry#registerFormatter(String, ReplayEventFormatter, boolean)}
  */
 @FunctionalInterface
 public interface ReplayEventFormatter {
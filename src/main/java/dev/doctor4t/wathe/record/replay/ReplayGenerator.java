@@ -1,13 +1,16 @@
 package dev.doctor4t.wathe.record.replay;
 
+import dev.doctor4t.wathe.Wathe;
 import dev.doctor4t.wathe.api.Role;
 import dev.doctor4t.wathe.api.WatheRoles;
 import dev.doctor4t.wathe.record.GameRecordEvent;
 import dev.doctor4t.wathe.record.GameRecordManager;
 import dev.doctor4t.wathe.record.GameRecordTypes;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerTickEvents;
 import net.minecraft.item.Item;
 import net.minecraft.nbt.NbtCompound;
 import net.minecraft.registry.Registries;
+import net.minecraft.server.MinecraftServer;
 import net.minecraft.server.network.ServerPlayerEntity;
 import net.minecraft.server.world.ServerWorld;
 import net.minecraft.text.MutableText;
@@ -17,22 +20,49 @@ import net.minecraft.text.TextColor;
 import net.minecraft.util.Formatting;
 import net.minecraft.util.Identifier;
 
+import org.jetbrains.annotations.Nullable;
+
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * 回放生成器
  * 生成并向玩家发送对局回放消息
+ * <p>
+ * 回放行在后台线程上从冻结的对局记录生成，非线程安全的格式化器回到服务器线程执行。
+ * 生成结果按对局 ID 缓存，发送时每 tick 只向每位玩家发送若干行。
  */
 public final class ReplayGenerator {
     private ReplayGenerator() {
     }
 
+    private static final int CACHED_MATCHES = 8;
+    private static final int LINES_PER_TICK = 8;
+
+    private static final ExecutorService EXECUTOR = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "Wathe Replay Generator");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // 服务器线程访问
+    private static final Map<UUID, List<Text>> REPLAY_CACHE = lruCache();
+    private static final List<PendingSend> PENDING_SENDS = new ArrayList<>();
+    // 服务器线程与生成线程共同访问
+    private static final Map<UUID, Map<UUID, PlayerInfo>> PLAYER_INFO_CACHE = Collections.synchronizedMap(lruCache());
+
     /**
      * 玩家信息缓存
      */
     public record PlayerInfo(String name, String roleTranslationKey, int roleColor) {
     }
 
+    public static void init() {
+        ServerTickEvents.END_SERVER_TICK.register(ReplayGenerator::tickSends);
+    }
+
     /**
      * 生成并发送回放给所有在线玩家
      *
@@ -40,13 +70,47 @@ public final class ReplayGenerator {
      * @param match 对局记录
      */
     public static void generateAndSend(ServerWorld world, GameRecordManager.MatchRecord match) {
-        Map<UUID, PlayerInfo> playerInfoCache = buildPlayerInfoCache(match);
-        List<Text> replayLines = generateReplayLines(match, world, playerInfoCache);
-
-        // 发送给所有在线玩家
+        List<UUID> recipients = new ArrayList<>();
         for (ServerPlayerEntity player : world.getServer().getPlayerManager().getPlayerList()) {
-            sendReplayToPlayer(player, replayLines);
+            recipients.add(player.getUuid());
         }
+        generate(world, match).thenAccept(lines -> PENDING_SENDS.add(new PendingSend(lines, recipients)));
+    }
+
+    /**
+     * 生成回放文本行，已缓存的对局直接返回缓存
+     *
+     * @return 在服务器线程上完成的回放文本行
+     */
+    public static CompletableFuture<List<Text>> generate(ServerWorld world, GameRecordManager.MatchRecord match) {
+        List<Text> cached = REPLAY_CACHE.get(match.getMatchId());
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+
+        MinecraftServer server = world.getServer();
+        // 冻结的事件列表不可变，可以在后台线程安全读取
+        List<GameRecordEvent> events = match.getEvents();
+        CompletableFuture<List<Text>> result = new CompletableFuture<>();
+        CompletableFuture.supplyAsync(() -> formatThreadSafe(match, events, world), EXECUTOR)
+                .whenComplete((partial, throwable) -> server.execute(() -> {
+                    if (throwable != null) {
+                        Wathe.LOGGER.error("Failed to generate replay for match {}", match.getMatchId(), throwable);
+                        result.completeExceptionally(throwable);
+                        return;
+                    }
+                    List<Text> lines = finishOnServerThread(partial, match, world);
+                    REPLAY_CACHE.put(match.getMatchId(), lines);
+                    result.complete(lines);
+                }));
+        return result;
+    }
+
+    /**
+     * @return the cached replay lines of a match, or null if it has not been generated yet
+     */
+    public static @Nullable List<Text> getCachedReplay(UUID matchId) {
+        return REPLAY_CACHE.get(matchId);
     }
 
     /**
@@ -74,57 +138,142 @@ public final class ReplayGenerator {
                 cache.put(uuid, new PlayerInfo(name, roleTranslationKey, roleColor));
             }
         }
-        return cache;
+        return Collections.unmodifiableMap(cache);
     }
 
     /**
-     * 生成回放文本行
+     * 生成线程：排序事件并格式化所有线程安全的事件，其余位置留空
      */
-    private static List<Text> generateReplayLines(GameRecordManager.MatchRecord match, ServerWorld world, Map<UUID, PlayerInfo> playerInfoCache) {
-        List<Text> lines = new ArrayList<>();
-        long startTick = match.getStartTick();
-
-        // 设置缓存供默认格式化器使用
-        DefaultReplayFormatters.setPlayerInfoCache(playerInfoCache);
+    private static PartialReplay formatThreadSafe(GameRecordManager.MatchRecord match, List<GameRecordEvent> events, ServerWorld world) {
+        getPlayerInfoCache(match);
 
         // 按时间排序事件
-        List<GameRecordEvent> sortedEvents = new ArrayList<>(match.getEvents());
+        List<GameRecordEvent> sortedEvents = new ArrayList<>(events);
         sortedEvents.sort(Comparator.comparingLong(GameRecordEvent::worldTick));
 
-        for (GameRecordEvent event : sortedEvents) {
-            ReplayEventFormatter formatter = ReplayRegistry.getFormatter(event.type());
-            if (formatter != null) {
-                Text formatted = formatter.format(event, match, world);
-                if (formatted != null) {
-                    // 添加时间戳前缀
-                    String timeStr = formatTime(event.worldTick(), startTick);
-                    MutableText timePrefix = Text.literal("[" + timeStr + "] ").formatted(Formatting.GRAY);
-                    lines.add(timePrefix.append(formatted));
-                }
+        Text[] formatted = new Text[sortedEvents.size()];
+        boolean[] deferred = new boolean[sortedEvents.size()];
+        for (int i = 0; i < sortedEvents.size(); i++) {
+            GameRecordEvent event = sortedEvents.get(i);
+            if (ReplayRegistry.isThreadSafe(event)) {
+                formatted[i] = formatEvent(event, match, world);
+            } else {
+                deferred[i] = true;
+            }
+        }
+        return new PartialReplay(sortedEvents, formatted, deferred);
+    }
+
+    /**
+     * 服务器线程：运行非线程安全的格式化器并拼接最终文本行
+     */
+    private static List<Text> finishOnServerThread(PartialReplay partial, GameRecordManager.MatchRecord match, ServerWorld world) {
+        List<Text> lines = new ArrayList<>();
+        long startTick = match.getStartTick();
+        for (int i = 0; i < partial.events.size(); i++) {
+            GameRecordEvent event = partial.events.get(i);
+            Text formatted = partial.deferred[i] ? formatEvent(event, match, world) : partial.formatted[i];
+            if (formatted != null) {
+                // 添加时间戳前缀
+                String timeStr = formatTime(event.worldTick(), startTick);
+                MutableText timePrefix = Text.literal("[" + timeStr + "] ").formatted(Formatting.GRAY);
+                lines.add(timePrefix.append(formatted));
             }
         }
+        return Collections.unmodifiableList(lines);
+    }
+
+    private static @Nullable Text formatEvent(GameRecordEvent event, GameRecordManager.MatchRecord match, ServerWorld world) {
+        ReplayEventFormatter formatter = ReplayRegistry.getFormatter(event.type());
+        if (formatter == null) {
+            return null;
+        }
+        try {
+            return formatter.format(event, match, world);
+        } catch (RuntimeException e) {
+            Wathe.LOGGER.error("Failed to format replay event {} of type {}", event.seq(), event.type(), e);
+            return null;
+        }
+    }
 
-        return lines;
+    private static void tickSends(MinecraftServer server) {
+        if (PENDING_SENDS.isEmpty()) {
+            return;
+        }
+        PENDING_SENDS.removeIf(send -> send.tick(server));
+    }
+
+    private record PartialReplay(List<GameRecordEvent> events, Text[] formatted, boolean[] deferred) {
     }
 
     /**
-     * 发送回放给单个玩家
+     * 分多个 tick 发送的回放
      */
-    private static void sendReplayToPlayer(ServerPlayerEntity player, List<Text> replayLines) {
-        // 发送标题
-        player.sendMessage(Text.literal("═".repeat(40)).formatted(Formatting.DARK_GRAY), false);
-        player.sendMessage(Text.translatable("replay.title").formatted(Formatting.GOLD, Formatting.BOLD), false);
-        player.sendMessage(Text.empty(), false);
-
-        // 发送事件行
-        for (Text line : replayLines) {
-            player.sendMessage(line, false);
+    private static final class PendingSend {
+        private final List<Text> lines;
+        private final List<UUID> recipients;
+        // -1 表示标题，lines.size() 表示结尾
+        private int cursor = -1;
+
+        private PendingSend(List<Text> lines, List<UUID> recipients) {
+            this.lines = lines;
+            this.recipients = recipients;
         }
 
-        // 发送结尾
-        player.sendMessage(Text.empty(), false);
-        player.sendMessage(Text.translatable("replay.footer").formatted(Formatting.GRAY), false);
-        player.sendMessage(Text.literal("═".repeat(40)).formatted(Formatting.DARK_GRAY), false);
+        /**
+         * @return true once every line has been sent
+         */
+        private boolean tick(MinecraftServer server) {
+            List<ServerPlayerEntity> players = new ArrayList<>(this.recipients.size());
+            for (UUID uuid : this.recipients) {
+                ServerPlayerEntity player = server.getPlayerManager().getPlayer(uuid);
+                if (player != null) {
+                    players.add(player);
+                }
+            }
+            if (players.isEmpty()) {
+                return true;
+            }
+
+            if (this.cursor < 0) {
+                // 发送标题
+                for (ServerPlayerEntity player : players) {
+                    player.sendMessage(Text.literal("═".repeat(40)).formatted(Formatting.DARK_GRAY), false);
+                    player.sendMessage(Text.translatable("replay.title").formatted(Formatting.GOLD, Formatting.BOLD), false);
+                    player.sendMessage(Text.empty(), false);
+                }
+                this.cursor = 0;
+            }
+
+            // 发送事件行
+            int end = Math.min(this.lines.size(), this.cursor + LINES_PER_TICK);
+            for (ServerPlayerEntity player : players) {
+                for (int i = this.cursor; i < end; i++) {
+                    player.sendMessage(this.lines.get(i), false);
+                }
+            }
+            this.cursor = end;
+            if (this.cursor < this.lines.size()) {
+                return false;
+            }
+
+            // 发送结尾
+            for (ServerPlayerEntity player : players) {
+                player.sendMessage(Text.empty(), false);
+                player.sendMessage(Text.translatable("replay.footer").formatted(Formatting.GRAY), false);
+                player.sendMessage(Text.literal("═".repeat(40)).formatted(Formatting.DARK_GRAY), false);
+            }
+            return true;
+        }
+    }
+
+    private static <V> Map<UUID, V> lruCache() {
+        return new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<UUID, V> eldest) {
+                return this.size() > CACHED_MATCHES;
+            }
+        };
     }
 
     /**
@@ -211,9 +360,14 @@ public final class ReplayGenerator {
     }
 
     /**
-     * 获取玩家信息缓存（供外部格式化器使用）
+     * 获取玩家信息缓存（供外部格式化器使用），按对局 ID 缓存，可在任意线程调用
      */
     public static Map<UUID, PlayerInfo> getPlayerInfoCache(GameRecordManager.MatchRecord match) {
-        return buildPlayerInfoCache(match);
+        Map<UUID, PlayerInfo> cache = PLAYER_INFO_CACHE.get(match.getMatchId());
+        if (cache == null) {
+            cache = buildPlayerInfoCache(match);
+            PLAYER_INFO_CACHE.put(match.getMatchId(), cache);
+        }
+        return cache;
     }
 }
@@ -1,14 +1,19 @@
 package dev.doctor4t.wathe.record.replay;
 
+import dev.doctor4t.wathe.record.GameRecordEvent;
+import dev.doctor4t.wathe.record.GameRecordTypes;
 import net.minecraft.util.Identifier;
 import org.jetbrains.annotations.Nullable;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.*;
 
 /**
  * 回放事件格式化器注册表
  * 管理事件类型与其格式化器的映射关系
+ * <p>
+ * 注册时可声明格式化器是否线程安全。线程安全的格式化器在回放生成线程上运行，
+ * 只能读取事件数据、对局记录和 {@code world.getRegistryManager()}，不能访问世界或玩家状态；
+ * 未声明的格式化器仍在服务器线程上运行。
  */
 public final class ReplayRegistry {
     private ReplayRegistry() {
@@ -19,6 +24,7 @@ public final class ReplayRegistry {
     private static final Map<Identifier, ReplayEventFormatter> ITEM_USE_FORMATTERS = new HashMap<>();
     private static final Map<Identifier, ReplayEventFormatter> PLATTER_TAKE_FORMATTERS = new HashMap<>();
     private static final Map<Identifier, ReplayEventFormatter> GLOBAL_EVENT_FORMATTERS = new HashMap<>();
+    private static final Set<ReplayEventFormatter> THREAD_SAFE = Collections.newSetFromMap(new IdentityHashMap<>());
 
     /**
      * 注册事件格式化器
@@ -27,7 +33,18 @@ public final class ReplayRegistry {
      * @param formatter 格式化器实现
      */
     public static void registerFormatter(String eventType, ReplayEventFormatter formatter) {
-        FORMATTERS.put(eventType, formatter);
+        registerFormatter(eventType, formatter, false);
+    }
+
+    /**
+     * 注册事件格式化器
+     *
+     * @param eventType  事件类型
+     * @param formatter  格式化器实现
+     * @param threadSafe 格式化器是否可以在回放生成线程上运行
+     */
+    public static void registerFormatter(String eventType, ReplayEventFormatter formatter, boolean threadSafe) {
+        FORMATTERS.put(eventType, markThreadSafe(formatter, threadSafe));
     }
 
     /**
@@ -37,7 +54,11 @@ public final class ReplayRegistry {
      * @param formatter 格式化器实现
      */
     public static void registerSkillFormatter(Identifier skillId, ReplayEventFormatter formatter) {
-        SKILL_FORMATTERS.put(skillId, formatter);
+        registerSkillFormatter(skillId, formatter, false);
+    }
+
+    public static void registerSkillFormatter(Identifier skillId, ReplayEventFormatter formatter, boolean threadSafe) {
+        SKILL_FORMATTERS.put(skillId, markThreadSafe(formatter, threadSafe));
     }
 
     /**
@@ -48,7 +69,11 @@ public final class ReplayRegistry {
      * @param formatter 格式化器实现
      */
     public static void registerItemUseFormatter(Identifier itemId, ReplayEventFormatter formatter) {
-        ITEM_USE_FORMATTERS.put(itemId, formatter);
+        registerItemUseFormatter(itemId, formatter, false);
+    }
+
+    public static void registerItemUseFormatter(Identifier itemId, ReplayEventFormatter formatter, boolean threadSafe) {
+        ITEM_USE_FORMATTERS.put(itemId, markThreadSafe(formatter, threadSafe));
     }
 
     /**
@@ -59,7 +84,11 @@ public final class ReplayRegistry {
      * @param formatter 格式化器实现
      */
     public static void registerPlatterTakeFormatter(Identifier itemId, ReplayEventFormatter formatter) {
-        PLATTER_TAKE_FORMATTERS.put(itemId, formatter);
+        registerPlatterTakeFormatter(itemId, formatter, false);
+    }
+
+    public static void registerPlatterTakeFormatter(Identifier itemId, ReplayEventFormatter formatter, boolean threadSafe) {
+        PLATTER_TAKE_FORMATTERS.put(itemId, markThreadSafe(formatter, threadSafe));
     }
 
     /**
@@ -69,7 +98,50 @@ public final class ReplayRegistry {
      * @param formatter 格式化器实现
      */
     public static void registerGlobalEventFormatter(Identifier eventId, ReplayEventFormatter formatter) {
-        GLOBAL_EVENT_FORMATTERS.put(eventId, formatter);
+        registerGlobalEventFormatter(eventId, formatter, false);
+    }
+
+    public static void registerGlobalEventFormatter(Identifier eventId, ReplayEventFormatter formatter, boolean threadSafe) {
+        GLOBAL_EVENT_FORMATTERS.put(eventId, markThreadSafe(formatter, threadSafe));
+    }
+
+    private static ReplayEventFormatter markThreadSafe(ReplayEventFormatter formatter, boolean threadSafe) {
+        if (threadSafe) {
+            THREAD_SAFE.add(formatter);
+        } else {
+            THREAD_SAFE.remove(formatter);
+        }
+        return formatter;
+    }
+
+    /**
+     * 检查格式化该事件时用到的格式化器（包括按 ID 分发的子格式化器）是否都是线程安全的
+     *
+     * @param event 游戏记录事件
+     * @return 如果可以在回放生成线程上格式化则返回 true
+     */
+    public static boolean isThreadSafe(GameRecordEvent event) {
+        ReplayEventFormatter formatter = FORMATTERS.get(event.type());
+        if (formatter == null) {
+            return true;
+        }
+        if (!THREAD_SAFE.contains(formatter)) {
+            return false;
+        }
+        ReplayEventFormatter delegate = switch (event.type()) {
+            case GameRecordTypes.SKILL_USE -> getDelegate(SKILL_FORMATTERS, event, "skill");
+            case GameRecordTypes.ITEM_USE -> getDelegate(ITEM_USE_FORMATTERS, event, "item");
+            case GameRecordTypes.PLATTER_TAKE -> getDelegate(PLATTER_TAKE_FORMATTERS, event, "item");
+            case GameRecordTypes.GLOBAL_EVENT -> getDelegate(GLOBAL_EVENT_FORMATTERS, event, "event");
+            default -> null;
+        };
+        return delegate == null || THREAD_SAFE.contains(delegate);
+    }
+
+    @Nullable
+    private static ReplayEventFormatter getDelegate(Map<Identifier, ReplayEventFormatter> formatters, GameRecordEvent event, String key) {
+        Identifier id = Identifier.tryParse(event.data().getString(key));
+        return id != null ? formatters.get(id) : null;
     }
 
     @Nullable
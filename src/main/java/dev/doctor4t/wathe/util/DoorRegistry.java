@@ -0,0 +1,81 @@
+package dev.doctor4t.wathe.util;
+
+import dev.doctor4t.wathe.block_entity.SmallDoorBlockEntity;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ObjectOpenHashSet;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerBlockEntityEvents;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents;
+import net.minecraft.registry.RegistryKey;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.world.World;
+
+import java.util.*;
+import java.util.function.Predicate;
+
+/**
+ * Per-world registry of the loaded {@link SmallDoorBlockEntity} instances, grouped by chunk.
+ * <p>
+ * Kept current through the block entity load/unload events, which also fire when chunks load and unload, so door
+ * commands only visit known doors instead of scanning every block around the caller.
+ */
+public class DoorRegistry {
+    private static final Map<RegistryKey<World>, DoorRegistry> REGISTRIES = new HashMap<>();
+
+    private final Long2ObjectMap<Set<SmallDoorBlockEntity>> doorsByChunk = new Long2ObjectOpenHashMap<>();
+    private int size = 0;
+
+    public static void register() {
+        ServerBlockEntityEvents.BLOCK_ENTITY_LOAD.register((blockEntity, world) -> {
+            if (blockEntity instanceof SmallDoorBlockEntity door) get(world).add(door);
+        });
+        ServerBlockEntityEvents.BLOCK_ENTITY_UNLOAD.register((blockEntity, world) -> {
+            if (blockEntity instanceof SmallDoorBlockEntity door) get(world).remove(door);
+        });
+        ServerLifecycleEvents.SERVER_STOPPED.register(server -> REGISTRIES.clear());
+    }
+
+    public static DoorRegistry get(ServerWorld world) {
+        return REGISTRIES.computeIfAbsent(world.getRegistryKey(), key -> new DoorRegistry());
+    }
+
+    private void add(SmallDoorBlockEntity door) {
+        if (this.doorsByChunk.computeIfAbsent(ChunkPos.toLong(door.getPos()), chunk -> new ObjectOpenHashSet<>()).add(door)) {
+            this.size++;
+        }
+    }
+
+    private void remove(SmallDoorBlockEntity door) {
+        long chunk = ChunkPos.toLong(door.getPos());
+        Set<SmallDoorBlockEntity> doors = this.doorsByChunk.get(chunk);
+        if (doors != null && doors.remove(door)) {
+            this.size--;
+            if (doors.isEmpty()) this.doorsByChunk.remove(chunk);
+        }
+    }
+
+    /**
+     * @return a snapshot of the loaded doors whose position matches the filter, ordered by chunk
+     */
+    public List<SmallDoorBlockEntity> collect(Predicate<BlockPos> filter) {
+        List<SmallDoorBlockEntity> result = new ArrayList<>();
+        for (Set<SmallDoorBlockEntity> doors : this.doorsByChunk.values()) {
+            for (SmallDoorBlockEntity door : doors) {
+                if (!door.isRemoved() && filter.test(door.getPos())) {
+                    result.add(door);
+                }
+            }
+        }
+        return result;
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    public int getChunkCount() {
+        return this.doorsByChunk.size();
+    }
+}
@@ -0,0 +1,95 @@
+package dev.doctor4t.wathe.util;
+
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerTickEvents;
+import net.minecraft.registry.RegistryKey;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.world.World;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Per-world queue of door auto-close deadlines.
+ * <p>
+ * Doors have no server ticker: an opened door registers the world tick at which it should close, and the timer only
+ * looks at the earliest deadline each tick. Jamming needs no wakeup since doors compare the jam deadline with the
+ * world time when asked. Entries are not removed when a door is closed early or re-opened; the door ignores a wakeup
+ * that does not match its current deadline.
+ */
+public class DoorTimer {
+    private static final Map<RegistryKey<World>, DoorTimer> TIMERS = new HashMap<>();
+
+    private final PriorityQueue<Wakeup> queue = new PriorityQueue<>(Comparator.comparingLong(Wakeup::deadline));
+    private long fired = 0;
+    private long stale = 0;
+    private long lastTickNanos = 0;
+
+    public static void register() {
+        ServerTickEvents.END_WORLD_TICK.register(world -> {
+            DoorTimer timer = TIMERS.get(world.getRegistryKey());
+            if (timer != null) timer.tick(world.getTime());
+        });
+        ServerLifecycleEvents.SERVER_STOPPED.register(server -> TIMERS.clear());
+    }
+
+    public static DoorTimer get(ServerWorld world) {
+        return TIMERS.computeIfAbsent(world.getRegistryKey(), key -> new DoorTimer());
+    }
+
+    public void schedule(Target door, long deadline) {
+        this.queue.add(new Wakeup(deadline, door));
+    }
+
+    /**
+     * Wakes every door whose deadline is at or before the given world time.
+     */
+    public void tick(long now) {
+        if (this.queue.isEmpty()) return;
+        long start = System.nanoTime();
+        Wakeup wakeup;
+        while ((wakeup = this.queue.peek()) != null && wakeup.deadline() <= now) {
+            this.queue.poll();
+            if (wakeup.door().onCloseDeadline(wakeup.deadline())) {
+                this.fired++;
+            } else {
+                this.stale++;
+            }
+        }
+        this.lastTickNanos = System.nanoTime() - start;
+    }
+
+    public int getPending() {
+        return this.queue.size();
+    }
+
+    public long getFired() {
+        return this.fired;
+    }
+
+    /**
+     * @return wakeups skipped because the door was closed, re-opened or unloaded before its deadline
+     */
+    public long getStale() {
+        return this.stale;
+    }
+
+    public long getLastTickNanos() {
+        return this.lastTickNanos;
+    }
+
+    /**
+     * Implemented by {@link dev.doctor4t.wathe.block_entity.DoorBlockEntity}.
+     */
+    public interface Target {
+        /**
+         * @return false if the deadline is outdated and the wakeup was ignored
+         */
+        boolean onCloseDeadline(long deadline);
+    }
+
+    private record Wakeup(long deadline, Target door) {
+    }
+}
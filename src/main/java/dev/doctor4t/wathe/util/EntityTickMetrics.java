@@ -0,0 +1,62 @@
+package dev.doctor4t.wathe.util;
+
+import net.minecraft.entity.EntityType;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Server tick time per entity type, split into dormant and active ticks, for the {@code /wathe:debug entities} report.
+ * Only recorded by entities that have a dormant mode. Only touched from the server thread.
+ */
+public final class EntityTickMetrics {
+    private static final Map<EntityType<?>, Counter> COUNTERS = new LinkedHashMap<>();
+
+    private EntityTickMetrics() {}
+
+    public static void record(EntityType<?> type, boolean dormant, long nanos) {
+        COUNTERS.computeIfAbsent(type, key -> new Counter()).record(dormant, nanos);
+    }
+
+    public static Map<EntityType<?>, Counter> getCounters() {
+        return Collections.unmodifiableMap(COUNTERS);
+    }
+
+    public static void reset() {
+        COUNTERS.clear();
+    }
+
+    public static final class Counter {
+        private long activeTicks;
+        private long activeNanos;
+        private long dormantTicks;
+        private long dormantNanos;
+
+        private void record(boolean dormant, long nanos) {
+            if (dormant) {
+                this.dormantTicks++;
+                this.dormantNanos += nanos;
+            } else {
+                this.activeTicks++;
+                this.activeNanos += nanos;
+            }
+        }
+
+        public long getActiveTicks() {
+            return this.activeTicks;
+        }
+
+        public long getActiveNanos() {
+            return this.activeNanos;
+        }
+
+        public long getDormantTicks() {
+            return this.dormantTicks;
+        }
+
+        public long getDormantNanos() {
+            return this.dormantNanos;
+        }
+    }
+}
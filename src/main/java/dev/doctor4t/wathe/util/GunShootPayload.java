@@ -11,6 +11,8 @@ import dev.doctor4t.wathe.index.WatheDataComponentTypes;
 import dev.doctor4t.wathe.index.WatheItems;
 import dev.doctor4t.wathe.index.WatheSounds;
 import dev.doctor4t.wathe.index.tag.WatheItemTags;
+import dev.doctor4t.wathe.item.DerringerItem;
+import dev.doctor4t.wathe.item.RevolverItem;
 import dev.doctor4t.wathe.record.GameRecordManager;
 import net.fabricmc.fabric.api.networking.v1.PlayerLookup;
 import net.fabricmc.fabric.api.networking.v1.ServerPlayNetworking;
@@ -61,8 +63,12 @@ public record GunShootPayload(int target) implements CustomPayload {
             }
 
             ServerPlayerEntity target = null;
-            if (player.getServerWorld().getEntityById(payload.target()) instanceof ServerPlayerEntity candidate && candidate.distanceTo(player) < 65.0) {
-                target = candidate;
+            if (player.getServerWorld().getEntityById(payload.target()) instanceof ServerPlayerEntity candidate) {
+                // 按射击者延迟回溯目标位置校验命中，未通过则视为打空
+                float range = mainHandStack.isOf(WatheItems.DERRINGER) ? DerringerItem.RANGE : RevolverItem.RANGE;
+                if (LagCompensation.validateHit(player, candidate, range, LagCompensation.HitType.GUN)) {
+                    target = candidate;
+                }
             }
 
             ServerPlayerEntity recordTarget = target instanceof ServerPlayerEntity serverTarget ? serverTarget : null;
@@ -81,7 +87,7 @@ public record GunShootPayload(int target) implements CustomPayload {
 
                 // 处理自定义惩罚
                 if (punishResult != null && punishResult.hasCustomPunishment()) {
-                    Scheduler.schedule(punishResult::executeCustomPunishment, 4);
+                    Scheduler.scheduleForRound(player.getServerWorld(), punishResult::executeCustomPunishment, 4);
                 } else if (game.isInnocent(target) && !player.isCreative() && mainHandStack.isOf(revolver)
                         && (punishResult == null || punishResult.shouldPunish())) {
                     // 所有惩罚类型都会掉落枪支，然后根据类型执行附加惩罚
@@ -91,7 +97,7 @@ public record GunShootPayload(int target) implements CustomPayload {
                         backfire = true;
                         GameFunctions.killPlayer(player, true, player, GameConstants.DeathReasons.GUN_BACKFIRE);
                     } else {
-                        Scheduler.schedule(() -> {
+                        Scheduler.scheduleForRound(player.getServerWorld(), () -> {
                             if (!context.player().getInventory().contains((s) -> s.isIn(WatheItemTags.GUNS))) return;
                             player.getInventory().remove((s) -> s.isOf(revolver), 1, player.getInventory());
                             if(!game.canUseKillerFeatures(player)){
@@ -10,6 +10,7 @@ import dev.doctor4t.wathe.game.GameConstants;
 import dev.doctor4t.wathe.game.GameFunctions;
 import dev.doctor4t.wathe.index.WatheItems;
 import dev.doctor4t.wathe.index.WatheSounds;
+import dev.doctor4t.wathe.item.KnifeItem;
 import dev.doctor4t.wathe.record.GameRecordManager;
 import net.fabricmc.fabric.api.networking.v1.ServerPlayNetworking;
 import net.minecraft.entity.player.PlayerEntity;
@@ -37,7 +38,7 @@ public record KnifeStabPayload(int target) implements CustomPayload {
         public void receive(@NotNull KnifeStabPayload payload, ServerPlayNetworking.@NotNull Context context) {
             ServerPlayerEntity player = context.player();
             if (!(player.getServerWorld().getEntityById(payload.target()) instanceof ServerPlayerEntity target)) return;
-            if (target.distanceTo(player) > 3.0) return;
+            if (!LagCompensation.validateHit(player, target, KnifeItem.RANGE, LagCompensation.HitType.KNIFE)) return;
 
             GameWorldComponent gameComponent = GameWorldComponent.KEY.get(context.player().getWorld());
             Role playerRole = gameComponent.getRole(player);
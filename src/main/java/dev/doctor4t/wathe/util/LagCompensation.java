@@ -0,0 +1,209 @@
+package dev.doctor4t.wathe.util;
+
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerTickEvents;
+import net.fabricmc.fabric.api.networking.v1.ServerPlayConnectionEvents;
+import net.minecraft.registry.RegistryKey;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.network.ServerPlayerEntity;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.Box;
+import net.minecraft.util.math.Vec3d;
+import net.minecraft.world.World;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Server-side validation of client-reported hits.
+ * <p>
+ * The hitbox of every player is recorded at the end of each server tick into a fixed ring of primitive arrays, so
+ * recording never allocates. When a shot or stab arrives, the target is rewound to what the attacker saw on their
+ * screen (their latency plus the client's interpolation delay) and the attacker's look ray is tested against the
+ * rewound hitboxes. Hits that miss every candidate tick are rejected and counted.
+ */
+public class LagCompensation {
+    // 环形缓冲区按 tick 直接寻址，长度需为 2 的幂
+    private static final int HISTORY_SIZE = 32;
+    private static final int HISTORY_MASK = HISTORY_SIZE - 1;
+    /**
+     * How far back a hit may be rewound, one second.
+     */
+    public static final int MAX_REWIND_TICKS = 20;
+    // 客户端对其他玩家位置的插值延迟
+    private static final int INTERPOLATION_TICKS = 3;
+    // 延迟测量并不精确，在估计的 tick 前后各多检查几个
+    private static final int TOLERANCE_TICKS = 2;
+    private static final double HITBOX_TOLERANCE = 0.3;
+    private static final double RANGE_TOLERANCE = 1.0;
+
+    private static final Map<UUID, History> HISTORIES = new HashMap<>();
+
+    private static final long[] ACCEPTED = new long[HitType.values().length];
+    private static final long[] REJECTED = new long[HitType.values().length];
+
+    public enum HitType {
+        GUN,
+        KNIFE
+    }
+
+    public static void init() {
+        ServerTickEvents.END_SERVER_TICK.register(LagCompensation::record);
+        ServerPlayConnectionEvents.DISCONNECT.register((handler, server) -> HISTORIES.remove(handler.getPlayer().getUuid()));
+        ServerLifecycleEvents.SERVER_STOPPED.register(server -> HISTORIES.clear());
+    }
+
+    private static void record(MinecraftServer server) {
+        int tick = server.getTicks();
+        for (ServerWorld world : server.getWorlds()) {
+            for (ServerPlayerEntity player : world.getPlayers()) {
+                History history = HISTORIES.get(player.getUuid());
+                if (history == null) {
+                    history = new History();
+                    HISTORIES.put(player.getUuid(), history);
+                }
+                history.record(world.getRegistryKey(), tick, player.getBoundingBox());
+            }
+        }
+    }
+
+    /**
+     * Checks whether the attacker could have hit the target within the given range, as seen on the attacker's
+     * screen, and counts the result.
+     */
+    public static boolean validateHit(ServerPlayerEntity attacker, ServerPlayerEntity target, double range, HitType type) {
+        boolean valid = testHit(attacker, target, range);
+        if (valid) {
+            ACCEPTED[type.ordinal()]++;
+        } else {
+            REJECTED[type.ordinal()]++;
+        }
+        return valid;
+    }
+
+    private static boolean testHit(ServerPlayerEntity attacker, ServerPlayerEntity target, double range) {
+        if (attacker.getServerWorld() != target.getServerWorld()) return false;
+
+        Vec3d eye = attacker.getEyePos();
+        Vec3d look = attacker.getRotationVec(1.0F);
+        double reach = range + RANGE_TOLERANCE;
+        double dx = look.x * reach;
+        double dy = look.y * reach;
+        double dz = look.z * reach;
+
+        // 客户端瞄准的是床方块而非躺着的玩家
+        if (target.isSleeping()) {
+            Optional<BlockPos> bed = target.getSleepingPosition();
+            if (bed.isEmpty()) return false;
+            Box area = new Box(bed.get()).expand(1.0, 0.0, 1.0);
+            return intersects(eye.x, eye.y, eye.z, dx, dy, dz, area.minX, area.minY, area.minZ, area.maxX, area.maxY, area.maxZ, 0.0);
+        }
+
+        double margin = target.getTargetingMargin() + HITBOX_TOLERANCE;
+        Box current = target.getBoundingBox();
+        if (intersects(eye.x, eye.y, eye.z, dx, dy, dz, current.minX, current.minY, current.minZ, current.maxX, current.maxY, current.maxZ, margin)) {
+            return true;
+        }
+
+        History history = HISTORIES.get(target.getUuid());
+        if (history == null) return false;
+
+        int now = target.getServer().getTicks();
+        int rewind = Math.min(MAX_REWIND_TICKS, Math.max(0, attacker.networkHandler.getLatency()) / 50 + INTERPOLATION_TICKS);
+        int newest = Math.min(now, now - rewind + TOLERANCE_TICKS);
+        int oldest = Math.max(now - MAX_REWIND_TICKS, now - rewind - TOLERANCE_TICKS);
+        RegistryKey<World> world = target.getServerWorld().getRegistryKey();
+        for (int tick = newest; tick >= oldest; tick--) {
+            if (history.intersects(world, tick, eye.x, eye.y, eye.z, dx, dy, dz, margin)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Slab test of the segment {@code origin -> origin + delta} against a box grown by {@code margin}.
+     */
+    private static boolean intersects(double ox, double oy, double oz, double dx, double dy, double dz,
+                                      double minX, double minY, double minZ, double maxX, double maxY, double maxZ, double margin) {
+        double tMin = 0.0;
+        double tMax = 1.0;
+        for (int axis = 0; axis < 3; axis++) {
+            double origin = axis == 0 ? ox : axis == 1 ? oy : oz;
+            double delta = axis == 0 ? dx : axis == 1 ? dy : dz;
+            double min = (axis == 0 ? minX : axis == 1 ? minY : minZ) - margin;
+            double max = (axis == 0 ? maxX : axis == 1 ? maxY : maxZ) + margin;
+            if (Math.abs(delta) < 1.0E-9) {
+                if (origin < min || origin > max) return false;
+                continue;
+            }
+            double t1 = (min - origin) / delta;
+            double t2 = (max - origin) / delta;
+            tMin = Math.max(tMin, Math.min(t1, t2));
+            tMax = Math.min(tMax, Math.max(t1, t2));
+            if (tMin > tMax) return false;
+        }
+        return true;
+    }
+
+    public static long getAccepted(HitType type) {
+        return ACCEPTED[type.ordinal()];
+    }
+
+    public static long getRejected(HitType type) {
+        return REJECTED[type.ordinal()];
+    }
+
+    public static int getTrackedPlayers() {
+        return HISTORIES.size();
+    }
+
+    public static void resetCounters() {
+        Arrays.fill(ACCEPTED, 0);
+        Arrays.fill(REJECTED, 0);
+    }
+
+    /**
+     * Hitboxes of one player, indexed by server tick modulo {@value #HISTORY_SIZE}.
+     */
+    private static final class History {
+        private final int[] ticks = new int[HISTORY_SIZE];
+        // 每个 tick 6 个分量: minX, minY, minZ, maxX, maxY, maxZ
+        private final double[] boxes = new double[HISTORY_SIZE * 6];
+        private RegistryKey<World> world;
+
+        private History() {
+            Arrays.fill(this.ticks, Integer.MIN_VALUE);
+        }
+
+        private void record(RegistryKey<World> world, int tick, Box box) {
+            if (world != this.world) {
+                // 换了维度，之前的位置不再有意义
+                Arrays.fill(this.ticks, Integer.MIN_VALUE);
+                this.world = world;
+            }
+            int slot = tick & HISTORY_MASK;
+            this.ticks[slot] = tick;
+            int offset = slot * 6;
+            this.boxes[offset] = box.minX;
+            this.boxes[offset + 1] = box.minY;
+            this.boxes[offset + 2] = box.minZ;
+            this.boxes[offset + 3] = box.maxX;
+            this.boxes[offset + 4] = box.maxY;
+            this.boxes[offset + 5] = box.maxZ;
+        }
+
+        private boolean intersects(RegistryKey<World> world, int tick, double ox, double oy, double oz, double dx, double dy, double dz, double margin) {
+            int slot = tick & HISTORY_MASK;
+            if (world != this.world || this.ticks[slot] != tick) return false;
+            int offset = slot * 6;
+            return LagCompensation.intersects(ox, oy, oz, dx, dy, dz,
+                    this.boxes[offset], this.boxes[offset + 1], this.boxes[offset + 2],
+                    this.boxes[offset + 3], this.boxes[offset + 4], this.boxes[offset + 5], margin);
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package dev.doctor4t.wathe.util;
+
+import dev.doctor4t.wathe.index.WatheProperties;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.longs.LongSet;
+import it.unimi.dsi.fastutil.longs.LongSets;
+import net.minecraft.block.BlockState;
+import net.minecraft.state.property.Properties;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.Box;
+import net.minecraft.world.World;
+import net.minecraft.world.chunk.ChunkSection;
+import net.minecraft.world.chunk.WorldChunk;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Per-world index of the light blocks (blocks with both {@code LIT} and {@code ACTIVE}) inside the play area,
+ * so a blackout only touches known lights instead of reading every position of the area.
+ * <p>
+ * The index is built when the play area is set and at round start, by scanning only the chunk sections whose
+ * palette contains a light, so a blackout never pays for the scan. It is then kept current by
+ * {@link dev.doctor4t.wathe.mixin.WorldChunkMixin}.
+ */
+public class LightBlockIndex {
+    private final LongOpenHashSet positions = new LongOpenHashSet();
+    private @Nullable Box indexedArea;
+    private int minX, minY, minZ, maxX, maxY, maxZ;
+    private long lastRebuildNanos = -1;
+
+    public static boolean isLight(BlockState state) {
+        return state.contains(Properties.LIT) && state.contains(WatheProperties.ACTIVE);
+    }
+
+    /**
+     * Builds the index for the given area unless it is already indexed.
+     */
+    public void ensureBuilt(World world, Box area) {
+        if (!area.equals(this.indexedArea)) {
+            this.rebuild(world, area);
+        }
+    }
+
+    /**
+     * @return the packed positions of all lights in the given area, rebuilding the index if the area changed
+     */
+    public LongSet getPositions(World world, Box area) {
+        this.ensureBuilt(world, area);
+        return LongSets.unmodifiable(this.positions);
+    }
+
+    public void rebuild(World world, Box area) {
+        long start = System.nanoTime();
+        this.positions.clear();
+        this.indexedArea = area;
+        this.minX = (int) area.minX;
+        this.minY = (int) area.minY;
+        this.minZ = (int) area.minZ;
+        this.maxX = (int) area.maxX;
+        this.maxY = (int) area.maxY;
+        this.maxZ = (int) area.maxZ;
+
+        for (int chunkX = this.minX >> 4; chunkX <= this.maxX >> 4; chunkX++) {
+            for (int chunkZ = this.minZ >> 4; chunkZ <= this.maxZ >> 4; chunkZ++) {
+                WorldChunk chunk = world.getChunk(chunkX, chunkZ);
+                ChunkSection[] sections = chunk.getSectionArray();
+                for (int i = 0; i < sections.length; i++) {
+                    int baseY = chunk.sectionIndexToCoord(i) << 4;
+                    if (baseY + 15 < this.minY || baseY > this.maxY) continue;
+                    ChunkSection section = sections[i];
+                    // 调色板中没有灯的区段直接跳过
+                    if (section.isEmpty() || !section.hasAny(LightBlockIndex::isLight)) continue;
+                    this.scanSection(section, chunkX << 4, baseY, chunkZ << 4);
+                }
+            }
+        }
+
+        this.lastRebuildNanos = System.nanoTime() - start;
+    }
+
+    private void scanSection(ChunkSection section, int baseX, int baseY, int baseZ) {
+        for (int y = 0; y < 16; y++) {
+            for (int z = 0; z < 16; z++) {
+                for (int x = 0; x < 16; x++) {
+                    if (this.contains(baseX + x, baseY + y, baseZ + z) && isLight(section.getBlockState(x, y, z))) {
+                        this.positions.add(BlockPos.asLong(baseX + x, baseY + y, baseZ + z));
+                    }
+                }
+            }
+        }
+    }
+
+    private boolean contains(int x, int y, int z) {
+        return x >= this.minX && x <= this.maxX && y >= this.minY && y <= this.maxY && z >= this.minZ && z <= this.maxZ;
+    }
+
+    public void onBlockChanged(BlockPos pos, BlockState oldState, BlockState newState) {
+        if (this.indexedArea == null || !this.contains(pos.getX(), pos.getY(), pos.getZ())) return;
+        boolean wasLight = isLight(oldState);
+        boolean isLight = isLight(newState);
+        if (wasLight == isLight) return;
+        if (isLight) {
+            this.positions.add(pos.asLong());
+        } else {
+            this.positions.remove(pos.asLong());
+        }
+    }
+
+    public void invalidate() {
+        this.indexedArea = null;
+        this.positions.clear();
+    }
+
+    public boolean isBuilt() {
+        return this.indexedArea != null;
+    }
+
+    public int size() {
+        return this.positions.size();
+    }
+
+    /**
+     * @return the duration of the last rebuild in nanoseconds, or -1 if the index was never built
+     */
+    public long getLastRebuildNanos() {
+        return this.lastRebuildNanos;
+    }
+}
@@ -0,0 +1,75 @@
+package dev.doctor4t.wathe.util;
+
+import dev.doctor4t.wathe.entity.FirecrackerEntity;
+import dev.doctor4t.wathe.entity.NoteEntity;
+import dev.doctor4t.wathe.entity.PlayerBodyEntity;
+import it.unimi.dsi.fastutil.objects.ReferenceLinkedOpenHashSet;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerEntityEvents;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents;
+import net.minecraft.entity.Entity;
+import net.minecraft.entity.ItemEntity;
+import net.minecraft.registry.RegistryKey;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.world.World;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Per-world registry of the loaded entities a round leaves behind: bodies, firecrackers, notes and dropped items.
+ * <p>
+ * Kept current through the entity load/unload events, so the round teardown and the train reset discard exactly
+ * these entities without scanning every entity in the world once per type.
+ */
+public class RoundEntityRegistry {
+    private static final Map<RegistryKey<World>, RoundEntityRegistry> REGISTRIES = new HashMap<>();
+
+    // 按加载顺序保存，清理时从最早的开始
+    private final ReferenceLinkedOpenHashSet<Entity> entities = new ReferenceLinkedOpenHashSet<>();
+
+    public static void register() {
+        ServerEntityEvents.ENTITY_LOAD.register((entity, world) -> {
+            if (isRoundEntity(entity)) get(world).entities.add(entity);
+        });
+        ServerEntityEvents.ENTITY_UNLOAD.register((entity, world) -> {
+            if (isRoundEntity(entity)) get(world).entities.remove(entity);
+        });
+        ServerLifecycleEvents.SERVER_STOPPED.register(server -> REGISTRIES.clear());
+    }
+
+    public static RoundEntityRegistry get(ServerWorld world) {
+        return REGISTRIES.computeIfAbsent(world.getRegistryKey(), key -> new RoundEntityRegistry());
+    }
+
+    public static boolean isRoundEntity(Entity entity) {
+        return entity instanceof PlayerBodyEntity || entity instanceof FirecrackerEntity
+                || entity instanceof NoteEntity || entity instanceof ItemEntity;
+    }
+
+    /**
+     * Discards the oldest registered entity.
+     *
+     * @return false if there was nothing left to discard
+     */
+    public boolean discardNext() {
+        if (this.entities.isEmpty()) return false;
+        Entity entity = this.entities.removeFirst();
+        if (!entity.isRemoved()) entity.discard();
+        return true;
+    }
+
+    /**
+     * @return the number of discarded entities
+     */
+    public int discardAll() {
+        int discarded = 0;
+        while (this.discardNext()) {
+            discarded++;
+        }
+        return discarded;
+    }
+
+    public int size() {
+        return this.entities.size();
+    }
+}
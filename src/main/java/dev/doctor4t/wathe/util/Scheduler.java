@@ -1,20 +1,48 @@
 package dev.doctor4t.wathe.util;
 
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents;
 import net.fabricmc.fabric.api.event.lifecycle.v1.ServerTickEvents;
+import net.minecraft.registry.RegistryKey;
+import net.minecraft.world.World;
+import org.jetbrains.annotations.Nullable;
 
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
+/**
+ * Runs tasks after a delay in server ticks.
+ * <p>
+ * Pending tasks live in a hierarchical timing wheel (four levels of 64 slots, each slot an intrusive linked list),
+ * so scheduling and cancelling are O(1) and a tick only touches the tasks that are due plus, every 64 ticks, one
+ * slot of the next level. Tasks that belong to the round on a world are scheduled with {@link #scheduleForRound} and
+ * cancelled together by {@link #cancelRound(World)} when that round stops; other tasks, e.g. command jobs, are never
+ * cancelled by a round ending.
+ * <p>
+ * The wheel is owned by the server thread. Tasks scheduled from other threads are queued and placed on the next tick.
+ */
 public class Scheduler {
     public static class ScheduledTask {
         private int ticksLeft;
         private final Runnable action;
-        private boolean cancelled = false;
+        private volatile boolean cancelled = false;
+
+        // 时间轮状态，仅服务器线程访问
+        private long deadline;
+        private @Nullable RegistryKey<World> world;
+        private @Nullable Slot slot;
+        private @Nullable ScheduledTask prev;
+        private @Nullable ScheduledTask next;
 
         public ScheduledTask(int delayTicks, Runnable action) {
             this.ticksLeft = delayTicks;
             this.action = action;
         }
 
+        /**
+         * Counts down a task that is driven manually instead of through {@link Scheduler#schedule}.
+         *
+         * @return true once the task has run or was cancelled
+         */
         public boolean tick() {
             if (cancelled) return true;
             if (--ticksLeft <= 0) {
@@ -26,18 +54,261 @@ public class Scheduler {
 
         public void cancel() {
             this.cancelled = true;
+            Scheduler.onCancel(this);
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
         }
     }
 
-    private static final CopyOnWriteArrayList<ScheduledTask> TASKS = new CopyOnWriteArrayList<>();
+    private static final int LEVELS = 4;
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+
+    private static final Slot[][] WHEEL = new Slot[LEVELS][SLOTS];
+    // 超出时间轮范围（约 9.7 天）的任务，在最高层转完一圈时重新放置
+    private static final Slot OVERFLOW = new Slot();
+    private static final Map<RegistryKey<World>, Set<ScheduledTask>> BY_WORLD = new HashMap<>();
+    private static final ConcurrentLinkedQueue<ScheduledTask> INBOX = new ConcurrentLinkedQueue<>();
+    private static final List<ScheduledTask> DUE = new ArrayList<>();
+
+    private static long currentTick = 0;
+    private static @Nullable Thread serverThread;
+
+    private static int pendingTasks = 0;
+    private static long executedTasks = 0;
+    private static long cancelledTasks = 0;
+    private static long totalTickNanos = 0;
+    private static long lastTickNanos = 0;
+
+    static {
+        for (Slot[] level : WHEEL) {
+            for (int i = 0; i < SLOTS; i++) {
+                level[i] = new Slot();
+            }
+        }
+    }
 
     public static void init() {
-        ServerTickEvents.END_SERVER_TICK.register(server -> TASKS.removeIf(ScheduledTask::tick));
+        ServerLifecycleEvents.SERVER_STARTING.register(server -> clear());
+        ServerLifecycleEvents.SERVER_STOPPED.register(server -> clear());
+        ServerTickEvents.END_SERVER_TICK.register(server -> tick());
     }
 
     public static ScheduledTask schedule(Runnable action, int delayTicks) {
+        return schedule(null, action, delayTicks);
+    }
+
+    /**
+     * Schedules a task owned by the round running on the given world, cancelled by {@link #cancelRound(World)}.
+     */
+    public static ScheduledTask scheduleForRound(World world, Runnable action, int delayTicks) {
+        return schedule(world, action, delayTicks);
+    }
+
+    private static ScheduledTask schedule(@Nullable World world, Runnable action, int delayTicks) {
         ScheduledTask task = new ScheduledTask(delayTicks, action);
-        TASKS.add(task);
+        task.world = world != null ? world.getRegistryKey() : null;
+        if (Thread.currentThread() == serverThread) {
+            add(task);
+        } else {
+            INBOX.add(task);
+        }
         return task;
     }
+
+    /**
+     * Cancels every pending task scheduled with {@link #scheduleForRound} for the given world.
+     *
+     * @return the number of cancelled tasks
+     */
+    public static int cancelRound(World world) {
+        Set<ScheduledTask> tasks = BY_WORLD.remove(world.getRegistryKey());
+        if (tasks == null) return 0;
+        for (ScheduledTask task : tasks) {
+            task.cancelled = true;
+            if (task.slot != null) {
+                unlink(task);
+                cancelledTasks++;
+            }
+        }
+        return tasks.size();
+    }
+
+    public static int getPendingTasks() {
+        return pendingTasks;
+    }
+
+    public static long getExecutedTasks() {
+        return executedTasks;
+    }
+
+    public static long getCancelledTasks() {
+        return cancelledTasks;
+    }
+
+    /**
+     * @return the total time spent running scheduled tasks and advancing the wheel, in nanoseconds
+     */
+    public static long getTotalTickNanos() {
+        return totalTickNanos;
+    }
+
+    public static long getLastTickNanos() {
+        return lastTickNanos;
+    }
+
+    private static void tick() {
+        long start = System.nanoTime();
+        serverThread = Thread.currentThread();
+
+        ScheduledTask queued;
+        while ((queued = INBOX.poll()) != null) {
+            add(queued);
+        }
+
+        currentTick++;
+        cascade(1);
+
+        // 先整体摘下到期任务，任务执行时取消同一批的其他任务也不会破坏链表
+        ScheduledTask task = WHEEL[0][(int) (currentTick & SLOT_MASK)].takeAll();
+        while (task != null) {
+            ScheduledTask next = task.next;
+            task.prev = task.next = null;
+            task.slot = null;
+            pendingTasks--;
+            removeFromWorld(task);
+            DUE.add(task);
+            task = next;
+        }
+        for (int i = 0; i < DUE.size(); i++) {
+            ScheduledTask dueTask = DUE.get(i);
+            if (dueTask.cancelled) {
+                cancelledTasks++;
+                continue;
+            }
+            executedTasks++;
+            dueTask.action.run();
+        }
+        DUE.clear();
+
+        lastTickNanos = System.nanoTime() - start;
+        totalTickNanos += lastTickNanos;
+    }
+
+    /**
+     * Moves the tasks of the current slot of the given level down, starting with the next level whenever the lower
+     * level has completed a full turn.
+     */
+    private static void cascade(int level) {
+        if (level > LEVELS) return;
+        long index = currentTick >> (SLOT_BITS * (level - 1));
+        if ((index & SLOT_MASK) != 0) return;
+
+        Slot slot = level == LEVELS ? OVERFLOW : WHEEL[level][(int) ((currentTick >> (SLOT_BITS * level)) & SLOT_MASK)];
+        ScheduledTask task = slot.takeAll();
+        while (task != null) {
+            ScheduledTask next = task.next;
+            task.prev = task.next = null;
+            task.slot = null;
+            place(task);
+            task = next;
+        }
+        cascade(level + 1);
+    }
+
+    private static void add(ScheduledTask task) {
+        if (task.cancelled) return;
+        task.deadline = currentTick + Math.max(1, task.ticksLeft);
+        pendingTasks++;
+        if (task.world != null) {
+            BY_WORLD.computeIfAbsent(task.world, key -> new HashSet<>()).add(task);
+        }
+        place(task);
+    }
+
+    private static void place(ScheduledTask task) {
+        long delta = Math.max(0, task.deadline - currentTick);
+        Slot slot = OVERFLOW;
+        for (int level = 0; level < LEVELS; level++) {
+            if (delta < 1L << (SLOT_BITS * (level + 1))) {
+                slot = WHEEL[level][(int) ((task.deadline >> (SLOT_BITS * level)) & SLOT_MASK)];
+                break;
+            }
+        }
+        slot.add(task);
+    }
+
+    private static void onCancel(ScheduledTask task) {
+        if (Thread.currentThread() != serverThread || task.slot == null) return;
+        unlink(task);
+        removeFromWorld(task);
+        cancelledTasks++;
+    }
+
+    private static void unlink(ScheduledTask task) {
+        if (task.slot == null) return;
+        task.slot.remove(task);
+        pendingTasks--;
+    }
+
+    private static void removeFromWorld(ScheduledTask task) {
+        if (task.world == null) return;
+        Set<ScheduledTask> tasks = BY_WORLD.get(task.world);
+        if (tasks != null) {
+            tasks.remove(task);
+            if (tasks.isEmpty()) BY_WORLD.remove(task.world);
+        }
+    }
+
+    private static void clear() {
+        for (Slot[] level : WHEEL) {
+            for (Slot slot : level) {
+                slot.takeAll();
+            }
+        }
+        OVERFLOW.takeAll();
+        BY_WORLD.clear();
+        INBOX.clear();
+        DUE.clear();
+        currentTick = 0;
+        pendingTasks = 0;
+    }
+
+    /**
+     * Intrusive doubly linked list of tasks.
+     */
+    private static final class Slot {
+        private @Nullable ScheduledTask head;
+
+        private void add(ScheduledTask task) {
+            task.slot = this;
+            task.prev = null;
+            task.next = this.head;
+            if (this.head != null) this.head.prev = task;
+            this.head = task;
+        }
+
+        private void remove(ScheduledTask task) {
+            if (task.prev != null) {
+                task.prev.next = task.next;
+            } else {
+                this.head = task.next;
+            }
+            if (task.next != null) task.next.prev = task.prev;
+            task.prev = task.next = null;
+            task.slot = null;
+        }
+
+        /**
+         * @return the first task of the detached list, linked through {@code next}
+         */
+        private @Nullable ScheduledTask takeAll() {
+            ScheduledTask head = this.head;
+            this.head = null;
+            return head;
+        }
+    }
 }
@@ -0,0 +1,116 @@
+package dev.doctor4t.wathe.util;
+
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerTickEvents;
+import net.fabricmc.fabric.api.networking.v1.ServerPlayNetworking;
+import net.minecraft.entity.Entity;
+import net.minecraft.network.listener.ClientPlayPacketListener;
+import net.minecraft.network.packet.CustomPayload;
+import net.minecraft.network.packet.Packet;
+import net.minecraft.network.packet.s2c.play.BundleS2CPacket;
+import net.minecraft.scoreboard.ServerScoreboard;
+import net.minecraft.server.network.ServerPlayerEntity;
+import net.minecraft.world.World;
+import org.jetbrains.annotations.Nullable;
+import org.ladysnake.cca.api.v3.component.ComponentKey;
+import org.ladysnake.cca.api.v3.component.ComponentProvider;
+import org.ladysnake.cca.api.v3.component.sync.AutoSyncedComponent;
+import org.ladysnake.cca.api.v3.component.sync.ComponentPacketWriter;
+
+import java.util.*;
+import java.util.function.Supplier;
+
+/**
+ * Collects component syncs requested during a server tick and sends them at the end of the tick.
+ * <p>
+ * A component marked dirty several times in one tick (e.g. balance, cooldown and stock changes of one purchase) is
+ * written once per recipient, and every recipient receives all of its component updates for the tick in a single
+ * bundle packet. Payload sizes are recorded per component in {@link SyncMetrics}.
+ * <p>
+ * Only touched from the server thread. Calls for client-side providers are ignored, like {@link ComponentKey#sync}.
+ */
+public final class SyncCoalescer {
+    private static final Map<Pending, Supplier<@Nullable ComponentPacketWriter>> PENDING = new LinkedHashMap<>();
+    private static final Map<ServerPlayerEntity, List<Packet<? super ClientPlayPacketListener>>> OUTGOING = new LinkedHashMap<>();
+
+    private SyncCoalescer() {}
+
+    public static void init() {
+        ServerTickEvents.END_SERVER_TICK.register(server -> flush());
+        ServerLifecycleEvents.SERVER_STOPPED.register(server -> PENDING.clear());
+    }
+
+    /**
+     * Schedules a full sync of the component, written with its own {@link AutoSyncedComponent#writeSyncPacket}.
+     */
+    public static void markDirty(ComponentKey<? extends AutoSyncedComponent> key, Object provider) {
+        markDirty(key, provider, () -> null);
+    }
+
+    /**
+     * Schedules a sync written by the writer the factory returns at the end of the tick. The factory runs once per
+     * flush, so components can accumulate what changed until then; returning null falls back to the component's
+     * own {@link AutoSyncedComponent#writeSyncPacket}.
+     */
+    public static void markDirty(ComponentKey<? extends AutoSyncedComponent> key, Object provider, Supplier<@Nullable ComponentPacketWriter> writerFactory) {
+        if (!isServerSide(provider)) return;
+        if (PENDING.put(new Pending(key, provider), writerFactory) != null) {
+            SyncMetrics.recordCoalesced();
+        }
+    }
+
+    private static boolean isServerSide(Object provider) {
+        if (provider instanceof Entity entity) return !entity.getWorld().isClient;
+        if (provider instanceof World world) return !world.isClient;
+        return provider instanceof ServerScoreboard;
+    }
+
+    private static void flush() {
+        if (PENDING.isEmpty()) return;
+        // 写入时组件可能再次标脏（如同步回调），先取出本 tick 的全部请求
+        List<Map.Entry<Pending, Supplier<@Nullable ComponentPacketWriter>>> pending = new ArrayList<>(PENDING.entrySet());
+        PENDING.clear();
+        for (Map.Entry<Pending, Supplier<@Nullable ComponentPacketWriter>> entry : pending) {
+            collect(entry.getKey().key(), (ComponentProvider) entry.getKey().provider(), entry.getValue().get());
+        }
+
+        for (Map.Entry<ServerPlayerEntity, List<Packet<? super ClientPlayPacketListener>>> entry : OUTGOING.entrySet()) {
+            List<Packet<? super ClientPlayPacketListener>> packets = entry.getValue();
+            if (packets.size() == 1) {
+                entry.getKey().networkHandler.sendPacket(packets.get(0));
+            } else {
+                entry.getKey().networkHandler.sendPacket(new BundleS2CPacket(packets));
+                SyncMetrics.recordBundle(packets.size());
+            }
+        }
+        OUTGOING.clear();
+    }
+
+    private static <C extends AutoSyncedComponent> void collect(ComponentKey<C> key, ComponentProvider provider, @Nullable ComponentPacketWriter writer) {
+        C component = key.getNullable(provider);
+        if (component == null) return;
+        ComponentPacketWriter base = writer != null ? writer : component::writeSyncPacket;
+        ComponentPacketWriter measured = (buf, recipient) -> {
+            int start = buf.writerIndex();
+            base.writeSyncPacket(buf, recipient);
+            SyncMetrics.record(key.getId(), buf.writerIndex() - start);
+        };
+        for (ServerPlayerEntity recipient : provider.getRecipientsForComponentSync()) {
+            if (!component.shouldSyncWith(recipient)) continue;
+            Packet<? super ClientPlayPacketListener> packet = toPacket(provider.toComponentPacket(key, measured, recipient));
+            if (packet != null) {
+                OUTGOING.computeIfAbsent(recipient, player -> new ArrayList<>()).add(packet);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static @Nullable Packet<? super ClientPlayPacketListener> toPacket(@Nullable Object packet) {
+        if (packet instanceof Packet<?> ready) return (Packet<? super ClientPlayPacketListener>) ready;
+        if (packet instanceof CustomPayload payload) return ServerPlayNetworking.createS2CPacket(payload);
+        return null;
+    }
+
+    private record Pending(ComponentKey<? extends AutoSyncedComponent> key, Object provider) {
+    }
+}
@@ -0,0 +1,102 @@
+package dev.doctor4t.wathe.util;
+
+import net.minecraft.util.Identifier;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Counts component sync packets and payload bytes per component, for the {@code /wathe:debug sync} report.
+ * Also counts what {@link SyncCoalescer} saved: syncs merged into an already pending one, and bundles sent.
+ * Only touched from the server thread.
+ */
+public final class SyncMetrics {
+    private static final Map<Identifier, Counter> COUNTERS = new LinkedHashMap<>();
+    private static long coalesced;
+    private static long bundles;
+    private static long bundledPackets;
+
+    private SyncMetrics() {}
+
+    public static void record(Identifier component, int bytes) {
+        COUNTERS.computeIfAbsent(component, id -> new Counter()).record(bytes);
+    }
+
+    static void recordCoalesced() {
+        coalesced++;
+    }
+
+    static void recordBundle(int packets) {
+        bundles++;
+        bundledPackets += packets;
+    }
+
+    public static Map<Identifier, Counter> getCounters() {
+        return Collections.unmodifiableMap(COUNTERS);
+    }
+
+    /**
+     * @return sync requests that were merged into a sync already pending for the same tick
+     */
+    public static long getCoalesced() {
+        return coalesced;
+    }
+
+    public static long getBundles() {
+        return bundles;
+    }
+
+    public static long getBundledPackets() {
+        return bundledPackets;
+    }
+
+    public static void reset() {
+        COUNTERS.clear();
+        coalesced = 0;
+        bundles = 0;
+        bundledPackets = 0;
+    }
+
+    public static final class Counter {
+        private static final long WINDOW_MS = 1000;
+
+        private long packets;
+        private long bytes;
+        private long windowStart = System.currentTimeMillis();
+        private long windowBytes;
+        private long bytesPerSecond;
+
+        private void record(int bytes) {
+            roll(System.currentTimeMillis());
+            this.packets++;
+            this.bytes += bytes;
+            this.windowBytes += bytes;
+        }
+
+        private void roll(long now) {
+            long elapsed = now - this.windowStart;
+            if (elapsed < WINDOW_MS) return;
+            // 超过两个窗口没有数据时速率归零
+            this.bytesPerSecond = elapsed < WINDOW_MS * 2 ? this.windowBytes * 1000 / elapsed : 0;
+            this.windowBytes = 0;
+            this.windowStart = now;
+        }
+
+        public long getPackets() {
+            return this.packets;
+        }
+
+        public long getBytes() {
+            return this.bytes;
+        }
+
+        /**
+         * @return bytes sent during the last completed one-second window
+         */
+        public long getBytesPerSecond() {
+            roll(System.currentTimeMillis());
+            return this.bytesPerSecond;
+        }
+    }
+}
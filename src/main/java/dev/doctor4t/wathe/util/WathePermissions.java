@@ -18,6 +18,7 @@ public final class WathePermissions {
     public static final String COMMAND_START = "wathe.command.start";
     public static final String COMMAND_STOP = "wathe.command.stop";
     public static final String COMMAND_UPDATE_DOORS = "wathe.command.updatedoors";
+    public static final String COMMAND_DEBUG = "wathe.command.debug";
 
     // Gameplay permissions (wathe.admin.* — default: op level 2)
     public static final String ADMIN_HORN_COOLDOWN = "wathe.admin.horn_cooldown";       // 按喇叭跳过冷却
@@ -0,0 +1,138 @@
+package dev.doctor4t.wathe.client.particle;
+
+import dev.doctor4t.wathe.config.datapack.MapEnhancementsConfiguration.SnowParticlesConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SnowSpawnerTest {
+    private static final SnowSpawner.Sink NO_SINK = (x, y, z, velocityX, velocityY, velocityZ) -> {
+    };
+    // 地面远低于生成位置，每次尝试都会生成
+    private static final SnowSpawner.HeightSource OPEN_SKY = (x, z) -> -1000;
+    // 生成范围为 0 时每次尝试都落在同一列
+    private static final SnowParticlesConfig SINGLE_COLUMN = new SnowParticlesConfig(1, 0f, 0f, 0f, 8000);
+
+    private SnowSpawner spawner;
+    private int heightCalls;
+
+    @BeforeEach
+    void setUp() {
+        this.spawner = new SnowSpawner(new Random(42));
+        this.heightCalls = 0;
+    }
+
+    private int tick(SnowSpawner.HeightSource heights, SnowParticlesConfig config, int chance) {
+        return this.spawner.tick(heights, NO_SINK, config, chance, 0, 64, 0, 0, 0, 0);
+    }
+
+    private int countingHeight(int x, int z) {
+        this.heightCalls++;
+        return 0;
+    }
+
+    @Test
+    void spawnsCountScaledByChance() {
+        SnowParticlesConfig config = new SnowParticlesConfig(200, -20f, 10f, 10f, 8000);
+        assertEquals(100, this.tick(OPEN_SKY, config, 50));
+        assertEquals(200, this.tick(OPEN_SKY, config, 100));
+        assertEquals(300, this.spawner.getRecentSpawns());
+    }
+
+    @Test
+    void budgetCapsLiveParticles() {
+        SnowParticlesConfig config = new SnowParticlesConfig(200, -20f, 10f, 10f, 500);
+        assertEquals(200, this.tick(OPEN_SKY, config, 100));
+        assertEquals(200, this.tick(OPEN_SKY, config, 100));
+        assertEquals(100, this.tick(OPEN_SKY, config, 100));
+        assertEquals(0, this.tick(OPEN_SKY, config, 100));
+        assertEquals(500, this.spawner.getRecentSpawns());
+    }
+
+    @Test
+    void budgetFreesUpOnceParticlesExpire() {
+        SnowParticlesConfig config = new SnowParticlesConfig(200, -20f, 10f, 10f, 200);
+        assertEquals(200, this.tick(OPEN_SKY, config, 100));
+        for (int i = 1; i < SnowSpawner.LIFETIME_TICKS; i++) {
+            assertEquals(0, this.tick(OPEN_SKY, config, 100));
+        }
+        // 第一批雪花的生成记录滑出窗口
+        assertEquals(200, this.tick(OPEN_SKY, config, 100));
+    }
+
+    @Test
+    void clearHistoryResetsTheBudget() {
+        SnowParticlesConfig config = new SnowParticlesConfig(200, -20f, 10f, 10f, 200);
+        this.tick(OPEN_SKY, config, 100);
+        this.spawner.clearHistory();
+        assertEquals(0, this.spawner.getRecentSpawns());
+        assertEquals(200, this.tick(OPEN_SKY, config, 100));
+    }
+
+    @Test
+    void noSpawnsBelowTheGround() {
+        assertEquals(0, this.tick((x, z) -> 1000, SINGLE_COLUMN, 100));
+    }
+
+    @Test
+    void heightIsCachedUntilTtlExpires() {
+        for (int i = 0; i < SnowSpawner.HEIGHT_TTL; i++) {
+            this.tick(this::countingHeight, SINGLE_COLUMN, 100);
+        }
+        assertEquals(1, this.heightCalls);
+        assertEquals(SnowSpawner.HEIGHT_TTL, this.spawner.getHeightLookups());
+        assertEquals(1, this.spawner.getHeightMisses());
+
+        this.tick(this::countingHeight, SINGLE_COLUMN, 100);
+        assertEquals(2, this.heightCalls);
+    }
+
+    @Test
+    void invalidateHeightsForcesLookup() {
+        this.tick(this::countingHeight, SINGLE_COLUMN, 100);
+        this.tick(this::countingHeight, SINGLE_COLUMN, 100);
+        assertEquals(1, this.heightCalls);
+        this.spawner.invalidateHeights();
+        this.tick(this::countingHeight, SINGLE_COLUMN, 100);
+        assertEquals(2, this.heightCalls);
+    }
+
+    @Test
+    void slowFramesScaleDownToMinimum() {
+        this.spawner.updateFrameTime(50f);
+        assertEquals(.9f, this.spawner.getScale(), 1e-6f);
+        SnowParticlesConfig config = new SnowParticlesConfig(100, -20f, 10f, 10f, 8000);
+        assertEquals(90, this.tick(OPEN_SKY, config, 100));
+
+        for (int i = 0; i < 100; i++) {
+            this.spawner.updateFrameTime(50f);
+        }
+        assertEquals(.1f, this.spawner.getScale(), 1e-6f);
+        assertEquals(10, this.tick(OPEN_SKY, config, 100));
+    }
+
+    @Test
+    void fastFramesRecoverSlowly() {
+        for (int i = 0; i < 10; i++) {
+            this.spawner.updateFrameTime(50f);
+        }
+        float reduced = this.spawner.getScale();
+        this.spawner.updateFrameTime(10f);
+        assertEquals(reduced + .02f, this.spawner.getScale(), 1e-6f);
+        for (int i = 0; i < 100; i++) {
+            this.spawner.updateFrameTime(10f);
+        }
+        assertEquals(1f, this.spawner.getScale(), 1e-6f);
+    }
+
+    @Test
+    void framesBetweenThresholdsKeepTheScale() {
+        this.spawner.updateFrameTime(50f);
+        float scale = this.spawner.getScale();
+        this.spawner.updateFrameTime(25f);
+        assertEquals(scale, this.spawner.getScale(), 1e-6f);
+    }
+}
@@ -0,0 +1,138 @@
+package dev.doctor4t.wathe.client.render;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SceneryTileTableTest {
+    private static final float HALF = SceneryTileTable.TILE_SIZE / 2f;
+
+    private SceneryTileTable<String> table;
+
+    @BeforeEach
+    void setUp() {
+        this.table = new SceneryTileTable<>();
+        this.table.setCameraSectionZ(0);
+    }
+
+    @Test
+    void bandSwitchesEightSectionsFromTheCamera() {
+        assertEquals(-1, SceneryTileTable.getBand(-9));
+        assertEquals(-1, SceneryTileTable.getBand(-8));
+        assertEquals(0, SceneryTileTable.getBand(-7));
+        assertEquals(0, SceneryTileTable.getBand(0));
+        assertEquals(0, SceneryTileTable.getBand(7));
+        assertEquals(1, SceneryTileTable.getBand(8));
+        assertEquals(1, SceneryTileTable.getBand(20));
+    }
+
+    @Test
+    void offsetXKeepsTilesAroundTheCamera() {
+        for (float distance = 0; distance < SceneryTileTable.TILE_SIZE * 3; distance += 37.5f) {
+            float relative = 100 - 20f;
+            float virtual = relative + SceneryTileTable.getOffsetX(100, 20f, distance, HALF);
+            assertTrue(virtual >= -HALF && virtual < HALF, "distance " + distance + " put the tile at " + virtual);
+        }
+    }
+
+    @Test
+    void offsetXWrapsAroundAfterOneTileLength() {
+        float before = SceneryTileTable.getOffsetX(0, 0f, SceneryTileTable.TILE_SIZE - 1, HALF);
+        float after = SceneryTileTable.getOffsetX(0, 0f, SceneryTileTable.TILE_SIZE, HALF);
+        assertEquals(HALF - 1, before, 1e-3f);
+        // 走完一整个循环后回到相机后方
+        assertEquals(-HALF, after, 1e-3f);
+        assertEquals(SceneryTileTable.getOffsetX(0, 0f, 250f, HALF),
+                SceneryTileTable.getOffsetX(0, 0f, 250f + SceneryTileTable.TILE_SIZE, HALF), 1e-3f);
+    }
+
+    @Test
+    void addComputesDerivedColumns() {
+        this.table.setHeight(12);
+        this.table.add(1L, 0, 64, 0, "near");
+        this.table.add(2L, 0, 64, 8 * SceneryTileTable.SECTION_SIZE, "ahead");
+        this.table.add(3L, 0, 64, -8 * SceneryTileTable.SECTION_SIZE, "behind");
+
+        assertEquals(0, this.table.getOffsetZ(this.table.indexOf(1L)));
+        assertEquals(-SceneryTileTable.TILE_WIDTH, this.table.getOffsetZ(this.table.indexOf(2L)));
+        assertEquals(SceneryTileTable.TILE_WIDTH, this.table.getOffsetZ(this.table.indexOf(3L)));
+        assertEquals(76, this.table.getVirtualOriginY(this.table.indexOf(1L)));
+    }
+
+    @Test
+    void cameraMoveRecomputesBands() {
+        this.table.add(1L, 0, 64, 8 * SceneryTileTable.SECTION_SIZE, "a");
+        assertEquals(-SceneryTileTable.TILE_WIDTH, this.table.getOffsetZ(0));
+        this.table.setCameraSectionZ(4);
+        assertEquals(0, this.table.getOffsetZ(0));
+    }
+
+    @Test
+    void updateXShiftsAdjacentBandsByATileLength() {
+        this.table.add(1L, 0, 64, 0, "near");
+        this.table.add(2L, 0, 64, 8 * SceneryTileTable.SECTION_SIZE, "ahead");
+        this.table.updateX(100f, 0f);
+        int center = SceneryTileTable.SECTION_SIZE / 2;
+        assertEquals(SceneryTileTable.getOffsetX(center, 0f, 100f, HALF), this.table.getOffsetX(0), 1e-3f);
+        assertEquals(SceneryTileTable.getOffsetX(center, 0f, 100f + SceneryTileTable.TILE_LENGTH, HALF), this.table.getOffsetX(1), 1e-3f);
+    }
+
+    @Test
+    void removeSwapsTheLastEntryIntoTheGap() {
+        this.table.add(1L, 0, 64, 0, "a");
+        this.table.add(2L, 16, 64, 0, "b");
+        this.table.add(3L, 32, 64, 8 * SceneryTileTable.SECTION_SIZE, "c");
+        this.table.updateX(10f, 0f);
+        float offsetXOfLast = this.table.getOffsetX(2);
+
+        this.table.remove(1L);
+        assertEquals(2, this.table.size());
+        assertEquals(-1, this.table.indexOf(1L));
+        assertEquals(0, this.table.indexOf(3L));
+        assertEquals("c", this.table.getPayload(0));
+        assertEquals(32 + offsetXOfLast, this.table.getVirtualOriginX(0), 1e-3f);
+        assertEquals(-SceneryTileTable.TILE_WIDTH, this.table.getOffsetZ(0));
+        assertEquals(1, this.table.indexOf(2L));
+        assertEquals("b", this.table.getPayload(1));
+    }
+
+    @Test
+    void removingTheLastEntryOrAnUnknownKey() {
+        this.table.add(1L, 0, 64, 0, "a");
+        this.table.add(2L, 16, 64, 0, "b");
+        this.table.remove(2L);
+        this.table.remove(42L);
+        assertEquals(1, this.table.size());
+        assertEquals(0, this.table.indexOf(1L));
+    }
+
+    @Test
+    void addingAnExistingKeyUpdatesInPlace() {
+        this.table.add(1L, 0, 64, 0, "a");
+        this.table.add(2L, 16, 64, 0, "b");
+        this.table.add(1L, 48, 64, 0, "a2");
+        assertEquals(2, this.table.size());
+        assertEquals(0, this.table.indexOf(1L));
+        assertEquals("a2", this.table.getPayload(0));
+    }
+
+    @Test
+    void growsAndStaysCompactedAcrossManyEdits() {
+        for (long key = 0; key < 200; key++) {
+            this.table.add(key, (int) key * 16, 64, 0, "t" + key);
+        }
+        for (long key = 0; key < 200; key += 2) {
+            this.table.remove(key);
+        }
+        assertEquals(100, this.table.size());
+        for (long key = 1; key < 200; key += 2) {
+            int index = this.table.indexOf(key);
+            assertTrue(index >= 0 && index < 100);
+            assertEquals("t" + key, this.table.getPayload(index));
+        }
+        this.table.clear();
+        assertEquals(0, this.table.size());
+        assertEquals(-1, this.table.indexOf(1L));
+    }
+}
@@ -0,0 +1,102 @@
+package dev.doctor4t.wathe.client.skin;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SkinAtlasPackerTest {
+    @Test
+    void roundsRequestsUpToPowerOfTwoCells() {
+        SkinAtlasPacker packer = new SkinAtlasPacker(256, 16);
+        SkinAtlasPacker.Region region = packer.allocate(40, 20);
+        assertNotNull(region);
+        assertEquals(64, region.size());
+        assertEquals(16, packer.allocate(1, 1).size());
+        assertEquals(64 * 64 + 16 * 16, packer.getUsedArea());
+    }
+
+    @Test
+    void rejectsInvalidSizes() {
+        assertThrows(IllegalArgumentException.class, () -> new SkinAtlasPacker(100, 16));
+        assertThrows(IllegalArgumentException.class, () -> new SkinAtlasPacker(64, 128));
+        assertNull(new SkinAtlasPacker(64, 16).allocate(65, 65));
+    }
+
+    @Test
+    void fillsTheAtlasWithoutOverlap() {
+        SkinAtlasPacker packer = new SkinAtlasPacker(128, 32);
+        Set<Long> cells = new HashSet<>();
+        for (int i = 0; i < 16; i++) {
+            SkinAtlasPacker.Region region = packer.allocate(32, 32);
+            assertNotNull(region);
+            assertTrue(region.x() + region.size() <= 128 && region.y() + region.size() <= 128);
+            assertTrue(cells.add(((long) region.x() << 32) | region.y()), "cell handed out twice: " + region);
+        }
+        assertNull(packer.allocate(32, 32));
+        assertEquals(128 * 128, packer.getUsedArea());
+    }
+
+    @Test
+    void freedCellIsReused() {
+        SkinAtlasPacker packer = new SkinAtlasPacker(64, 32);
+        List<SkinAtlasPacker.Region> regions = new ArrayList<>();
+        for (int i = 0; i < 4; i++) regions.add(packer.allocate(32, 32));
+        assertNull(packer.allocate(32, 32));
+
+        packer.free(regions.get(2));
+        assertEquals(3, packer.getAllocations());
+        assertEquals(regions.get(2), packer.allocate(32, 32));
+    }
+
+    @Test
+    void freeingAllQuartersMergesThemBack() {
+        SkinAtlasPacker packer = new SkinAtlasPacker(64, 16);
+        List<SkinAtlasPacker.Region> regions = new ArrayList<>();
+        for (int i = 0; i < 4; i++) regions.add(packer.allocate(32, 32));
+        // 整张图集都被拆分占用时，整格请求失败
+        assertNull(packer.allocate(64, 64));
+
+        for (SkinAtlasPacker.Region region : regions) packer.free(region);
+        assertEquals(0, packer.getUsedArea());
+        assertEquals(new SkinAtlasPacker.Region(0, 0, 64), packer.allocate(64, 64));
+    }
+
+    @Test
+    void partiallyFreedSiblingsDoNotMerge() {
+        SkinAtlasPacker packer = new SkinAtlasPacker(64, 16);
+        List<SkinAtlasPacker.Region> regions = new ArrayList<>();
+        for (int i = 0; i < 4; i++) regions.add(packer.allocate(32, 32));
+        packer.free(regions.get(0));
+        packer.free(regions.get(1));
+        packer.free(regions.get(2));
+        assertNull(packer.allocate(64, 64));
+        // 空出的格子仍可以拆分成更小的格子
+        assertNotNull(packer.allocate(16, 16));
+    }
+
+    @Test
+    void freeingUnknownOrTwiceIsIgnored() {
+        SkinAtlasPacker packer = new SkinAtlasPacker(64, 16);
+        SkinAtlasPacker.Region region = packer.allocate(16, 16);
+        packer.free(new SkinAtlasPacker.Region(48, 48, 16));
+        packer.free(region);
+        packer.free(region);
+        assertEquals(0, packer.getAllocations());
+        assertEquals(0, packer.getUsedArea());
+    }
+
+    @Test
+    void clearReleasesEverything() {
+        SkinAtlasPacker packer = new SkinAtlasPacker(64, 16);
+        packer.allocate(32, 32);
+        packer.allocate(16, 16);
+        packer.clear();
+        assertEquals(0, packer.getAllocations());
+        assertEquals(new SkinAtlasPacker.Region(0, 0, 64), packer.allocate(64, 64));
+    }
+}
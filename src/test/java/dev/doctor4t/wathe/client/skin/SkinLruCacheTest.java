@@ -0,0 +1,92 @@
+package dev.doctor4t.wathe.client.skin;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SkinLruCacheTest {
+    private List<String> evicted;
+    private SkinLruCache<String, String> cache;
+
+    @BeforeEach
+    void setUp() {
+        this.evicted = new ArrayList<>();
+        this.cache = new SkinLruCache<>(100, (key, value) -> this.evicted.add(key));
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedPastBudget() {
+        this.cache.put("a", "A", 40);
+        this.cache.put("b", "B", 40);
+        this.cache.put("c", "C", 40);
+        assertEquals(List.of("a"), this.evicted);
+        assertEquals(80, this.cache.getUsedBytes());
+        assertFalse(this.cache.contains("a"));
+        assertEquals(1, this.cache.getEvictions());
+    }
+
+    @Test
+    void getRefreshesRecency() {
+        this.cache.put("a", "A", 40);
+        this.cache.put("b", "B", 40);
+        assertEquals("A", this.cache.get("a"));
+        this.cache.put("c", "C", 40);
+        assertEquals(List.of("b"), this.evicted);
+        assertTrue(this.cache.contains("a"));
+    }
+
+    @Test
+    void peekDoesNotRefreshRecency() {
+        this.cache.put("a", "A", 40);
+        this.cache.put("b", "B", 40);
+        assertEquals("A", this.cache.peek("a"));
+        this.cache.put("c", "C", 40);
+        assertEquals(List.of("a"), this.evicted);
+    }
+
+    @Test
+    void keepsAnOversizedEntryJustInserted() {
+        this.cache.put("a", "A", 40);
+        this.cache.put("huge", "H", 150);
+        assertEquals(List.of("a"), this.evicted);
+        assertTrue(this.cache.contains("huge"));
+        assertEquals(150, this.cache.getUsedBytes());
+    }
+
+    @Test
+    void replacingAnEntryReleasesTheOldValue() {
+        this.cache.put("a", "A", 40);
+        this.cache.put("a", "A2", 60);
+        assertEquals(List.of("a"), this.evicted);
+        assertEquals(60, this.cache.getUsedBytes());
+        assertEquals(1, this.cache.size());
+        // 替换不算淘汰
+        assertEquals(0, this.cache.getEvictions());
+    }
+
+    @Test
+    void shrinkingTheBudgetEvictsImmediately() {
+        this.cache.put("a", "A", 30);
+        this.cache.put("b", "B", 30);
+        this.cache.put("c", "C", 30);
+        this.cache.setBudget(50);
+        assertEquals(List.of("a", "b"), this.evicted);
+        assertEquals(30, this.cache.getUsedBytes());
+    }
+
+    @Test
+    void removeAndClearReleaseEverything() {
+        this.cache.put("a", "A", 30);
+        this.cache.put("b", "B", 30);
+        assertTrue(this.cache.remove("a"));
+        assertFalse(this.cache.remove("a"));
+        this.cache.clear();
+        assertEquals(List.of("a", "b"), this.evicted);
+        assertEquals(0, this.cache.getUsedBytes());
+        assertEquals(0, this.cache.size());
+    }
+}
@@ -0,0 +1,203 @@
+package dev.doctor4t.wathe.game;
+
+import dev.doctor4t.wathe.api.Faction;
+import dev.doctor4t.wathe.api.Role;
+import dev.doctor4t.wathe.api.WatheRoles;
+import net.minecraft.util.Identifier;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Replays round event sequences against {@link WinConditionTracker} and checks the alive counters and the base win
+ * status after each step.
+ */
+class WinConditionTrackerTest {
+    private static final Role CIVILIAN = new Role(Identifier.of("wathe_test", "civilian"), 0, true, false, Role.MoodType.REAL, -1, false);
+    private static final Role KILLER = new Role(Identifier.of("wathe_test", "killer"), 0, false, true, Role.MoodType.FAKE, -1, true);
+    private static final Role NEUTRAL = new Role(Identifier.of("wathe_test", "neutral"), 0, false, false, Role.MoodType.NONE, -1, false);
+
+    private WinConditionTracker tracker;
+    private List<UUID> players;
+
+    @BeforeEach
+    void setUp() {
+        this.tracker = new WinConditionTracker();
+        this.players = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            this.players.add(UUID.randomUUID());
+        }
+    }
+
+    /**
+     * Assigns two killers, one neutral and five civilians, in that order.
+     */
+    private void assignDefaultRoles() {
+        for (int i = 0; i < this.players.size(); i++) {
+            Role role = i < 2 ? KILLER : i == 2 ? NEUTRAL : CIVILIAN;
+            this.tracker.onRoleAssigned(this.players.get(i), role);
+        }
+    }
+
+    private void kill(int... indices) {
+        for (int index : indices) {
+            this.tracker.onPlayerEliminated(this.players.get(index));
+        }
+    }
+
+    @Test
+    void countsRolesPerFaction() {
+        this.assignDefaultRoles();
+        assertEquals(2, this.tracker.getAliveCount(Faction.KILLER));
+        assertEquals(5, this.tracker.getAliveCount(Faction.CIVILIAN));
+        assertEquals(1, this.tracker.getAliveCount(Faction.NEUTRAL));
+        assertEquals(5, this.tracker.getAliveInnocents());
+        assertEquals(2, this.tracker.getAliveKillerTeam());
+        assertEquals(GameFunctions.WinStatus.NONE, this.tracker.evaluate(false));
+    }
+
+    @Test
+    void killersWinOnceEveryCivilianIsDead() {
+        this.assignDefaultRoles();
+        this.kill(3, 4, 5, 6);
+        assertEquals(GameFunctions.WinStatus.NONE, this.tracker.evaluate(false));
+        this.kill(7);
+        assertEquals(0, this.tracker.getAliveInnocents());
+        assertEquals(GameFunctions.WinStatus.KILLERS, this.tracker.evaluate(false));
+    }
+
+    @Test
+    void passengersWinOnceEveryKillerIsDead() {
+        this.assignDefaultRoles();
+        this.kill(0, 5);
+        assertEquals(GameFunctions.WinStatus.NONE, this.tracker.evaluate(false));
+        this.kill(1);
+        assertEquals(GameFunctions.WinStatus.PASSENGERS, this.tracker.evaluate(false));
+    }
+
+    @Test
+    void neutralDeathsDoNotDecideTheRound() {
+        this.assignDefaultRoles();
+        this.kill(2);
+        assertEquals(0, this.tracker.getAliveCount(Faction.NEUTRAL));
+        assertEquals(GameFunctions.WinStatus.NONE, this.tracker.evaluate(false));
+    }
+
+    @Test
+    void repeatedEliminationIsIgnored() {
+        this.assignDefaultRoles();
+        // 死亡后断线会再次上报同一个玩家
+        this.kill(0, 0, 0);
+        assertEquals(1, this.tracker.getAliveKillerTeam());
+        assertEquals(GameFunctions.WinStatus.NONE, this.tracker.evaluate(false));
+    }
+
+    @Test
+    void disconnectCountsAsElimination() {
+        this.assignDefaultRoles();
+        // 断线和死亡走同一个入口
+        this.kill(1);
+        this.kill(0);
+        assertEquals(GameFunctions.WinStatus.PASSENGERS, this.tracker.evaluate(false));
+    }
+
+    @Test
+    void reassignmentMovesThePlayerBetweenFactions() {
+        this.assignDefaultRoles();
+        this.tracker.onRoleAssigned(this.players.get(3), KILLER);
+        assertEquals(3, this.tracker.getAliveKillerTeam());
+        assertEquals(4, this.tracker.getAliveInnocents());
+
+        this.kill(0, 1);
+        assertEquals(GameFunctions.WinStatus.NONE, this.tracker.evaluate(false));
+        this.kill(3);
+        assertEquals(GameFunctions.WinStatus.PASSENGERS, this.tracker.evaluate(false));
+    }
+
+    @Test
+    void reassignmentToNoRoleRemovesThePlayer() {
+        this.assignDefaultRoles();
+        this.tracker.onRoleAssigned(this.players.get(0), WatheRoles.NO_ROLE);
+        this.tracker.onRoleAssigned(this.players.get(1), null);
+        assertEquals(0, this.tracker.getAliveKillerTeam());
+        assertEquals(GameFunctions.WinStatus.PASSENGERS, this.tracker.evaluate(false));
+    }
+
+    @Test
+    void reassigningTheSameRoleDoesNotCountTwice() {
+        this.assignDefaultRoles();
+        this.tracker.onRoleAssigned(this.players.get(0), KILLER);
+        assertEquals(2, this.tracker.getAliveKillerTeam());
+    }
+
+    @Test
+    void absentPlayersAreNotCounted() {
+        this.assignDefaultRoles();
+        // 换维度或切到旁观/创造
+        this.tracker.setPresent(this.players.get(0), false);
+        this.tracker.setPresent(this.players.get(1), false);
+        assertEquals(0, this.tracker.getAliveKillerTeam());
+        assertEquals(GameFunctions.WinStatus.PASSENGERS, this.tracker.evaluate(false));
+
+        this.tracker.setPresent(this.players.get(1), true);
+        assertEquals(1, this.tracker.getAliveKillerTeam());
+        assertEquals(GameFunctions.WinStatus.NONE, this.tracker.evaluate(false));
+    }
+
+    @Test
+    void presenceChangesAreIdempotent() {
+        this.assignDefaultRoles();
+        this.tracker.setPresent(this.players.get(3), false);
+        this.tracker.setPresent(this.players.get(3), false);
+        assertEquals(4, this.tracker.getAliveInnocents());
+        this.tracker.setPresent(this.players.get(3), true);
+        this.tracker.setPresent(this.players.get(3), true);
+        this.tracker.setPresent(this.players.get(4), true);
+        assertEquals(5, this.tracker.getAliveInnocents());
+    }
+
+    @Test
+    void absentPlayerDyingOrGettingARoleKeepsCountersConsistent() {
+        this.assignDefaultRoles();
+        this.tracker.setPresent(this.players.get(0), false);
+        this.kill(0);
+        this.tracker.setPresent(this.players.get(0), true);
+        assertEquals(1, this.tracker.getAliveKillerTeam());
+
+        this.tracker.setPresent(this.players.get(3), false);
+        this.tracker.onRoleAssigned(this.players.get(3), KILLER);
+        assertEquals(1, this.tracker.getAliveKillerTeam());
+        assertEquals(4, this.tracker.getAliveInnocents());
+        this.tracker.setPresent(this.players.get(3), true);
+        assertEquals(2, this.tracker.getAliveKillerTeam());
+    }
+
+    @Test
+    void timerExpiryOverridesCounters() {
+        this.assignDefaultRoles();
+        assertEquals(GameFunctions.WinStatus.TIME, this.tracker.evaluate(true));
+        // 状态缓存不能在计时器状态改变后继续返回旧结果
+        assertEquals(GameFunctions.WinStatus.NONE, this.tracker.evaluate(false));
+        this.kill(0, 1);
+        assertEquals(GameFunctions.WinStatus.TIME, this.tracker.evaluate(true));
+        assertEquals(GameFunctions.WinStatus.PASSENGERS, this.tracker.evaluate(false));
+    }
+
+    @Test
+    void resetClearsEveryCounter() {
+        this.assignDefaultRoles();
+        this.kill(0);
+        this.tracker.evaluate(true);
+        this.tracker.reset();
+        assertEquals(0, this.tracker.getAliveInnocents());
+        assertEquals(0, this.tracker.getAliveKillerTeam());
+        assertEquals(0, this.tracker.getAliveCount(Faction.KILLER));
+        // 空名单：没有平民也没有杀手，按原逻辑判杀手胜
+        assertEquals(GameFunctions.WinStatus.KILLERS, this.tracker.evaluate(false));
+    }
+}